@@ -0,0 +1,166 @@
+/*
+ * ApplicationInsights-Java
+ * Copyright (c) Microsoft Corporation
+ * All rights reserved.
+ *
+ * MIT License
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the ""Software""), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package com.microsoft.applicationinsights.internal.logger;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Writes the messages of the internal logger on a background thread.
+ *
+ * Logging threads only capture the arguments of their calls into a bounded ring buffer, and the background
+ * thread formats them and writes them to the output. When the buffer is full the messages are dropped and
+ * counted, and the number of dropped messages is written at most once every {@link #REPORT_INTERVAL_IN_MILLIS}.
+ * Since the arguments are formatted later, mutable arguments may be logged with a later state.
+ */
+final class AsyncLogWriter {
+    public static final int DEFAULT_BUFFER_SIZE = 8192;
+
+    private static final long POLL_INTERVAL_IN_MILLIS = 100;
+
+    /// The dropped messages are reported on this interval even if the buffer is never drained
+    private static final long REPORT_INTERVAL_IN_MILLIS = 1000;
+
+    private static final class LogEvent {
+        private final String prefix;
+        private final long timeInMillis;
+        private final long threadId;
+        private final String threadName;
+        private final String message;
+        private final Object[] args;
+
+        private LogEvent(String prefix, String message, Object[] args) {
+            Thread thread = Thread.currentThread();
+            this.prefix = prefix;
+            this.timeInMillis = System.currentTimeMillis();
+            this.threadId = thread.getId();
+            this.threadName = thread.getName();
+            this.message = message;
+            this.args = args;
+        }
+    }
+
+    private final LoggerOutput output;
+    private final BlockingQueue<LogEvent> buffer;
+    private final Thread writerThread;
+
+    /// Dropped since the last report
+    private final AtomicLong droppedSinceReport = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+
+    private volatile boolean closing;
+
+    AsyncLogWriter(LoggerOutput output, int bufferSize) {
+        this.output = output;
+        this.buffer = new ArrayBlockingQueue<LogEvent>(bufferSize);
+        this.writerThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                writeLoop();
+            }
+        }, "ApplicationInsights-InternalLogger");
+        this.writerThread.setDaemon(true);
+        this.writerThread.start();
+    }
+
+    /**
+     * Never blocks, the message is dropped if the buffer is full.
+     * @return false if the writer is closed and the message was not taken, the caller should write it by itself
+     */
+    boolean log(String prefix, String message, Object... args) {
+        if (closing) {
+            return false;
+        }
+
+        LogEvent event = new LogEvent(prefix, message, args);
+        if (!buffer.offer(event)) {
+            dropped.incrementAndGet();
+            droppedSinceReport.incrementAndGet();
+            return true;
+        }
+
+        // The writer might have seen an empty buffer and exited right before the offer,
+        // in that case the event is still in the buffer and is handed back to the caller
+        return !closing || !buffer.remove(event);
+    }
+
+    long getDroppedCount() {
+        return dropped.get();
+    }
+
+    /**
+     * Stops accepting messages and waits for the ones in the buffer to be written, the output is not closed.
+     * @return true if the writer has finished, false if the timeout elapsed while it is still writing
+     */
+    boolean close(long timeout, TimeUnit timeUnit) throws InterruptedException {
+        closing = true;
+        writerThread.join(timeUnit.toMillis(timeout));
+        return !writerThread.isAlive();
+    }
+
+    private void writeLoop() {
+        long lastReportTimeInMillis = System.currentTimeMillis();
+        while (true) {
+            LogEvent event;
+            try {
+                event = buffer.poll(POLL_INTERVAL_IN_MILLIS, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                return;
+            }
+
+            if (event != null) {
+                write(event);
+            }
+
+            long now = System.currentTimeMillis();
+            if (event == null || now - lastReportTimeInMillis >= REPORT_INTERVAL_IN_MILLIS) {
+                reportDropped();
+                lastReportTimeInMillis = now;
+            }
+
+            if (event == null && closing && buffer.isEmpty()) {
+                return;
+            }
+        }
+    }
+
+    private void write(LogEvent event) {
+        try {
+            output.log(InternalLogger.formatMessage(event.prefix, event.timeInMillis, event.threadId, event.threadName, event.message, event.args));
+        } catch (ThreadDeath td) {
+            throw td;
+        } catch (Throwable t) {
+            // chomp, the internal logger has nowhere to report its own failures
+        }
+    }
+
+    private void reportDropped() {
+        long count = droppedSinceReport.getAndSet(0);
+        if (count == 0) {
+            return;
+        }
+        write(new LogEvent(InternalLogger.LoggingLevel.WARN.toString(),
+                "%d messages were dropped since the internal logger buffer was full", new Object[] {count}));
+    }
+}
@@ -28,6 +28,7 @@ import java.util.Date;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
 
 /**
  * A first, very simple version of an internal logger
@@ -43,7 +44,19 @@ public enum InternalLogger {
     INSTANCE;
 
     private final static String LOGGER_LEVEL = "Level";
-    private final static SimpleDateFormat dateFormatter = new SimpleDateFormat("dd-MM-yyyy HH:mm:ss.SSSZ");
+    private final static String LOGGER_ASYNC = "Async";
+    private final static String LOGGER_ASYNC_BUFFER_SIZE = "AsyncBufferSize";
+    private final static long ASYNC_CLOSE_TIMEOUT_IN_SECONDS = 5;
+
+    /// SimpleDateFormat is not thread safe, each logging thread gets its own instead of locking a shared one
+    private final static ThreadLocal<SimpleDateFormat> dateFormatter = new ThreadLocal<SimpleDateFormat>() {
+        @Override
+        protected SimpleDateFormat initialValue() {
+            SimpleDateFormat formatter = new SimpleDateFormat("dd-MM-yyyy HH:mm:ss.SSSZ");
+            formatter.setTimeZone(TimeZone.getTimeZone("UTC"));
+            return formatter;
+        }
+    };
 
     public static class PropertyKeys {
         private static final String SDKLOGGER_PREFIX = "applicationinsights.logger.";
@@ -54,6 +67,8 @@ public enum InternalLogger {
         public static final String FILE_BASE_FOLDER_PATH =          SDKLOGGER_PREFIX + "file.baseFolderPath";
         public static final String FILE_NUMBER_OF_FILES =           SDKLOGGER_PREFIX + "file.numberOfFiles";
         public static final String FILE_MAX_LOGFILE_SIZE_IN_MB =    SDKLOGGER_PREFIX + "file.numberOfTotalSizeInMB";
+        public static final String ASYNC =                          SDKLOGGER_PREFIX + "async";
+        public static final String ASYNC_BUFFER_SIZE =              SDKLOGGER_PREFIX + "asyncBufferSize";
     }
 
     public enum LoggingLevel {
@@ -91,6 +106,11 @@ public enum InternalLogger {
 
     private LoggerOutput loggerOutput = null;
 
+    /**
+     * When set, messages are formatted and written on a background thread instead of the calling thread.
+     */
+    private volatile AsyncLogWriter asyncWriter = null;
+
     /**
      * The method will first try to find the logger level and then the logger type.
      * Note that if there are problems initializing the data the internal logger will
@@ -120,12 +140,7 @@ public enum InternalLogger {
                     }
                 }
 
-                final String utcId = "UTC";
-                try {
-                    dateFormatter.setTimeZone(TimeZone.getTimeZone(utcId));
-                } catch (Exception e) {
-                    new ConsoleLoggerOutput().log(String.format("Failed to find timezone with id='%s'. Using default '%s'", utcId, dateFormatter.getTimeZone().getDisplayName()));
-                }
+                setAsyncWriter(loggerData);
             } finally {
                 initialized = true;
             }
@@ -153,6 +168,15 @@ public enum InternalLogger {
             Map<String, String> props = new HashMap<>();
             props.put(LOGGER_LEVEL, level);
 
+            String async = System.getProperty(PropertyKeys.ASYNC);
+            if (async != null) {
+                props.put(LOGGER_ASYNC, async);
+            }
+            String asyncBufferSize = System.getProperty(PropertyKeys.ASYNC_BUFFER_SIZE);
+            if (asyncBufferSize != null) {
+                props.put(LOGGER_ASYNC_BUFFER_SIZE, asyncBufferSize);
+            }
+
             // if file logging is configured, read additonal properties
             if (file != null) {
                 populateMapForFileLogging(props);
@@ -193,8 +217,20 @@ public enum InternalLogger {
                 return;
             }
 
+            // The output is left open if the writer is still writing to it, the writer thread is a daemon
+            boolean writerFinished = true;
             try {
-                if (loggerOutput != null) {
+                AsyncLogWriter writer = asyncWriter;
+                if (writer != null) {
+                    asyncWriter = null;
+                    writerFinished = writer.close(ASYNC_CLOSE_TIMEOUT_IN_SECONDS, TimeUnit.SECONDS);
+                }
+            } catch (Exception e) {
+                writerFinished = false;
+            }
+
+            try {
+                if (loggerOutput != null && writerFinished) {
                     loggerOutput.close();
                 }
             } catch (Exception e) {
@@ -301,13 +337,22 @@ public enum InternalLogger {
      * @return The formatted message with all the needed data.
      */
     private static String createMessage(String prefix, String message, Object... args) {
-        String currentDateAsString;
-        synchronized (INSTANCE) {
-            currentDateAsString = dateFormatter.format(new Date());
-        }
-        String formattedMessage = String.format(message, args);
         final Thread thisThread = Thread.currentThread();
-        return String.format("%s %s, %d(%s): %s", prefix, currentDateAsString, thisThread.getId(), thisThread.getName(), formattedMessage);
+        return formatMessage(prefix, System.currentTimeMillis(), thisThread.getId(), thisThread.getName(), message, args);
+    }
+
+    /**
+     * Formats a message captured at the given time by the given thread, which may not be the current one.
+     * The result is the same as '%s %s, %d(%s): %s' with the formatted message as the last argument.
+     */
+    static String formatMessage(String prefix, long timeInMillis, long threadId, String threadName, String message, Object... args) {
+        String formattedMessage = String.format(message, args);
+        return new StringBuilder(prefix.length() + threadName.length() + formattedMessage.length() + 48)
+                .append(prefix).append(' ')
+                .append(dateFormatter.get().format(new Date(timeInMillis))).append(", ")
+                .append(threadId).append('(').append(threadName).append("): ")
+                .append(formattedMessage)
+                .toString();
     }
 
     /**
@@ -352,6 +397,33 @@ public enum InternalLogger {
         }
     }
 
+    /**
+     * Starts the background writer if the logger has an output and the 'Async' value is 'true'.
+     * @param loggerData The data that might contain 'Async' and 'AsyncBufferSize'
+     */
+    private void setAsyncWriter(Map<String, String> loggerData) {
+        if (loggerOutput == null || !Boolean.parseBoolean(loggerData.get(LOGGER_ASYNC))) {
+            return;
+        }
+
+        int bufferSize = AsyncLogWriter.DEFAULT_BUFFER_SIZE;
+        String bufferSizeAsString = loggerData.get(LOGGER_ASYNC_BUFFER_SIZE);
+        if (StringUtils.isNotEmpty(bufferSizeAsString)) {
+            try {
+                int requested = Integer.parseInt(bufferSizeAsString.trim());
+                if (requested > 0) {
+                    bufferSize = requested;
+                } else {
+                    new ConsoleLoggerOutput().log(String.format("Illegal value '%s' for the SDK internal logger async buffer size, using %d", bufferSizeAsString, bufferSize));
+                }
+            } catch (NumberFormatException e) {
+                new ConsoleLoggerOutput().log(String.format("Illegal value '%s' for the SDK internal logger async buffer size, using %d", bufferSizeAsString, bufferSize));
+            }
+        }
+
+        asyncWriter = new AsyncLogWriter(loggerOutput, bufferSize);
+    }
+
     private void onInitializationError(String errorMessage) {
         try {
             loggerOutput = null;
@@ -368,7 +440,10 @@ public enum InternalLogger {
             return;
         }
         if (requestLevel.getValue() >= loggingLevel.getValue()) {
-            loggerOutput.log(createMessage(requestLevel.toString(), message, args));
+            AsyncLogWriter writer = asyncWriter;
+            if (writer == null || !writer.log(requestLevel.toString(), message, args)) {
+                loggerOutput.log(createMessage(requestLevel.toString(), message, args));
+            }
         }
     }
 }
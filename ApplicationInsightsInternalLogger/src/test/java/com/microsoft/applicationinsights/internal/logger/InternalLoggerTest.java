@@ -9,6 +9,8 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.Assert.*;
 
@@ -23,24 +25,40 @@ public final class InternalLoggerTest {
     private final List<String> messages = new ArrayList<>();
 
     @Override
-    public void log(String message) {
+    public synchronized void log(String message) {
       messages.add(message);
     }
 
     @Override
-    public void close() {
+    public synchronized void close() {
       clear();
     }
 
-    public void clear() {
+    public synchronized void clear() {
       messages.clear();
     }
 
-    public List<String> getMessages() {
+    public synchronized List<String> getMessages() {
       return new ArrayList<>(messages);
     }
   }
 
+  private static class BlockingLoggerOutput extends TestLoggerOutput {
+    private final CountDownLatch entered = new CountDownLatch(1);
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    @Override
+    public void log(String message) {
+      entered.countDown();
+      try {
+        release.await();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+      super.log(message);
+    }
+  }
+
   @Before
   public void prepare() throws NoSuchFieldException, IllegalAccessException {
     Field field = InternalLogger.class.getDeclaredField("initialized");
@@ -49,6 +67,7 @@ public final class InternalLoggerTest {
 
     forceLoggingLevel(InternalLogger.LoggingLevel.OFF);
     forceLoggerOutput(null);
+    forceAsyncWriter(null);
   }
 
   private void forceLoggingLevel(InternalLogger.LoggingLevel level) throws NoSuchFieldException, IllegalAccessException {
@@ -63,6 +82,12 @@ public final class InternalLoggerTest {
     field.set(InternalLogger.INSTANCE, output);
   }
 
+  private void forceAsyncWriter(AsyncLogWriter writer) throws NoSuchFieldException, IllegalAccessException {
+    Field field = InternalLogger.class.getDeclaredField("asyncWriter");
+    field.setAccessible(true);
+    field.set(InternalLogger.INSTANCE, writer);
+  }
+
   @Test
   public void testNoLoggerLevelData() {
     final Map<String, String> loggerData = new HashMap<String, String>();
@@ -129,4 +154,138 @@ public final class InternalLoggerTest {
     int dotIndex = timeParts[2].indexOf('.');
     assertEquals(2, dotIndex);
   }
-}
\ No newline at end of file
+
+  @Test
+  public void asyncMessageIsFormattedLikeSyncMessage() throws NoSuchFieldException, IllegalAccessException, InterruptedException {
+    InternalLogger.INSTANCE.initialize(LoggerOutputType.CONSOLE.toString(), new HashMap<String, String>());
+    forceLoggerOutput(testLoggerOutput);
+    InternalLogger.INSTANCE.info("sync %s %d", "a", 1);
+
+    AsyncLogWriter writer = new AsyncLogWriter(testLoggerOutput, 16);
+    forceAsyncWriter(writer);
+    InternalLogger.INSTANCE.info("async %s %d", "a", 1);
+    writer.close(5, TimeUnit.SECONDS);
+
+    List<String> messages = testLoggerOutput.getMessages();
+    assertEquals(2, messages.size());
+    String[] sync = messages.get(0).split("\\s+");
+    String[] async = messages.get(1).split("\\s+");
+    assertEquals(sync.length, async.length);
+    assertEquals("INFO", async[0]);
+    assertEquals(sync[3], async[3]);
+    assertTrue(messages.get(1).endsWith("): async a 1"));
+  }
+
+  @Test
+  public void asyncWriterIsCreatedWhenRequested() throws NoSuchFieldException, IllegalAccessException {
+    final Map<String, String> loggerData = new HashMap<String, String>();
+    loggerData.put("Level", InternalLogger.LoggingLevel.INFO.toString());
+    loggerData.put("Async", "true");
+    loggerData.put("AsyncBufferSize", "not a number");
+    InternalLogger.INSTANCE.initialize(LoggerOutputType.CONSOLE.toString(), loggerData);
+
+    Field field = InternalLogger.class.getDeclaredField("asyncWriter");
+    field.setAccessible(true);
+    assertNotNull(field.get(InternalLogger.INSTANCE));
+
+    InternalLogger.INSTANCE.stop();
+    assertNull(field.get(InternalLogger.INSTANCE));
+  }
+
+  @Test
+  public void asyncWriterDropsAndReportsWhenBufferIsFull() throws InterruptedException {
+    BlockingLoggerOutput output = new BlockingLoggerOutput();
+    AsyncLogWriter writer = new AsyncLogWriter(output, 1);
+
+    writer.log("INFO", "first");
+    assertTrue(output.entered.await(5, TimeUnit.SECONDS));
+
+    // the writer thread is blocked on 'first', so only one more message fits in the buffer
+    writer.log("INFO", "second");
+    writer.log("INFO", "third");
+    writer.log("INFO", "fourth");
+    assertEquals(2, writer.getDroppedCount());
+
+    output.release.countDown();
+    writer.close(5, TimeUnit.SECONDS);
+
+    List<String> messages = output.getMessages();
+    assertEquals(3, messages.size());
+    assertTrue(messages.get(0).endsWith("first"));
+    assertTrue(messages.get(1).endsWith("second"));
+    assertTrue(messages.get(2).startsWith("WARN"));
+    assertTrue(messages.get(2).contains("2 messages were dropped"));
+  }
+
+  @Test
+  public void asyncWriterCloseDrainsBuffer() throws InterruptedException {
+    AsyncLogWriter writer = new AsyncLogWriter(testLoggerOutput, 1000);
+    for (int i = 0; i < 1000; ++i) {
+      writer.log("TRACE", "message %d", i);
+    }
+    assertTrue(writer.close(5, TimeUnit.SECONDS));
+    assertFalse(writer.log("TRACE", "after close"));
+
+    List<String> messages = testLoggerOutput.getMessages();
+    assertEquals(1000, messages.size());
+    assertTrue(messages.get(999).endsWith("message 999"));
+    assertEquals(0, writer.getDroppedCount());
+  }
+
+  @Test
+  public void asyncWriterReportsDroppedWhileBufferIsNeverDrained() throws InterruptedException {
+    AsyncLogWriter writer = new AsyncLogWriter(testLoggerOutput, 1);
+    long end = System.currentTimeMillis() + 3000;
+    boolean reported = false;
+    while (!reported && System.currentTimeMillis() < end) {
+      writer.log("TRACE", "message");
+      for (String message : testLoggerOutput.getMessages()) {
+        reported |= message.contains("messages were dropped");
+      }
+    }
+    writer.close(5, TimeUnit.SECONDS);
+    assertTrue(reported);
+  }
+
+  @Test
+  public void stopDoesNotCloseOutputWhileWriterIsWriting() throws NoSuchFieldException, IllegalAccessException, InterruptedException {
+    final boolean[] closed = new boolean[1];
+    BlockingLoggerOutput output = new BlockingLoggerOutput() {
+      @Override
+      public synchronized void close() {
+        closed[0] = true;
+      }
+    };
+    AsyncLogWriter writer = new AsyncLogWriter(output, 16);
+    writer.log("INFO", "first");
+    assertTrue(output.entered.await(5, TimeUnit.SECONDS));
+
+    assertFalse(writer.close(10, TimeUnit.MILLISECONDS));
+    forceLoggerOutput(output);
+    forceAsyncWriter(writer);
+    forceLoggingLevel(InternalLogger.LoggingLevel.INFO);
+    InternalLogger.INSTANCE.stop();
+    assertFalse(closed[0]);
+
+    output.release.countDown();
+    assertTrue(writer.close(5, TimeUnit.SECONDS));
+    assertTrue(output.getMessages().get(0).endsWith("first"));
+  }
+
+  @Test
+  public void messageLoggedWhileClosingIsWrittenSynchronously() throws NoSuchFieldException, IllegalAccessException, InterruptedException {
+    InternalLogger.INSTANCE.initialize(LoggerOutputType.CONSOLE.toString(), new HashMap<String, String>());
+    forceLoggerOutput(testLoggerOutput);
+
+    AsyncLogWriter writer = new AsyncLogWriter(testLoggerOutput, 16);
+    forceAsyncWriter(writer);
+    assertTrue(writer.close(5, TimeUnit.SECONDS));
+
+    // the logger still sees the writer, as a logging thread that raced with stop() would
+    InternalLogger.INSTANCE.info("while closing");
+    List<String> messages = testLoggerOutput.getMessages();
+    assertEquals(1, messages.size());
+    assertTrue(messages.get(0).endsWith("while closing"));
+    assertEquals(0, writer.getDroppedCount());
+  }
+}
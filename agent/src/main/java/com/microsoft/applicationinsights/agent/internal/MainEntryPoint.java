@@ -24,10 +24,13 @@ package com.microsoft.applicationinsights.agent.internal;
 import java.io.File;
 import java.lang.instrument.Instrumentation;
 import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 import com.microsoft.applicationinsights.agent.internal.config.AgentConfiguration;
 import com.microsoft.applicationinsights.agent.internal.config.BuiltInInstrumentation;
+import com.microsoft.applicationinsights.agent.internal.model.DependencyAggregator;
 import com.microsoft.applicationinsights.agent.internal.model.Global;
 import org.checkerframework.checker.nullness.qual.Nullable;
 import org.glowroot.instrumentation.engine.config.InstrumentationDescriptor;
@@ -91,6 +94,26 @@ public class MainEntryPoint {
 
         Global.setOutboundW3CEnabled(builtInInstrumentation.isW3cEnabled());
         Global.setOutboundW3CBackCompatEnabled(builtInInstrumentation.isW3cBackCompatEnabled());
+        if (builtInInstrumentation.isDependencyAggregationEnabled()) {
+            Map<String, Long> aggregationThresholds = new HashMap<>();
+            // http calls that propagated their id downstream are still tracked one by one, see DependencyAggregator
+            aggregationThresholds.put("Http (tracked component)",
+                    builtInInstrumentation.getHttpAggregationThresholdInMS());
+            aggregationThresholds.put("SQL", builtInInstrumentation.getJdbcAggregationThresholdInMS());
+            aggregationThresholds.put("Redis", builtInInstrumentation.getJedisAggregationThresholdInMS());
+            final DependencyAggregator dependencyAggregator = new DependencyAggregator(aggregationThresholds,
+                    builtInInstrumentation.getAggregationWindowInMS());
+            dependencyAggregator.start();
+            Global.setDependencyAggregator(dependencyAggregator);
+            // the sdk flushes its channel from its own shutdown hook, the summaries of the last window
+            // are tracked from this one so they are sent along if the channel is still open
+            Runtime.getRuntime().addShutdownHook(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    dependencyAggregator.stop();
+                }
+            }, "ApplicationInsights-DependencyAggregator-Shutdown"));
+        }
 
         List<InstrumentationDescriptor> instrumentationDescriptors =
                 AIAgentXmlLoader.getInstrumentationDescriptors(agentConfiguration);
@@ -38,6 +38,13 @@ public class BuiltInInstrumentation {
 
     private final long queryPlanThresholdInMS;
 
+    // successful dependency calls faster than these thresholds are aggregated into summary items,
+    // a non positive threshold disables aggregation for that type
+    private final long httpAggregationThresholdInMS;
+    private final long jdbcAggregationThresholdInMS;
+    private final long jedisAggregationThresholdInMS;
+    private final long aggregationWindowInMS;
+
     public BuiltInInstrumentation(boolean enabled,
                                   boolean httpEnabled,
                                   boolean w3cEnabled,
@@ -46,7 +53,11 @@ public class BuiltInInstrumentation {
                                   boolean loggingEnabled,
                                   String loggingThreshold,
                                   boolean jedisEnabled,
-                                  long queryPlanThresholdInMS) {
+                                  long queryPlanThresholdInMS,
+                                  long httpAggregationThresholdInMS,
+                                  long jdbcAggregationThresholdInMS,
+                                  long jedisAggregationThresholdInMS,
+                                  long aggregationWindowInMS) {
         this.enabled = enabled;
         this.httpEnabled = httpEnabled;
         this.w3cEnabled = w3cEnabled;
@@ -56,6 +67,10 @@ public class BuiltInInstrumentation {
         this.loggingThreshold = loggingThreshold;
         this.jedisEnabled = jedisEnabled;
         this.queryPlanThresholdInMS = queryPlanThresholdInMS;
+        this.httpAggregationThresholdInMS = httpAggregationThresholdInMS;
+        this.jdbcAggregationThresholdInMS = jdbcAggregationThresholdInMS;
+        this.jedisAggregationThresholdInMS = jedisAggregationThresholdInMS;
+        this.aggregationWindowInMS = aggregationWindowInMS;
     }
 
     public boolean isEnabled() {
@@ -93,4 +108,25 @@ public class BuiltInInstrumentation {
     public long getQueryPlanThresholdInMS() {
         return queryPlanThresholdInMS;
     }
+
+    public long getHttpAggregationThresholdInMS() {
+        return httpAggregationThresholdInMS;
+    }
+
+    public long getJdbcAggregationThresholdInMS() {
+        return jdbcAggregationThresholdInMS;
+    }
+
+    public long getJedisAggregationThresholdInMS() {
+        return jedisAggregationThresholdInMS;
+    }
+
+    public long getAggregationWindowInMS() {
+        return aggregationWindowInMS;
+    }
+
+    public boolean isDependencyAggregationEnabled() {
+        return httpAggregationThresholdInMS > 0 || jdbcAggregationThresholdInMS > 0
+                || jedisAggregationThresholdInMS > 0;
+    }
 }
@@ -44,10 +44,18 @@ public class BuiltInInstrumentationBuilder {
 
     private long queryPlanThresholdInMS = 10000;
 
+    private long httpAggregationThresholdInMS;
+    private long jdbcAggregationThresholdInMS;
+    private long jedisAggregationThresholdInMS;
+    private long aggregationWindowInMS = 5000;
+
     public BuiltInInstrumentation create() {
 
         logger.trace("Outbound W3C tracing is enabled: {}", w3cEnabled);
         logger.trace("Outbound W3C backport mode is enabled: {}", w3cBackCompatEnabled);
+        logger.trace("Dependency aggregation thresholds: HTTP={}ms, JDBC={}ms, Jedis={}ms, window={}ms",
+                httpAggregationThresholdInMS, jdbcAggregationThresholdInMS, jedisAggregationThresholdInMS,
+                aggregationWindowInMS);
 
         return new BuiltInInstrumentation(enabled,
                 httpEnabled && enabled,
@@ -57,7 +65,11 @@ public class BuiltInInstrumentationBuilder {
                 loggingEnabled && enabled,
                 loggingThreshold,
                 jedisEnabled && enabled,
-                queryPlanThresholdInMS
+                queryPlanThresholdInMS,
+                httpAggregationThresholdInMS,
+                jdbcAggregationThresholdInMS,
+                jedisAggregationThresholdInMS,
+                aggregationWindowInMS
         );
     }
 
@@ -91,4 +103,24 @@ public class BuiltInInstrumentationBuilder {
             this.queryPlanThresholdInMS = queryPlanThresholdInMS;
         }
     }
+
+    public void setHttpAggregationThresholdInMS(long httpAggregationThresholdInMS) {
+        this.httpAggregationThresholdInMS = httpAggregationThresholdInMS;
+    }
+
+    public void setJdbcAggregationThresholdInMS(long jdbcAggregationThresholdInMS) {
+        this.jdbcAggregationThresholdInMS = jdbcAggregationThresholdInMS;
+    }
+
+    public void setJedisAggregationThresholdInMS(long jedisAggregationThresholdInMS) {
+        this.jedisAggregationThresholdInMS = jedisAggregationThresholdInMS;
+    }
+
+    public void setAggregationWindowInMS(Long aggregationWindowInMS) {
+        if (aggregationWindowInMS == null || aggregationWindowInMS <= 0) {
+            this.aggregationWindowInMS = 5000;
+        } else {
+            this.aggregationWindowInMS = aggregationWindowInMS;
+        }
+    }
 }
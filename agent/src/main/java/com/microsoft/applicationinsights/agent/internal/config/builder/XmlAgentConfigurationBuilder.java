@@ -68,8 +68,11 @@ public class XmlAgentConfigurationBuilder {
 
     private static final String MAX_STATEMENT_QUERY_LIMIT_TAG = "MaxStatementQueryLimitInMS";
 
+    private static final String DEPENDENCY_AGGREGATION_WINDOW_TAG = "DependencyAggregationWindowInMS";
+
     private static final String THRESHOLD_ATTRIBUTE = "thresholdInMS";
     private static final String ENABLED_ATTRIBUTE = "enabled";
+    private static final String AGGREGATE_BELOW_ATTRIBUTE = "aggregateBelowInMS";
     private static final String NAME_ATTRIBUTE = "name";
     private static final String SIGNATURE_ATTRIBUTE = "signature";
 
@@ -171,9 +174,14 @@ public class XmlAgentConfigurationBuilder {
         boolean w3cBackCompatEnabled = XmlParserUtils.w3cEnabled(httpElement, W3C_BACK_COMPAT_ENABLED, true);
         builtInConfigurationBuilder.setHttpEnabled(XmlParserUtils.getEnabled(httpElement, HTTP_TAG), w3cEnabled,
                 w3cBackCompatEnabled);
+        builtInConfigurationBuilder.setHttpAggregationThresholdInMS(
+                XmlParserUtils.getLongAttribute(httpElement, AGGREGATE_BELOW_ATTRIBUTE, 0));
 
         nodes = builtInElement.getElementsByTagName(JDBC_TAG);
-        builtInConfigurationBuilder.setJdbcEnabled(XmlParserUtils.getEnabled(XmlParserUtils.getFirst(nodes), JDBC_TAG));
+        Element jdbcElement = XmlParserUtils.getFirst(nodes);
+        builtInConfigurationBuilder.setJdbcEnabled(XmlParserUtils.getEnabled(jdbcElement, JDBC_TAG));
+        builtInConfigurationBuilder.setJdbcAggregationThresholdInMS(
+                XmlParserUtils.getLongAttribute(jdbcElement, AGGREGATE_BELOW_ATTRIBUTE, 0));
 
         nodes = builtInElement.getElementsByTagName(LOGGING_TAG);
         builtInConfigurationBuilder.setLoggingEnabled(
@@ -183,11 +191,17 @@ public class XmlAgentConfigurationBuilder {
         nodes = builtInElement.getElementsByTagName(JEDIS_TAG);
         Element element = XmlParserUtils.getFirst(nodes);
         builtInConfigurationBuilder.setJedisEnabled(XmlParserUtils.getEnabled(element, JEDIS_TAG));
+        builtInConfigurationBuilder.setJedisAggregationThresholdInMS(
+                XmlParserUtils.getLongAttribute(element, AGGREGATE_BELOW_ATTRIBUTE, 0));
 
         nodes = builtInElement.getElementsByTagName(MAX_STATEMENT_QUERY_LIMIT_TAG);
         builtInConfigurationBuilder.setQueryPlanThresholdInMS(XmlParserUtils.getLong(XmlParserUtils.getFirst(nodes),
                 MAX_STATEMENT_QUERY_LIMIT_TAG));
 
+        nodes = builtInElement.getElementsByTagName(DEPENDENCY_AGGREGATION_WINDOW_TAG);
+        builtInConfigurationBuilder.setAggregationWindowInMS(XmlParserUtils.getLong(XmlParserUtils.getFirst(nodes),
+                DEPENDENCY_AGGREGATION_WINDOW_TAG));
+
         agentConfiguration.setBuiltInData(builtInConfigurationBuilder.create());
     }
 
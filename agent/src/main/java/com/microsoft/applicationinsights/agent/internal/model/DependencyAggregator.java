@@ -0,0 +1,298 @@
+/*
+ * ApplicationInsights-Java
+ * Copyright (c) Microsoft Corporation
+ * All rights reserved.
+ *
+ * MIT License
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the ""Software""), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package com.microsoft.applicationinsights.agent.internal.model;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Strings;
+import com.microsoft.applicationinsights.agent.internal.sdk.SdkBridge;
+import com.microsoft.applicationinsights.agent.internal.sdk.SdkBridge.RemoteDependencyTelemetry;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// aggregates fast and successful dependency calls into one summary telemetry per
+// (type, target, name, result code) and aggregation window, slow or failed calls are still tracked one by one
+//
+// the summaries are tracked from the aggregator thread, outside of any request, so they are detached from
+// operations: they carry no operation id and do not show up in end-to-end transactions.
+// calls that have an id are never aggregated, since that id was propagated downstream as the parent id of the
+// remote request, and that request would have no parent if the call was not tracked
+public class DependencyAggregator {
+
+    private static final Logger logger = LoggerFactory.getLogger(DependencyAggregator.class);
+
+    // upper bounds (inclusive) of the histogram buckets, calls slower than the last bound go to an overflow bucket
+    static final long[] HISTOGRAM_BOUNDS_MILLIS = {1, 2, 5, 10, 25, 50, 100, 250, 500, 1000};
+
+    // beyond this number of distinct keys per window calls are tracked individually
+    static final int MAX_KEYS = 1000;
+
+    static final String COUNT_PROPERTY = "Aggregated Count";
+    static final String SUM_PROPERTY = "Aggregated Sum";
+    static final String MIN_PROPERTY = "Aggregated Min";
+    static final String MAX_PROPERTY = "Aggregated Max";
+    static final String HISTOGRAM_PROPERTY = "Aggregated Histogram";
+    static final String WINDOW_PROPERTY = "Aggregation Window";
+
+    private final Map<String, Long> thresholdsByType;
+    private final long windowMillis;
+
+    private final ConcurrentMap<Key, Summary> summaries = new ConcurrentHashMap<>();
+
+    private volatile @Nullable ScheduledExecutorService executor;
+
+    public DependencyAggregator(Map<String, Long> thresholdsByType, long windowMillis) {
+        this.thresholdsByType = thresholdsByType;
+        this.windowMillis = windowMillis;
+    }
+
+    public synchronized void start() {
+        if (executor != null) {
+            return;
+        }
+        ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "ApplicationInsights-DependencyAggregator");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        executor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    flush();
+                } catch (ThreadDeath td) {
+                    throw td;
+                } catch (Throwable t) {
+                    logger.error("Failed to flush aggregated dependencies: {}", t.getMessage());
+                    logger.debug(t.getMessage(), t);
+                }
+            }
+        }, windowMillis, windowMillis, TimeUnit.MILLISECONDS);
+        this.executor = executor;
+    }
+
+    // flushes the summaries of the current window, so the calls aggregated since the last flush are not lost
+    public synchronized void stop() {
+        ScheduledExecutorService executor = this.executor;
+        if (executor == null) {
+            return;
+        }
+        executor.shutdownNow();
+        this.executor = null;
+        flush();
+    }
+
+    // returns true if the telemetry was absorbed into a summary and must not be tracked by the caller
+    boolean aggregate(SdkBridge sdkBridge, RemoteDependencyTelemetry telemetry) {
+        if (!telemetry.isSuccess() || !Strings.isNullOrEmpty(telemetry.getId())) {
+            return false;
+        }
+        Long threshold = thresholdsByType.get(telemetry.getType());
+        if (threshold == null || threshold <= 0 || telemetry.getDurationMillis() >= threshold) {
+            return false;
+        }
+        Key key = new Key(sdkBridge, telemetry.getType(), telemetry.getTarget(), telemetry.getName(),
+                telemetry.getResultCode());
+        while (true) {
+            Summary summary = summaries.get(key);
+            if (summary == null) {
+                if (summaries.size() >= MAX_KEYS) {
+                    return false;
+                }
+                Summary newSummary = new Summary(telemetry.getTimestamp(), telemetry.getCommandName());
+                summary = summaries.putIfAbsent(key, newSummary);
+                if (summary == null) {
+                    summary = newSummary;
+                }
+            }
+            if (summary.add(telemetry)) {
+                return true;
+            }
+            // the summary was closed by a concurrent flush after being looked up, retry with a fresh one
+        }
+    }
+
+    void flush() {
+        long now = System.currentTimeMillis();
+        for (Map.Entry<Key, Summary> entry : summaries.entrySet()) {
+            Key key = entry.getKey();
+            Summary summary = entry.getValue();
+            // stop() may flush while a scheduled flush is still running, each summary is only tracked once
+            if (!summaries.remove(key, summary)) {
+                continue;
+            }
+            RemoteDependencyTelemetry telemetry = summary.close(key, now);
+            try {
+                key.sdkBridge.track(telemetry);
+            } catch (ThreadDeath td) {
+                throw td;
+            } catch (Throwable t) {
+                logger.error("Failed to track aggregated dependency '{}': {}", key.name, t.getMessage());
+                logger.debug(t.getMessage(), t);
+            }
+        }
+    }
+
+    private static final class Key {
+
+        private final SdkBridge sdkBridge;
+        private final String type;
+        private final @Nullable String target;
+        private final @Nullable String name;
+        private final @Nullable String resultCode;
+        private final int hashCode;
+
+        private Key(SdkBridge sdkBridge, String type, @Nullable String target, @Nullable String name,
+                    @Nullable String resultCode) {
+            this.sdkBridge = sdkBridge;
+            this.type = type;
+            this.target = target;
+            this.name = name;
+            this.resultCode = resultCode;
+            this.hashCode = Objects.hashCode(System.identityHashCode(sdkBridge), type, target, name, resultCode);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key that = (Key) obj;
+            // different web applications have their own sdk bridge, and their calls must not be mixed
+            return sdkBridge == that.sdkBridge
+                    && type.equals(that.type)
+                    && Objects.equal(target, that.target)
+                    && Objects.equal(name, that.name)
+                    && Objects.equal(resultCode, that.resultCode);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    private static final class Summary {
+
+        private final long startTimeMillis;
+        private final long[] histogram = new long[HISTOGRAM_BOUNDS_MILLIS.length + 1];
+
+        // only kept when all aggregated calls share the same command
+        private @Nullable String commandName;
+
+        private long count;
+        private long sumMillis;
+        private long minMillis = Long.MAX_VALUE;
+        private long maxMillis;
+        private boolean closed;
+
+        private Summary(long startTimeMillis, @Nullable String commandName) {
+            this.startTimeMillis = startTimeMillis;
+            this.commandName = commandName;
+        }
+
+        private synchronized boolean add(RemoteDependencyTelemetry telemetry) {
+            if (closed) {
+                return false;
+            }
+            long durationMillis = telemetry.getDurationMillis();
+            count++;
+            sumMillis += durationMillis;
+            minMillis = Math.min(minMillis, durationMillis);
+            maxMillis = Math.max(maxMillis, durationMillis);
+            histogram[bucketIndex(durationMillis)]++;
+            if (commandName != null && !commandName.equals(telemetry.getCommandName())) {
+                commandName = null;
+            }
+            return true;
+        }
+
+        private synchronized RemoteDependencyTelemetry close(Key key, long endTimeMillis) {
+            closed = true;
+            RemoteDependencyTelemetry telemetry =
+                    new RemoteDependencyTelemetry(startTimeMillis, sumMillis / count, key.type, true);
+            if (key.name != null) {
+                telemetry.setName(key.name);
+            }
+            if (key.target != null) {
+                telemetry.setTarget(key.target);
+            }
+            if (key.resultCode != null) {
+                telemetry.setResultCode(key.resultCode);
+            }
+            if (commandName != null) {
+                telemetry.setCommandName(commandName);
+            }
+            Map<String, String> properties = telemetry.getProperties();
+            properties.put(COUNT_PROPERTY, Long.toString(count));
+            properties.put(SUM_PROPERTY, Long.toString(sumMillis));
+            properties.put(MIN_PROPERTY, Long.toString(minMillis));
+            properties.put(MAX_PROPERTY, Long.toString(maxMillis));
+            properties.put(HISTOGRAM_PROPERTY, formatHistogram(histogram));
+            properties.put(WINDOW_PROPERTY, Long.toString(endTimeMillis - startTimeMillis));
+            return telemetry;
+        }
+    }
+
+    static int bucketIndex(long durationMillis) {
+        for (int i = 0; i < HISTOGRAM_BOUNDS_MILLIS.length; i++) {
+            if (durationMillis <= HISTOGRAM_BOUNDS_MILLIS[i]) {
+                return i;
+            }
+        }
+        return HISTOGRAM_BOUNDS_MILLIS.length;
+    }
+
+    // e.g. "<=1:12,<=5:3,>1000:1", empty buckets are omitted
+    static String formatHistogram(long[] histogram) {
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < histogram.length; i++) {
+            if (histogram[i] == 0) {
+                continue;
+            }
+            if (sb.length() > 0) {
+                sb.append(',');
+            }
+            if (i < HISTOGRAM_BOUNDS_MILLIS.length) {
+                sb.append("<=").append(HISTOGRAM_BOUNDS_MILLIS[i]);
+            } else {
+                sb.append('>').append(HISTOGRAM_BOUNDS_MILLIS[HISTOGRAM_BOUNDS_MILLIS.length - 1]);
+            }
+            sb.append(':').append(histogram[i]);
+        }
+        return sb.toString();
+    }
+}
@@ -21,6 +21,7 @@
 
 package com.microsoft.applicationinsights.agent.internal.model;
 
+import org.checkerframework.checker.nullness.qual.Nullable;
 import org.glowroot.instrumentation.engine.bytecode.api.ThreadContextThreadLocal;
 
 // global state used instead of passing these to various classes (e.g. ThreadContextImpl, SpanImpl) in order
@@ -30,6 +31,8 @@ public class Global {
     private static boolean outboundW3CEnabled;
     private static boolean outboundW3CBackCompatEnabled;
 
+    private static @Nullable DependencyAggregator dependencyAggregator;
+
     private static final ThreadContextThreadLocal TCTL = new ThreadContextThreadLocal();
 
     private Global() {
@@ -51,6 +54,14 @@ public class Global {
         Global.outboundW3CBackCompatEnabled = outboundW3CBackCompatEnabled;
     }
 
+    public static @Nullable DependencyAggregator getDependencyAggregator() {
+        return dependencyAggregator;
+    }
+
+    public static void setDependencyAggregator(@Nullable DependencyAggregator dependencyAggregator) {
+        Global.dependencyAggregator = dependencyAggregator;
+    }
+
     public static ThreadContextThreadLocal getThreadContextThreadLocal() {
         return TCTL;
     }
@@ -35,6 +35,10 @@ import org.glowroot.instrumentation.api.internal.ReadableMessage;
 
 class LoggerSpans {
 
+    // the agent does not share classes with the sdk, so this keeps its own copy of the sdk's per-second cache,
+    // the 'TimeStamp' format has no milliseconds so the whole string is reused for log lines within the same second
+    private static volatile FormattedSecond lastFormattedSecond = new FormattedSecond(Long.MIN_VALUE, "");
+
     static void track(SdkBridge sdkBridge, MessageSupplier messageSupplier, @Nullable Throwable throwable,
                       long timeMillis) {
 
@@ -82,6 +86,27 @@ class LoggerSpans {
     }
 
     private static String getFormattedDate(long dateInMilliseconds) {
-        return new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.US).format(new Date(dateInMilliseconds));
+        long second = dateInMilliseconds / 1000;
+        if (dateInMilliseconds % 1000 < 0) {
+            second--;
+        }
+        FormattedSecond formattedSecond = lastFormattedSecond;
+        if (formattedSecond.second != second) {
+            String text = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.US).format(new Date(second * 1000));
+            formattedSecond = new FormattedSecond(second, text);
+            lastFormattedSecond = formattedSecond;
+        }
+        return formattedSecond.text;
+    }
+
+    private static class FormattedSecond {
+
+        private final long second;
+        private final String text;
+
+        private FormattedSecond(long second, String text) {
+            this.second = second;
+            this.text = text;
+        }
     }
 }
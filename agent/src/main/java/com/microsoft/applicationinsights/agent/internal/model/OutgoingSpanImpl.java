@@ -115,6 +115,10 @@ public class OutgoingSpanImpl implements Span {
             telemetry.setName(text);
         }
         if (telemetry != null) {
+            DependencyAggregator aggregator = Global.getDependencyAggregator();
+            if (aggregator != null && aggregator.aggregate(sdkBridge, telemetry)) {
+                return;
+            }
             sdkBridge.track(telemetry);
             if (exception != null) {
                 sdkBridge.track(new ExceptionTelemetry(exception));
@@ -154,26 +158,43 @@ public class OutgoingSpanImpl implements Span {
             if (host != null) {
                 uri = host + uri;
             }
-            try {
-                URI uriObject = new URI(uri);
-                String target = createTarget(uriObject);
+            OutgoingTargetCache targetCache = OutgoingTargetCache.INSTANCE;
+            String target = null;
+            String path = null;
+            boolean parsed = false;
+            int authorityEnd = OutgoingUri.getAuthorityEnd(uri);
+            if (authorityEnd != -1) {
+                target = targetCache.getHostTarget(uri.substring(0, authorityEnd));
+                if (target != null) {
+                    path = OutgoingUri.getPath(uri, authorityEnd);
+                    parsed = true;
+                }
+            }
+            if (!parsed) {
+                try {
+                    URI uriObject = new URI(uri);
+                    target = OutgoingTargetCache.createTarget(uriObject);
+                    path = uriObject.getPath();
+                    parsed = true;
+                } catch (URISyntaxException e) {
+                    logger.error(e.getMessage());
+                    logger.debug(e.getMessage(), e);
+                }
+            }
+            if (parsed) {
                 if (requestContext != null) {
-                    String incomingTarget =
-                            sdkBridge.generateChildDependencyTarget(requestContext, Global.isOutboundW3CEnabled());
+                    String incomingTarget = targetCache.getChildDependencyTarget(sdkBridge, requestContext,
+                            Global.isOutboundW3CEnabled());
                     if (incomingTarget != null && !incomingTarget.isEmpty()) {
                         target += " | " + incomingTarget;
                     }
                 }
                 telemetry.setTarget(target);
-                String path = uriObject.getPath();
                 if (Strings.isNullOrEmpty(path)) {
                     telemetry.setName(method + " /");
                 } else {
                     telemetry.setName(method + " " + path);
                 }
-            } catch (URISyntaxException e) {
-                logger.error(e.getMessage());
-                logger.debug(e.getMessage(), e);
             }
             telemetry.setCommandName(uri);
             // for backward compatibility (same comment from CoreAgentNotificationsHandler)
@@ -185,13 +206,4 @@ public class OutgoingSpanImpl implements Span {
 
         return telemetry;
     }
-
-    // from CoreAgentNotificationsHandler:
-    private static String createTarget(URI uriObject) {
-        String target = uriObject.getHost();
-        if (uriObject.getPort() != 80 && uriObject.getPort() != 443 && uriObject.getPort() != -1) {
-            target += ":" + uriObject.getPort();
-        }
-        return target;
-    }
 }
@@ -0,0 +1,180 @@
+/*
+ * ApplicationInsights-Java
+ * Copyright (c) Microsoft Corporation
+ * All rights reserved.
+ *
+ * MIT License
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the ""Software""), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package com.microsoft.applicationinsights.agent.internal.model;
+
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.CacheStats;
+import com.google.common.cache.LoadingCache;
+import com.microsoft.applicationinsights.agent.internal.sdk.SdkBridge;
+import org.checkerframework.checker.nullness.qual.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+// outbound http calls usually go to a handful of hosts and get the same few Request-Context headers back,
+// so the dependency targets computed out of them are cached instead of being rebuilt for every call
+class OutgoingTargetCache {
+
+    private static final Logger logger = LoggerFactory.getLogger(OutgoingTargetCache.class);
+
+    static final int DEFAULT_MAX_SIZE = 1000;
+
+    // hit rates are logged once every that many lookups
+    static final long REPORT_INTERVAL = 100000;
+
+    static final OutgoingTargetCache INSTANCE = new OutgoingTargetCache(DEFAULT_MAX_SIZE, REPORT_INTERVAL);
+
+    // keyed by the scheme and authority of the uri, e.g. "https://example.com:8443"
+    private final Cache<String, String> hostTargets;
+
+    // each web application resolves the targets against its own instrumentation key, so each sdk bridge has its own
+    // cache; the bridges are weak keys so that this cache does not keep undeployed web applications in memory
+    private final LoadingCache<SdkBridge, Cache<RequestContextKey, String>> requestContextTargets;
+
+    private final long reportInterval;
+    private final AtomicLong lookups = new AtomicLong();
+
+    OutgoingTargetCache(final int maxSize, long reportInterval) {
+        hostTargets = CacheBuilder.newBuilder().maximumSize(maxSize).recordStats().build();
+        requestContextTargets = CacheBuilder.newBuilder().weakKeys().build(
+                new CacheLoader<SdkBridge, Cache<RequestContextKey, String>>() {
+                    @Override
+                    public Cache<RequestContextKey, String> load(SdkBridge sdkBridge) {
+                        return CacheBuilder.newBuilder().maximumSize(maxSize).recordStats().build();
+                    }
+                });
+        this.reportInterval = reportInterval;
+    }
+
+    // returns null if the authority cannot be parsed on its own, in which case the whole uri has to be parsed
+    @Nullable String getHostTarget(String schemeAndAuthority) {
+        countLookup();
+        String target = hostTargets.getIfPresent(schemeAndAuthority);
+        if (target == null) {
+            URI uriObject;
+            try {
+                uriObject = new URI(schemeAndAuthority);
+            } catch (URISyntaxException e) {
+                return null;
+            }
+            if (uriObject.getHost() == null) {
+                return null;
+            }
+            target = createTarget(uriObject);
+            hostTargets.put(schemeAndAuthority, target);
+        }
+        return target;
+    }
+
+    String getChildDependencyTarget(SdkBridge sdkBridge, String requestContext, boolean w3c) {
+        countLookup();
+        Cache<RequestContextKey, String> targets = requestContextTargets.getUnchecked(sdkBridge);
+        RequestContextKey key = new RequestContextKey(requestContext, w3c);
+        String target = targets.getIfPresent(key);
+        if (target == null) {
+            target = sdkBridge.generateChildDependencyTarget(requestContext, w3c);
+            // empty targets are not cached, the target is compared against the app id of this web application,
+            // which is fetched in the background and is empty until it is resolved
+            if (target == null || target.isEmpty()) {
+                return target;
+            }
+            targets.put(key, target);
+        }
+        return target;
+    }
+
+    CacheStats getHostTargetStats() {
+        return hostTargets.stats();
+    }
+
+    CacheStats getRequestContextTargetStats() {
+        CacheStats stats = new CacheStats(0, 0, 0, 0, 0, 0);
+        for (Cache<RequestContextKey, String> targets : requestContextTargets.asMap().values()) {
+            stats = stats.plus(targets.stats());
+        }
+        return stats;
+    }
+
+    long getRequestContextTargetSize() {
+        long size = 0;
+        for (Cache<RequestContextKey, String> targets : requestContextTargets.asMap().values()) {
+            size += targets.size();
+        }
+        return size;
+    }
+
+    // from CoreAgentNotificationsHandler:
+    static String createTarget(URI uriObject) {
+        String target = uriObject.getHost();
+        if (uriObject.getPort() != 80 && uriObject.getPort() != 443 && uriObject.getPort() != -1) {
+            target += ":" + uriObject.getPort();
+        }
+        return target;
+    }
+
+    private void countLookup() {
+        if (lookups.incrementAndGet() % reportInterval == 0 && logger.isDebugEnabled()) {
+            CacheStats hostStats = hostTargets.stats();
+            CacheStats requestContextStats = getRequestContextTargetStats();
+            logger.debug("Outgoing target cache: host targets {} hits, {} misses ({} hit rate, {} entries),"
+                            + " request context targets {} hits, {} misses ({} hit rate, {} entries)",
+                    hostStats.hitCount(), hostStats.missCount(), hostStats.hitRate(), hostTargets.size(),
+                    requestContextStats.hitCount(), requestContextStats.missCount(), requestContextStats.hitRate(),
+                    getRequestContextTargetSize());
+        }
+    }
+
+    private static final class RequestContextKey {
+
+        private final String requestContext;
+        private final boolean w3c;
+        private final int hashCode;
+
+        private RequestContextKey(String requestContext, boolean w3c) {
+            this.requestContext = requestContext;
+            this.w3c = w3c;
+            this.hashCode = 31 * requestContext.hashCode() + (w3c ? 1 : 0);
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) {
+                return true;
+            }
+            if (!(obj instanceof RequestContextKey)) {
+                return false;
+            }
+            RequestContextKey that = (RequestContextKey) obj;
+            return w3c == that.w3c && requestContext.equals(that.requestContext);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * ApplicationInsights-Java
+ * Copyright (c) Microsoft Corporation
+ * All rights reserved.
+ *
+ * MIT License
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the ""Software""), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package com.microsoft.applicationinsights.agent.internal.model;
+
+// splits simple absolute http uris without going through java.net.URI, anything that java.net.URI could
+// parse or decode differently (escapes, user info, IPv6 hosts, non ASCII characters...) is left to it
+class OutgoingUri {
+
+    private static final String SCHEME_SEPARATOR = "://";
+
+    private OutgoingUri() {
+    }
+
+    // returns the end of the scheme and authority part of the uri, or -1 if the uri must be parsed by java.net.URI
+    static int getAuthorityEnd(String uri) {
+        int schemeEnd = uri.indexOf(SCHEME_SEPARATOR);
+        if (schemeEnd <= 0) {
+            return -1;
+        }
+        for (int i = 0; i < schemeEnd; i++) {
+            if (!isSchemeChar(uri.charAt(i), i)) {
+                return -1;
+            }
+        }
+        int authorityStart = schemeEnd + SCHEME_SEPARATOR.length();
+        int authorityEnd = authorityStart;
+        while (authorityEnd < uri.length() && !isAuthorityDelimiter(uri.charAt(authorityEnd))) {
+            char c = uri.charAt(authorityEnd);
+            if (!isLetterOrDigit(c) && c != '.' && c != '-' && c != ':') {
+                return -1;
+            }
+            authorityEnd++;
+        }
+        if (authorityEnd == authorityStart) {
+            return -1;
+        }
+        boolean fragment = false;
+        for (int i = authorityEnd; i < uri.length(); i++) {
+            char c = uri.charAt(i);
+            if (c == '#') {
+                if (fragment) {
+                    return -1;
+                }
+                fragment = true;
+            } else if (!isPathChar(c)) {
+                return -1;
+            }
+        }
+        return authorityEnd;
+    }
+
+    // same as java.net.URI.getPath() for the uris accepted by getAuthorityEnd()
+    static String getPath(String uri, int authorityEnd) {
+        int pathEnd = authorityEnd;
+        while (pathEnd < uri.length()) {
+            char c = uri.charAt(pathEnd);
+            if (c == '?' || c == '#') {
+                break;
+            }
+            pathEnd++;
+        }
+        return uri.substring(authorityEnd, pathEnd);
+    }
+
+    private static boolean isSchemeChar(char c, int index) {
+        if (index == 0) {
+            return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+        }
+        return isLetterOrDigit(c) || c == '+' || c == '-' || c == '.';
+    }
+
+    private static boolean isAuthorityDelimiter(char c) {
+        return c == '/' || c == '?' || c == '#';
+    }
+
+    // unreserved, sub-delims, ':', '@', '/' and '?', i.e. the characters that need neither escaping nor decoding
+    private static boolean isPathChar(char c) {
+        if (isLetterOrDigit(c)) {
+            return true;
+        }
+        switch (c) {
+            case '-': case '.': case '_': case '~':
+            case '!': case '$': case '&': case '\'': case '(': case ')':
+            case '*': case '+': case ',': case ';': case '=':
+            case ':': case '@': case '/': case '?':
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private static boolean isLetterOrDigit(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z') || (c >= '0' && c <= '9');
+    }
+}
@@ -148,6 +148,11 @@ public class QuerySpanImpl implements QuerySpan {
         }
         telemetry.setCommandName(text);
 
+        DependencyAggregator aggregator = Global.getDependencyAggregator();
+        if (aggregator != null && aggregator.aggregate(sdkBridge, telemetry)) {
+            return;
+        }
+
         Map<String, ?> detail = messageSupplier.get();
         Integer batchCount = (Integer) detail.get("batchCount");
         if (batchCount != null) {
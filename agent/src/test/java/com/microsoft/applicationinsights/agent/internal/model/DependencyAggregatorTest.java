@@ -0,0 +1,145 @@
+package com.microsoft.applicationinsights.agent.internal.model;
+
+import java.util.HashMap;
+import java.util.Map;
+
+import com.microsoft.applicationinsights.agent.internal.sdk.SdkBridge.RemoteDependencyTelemetry;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class DependencyAggregatorTest {
+
+    private RecordingSdkBridge sdkBridge;
+    private DependencyAggregator aggregator;
+
+    @Before
+    public void setUp() {
+        sdkBridge = new RecordingSdkBridge();
+        Map<String, Long> thresholds = new HashMap<>();
+        thresholds.put("Redis", 10L);
+        thresholds.put("SQL", 0L);
+        aggregator = new DependencyAggregator(thresholds, 5000);
+    }
+
+    @Test
+    public void testFastCallsAreSummarized() {
+        Assert.assertTrue(aggregator.aggregate(sdkBridge, redis("GET", 1000, 1)));
+        Assert.assertTrue(aggregator.aggregate(sdkBridge, redis("GET", 1001, 3)));
+        Assert.assertTrue(aggregator.aggregate(sdkBridge, redis("GET", 1002, 8)));
+        Assert.assertTrue(sdkBridge.tracked.isEmpty());
+
+        aggregator.flush();
+
+        Assert.assertEquals(1, sdkBridge.tracked.size());
+        RemoteDependencyTelemetry summary = sdkBridge.tracked.get(0);
+        Assert.assertEquals("Redis", summary.getType());
+        Assert.assertEquals("GET", summary.getName());
+        Assert.assertEquals(1000, summary.getTimestamp());
+        Assert.assertEquals(4, summary.getDurationMillis());
+        Assert.assertTrue(summary.isSuccess());
+        Assert.assertEquals("3", summary.getProperties().get(DependencyAggregator.COUNT_PROPERTY));
+        Assert.assertEquals("12", summary.getProperties().get(DependencyAggregator.SUM_PROPERTY));
+        Assert.assertEquals("1", summary.getProperties().get(DependencyAggregator.MIN_PROPERTY));
+        Assert.assertEquals("8", summary.getProperties().get(DependencyAggregator.MAX_PROPERTY));
+        Assert.assertEquals("<=1:1,<=5:1,<=10:1",
+                summary.getProperties().get(DependencyAggregator.HISTOGRAM_PROPERTY));
+
+        aggregator.flush();
+        Assert.assertEquals(1, sdkBridge.tracked.size());
+    }
+
+    @Test
+    public void testSlowFailedAndUnconfiguredCallsAreNotAggregated() {
+        Assert.assertFalse(aggregator.aggregate(sdkBridge, redis("GET", 1000, 10)));
+        Assert.assertFalse(aggregator.aggregate(sdkBridge,
+                new RemoteDependencyTelemetry(1000, 1, "Redis", false)));
+        Assert.assertFalse(aggregator.aggregate(sdkBridge, new RemoteDependencyTelemetry(1000, 1, "SQL", true)));
+        Assert.assertFalse(aggregator.aggregate(sdkBridge, new RemoteDependencyTelemetry(1000, 1, "MongoDB", true)));
+
+        aggregator.flush();
+        Assert.assertTrue(sdkBridge.tracked.isEmpty());
+    }
+
+    @Test
+    public void testCallsWithAPropagatedIdAreNotAggregated() {
+        RemoteDependencyTelemetry telemetry = redis("GET", 1000, 1);
+        telemetry.setId("|abc.1.");
+
+        Assert.assertFalse(aggregator.aggregate(sdkBridge, telemetry));
+
+        aggregator.flush();
+        Assert.assertTrue(sdkBridge.tracked.isEmpty());
+    }
+
+    @Test
+    public void testCallsAreGroupedByKey() {
+        aggregator.aggregate(sdkBridge, redis("GET", 1000, 1));
+        aggregator.aggregate(sdkBridge, redis("SET", 1000, 1));
+        RemoteDependencyTelemetry otherResult = redis("GET", 1000, 1);
+        otherResult.setResultCode("1");
+        aggregator.aggregate(sdkBridge, otherResult);
+        aggregator.aggregate(new RecordingSdkBridge(), redis("GET", 1000, 1));
+
+        aggregator.flush();
+        Assert.assertEquals(3, sdkBridge.tracked.size());
+    }
+
+    @Test
+    public void testCommandNameIsOnlyKeptWhenShared() {
+        RemoteDependencyTelemetry first = redis("GET", 1000, 1);
+        first.setCommandName("a");
+        RemoteDependencyTelemetry second = redis("GET", 1000, 1);
+        second.setCommandName("b");
+        RemoteDependencyTelemetry third = redis("SET", 1000, 1);
+        third.setCommandName("c");
+        aggregator.aggregate(sdkBridge, first);
+        aggregator.aggregate(sdkBridge, second);
+        aggregator.aggregate(sdkBridge, third);
+
+        aggregator.flush();
+        for (RemoteDependencyTelemetry summary : sdkBridge.tracked) {
+            if ("GET".equals(summary.getName())) {
+                Assert.assertNull(summary.getCommandName());
+            } else {
+                Assert.assertEquals("c", summary.getCommandName());
+            }
+        }
+    }
+
+    @Test
+    public void testLastWindowIsFlushedOnStop() {
+        aggregator.start();
+        Assert.assertTrue(aggregator.aggregate(sdkBridge, redis("GET", 1000, 1)));
+        Assert.assertTrue(aggregator.aggregate(sdkBridge, redis("GET", 1001, 2)));
+        Assert.assertTrue(sdkBridge.tracked.isEmpty());
+
+        aggregator.stop();
+
+        Assert.assertEquals(1, sdkBridge.tracked.size());
+        Assert.assertEquals("2", sdkBridge.tracked.get(0).getProperties().get(DependencyAggregator.COUNT_PROPERTY));
+
+        aggregator.stop();
+        Assert.assertEquals(1, sdkBridge.tracked.size());
+    }
+
+    @Test
+    public void testHistogramBuckets() {
+        Assert.assertEquals(0, DependencyAggregator.bucketIndex(0));
+        Assert.assertEquals(0, DependencyAggregator.bucketIndex(1));
+        Assert.assertEquals(2, DependencyAggregator.bucketIndex(3));
+        Assert.assertEquals(9, DependencyAggregator.bucketIndex(1000));
+        Assert.assertEquals(10, DependencyAggregator.bucketIndex(1001));
+
+        long[] histogram = new long[DependencyAggregator.HISTOGRAM_BOUNDS_MILLIS.length + 1];
+        histogram[1] = 2;
+        histogram[10] = 1;
+        Assert.assertEquals("<=2:2,>1000:1", DependencyAggregator.formatHistogram(histogram));
+    }
+
+    private static RemoteDependencyTelemetry redis(String name, long timestamp, long durationMillis) {
+        RemoteDependencyTelemetry telemetry = new RemoteDependencyTelemetry(timestamp, durationMillis, "Redis", true);
+        telemetry.setName(name);
+        return telemetry;
+    }
+}
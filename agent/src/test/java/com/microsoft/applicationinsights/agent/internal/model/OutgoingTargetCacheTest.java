@@ -0,0 +1,79 @@
+package com.microsoft.applicationinsights.agent.internal.model;
+
+import java.lang.ref.WeakReference;
+
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+public class OutgoingTargetCacheTest {
+
+    private OutgoingTargetCache cache;
+
+    @Before
+    public void setUp() {
+        cache = new OutgoingTargetCache(10, 1);
+    }
+
+    @Test
+    public void testHostTargets() {
+        Assert.assertEquals("example.com", cache.getHostTarget("http://example.com"));
+        Assert.assertEquals("example.com", cache.getHostTarget("https://example.com:443"));
+        Assert.assertEquals("example.com:8080", cache.getHostTarget("http://example.com:8080"));
+        Assert.assertEquals("example.com:8080", cache.getHostTarget("http://example.com:8080"));
+
+        Assert.assertEquals(1, cache.getHostTargetStats().hitCount());
+        Assert.assertEquals(3, cache.getHostTargetStats().missCount());
+    }
+
+    @Test
+    public void testUnparseableHostIsNotCached() {
+        Assert.assertNull(cache.getHostTarget("http://a..b"));
+        Assert.assertNull(cache.getHostTarget("http://a..b"));
+        Assert.assertEquals(0, cache.getHostTargetStats().hitCount());
+    }
+
+    @Test
+    public void testRequestContextTargets() {
+        RecordingSdkBridge sdkBridge = new RecordingSdkBridge();
+        sdkBridge.childDependencyTarget = "cid-v1:abc";
+
+        Assert.assertEquals("cid-v1:abc", cache.getChildDependencyTarget(sdkBridge, "appId=cid-v1:abc", true));
+        Assert.assertEquals("cid-v1:abc", cache.getChildDependencyTarget(sdkBridge, "appId=cid-v1:abc", true));
+        Assert.assertEquals(1, sdkBridge.childDependencyTargetCalls);
+
+        // w3c and sdk bridge are part of the key
+        cache.getChildDependencyTarget(sdkBridge, "appId=cid-v1:abc", false);
+        Assert.assertEquals(2, sdkBridge.childDependencyTargetCalls);
+        RecordingSdkBridge otherSdkBridge = new RecordingSdkBridge();
+        otherSdkBridge.childDependencyTarget = "cid-v1:abc";
+        cache.getChildDependencyTarget(otherSdkBridge, "appId=cid-v1:abc", true);
+        Assert.assertEquals(1, otherSdkBridge.childDependencyTargetCalls);
+
+        Assert.assertEquals(1, cache.getRequestContextTargetStats().hitCount());
+        Assert.assertEquals(3, cache.getRequestContextTargetStats().missCount());
+    }
+
+    @Test
+    public void testEmptyRequestContextTargetIsNotCached() {
+        RecordingSdkBridge sdkBridge = new RecordingSdkBridge();
+        Assert.assertEquals("", cache.getChildDependencyTarget(sdkBridge, "appId=cid-v1:abc", true));
+        Assert.assertEquals("", cache.getChildDependencyTarget(sdkBridge, "appId=cid-v1:abc", true));
+        Assert.assertEquals(2, sdkBridge.childDependencyTargetCalls);
+    }
+
+    @Test
+    public void testSdkBridgeIsNotKeptInMemory() throws Exception {
+        RecordingSdkBridge sdkBridge = new RecordingSdkBridge();
+        sdkBridge.childDependencyTarget = "cid-v1:abc";
+        cache.getChildDependencyTarget(sdkBridge, "appId=cid-v1:abc", true);
+        WeakReference<RecordingSdkBridge> reference = new WeakReference<>(sdkBridge);
+        sdkBridge = null;
+
+        for (int i = 0; i < 50 && reference.get() != null; i++) {
+            System.gc();
+            Thread.sleep(10);
+        }
+        Assert.assertNull(reference.get());
+    }
+}
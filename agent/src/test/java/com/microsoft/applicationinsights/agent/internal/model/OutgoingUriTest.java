@@ -0,0 +1,54 @@
+package com.microsoft.applicationinsights.agent.internal.model;
+
+import java.net.URI;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+public class OutgoingUriTest {
+
+    @Test
+    public void testSimpleUrisMatchJavaNetUri() throws Exception {
+        String[] uris = {
+                "http://example.com",
+                "http://example.com/",
+                "https://example.com:8443/a/b",
+                "http://example.com:80/a/b?c=d&e=f",
+                "http://10.0.0.1:8080/a/b#frag",
+                "http://example.com?q=1",
+                "http://example.com#frag",
+                "HTTP://Example.COM/A/B/c.d;e=f",
+                "http://example.com/a:b@c/d?e=/f?g"
+        };
+        for (String uri : uris) {
+            int authorityEnd = OutgoingUri.getAuthorityEnd(uri);
+            Assert.assertTrue(uri, authorityEnd != -1);
+            URI uriObject = new URI(uri);
+            Assert.assertEquals(uri, uriObject.getPath(), OutgoingUri.getPath(uri, authorityEnd));
+            URI authority = new URI(uri.substring(0, authorityEnd));
+            Assert.assertEquals(uri, uriObject.getHost(), authority.getHost());
+            Assert.assertEquals(uri, uriObject.getPort(), authority.getPort());
+        }
+    }
+
+    @Test
+    public void testUrisThatNeedJavaNetUri() {
+        String[] uris = {
+                "/relative/path",
+                "example.com/a",
+                "://example.com/a",
+                "1http://example.com/a",
+                "http:///a",
+                "http://user@example.com/a",
+                "http://[::1]:8080/a",
+                "http://my_host/a",
+                "http://example.com/a%20b",
+                "http://example.com/a b",
+                "http://example.com/a#b#c",
+                "http://example.com/café"
+        };
+        for (String uri : uris) {
+            Assert.assertEquals(uri, -1, OutgoingUri.getAuthorityEnd(uri));
+        }
+    }
+}
@@ -0,0 +1,50 @@
+package com.microsoft.applicationinsights.agent.internal.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.microsoft.applicationinsights.agent.internal.sdk.SdkBridge;
+
+class RecordingSdkBridge implements SdkBridge<Object> {
+
+    final List<RemoteDependencyTelemetry> tracked = new ArrayList<>();
+
+    String childDependencyTarget = "";
+    int childDependencyTargetCalls;
+
+    @Override
+    public void bindRequestTelemetryContext(Object requestTelemetryContext) {
+    }
+
+    @Override
+    public void unbindRequestTelemetryContext() {
+    }
+
+    @Override
+    public void setOperationName(Object requestTelemetryContext, String operationName) {
+    }
+
+    @Override
+    public String generateChildDependencyTarget(String requestContext, boolean w3c) {
+        childDependencyTargetCalls++;
+        return childDependencyTarget;
+    }
+
+    @Override
+    public <C> String propagate(Setter<C> setter, C carrier, boolean w3c, boolean w3cBackCompat) {
+        return "";
+    }
+
+    @Override
+    public void track(RemoteDependencyTelemetry telemetry) {
+        tracked.add(telemetry);
+    }
+
+    @Override
+    public void track(TraceTelemetry telemetry) {
+    }
+
+    @Override
+    public void track(ExceptionTelemetry telemetry) {
+    }
+}
@@ -0,0 +1,158 @@
+/*
+ * ApplicationInsights-Java
+ * Copyright (c) Microsoft Corporation
+ * All rights reserved.
+ *
+ * MIT License
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the ""Software""), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package com.microsoft.applicationinsights;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.microsoft.applicationinsights.channel.TelemetryChannel;
+import com.microsoft.applicationinsights.channel.TelemetrySampler;
+import com.microsoft.applicationinsights.extensibility.TelemetryInitializer;
+import com.microsoft.applicationinsights.extensibility.TelemetryProcessor;
+import com.microsoft.applicationinsights.internal.quickpulse.QuickPulseDataCollector;
+import com.microsoft.applicationinsights.telemetry.EventTelemetry;
+import com.microsoft.applicationinsights.telemetry.Telemetry;
+
+/**
+ * Throughput benchmark for {@link TelemetryClient#track(Telemetry)}.
+ *
+ * Every thread tracks a fixed number of events through a client with a few initializers and processors
+ * that do nothing, and live metrics enabled, so the numbers reflect the cost of the client itself.
+ * The channel only counts the items it gets. Run it on two builds to compare them, with:
+ * {@code java -cp <test classpath> ...TelemetryClientTrackBenchmark [itemsPerThread]}
+ */
+public final class TelemetryClientTrackBenchmark {
+    private static final int[] PRODUCER_THREADS = {1, 2, 4, 8, 16};
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 5;
+    private static final int INITIALIZERS = 3;
+    private static final int PROCESSORS = 2;
+
+    private static final class CountingChannel implements TelemetryChannel {
+        private final AtomicLong sent = new AtomicLong();
+
+        @Override
+        public boolean isDeveloperMode() {
+            return false;
+        }
+
+        @Override
+        public void setDeveloperMode(boolean value) {
+        }
+
+        @Override
+        public void send(Telemetry item) {
+            sent.incrementAndGet();
+        }
+
+        @Override
+        public void stop(long timeout, TimeUnit timeUnit) {
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void setSampler(TelemetrySampler telemetrySampler) {
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int itemsPerThread = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+
+        System.out.printf("%8s %20s%n", "threads", "track (ops/ms)");
+        for (int threads : PRODUCER_THREADS) {
+            System.out.printf("%8d %20.1f%n", threads, measure(threads, itemsPerThread));
+        }
+    }
+
+    private static double measure(int threads, int itemsPerThread) throws InterruptedException {
+        for (int i = 0; i < WARMUP_ROUNDS; ++i) {
+            runRound(threads, itemsPerThread);
+        }
+
+        double total = 0;
+        for (int i = 0; i < MEASURED_ROUNDS; ++i) {
+            total += runRound(threads, itemsPerThread);
+        }
+        return total / MEASURED_ROUNDS;
+    }
+
+    private static double runRound(int threads, final int itemsPerThread) throws InterruptedException {
+        CountingChannel channel = new CountingChannel();
+        TelemetryConfiguration configuration = new TelemetryConfiguration();
+        configuration.setInstrumentationKey("00000000-0000-0000-0000-000000000000");
+        configuration.setChannel(channel);
+        for (int i = 0; i < INITIALIZERS; ++i) {
+            configuration.getTelemetryInitializers().add(new TelemetryInitializer() {
+                @Override
+                public void initialize(Telemetry telemetry) {
+                }
+            });
+        }
+        for (int i = 0; i < PROCESSORS; ++i) {
+            configuration.getTelemetryProcessors().add(new TelemetryProcessor() {
+                @Override
+                public boolean process(Telemetry telemetry) {
+                    return true;
+                }
+            });
+        }
+        QuickPulseDataCollector.INSTANCE.enable(configuration);
+        final TelemetryClient client = new TelemetryClient(configuration);
+
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(threads);
+        for (int i = 0; i < threads; ++i) {
+            Thread producer = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        for (int j = 0; j < itemsPerThread; ++j) {
+                            client.track(new EventTelemetry("event"));
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            });
+            producer.setDaemon(true);
+            producer.start();
+        }
+
+        long startTime = System.nanoTime();
+        start.countDown();
+        done.await();
+        long elapsed = System.nanoTime() - startTime;
+        QuickPulseDataCollector.INSTANCE.disable();
+
+        if (channel.sent.get() != (long) threads * itemsPerThread) {
+            throw new IllegalStateException("Lost telemetries: " + channel.sent.get());
+        }
+        return ((double) threads * itemsPerThread) * TimeUnit.MILLISECONDS.toNanos(1) / elapsed;
+    }
+}
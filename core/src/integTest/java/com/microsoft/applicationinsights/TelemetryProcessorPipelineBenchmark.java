@@ -0,0 +1,204 @@
+/*
+ * ApplicationInsights-Java
+ * Copyright (c) Microsoft Corporation
+ * All rights reserved.
+ *
+ * MIT License
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the ""Software""), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package com.microsoft.applicationinsights;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.microsoft.applicationinsights.channel.TelemetryChannel;
+import com.microsoft.applicationinsights.channel.TelemetrySampler;
+import com.microsoft.applicationinsights.extensibility.TelemetryProcessor;
+import com.microsoft.applicationinsights.internal.processor.DuplicateExceptionFilter;
+import com.microsoft.applicationinsights.internal.processor.MetricTelemetryFilter;
+import com.microsoft.applicationinsights.internal.processor.PageViewTelemetryFilter;
+import com.microsoft.applicationinsights.internal.processor.PathTemplateProcessor;
+import com.microsoft.applicationinsights.internal.processor.RequestTelemetryFilter;
+import com.microsoft.applicationinsights.internal.processor.SyntheticSourceFilter;
+import com.microsoft.applicationinsights.internal.processor.TelemetryEventFilter;
+import com.microsoft.applicationinsights.internal.processor.TraceTelemetryFilter;
+import com.microsoft.applicationinsights.telemetry.Duration;
+import com.microsoft.applicationinsights.telemetry.EventTelemetry;
+import com.microsoft.applicationinsights.telemetry.MetricTelemetry;
+import com.microsoft.applicationinsights.telemetry.RemoteDependencyTelemetry;
+import com.microsoft.applicationinsights.telemetry.RequestTelemetry;
+import com.microsoft.applicationinsights.telemetry.SeverityLevel;
+import com.microsoft.applicationinsights.telemetry.Telemetry;
+import com.microsoft.applicationinsights.telemetry.TraceTelemetry;
+
+/**
+ * Single threaded benchmark for the telemetry processors run by {@link TelemetryClient#track(Telemetry)}.
+ *
+ * The client is configured with ten processors: the eight built-in ones, configured so that they let everything
+ * through, and two custom ones that do nothing. It tracks a mix of requests, dependencies, events, traces and metrics.
+ * The 'typed' configuration uses the processors as is, so that each telemetry only goes through the processors
+ * of its type, and the 'untyped' one hides their types, so that every telemetry goes through all of them.
+ * Run it with: {@code java -cp <test classpath> ...TelemetryProcessorPipelineBenchmark [iterations]}
+ */
+public final class TelemetryProcessorPipelineBenchmark {
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 5;
+
+    private static final class CountingChannel implements TelemetryChannel {
+        private long sent;
+
+        @Override
+        public boolean isDeveloperMode() {
+            return false;
+        }
+
+        @Override
+        public void setDeveloperMode(boolean value) {
+        }
+
+        @Override
+        public void send(Telemetry item) {
+            ++sent;
+        }
+
+        @Override
+        public void stop(long timeout, TimeUnit timeUnit) {
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void setSampler(TelemetrySampler telemetrySampler) {
+        }
+    }
+
+    public static void main(String[] args) throws Throwable {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+
+        System.out.printf("%-10s %10s%n", "processors", "ns/op");
+        System.out.printf("%-10s %10.1f%n", "typed", measure(createProcessors(), iterations));
+        System.out.printf("%-10s %10.1f%n", "untyped", measure(hideTypes(createProcessors()), iterations));
+    }
+
+    @SuppressWarnings("deprecation")
+    private static List<TelemetryProcessor> createProcessors() throws Throwable {
+        List<TelemetryProcessor> processors = new ArrayList<TelemetryProcessor>();
+
+        RequestTelemetryFilter requestFilter = new RequestTelemetryFilter();
+        requestFilter.setNotNeededResponseCodes("300-399, 404, 1000-1999");
+        requestFilter.setMinimumDurationInMS("1");
+        processors.add(requestFilter);
+
+        TelemetryEventFilter eventFilter = new TelemetryEventFilter();
+        eventFilter.setNotNeededNames("ignored1, ignored2");
+        processors.add(eventFilter);
+
+        PageViewTelemetryFilter pageViewFilter = new PageViewTelemetryFilter();
+        pageViewFilter.setNotNeededNames("ignored");
+        processors.add(pageViewFilter);
+
+        TraceTelemetryFilter traceFilter = new TraceTelemetryFilter();
+        traceFilter.setFromSeverityLevel("INFO");
+        processors.add(traceFilter);
+
+        MetricTelemetryFilter metricFilter = new MetricTelemetryFilter();
+        metricFilter.setNotNeeded("ignored");
+        processors.add(metricFilter);
+
+        processors.add(new DuplicateExceptionFilter());
+
+        SyntheticSourceFilter syntheticSourceFilter = new SyntheticSourceFilter();
+        syntheticSourceFilter.setNotNeededSources("bot");
+        processors.add(syntheticSourceFilter);
+
+        processors.add(new PathTemplateProcessor());
+
+        for (int i = 0; i < 2; ++i) {
+            processors.add(new TelemetryProcessor() {
+                @Override
+                public boolean process(Telemetry telemetry) {
+                    return true;
+                }
+            });
+        }
+        return processors;
+    }
+
+    private static List<TelemetryProcessor> hideTypes(List<TelemetryProcessor> processors) {
+        List<TelemetryProcessor> result = new ArrayList<TelemetryProcessor>();
+        for (final TelemetryProcessor processor : processors) {
+            result.add(new TelemetryProcessor() {
+                @Override
+                public boolean process(Telemetry telemetry) {
+                    return processor.process(telemetry);
+                }
+            });
+        }
+        return result;
+    }
+
+    private static double measure(List<TelemetryProcessor> processors, int iterations) {
+        CountingChannel channel = new CountingChannel();
+        TelemetryConfiguration configuration = new TelemetryConfiguration();
+        configuration.setInstrumentationKey("00000000-0000-0000-0000-000000000000");
+        configuration.setChannel(channel);
+        configuration.getTelemetryProcessors().addAll(processors);
+        TelemetryClient client = new TelemetryClient(configuration);
+
+        for (int i = 0; i < WARMUP_ROUNDS; ++i) {
+            runRound(client, iterations);
+        }
+
+        double total = 0;
+        for (int i = 0; i < MEASURED_ROUNDS; ++i) {
+            total += runRound(client, iterations);
+        }
+
+        if (channel.sent != (long) (WARMUP_ROUNDS + MEASURED_ROUNDS) * iterations) {
+            throw new IllegalStateException("Filtered out telemetries: " + channel.sent);
+        }
+        return total / MEASURED_ROUNDS;
+    }
+
+    private static double runRound(TelemetryClient client, int iterations) {
+        long startTime = System.nanoTime();
+        for (int i = 0; i < iterations; ++i) {
+            client.track(createTelemetry(i));
+        }
+        long elapsed = System.nanoTime() - startTime;
+        return (double) elapsed / iterations;
+    }
+
+    private static Telemetry createTelemetry(int index) {
+        switch (index % 5) {
+            case 0:
+                return new RequestTelemetry("GET /orders", null, new Duration(10), "200", true);
+            case 1:
+                return new RemoteDependencyTelemetry("GET /items");
+            case 2:
+                return new EventTelemetry("event");
+            case 3:
+                TraceTelemetry trace = new TraceTelemetry("message");
+                trace.setSeverityLevel(SeverityLevel.Warning);
+                return trace;
+            default:
+                return new MetricTelemetry("metric", 1);
+        }
+    }
+}
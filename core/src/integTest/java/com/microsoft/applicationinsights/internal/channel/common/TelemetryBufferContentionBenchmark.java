@@ -0,0 +1,128 @@
+/*
+ * ApplicationInsights-Java
+ * Copyright (c) Microsoft Corporation
+ * All rights reserved.
+ *
+ * MIT License
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the ""Software""), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package com.microsoft.applicationinsights.internal.channel.common;
+
+import java.util.Collection;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.microsoft.applicationinsights.internal.channel.TelemetriesTransmitter;
+import com.microsoft.applicationinsights.internal.util.LimitsEnforcer;
+
+/**
+ * Contention benchmark for {@link TelemetryBuffer} and {@link StripedTelemetryBuffer}.
+ *
+ * Every producer thread adds a fixed number of items and the throughput of all the producers is printed
+ * for 1 to 64 threads. The transmitter only counts the items it gets, so the numbers reflect the cost of
+ * the buffer itself. Run with: {@code java -cp <test classpath> ...TelemetryBufferContentionBenchmark [itemsPerThread] [stripes]}
+ */
+public final class TelemetryBufferContentionBenchmark {
+    private static final int[] PRODUCER_THREADS = {1, 2, 4, 8, 16, 32, 64};
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 5;
+
+    private static final class CountingTransmitter implements TelemetriesTransmitter<String> {
+        private final AtomicLong sent = new AtomicLong();
+
+        @Override
+        public boolean scheduleSend(TelemetriesFetcher<String> telemetriesFetcher, long value, TimeUnit timeUnit) {
+            return true;
+        }
+
+        @Override
+        public boolean sendNow(Collection<String> telemetries) {
+            sent.addAndGet(telemetries.size());
+            return true;
+        }
+
+        @Override
+        public void stop(long timeout, TimeUnit timeUnit) {
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int itemsPerThread = args.length > 0 ? Integer.parseInt(args[0]) : 200000;
+        int stripes = args.length > 1 ? Integer.parseInt(args[1]) : Math.max(2, Runtime.getRuntime().availableProcessors());
+
+        System.out.printf("%8s %20s %20s%n", "threads", "single (ops/ms)", "striped-" + stripes + " (ops/ms)");
+        for (int threads : PRODUCER_THREADS) {
+            double single = measure(threads, itemsPerThread, 1);
+            double striped = measure(threads, itemsPerThread, stripes);
+            System.out.printf("%8d %20.1f %20.1f%n", threads, single, striped);
+        }
+    }
+
+    private static double measure(int threads, int itemsPerThread, int stripes) throws InterruptedException {
+        for (int i = 0; i < WARMUP_ROUNDS; ++i) {
+            runRound(threads, itemsPerThread, stripes);
+        }
+
+        double total = 0;
+        for (int i = 0; i < MEASURED_ROUNDS; ++i) {
+            total += runRound(threads, itemsPerThread, stripes);
+        }
+        return total / MEASURED_ROUNDS;
+    }
+
+    private static double runRound(int threads, final int itemsPerThread, int stripes) throws InterruptedException {
+        CountingTransmitter transmitter = new CountingTransmitter();
+        LimitsEnforcer maxEnforcer = LimitsEnforcer.createWithClosestLimitOnError("MaxTelemetryBufferCapacity", 1, 1000, 500, 500);
+        LimitsEnforcer timeoutEnforcer = LimitsEnforcer.createWithClosestLimitOnError("FlushIntervalInSeconds", 1, 300, 5, 5);
+        final TelemetryBuffer<String> buffer = stripes > 1
+                ? new StripedTelemetryBuffer<String>(transmitter, maxEnforcer, timeoutEnforcer, stripes)
+                : new TelemetryBuffer<String>(transmitter, maxEnforcer, timeoutEnforcer);
+
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(threads);
+        for (int i = 0; i < threads; ++i) {
+            Thread producer = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        for (int j = 0; j < itemsPerThread; ++j) {
+                            buffer.add("telemetry");
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            });
+            producer.setDaemon(true);
+            producer.start();
+        }
+
+        long startTime = System.nanoTime();
+        start.countDown();
+        done.await();
+        long elapsed = System.nanoTime() - startTime;
+        buffer.flush();
+
+        if (transmitter.sent.get() != (long) threads * itemsPerThread) {
+            throw new IllegalStateException("Lost telemetries: " + transmitter.sent.get());
+        }
+        return ((double) threads * itemsPerThread) * TimeUnit.MILLISECONDS.toNanos(1) / elapsed;
+    }
+}
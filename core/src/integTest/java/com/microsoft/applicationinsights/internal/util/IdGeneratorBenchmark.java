@@ -0,0 +1,129 @@
+/*
+ * ApplicationInsights-Java
+ * Copyright (c) Microsoft Corporation
+ * All rights reserved.
+ *
+ * MIT License
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the ""Software""), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package com.microsoft.applicationinsights.internal.util;
+
+import java.util.UUID;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput benchmark for {@link IdGenerator} against the way ids were generated before it,
+ * that is {@link UUID#randomUUID()} and a String.format per byte of a traceparent id.
+ *
+ * Run it with: {@code java -cp <test classpath> ...IdGeneratorBenchmark [idsPerThread]}
+ */
+public final class IdGeneratorBenchmark {
+    private static final int[] THREADS = {1, 2, 4, 8, 16};
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 5;
+
+    private interface Generator {
+        String generate();
+    }
+
+    private static final Generator UUID_NO_DASHES = new Generator() {
+        @Override
+        public String generate() {
+            return UUID.randomUUID().toString().replace("-", "");
+        }
+    };
+
+    private static final Generator FORMATTED_HEX = new Generator() {
+        @Override
+        public String generate() {
+            byte[] bytes = new byte[16];
+            ThreadLocalRandom.current().nextBytes(bytes);
+            StringBuilder sb = new StringBuilder();
+            for (byte b : bytes) {
+                sb.append(String.format("%02x", b));
+            }
+            return sb.toString();
+        }
+    };
+
+    private static final Generator ID_GENERATOR = new Generator() {
+        @Override
+        public String generate() {
+            return IdGenerator.randomHex(16);
+        }
+    };
+
+    public static void main(String[] args) throws Exception {
+        int idsPerThread = args.length > 0 ? Integer.parseInt(args[0]) : 500000;
+
+        System.out.printf("%8s %24s %24s %24s%n", "threads", "UUID (ops/ms)", "String.format (ops/ms)", "IdGenerator (ops/ms)");
+        for (int threads : THREADS) {
+            System.out.printf("%8d %24.1f %24.1f %24.1f%n", threads,
+                    measure(UUID_NO_DASHES, threads, idsPerThread),
+                    measure(FORMATTED_HEX, threads, idsPerThread),
+                    measure(ID_GENERATOR, threads, idsPerThread));
+        }
+    }
+
+    private static double measure(Generator generator, int threads, int idsPerThread) throws InterruptedException {
+        for (int i = 0; i < WARMUP_ROUNDS; ++i) {
+            runRound(generator, threads, idsPerThread);
+        }
+
+        double total = 0;
+        for (int i = 0; i < MEASURED_ROUNDS; ++i) {
+            total += runRound(generator, threads, idsPerThread);
+        }
+        return total / MEASURED_ROUNDS;
+    }
+
+    private static double runRound(final Generator generator, int threads, final int idsPerThread) throws InterruptedException {
+        final CountDownLatch start = new CountDownLatch(1);
+        final CountDownLatch done = new CountDownLatch(threads);
+        for (int i = 0; i < threads; ++i) {
+            Thread producer = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        start.await();
+                        int length = 0;
+                        for (int j = 0; j < idsPerThread; ++j) {
+                            length += generator.generate().length();
+                        }
+                        if (length != idsPerThread * 32) {
+                            throw new IllegalStateException("Unexpected id length");
+                        }
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    } finally {
+                        done.countDown();
+                    }
+                }
+            });
+            producer.setDaemon(true);
+            producer.start();
+        }
+
+        long startTime = System.nanoTime();
+        start.countDown();
+        done.await();
+        long elapsed = System.nanoTime() - startTime;
+
+        return ((double) threads * idsPerThread) * TimeUnit.MILLISECONDS.toNanos(1) / elapsed;
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * ApplicationInsights-Java
+ * Copyright (c) Microsoft Corporation
+ * All rights reserved.
+ *
+ * MIT License
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the ""Software""), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package com.microsoft.applicationinsights.telemetry;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Single threaded benchmark for serializing each telemetry type with {@link JsonTelemetryDataSerializer}.
+ *
+ * The output goes to a writer that only counts characters, so the numbers reflect the serializer itself.
+ * Run it on two builds to compare them, with:
+ * {@code java -cp <test classpath> ...JsonTelemetryDataSerializerBenchmark [itemsPerRound]}
+ */
+public final class JsonTelemetryDataSerializerBenchmark {
+    private static final int WARMUP_ROUNDS = 5;
+    private static final int MEASURED_ROUNDS = 10;
+
+    private static final class CountingWriter extends Writer {
+        private long count;
+
+        @Override
+        public void write(int c) {
+            ++count;
+        }
+
+        @Override
+        public void write(char[] buffer, int offset, int length) {
+            count += length;
+        }
+
+        @Override
+        public void write(String str, int offset, int length) {
+            count += length;
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int itemsPerRound = args.length > 0 ? Integer.parseInt(args[0]) : 100000;
+
+        Map<String, BaseTelemetry> telemetries = new LinkedHashMap<String, BaseTelemetry>();
+        telemetries.put("request", new RequestTelemetry("GET /api/items", new Date(), 125, "200", true));
+        telemetries.put("dependency", new RemoteDependencyTelemetry("sql", "select * from \"items\"", new Duration(42), true));
+        telemetries.put("exception", new ExceptionTelemetry(new IllegalStateException("failed", new RuntimeException("cause"))));
+        telemetries.put("trace", new TraceTelemetry("a log line\twith a tab", SeverityLevel.Information));
+        telemetries.put("event", new EventTelemetry("event"));
+        telemetries.put("metric", new MetricTelemetry("metric", 12.5));
+        telemetries.put("pageview", new PageViewTelemetry("page"));
+        telemetries.put("perfcounter", new PerformanceCounterTelemetry("Process", "% Processor Time", "", 4.5));
+        for (BaseTelemetry telemetry : telemetries.values()) {
+            telemetry.getContext().setInstrumentationKey("00000000-0000-0000-0000-000000000000");
+            telemetry.getContext().getOperation().setId("4bf92f3577b34da6a3ce929d0e0e4736");
+            telemetry.getContext().getProperties().put("property", "value");
+        }
+
+        System.out.printf("%12s %20s%n", "type", "serialize (ops/ms)");
+        for (Map.Entry<String, BaseTelemetry> entry : telemetries.entrySet()) {
+            System.out.printf("%12s %20.1f%n", entry.getKey(), measure(entry.getValue(), itemsPerRound));
+        }
+    }
+
+    private static double measure(BaseTelemetry telemetry, int itemsPerRound) throws IOException {
+        for (int i = 0; i < WARMUP_ROUNDS; ++i) {
+            runRound(telemetry, itemsPerRound);
+        }
+
+        double total = 0;
+        for (int i = 0; i < MEASURED_ROUNDS; ++i) {
+            total += runRound(telemetry, itemsPerRound);
+        }
+        return total / MEASURED_ROUNDS;
+    }
+
+    private static double runRound(BaseTelemetry telemetry, int itemsPerRound) throws IOException {
+        CountingWriter writer = new CountingWriter();
+        JsonTelemetryDataSerializer serializer = new JsonTelemetryDataSerializer(writer);
+
+        long startTime = System.nanoTime();
+        for (int i = 0; i < itemsPerRound; ++i) {
+            serializer.reset(writer);
+            telemetry.serialize(serializer);
+            serializer.close();
+        }
+        long elapsed = System.nanoTime() - startTime;
+
+        if (writer.count == 0) {
+            throw new IllegalStateException("Nothing was written");
+        }
+        return ((double) itemsPerRound) * TimeUnit.MILLISECONDS.toNanos(1) / elapsed;
+    }
+}
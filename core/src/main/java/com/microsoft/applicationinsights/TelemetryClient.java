@@ -31,6 +31,7 @@ import com.microsoft.applicationinsights.extensibility.TelemetryInitializer;
 import com.microsoft.applicationinsights.extensibility.TelemetryProcessor;
 import com.microsoft.applicationinsights.extensibility.context.CloudContext;
 import com.microsoft.applicationinsights.extensibility.context.InternalContext;
+import com.microsoft.applicationinsights.internal.channel.samplingV2.FixedRateSamplingTelemetryProcessor;
 import com.microsoft.applicationinsights.internal.logger.InternalLogger;
 import com.microsoft.applicationinsights.internal.quickpulse.QuickPulseDataCollector;
 import com.microsoft.applicationinsights.internal.util.ChannelFetcher;
@@ -38,6 +39,8 @@ import com.microsoft.applicationinsights.internal.shutdown.SDKShutdownActivity;
 import com.microsoft.applicationinsights.telemetry.*;
 import com.microsoft.applicationinsights.internal.util.MapUtil;
 import com.microsoft.applicationinsights.channel.TelemetryChannel;
+import com.microsoft.applicationinsights.metrics.Metric;
+import com.microsoft.applicationinsights.metrics.MetricManager;
 
 import com.google.common.base.Strings;
 import org.apache.commons.lang3.StringUtils;
@@ -53,9 +56,11 @@ public class TelemetryClient {
     private final TelemetryConfiguration configuration;
     private volatile TelemetryContext context;
     private TelemetryChannel channel;
+    private volatile MetricManager metricManager;
 
     private static final Object TELEMETRY_STOP_HOOK_LOCK = new Object();
     private static final Object TELEMETRY_CONTEXT_LOCK = new Object();
+    private final Object metricManagerLock = new Object();
 
     private static AtomicLong generateCounter = new AtomicLong(0);
     /**
@@ -104,8 +109,12 @@ public class TelemetryClient {
      * @return 'true' if tracking is disabled, 'false' otherwise.
      */
     public boolean isDisabled() {
-        return (Strings.isNullOrEmpty(configuration.getInstrumentationKey()) && Strings.isNullOrEmpty(getContext().getInstrumentationKey()))
-                || configuration.isTrackingDisabled();
+        return isDisabled(configuration.getSnapshot());
+    }
+
+    private boolean isDisabled(TelemetryConfiguration.Snapshot snapshot) {
+        return snapshot.trackingDisabled
+                || (Strings.isNullOrEmpty(snapshot.instrumentationKey) && Strings.isNullOrEmpty(getContext().getInstrumentationKey()));
     }
 
     /**
@@ -265,6 +274,19 @@ public class TelemetryClient {
         track(telemetry);
     }
 
+    /**
+     * Gets a metric that is aggregated in the application. Values tracked through it are sent once a minute as a single
+     * metric per combination of dimension values, with their count, sum, minimum, maximum and standard deviation.
+     * Prefer it over {@link #trackMetric(String, double)} for values that are tracked often.
+     * @param name The name of the metric. Max length 150.
+     * @param dimensionNames The names of the dimensions of the metric, the same on every call for that name.
+     * @return The metric, keep it to track values.
+     * @throws IllegalArgumentException if the metric already exists with other dimension names.
+     */
+    public Metric getMetric(String name, String... dimensionNames) {
+        return getMetricManager().getMetric(name, dimensionNames);
+    }
+
     /**
      * Sends an exception record to Application Insights. Appears in "exceptions" in Analytics and Search.
      * @param exception The exception to log information about.
@@ -393,7 +415,14 @@ public class TelemetryClient {
             throw new IllegalArgumentException("telemetry item cannot be null");
         }
 
-        if (isDisabled()) {
+        // The settings are read once, changes to the configuration apply from the next telemetry
+        TelemetryConfiguration.Snapshot snapshot = configuration.getSnapshot();
+        if (isDisabled(snapshot)) {
+            return;
+        }
+
+        // Items the sampling processors will discard anyway are dropped before the costly enrichment below
+        if (isSampledOutEarly(snapshot, telemetry)) {
             return;
         }
 
@@ -404,7 +433,7 @@ public class TelemetryClient {
         TelemetryContext ctx = this.getContext();
 
         if (Strings.isNullOrEmpty(ctx.getInstrumentationKey())) {
-            ctx.setInstrumentationKey(configuration.getInstrumentationKey());
+            ctx.setInstrumentationKey(snapshot.instrumentationKey);
         }
 
         try {
@@ -420,13 +449,13 @@ public class TelemetryClient {
             }
         }
 
-        activateInitializers(telemetry);
+        activateInitializers(snapshot, telemetry);
 
         if (Strings.isNullOrEmpty(telemetry.getContext().getInstrumentationKey())) {
             throw new IllegalArgumentException("Instrumentation key cannot be undefined.");
         }
 
-        if (!activateProcessors(telemetry)) {
+        if (!activateProcessors(snapshot, telemetry)) {
             return;
         }
 
@@ -451,8 +480,35 @@ public class TelemetryClient {
         }
     }
 
-    private void activateInitializers(Telemetry telemetry) {
-        for (TelemetryInitializer initializer : this.configuration.getTelemetryInitializers()) {
+    private boolean isSampledOutEarly(TelemetryConfiguration.Snapshot snapshot, Telemetry telemetry) {
+        // As in process(), the first processor that samples the telemetry sets the percentage the later ones use
+        Double samplingPercentage = null;
+        for (FixedRateSamplingTelemetryProcessor processor : snapshot.samplingProcessors) {
+            try {
+                if (processor.isSampledOutEarly(telemetry, samplingPercentage)) {
+                    return true;
+                }
+                if (samplingPercentage == null) {
+                    samplingPercentage = processor.getSamplingPercentageFor(telemetry);
+                }
+            } catch (ThreadDeath td) {
+                throw td;
+            } catch (Throwable t) {
+                try {
+                    InternalLogger.INSTANCE.error("Exception while sampling telemetry: '%s'", t.toString());
+                } catch (ThreadDeath td) {
+                    throw td;
+                } catch (Throwable t2) {
+                    // chomp
+                }
+            }
+        }
+
+        return false;
+    }
+
+    private void activateInitializers(TelemetryConfiguration.Snapshot snapshot, Telemetry telemetry) {
+        for (TelemetryInitializer initializer : snapshot.telemetryInitializers) {
             try {
                 initializer.initialize(telemetry);
             } catch (ThreadDeath td) {
@@ -468,8 +524,8 @@ public class TelemetryClient {
         }
     }
 
-    private boolean activateProcessors(Telemetry telemetry) {
-        for (TelemetryProcessor processor : configuration.getTelemetryProcessors()) {
+    private boolean activateProcessors(TelemetryConfiguration.Snapshot snapshot, Telemetry telemetry) {
+        for (TelemetryProcessor processor : snapshot.processorPipeline.getProcessors(telemetry.getClass())) {
             try {
                 if (!processor.process(telemetry)) {
                     return false;
@@ -493,6 +549,10 @@ public class TelemetryClient {
      * Flushes possible pending Telemetries in the channel. Not required for a continuously-running server application.
      */
     public void flush() {
+        MetricManager currentMetricManager = metricManager;
+        if (currentMetricManager != null) {
+            currentMetricManager.flush();
+        }
         getChannel().flush();
     }
 
@@ -507,6 +567,18 @@ public class TelemetryClient {
         return this.channel;
     }
 
+    private MetricManager getMetricManager() {
+        if (metricManager == null) {
+            synchronized (metricManagerLock) {
+                if (metricManager == null) {
+                    metricManager = new MetricManager(this);
+                }
+            }
+        }
+
+        return metricManager;
+    }
+
     private TelemetryContext createInitializedContext() {
         TelemetryContext ctx = new TelemetryContext();
         ctx.setInstrumentationKey(configuration.getInstrumentationKey());
@@ -29,13 +29,18 @@ import com.microsoft.applicationinsights.extensibility.ContextInitializer;
 import com.microsoft.applicationinsights.extensibility.TelemetryInitializer;
 import com.microsoft.applicationinsights.extensibility.TelemetryModule;
 import com.microsoft.applicationinsights.extensibility.TelemetryProcessor;
+import com.microsoft.applicationinsights.internal.channel.samplingV2.FixedRateSamplingTelemetryProcessor;
 import com.microsoft.applicationinsights.internal.config.TelemetryConfigurationFactory;
 import com.microsoft.applicationinsights.internal.config.connection.ConnectionString;
 import com.microsoft.applicationinsights.internal.config.connection.EndpointProvider;
 import com.microsoft.applicationinsights.internal.config.connection.InvalidConnectionStringException;
 
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Encapsulates the global telemetry configuration typically loaded from the ApplicationInsights.xml file.
@@ -45,6 +50,136 @@ import java.util.concurrent.CopyOnWriteArrayList;
  */
 public final class TelemetryConfiguration {
 
+    /**
+     * An immutable copy of the settings that {@link TelemetryClient#track} reads for every telemetry,
+     * so that it can get all of them with a single volatile read.
+     */
+    static final class Snapshot {
+        final String instrumentationKey;
+        final boolean trackingDisabled;
+        final TelemetryInitializer[] telemetryInitializers;
+        final TelemetryProcessor[] telemetryProcessors;
+        final TelemetryProcessorPipeline processorPipeline;
+        final FixedRateSamplingTelemetryProcessor[] samplingProcessors;
+
+        private final long modifications;
+
+        private Snapshot(TelemetryConfiguration configuration, long modifications) {
+            this.modifications = modifications;
+            this.instrumentationKey = configuration.instrumentationKey;
+            this.trackingDisabled = configuration.trackingIsDisabled;
+            this.telemetryInitializers = configuration.telemetryInitializers.toArray(new TelemetryInitializer[0]);
+            this.telemetryProcessors = configuration.telemetryProcessors.toArray(new TelemetryProcessor[0]);
+            this.processorPipeline = new TelemetryProcessorPipeline(telemetryProcessors);
+
+            List<FixedRateSamplingTelemetryProcessor> samplingProcessors = new ArrayList<FixedRateSamplingTelemetryProcessor>();
+            for (TelemetryProcessor processor : telemetryProcessors) {
+                if (processor instanceof FixedRateSamplingTelemetryProcessor) {
+                    samplingProcessors.add((FixedRateSamplingTelemetryProcessor) processor);
+                }
+            }
+            this.samplingProcessors = samplingProcessors.toArray(new FixedRateSamplingTelemetryProcessor[0]);
+        }
+    }
+
+    /**
+     * A copy-on-write list that marks the configuration as changed whenever it is modified.
+     *
+     * It wraps the list instead of extending it, so that the mutators inherited from {@link AbstractList},
+     * including those of sub lists and list iterators, all go through {@link #set}, {@link #add} or {@link #remove}.
+     * Iteration works on a snapshot of the list, like {@link CopyOnWriteArrayList}.
+     */
+    private final class ConfigurationList<E> extends AbstractList<E> {
+        private final CopyOnWriteArrayList<E> elements = new CopyOnWriteArrayList<E>();
+
+        @Override
+        public E get(int index) {
+            return elements.get(index);
+        }
+
+        @Override
+        public int size() {
+            return elements.size();
+        }
+
+        @Override
+        public E set(int index, E element) {
+            E previous = elements.set(index, element);
+            configurationChanged();
+            return previous;
+        }
+
+        @Override
+        public void add(int index, E element) {
+            elements.add(index, element);
+            modCount++;
+            configurationChanged();
+        }
+
+        @Override
+        public E remove(int index) {
+            E removed = elements.remove(index);
+            modCount++;
+            configurationChanged();
+            return removed;
+        }
+
+        @Override
+        public boolean contains(Object o) {
+            return elements.contains(o);
+        }
+
+        @Override
+        public int indexOf(Object o) {
+            return elements.indexOf(o);
+        }
+
+        @Override
+        public int lastIndexOf(Object o) {
+            return elements.lastIndexOf(o);
+        }
+
+        @Override
+        public Object[] toArray() {
+            return elements.toArray();
+        }
+
+        @Override
+        public <T> T[] toArray(T[] a) {
+            return elements.toArray(a);
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            final Iterator<E> snapshot = elements.iterator();
+            return new Iterator<E>() {
+                private E lastReturned;
+                private boolean canRemove;
+
+                @Override
+                public boolean hasNext() {
+                    return snapshot.hasNext();
+                }
+
+                @Override
+                public E next() {
+                    lastReturned = snapshot.next();
+                    canRemove = true;
+                    return lastReturned;
+                }
+
+                @Override
+                public void remove() {
+                    if (!canRemove) {
+                        throw new IllegalStateException();
+                    }
+                    canRemove = false;
+                    ConfigurationList.this.remove(lastReturned);
+                }
+            };
+        }
+    }
+
     // Synchronization for instance initialization
     private static final Object s_lock = new Object();
     private static volatile TelemetryConfiguration active;
@@ -56,13 +191,20 @@ public final class TelemetryConfiguration {
     private final EndpointProvider endpointProvider = new EndpointProvider();
 
     private final List<ContextInitializer> contextInitializers =  new  CopyOnWriteArrayList<ContextInitializer>();
-    private final List<TelemetryInitializer> telemetryInitializers = new CopyOnWriteArrayList<TelemetryInitializer>();
+    private final List<TelemetryInitializer> telemetryInitializers = new ConfigurationList<TelemetryInitializer>();
     private final List<TelemetryModule> telemetryModules = new CopyOnWriteArrayList<TelemetryModule>();
-    private final List<TelemetryProcessor> telemetryProcessors = new CopyOnWriteArrayList<TelemetryProcessor>();
+    private final List<TelemetryProcessor> telemetryProcessors = new ConfigurationList<TelemetryProcessor>();
 
     private TelemetryChannel channel;
 
-    private boolean trackingIsDisabled = false;
+    private volatile boolean trackingIsDisabled = false;
+
+    private final Object snapshotLock = new Object();
+
+    /// Counts the changes to the settings in the snapshot, which is rebuilt when it is older than the last change
+    private final AtomicLong modifications = new AtomicLong();
+
+    private volatile Snapshot snapshot = new Snapshot(this, 0);
 
     /**
      * Gets the active {@link com.microsoft.applicationinsights.TelemetryConfiguration} instance loaded from the
@@ -152,6 +294,7 @@ public final class TelemetryConfiguration {
      */
     public void setTrackingIsDisabled(boolean disable) {
         trackingIsDisabled = disable;
+        configurationChanged();
     }
 
     /**
@@ -216,6 +359,7 @@ public final class TelemetryConfiguration {
         }
 
         instrumentationKey = key;
+        configurationChanged();
     }
 
     public String getRoleName() {
@@ -243,6 +387,31 @@ public final class TelemetryConfiguration {
         return endpointProvider;
     }
 
+    /**
+     * Returns the snapshot of the current settings, rebuilding it first if they were changed since it was taken.
+     * The counter is read before the settings are, so a change made while the snapshot
+     * is being rebuilt leaves it out of date and the next call rebuilds it again.
+     */
+    Snapshot getSnapshot() {
+        Snapshot current = snapshot;
+        if (current.modifications == modifications.get()) {
+            return current;
+        }
+        synchronized (snapshotLock) {
+            current = snapshot;
+            long lastModification = modifications.get();
+            if (current.modifications != lastModification) {
+                current = new Snapshot(this, lastModification);
+                snapshot = current;
+            }
+            return current;
+        }
+    }
+
+    private void configurationChanged() {
+        modifications.incrementAndGet();
+    }
+
     /**
      * Method for tear down in tests
      */
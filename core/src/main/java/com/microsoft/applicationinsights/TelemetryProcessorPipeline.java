@@ -0,0 +1,140 @@
+/*
+ * ApplicationInsights-Java
+ * Copyright (c) Microsoft Corporation
+ * All rights reserved.
+ *
+ * MIT License
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the ""Software""), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package com.microsoft.applicationinsights;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.microsoft.applicationinsights.extensibility.TelemetryProcessor;
+import com.microsoft.applicationinsights.extensibility.TypedTelemetryProcessor;
+import com.microsoft.applicationinsights.internal.logger.InternalLogger;
+import com.microsoft.applicationinsights.telemetry.EventTelemetry;
+import com.microsoft.applicationinsights.telemetry.ExceptionTelemetry;
+import com.microsoft.applicationinsights.telemetry.MetricTelemetry;
+import com.microsoft.applicationinsights.telemetry.PageViewTelemetry;
+import com.microsoft.applicationinsights.telemetry.RemoteDependencyTelemetry;
+import com.microsoft.applicationinsights.telemetry.RequestTelemetry;
+import com.microsoft.applicationinsights.telemetry.Telemetry;
+import com.microsoft.applicationinsights.telemetry.TraceTelemetry;
+
+/**
+ * The telemetry processors of a configuration, indexed by the class of the telemetries they process.
+ *
+ * A {@link TypedTelemetryProcessor} only gets the telemetries of its types, the other processors get all of them.
+ * The processors of the common telemetry classes are resolved when the pipeline is built, the ones of other
+ * classes the first time such a telemetry is tracked. Each class gets its processors in the configured order.
+ */
+final class TelemetryProcessorPipeline {
+
+    private static final List<Class<? extends Telemetry>> COMMON_TELEMETRY_CLASSES = Arrays.<Class<? extends Telemetry>>asList(
+            EventTelemetry.class,
+            ExceptionTelemetry.class,
+            MetricTelemetry.class,
+            PageViewTelemetry.class,
+            RemoteDependencyTelemetry.class,
+            RequestTelemetry.class,
+            TraceTelemetry.class);
+
+    private final TelemetryProcessor[] processors;
+
+    /// The types handled by each processor, null for the processors that handle all of them
+    private final Class<?>[][] processorTypes;
+
+    private final ConcurrentMap<Class<?>, TelemetryProcessor[]> processorsByClass = new ConcurrentHashMap<Class<?>, TelemetryProcessor[]>();
+
+    TelemetryProcessorPipeline(TelemetryProcessor[] processors) {
+        this.processors = processors;
+        this.processorTypes = new Class<?>[processors.length][];
+        for (int i = 0; i < processors.length; ++i) {
+            processorTypes[i] = getTelemetryTypes(processors[i]);
+        }
+        for (Class<? extends Telemetry> telemetryClass : COMMON_TELEMETRY_CLASSES) {
+            processorsByClass.put(telemetryClass, resolve(telemetryClass));
+        }
+    }
+
+    /**
+     * @return The processors to run, in order, on the telemetries of the given class, which must not be modified.
+     */
+    TelemetryProcessor[] getProcessors(Class<?> telemetryClass) {
+        TelemetryProcessor[] result = processorsByClass.get(telemetryClass);
+        if (result == null) {
+            result = resolve(telemetryClass);
+            TelemetryProcessor[] existing = processorsByClass.putIfAbsent(telemetryClass, result);
+            if (existing != null) {
+                result = existing;
+            }
+        }
+        return result;
+    }
+
+    private TelemetryProcessor[] resolve(Class<?> telemetryClass) {
+        List<TelemetryProcessor> result = new ArrayList<TelemetryProcessor>(processors.length);
+        for (int i = 0; i < processors.length; ++i) {
+            if (handles(processorTypes[i], telemetryClass)) {
+                result.add(processors[i]);
+            }
+        }
+        return result.toArray(new TelemetryProcessor[0]);
+    }
+
+    private static boolean handles(Class<?>[] types, Class<?> telemetryClass) {
+        if (types == null) {
+            return true;
+        }
+        for (Class<?> type : types) {
+            if (type.isAssignableFrom(telemetryClass)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static Class<?>[] getTelemetryTypes(TelemetryProcessor processor) {
+        if (!(processor instanceof TypedTelemetryProcessor)) {
+            return null;
+        }
+        try {
+            Collection<Class<? extends Telemetry>> types = ((TypedTelemetryProcessor) processor).getTelemetryTypes();
+            if (types == null) {
+                return null;
+            }
+            return types.toArray(new Class<?>[0]);
+        } catch (ThreadDeath td) {
+            throw td;
+        } catch (Throwable t) {
+            try {
+                InternalLogger.INSTANCE.error("Failed to get the telemetry types of processor '%s', it will process all the telemetries: '%s'",
+                        processor.getClass().getName(), t.toString());
+            } catch (ThreadDeath td) {
+                throw td;
+            } catch (Throwable t2) {
+                // chomp
+            }
+            return null;
+        }
+    }
+}
@@ -28,8 +28,10 @@ import com.microsoft.applicationinsights.TelemetryConfiguration;
 import com.microsoft.applicationinsights.channel.TelemetryChannel;
 import com.microsoft.applicationinsights.channel.TelemetrySampler;
 import com.microsoft.applicationinsights.internal.channel.ConfiguredTransmitterFactory;
+import com.microsoft.applicationinsights.internal.channel.OverloadAwareTelemetriesTransmitter;
 import com.microsoft.applicationinsights.internal.channel.TelemetriesTransmitter;
 import com.microsoft.applicationinsights.internal.channel.TransmitterFactory;
+import com.microsoft.applicationinsights.internal.channel.common.StripedTelemetryBuffer;
 import com.microsoft.applicationinsights.internal.channel.common.TelemetryBuffer;
 import com.microsoft.applicationinsights.internal.logger.InternalLogger;
 import com.microsoft.applicationinsights.internal.util.LimitsEnforcer;
@@ -38,6 +40,7 @@ import com.microsoft.applicationinsights.telemetry.Telemetry;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 
 import java.net.URI;
+import java.util.Collections;
 import java.util.Map;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
@@ -54,6 +57,9 @@ public abstract class TelemetryChannelBase<T> implements TelemetryChannel {
     public static final int MAX_MAX_TELEMETRY_BUFFER_CAPACITY = 1000;
     public static final int MIN_FLUSH_BUFFER_TIMEOUT_IN_SECONDS = 1;
     public static final int MAX_FLUSH_BUFFER_TIMEOUT_IN_SECONDS = 300;
+    public static final int DEFAULT_BUFFER_STRIPES = 1;
+    public static final int MIN_BUFFER_STRIPES = 1;
+    public static final int MAX_BUFFER_STRIPES = 256;
     public static final String DEVELOPER_MODE_SYSTEM_PROPRETY_NAME = "APPLICATION_INSIGHTS_DEVELOPER_MODE";
 
     public static final String MAX_TELEMETRY_BUFFER_CAPACITY_NAME = "MaxTelemetryBufferCapacity";
@@ -64,6 +70,18 @@ public abstract class TelemetryChannelBase<T> implements TelemetryChannel {
     public static final String MAX_TRANSMISSION_STORAGE_CAPACITY_NAME = "MaxTransmissionStorageFilesCapacityInMB";
     public static final int LOG_TELEMETRY_ITEMS_MODULUS = 10000;
     public static final String THROTTLING_ENABLED_NAME = "Throttling";
+    public static final String BUFFER_STRIPES_NAME = "BufferStripes";
+    public static final String COMPRESSION_LEVEL_NAME = "CompressionLevel";
+    public static final String MAX_TRANSMISSION_SIZE_IN_KB_NAME = "MaxTransmissionSizeInKB";
+    public static final String SEGMENTED_TRANSMISSION_STORAGE_NAME = "SegmentedTransmissionStorage";
+    public static final String ASYNC_HTTP_TRANSPORT_NAME = "AsyncHttpTransport";
+    public static final String MAX_IN_FLIGHT_REQUESTS_NAME = "MaxInFlightRequests";
+    public static final String MAX_IN_FLIGHT_SIZE_IN_MB_NAME = "MaxInFlightSizeInMB";
+    public static final String ADAPTIVE_SENDER_CONCURRENCY_NAME = "AdaptiveSenderConcurrency";
+    public static final String MAX_SENDER_THREADS_NAME = "MaxSenderThreads";
+    public static final String OVERLOAD_POLICY_NAME = "OverloadPolicy";
+    public static final String OVERLOAD_BLOCK_TIMEOUT_IN_MILLIS_NAME = "OverloadBlockTimeoutInMillis";
+    public static final String OVERLOAD_SAMPLING_PERCENTAGE_NAME = "OverloadSamplingPercentage";
 
     private TransmitterFactory transmitterFactory;
     private AtomicLong itemsSent = new AtomicLong(0);
@@ -77,6 +95,10 @@ public abstract class TelemetryChannelBase<T> implements TelemetryChannel {
 
     private boolean developerMode = false;
 
+    private int bufferStripes = DEFAULT_BUFFER_STRIPES;
+
+    private Map<String, String> channelConfig = Collections.emptyMap();
+
     private TelemetryConfiguration configuration;
 
     public TelemetryChannelBase(TelemetryConfiguration configuration) {
@@ -159,6 +181,7 @@ public abstract class TelemetryChannelBase<T> implements TelemetryChannel {
         String maxTransmissionStorageCapacity = null;
 
         if (namesAndValues != null) {
+            channelConfig = namesAndValues;
             throttling = Boolean.parseBoolean(namesAndValues.get(THROTTLING_ENABLED_NAME));
             developerMode = Boolean.parseBoolean(namesAndValues.get(DEVELOPER_MODE_NAME));
             try {
@@ -179,6 +202,7 @@ public abstract class TelemetryChannelBase<T> implements TelemetryChannel {
             maxTelemetryBufferCapacityEnforcer.normalizeStringValue(namesAndValues.get(MAX_TELEMETRY_BUFFER_CAPACITY_NAME));
             sendIntervalInSecondsEnforcer.normalizeStringValue(namesAndValues.get(FLUSH_BUFFER_TIMEOUT_IN_SECONDS_NAME));
             maxTransmissionStorageCapacity = namesAndValues.get(MAX_TRANSMISSION_STORAGE_CAPACITY_NAME);
+            bufferStripes = createDefaultBufferStripesEnforcer(null).normalizeStringValue(namesAndValues.get(BUFFER_STRIPES_NAME));
         }
 
         initialize(configuration,
@@ -212,11 +236,16 @@ public abstract class TelemetryChannelBase<T> implements TelemetryChannel {
         this.configuration = configuration;
         final TransmitterFactory<T> transmitterFactory = getTransmitterFactory();
         if (transmitterFactory instanceof ConfiguredTransmitterFactory && endpointAddress == null) {
-            telemetriesTransmitter = ((ConfiguredTransmitterFactory<T>) transmitterFactory).create(configuration, maxTransmissionStorageCapacity, throttling, maxInstantRetry);
+            telemetriesTransmitter = ((ConfiguredTransmitterFactory<T>) transmitterFactory).create(configuration, maxTransmissionStorageCapacity, throttling, maxInstantRetry, channelConfig);
         } else {
             telemetriesTransmitter = transmitterFactory.create(endpointAddress, maxTransmissionStorageCapacity, throttling, maxInstantRetry);
         }
-        telemetryBuffer = new TelemetryBuffer<>(telemetriesTransmitter, maxTelemetryBufferCapacityEnforcer, sendIntervalInSeconds);
+        if (bufferStripes > 1) {
+            InternalLogger.INSTANCE.info("Using a striped telemetry buffer with %d stripes", bufferStripes);
+            telemetryBuffer = new StripedTelemetryBuffer<>(telemetriesTransmitter, maxTelemetryBufferCapacityEnforcer, sendIntervalInSeconds, bufferStripes);
+        } else {
+            telemetryBuffer = new TelemetryBuffer<>(telemetriesTransmitter, maxTelemetryBufferCapacityEnforcer, sendIntervalInSeconds);
+        }
 
         setDeveloperMode(developerMode);
         isInitailized = true;
@@ -350,6 +379,12 @@ public abstract class TelemetryChannelBase<T> implements TelemetryChannel {
             }
         }
 
+        if (telemetriesTransmitter instanceof OverloadAwareTelemetriesTransmitter) {
+            if (!((OverloadAwareTelemetriesTransmitter<T>) telemetriesTransmitter).admit(telemetry)) {
+                return;
+            }
+        }
+
         if (!doSend(telemetry)) {
             return;
         }
@@ -388,6 +423,12 @@ public abstract class TelemetryChannelBase<T> implements TelemetryChannel {
                 MAX_FLUSH_BUFFER_TIMEOUT_IN_SECONDS, DEFAULT_FLUSH_BUFFER_TIMEOUT_IN_SECONDS, currentValue);
     }
 
+    protected LimitsEnforcer createDefaultBufferStripesEnforcer(Integer currentValue) {
+        return LimitsEnforcer.createWithClosestLimitOnError(
+                BUFFER_STRIPES_NAME, MIN_BUFFER_STRIPES,
+                MAX_BUFFER_STRIPES, DEFAULT_BUFFER_STRIPES, currentValue);
+    }
+
     /**
      * The method will throw IllegalArgumentException if the endpointAddress is not
      * a valid URI. Please note that a null or empty string is valid as far as the
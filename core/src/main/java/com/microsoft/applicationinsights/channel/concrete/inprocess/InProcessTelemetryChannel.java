@@ -24,13 +24,15 @@ package com.microsoft.applicationinsights.channel.concrete.inprocess;
 import com.microsoft.applicationinsights.TelemetryConfiguration;
 import com.microsoft.applicationinsights.channel.concrete.TelemetryChannelBase;
 import com.microsoft.applicationinsights.internal.channel.ConfiguredTransmitterFactory;
+import com.microsoft.applicationinsights.internal.channel.common.TelemetryByteBuffer;
+import com.microsoft.applicationinsights.internal.channel.common.TelemetryByteBufferPool;
+import com.microsoft.applicationinsights.internal.channel.common.Utf8TelemetryWriter;
 import com.microsoft.applicationinsights.internal.logger.InternalLogger;
 import com.microsoft.applicationinsights.telemetry.JsonTelemetryDataSerializer;
 import com.microsoft.applicationinsights.telemetry.Telemetry;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 
 import java.io.IOException;
-import java.io.StringWriter;
 import java.util.Map;
 
 /**
@@ -51,9 +53,22 @@ import java.util.Map;
  * <p>Use application threads to populate the buffer Use channel's threads to send buffers to the
  * server
  *
+ * <p>Telemetry instances are serialized as UTF-8 into pooled {@link TelemetryByteBuffer}s, which are
+ * streamed as they are into the compression stage and then returned to the pool.
+ *
  * <p>Created by gupele on 12/17/2014.
  */
-public final class InProcessTelemetryChannel extends TelemetryChannelBase<String> {
+public final class InProcessTelemetryChannel extends TelemetryChannelBase<TelemetryByteBuffer> {
+
+    private final TelemetryByteBufferPool bufferPool = new TelemetryByteBufferPool();
+
+    /// The writer is reused by each application thread, only its target buffer changes per item
+    private final ThreadLocal<Utf8TelemetryWriter> writers = new ThreadLocal<Utf8TelemetryWriter>() {
+        @Override
+        protected Utf8TelemetryWriter initialValue() {
+            return new Utf8TelemetryWriter();
+        }
+    };
 
     public InProcessTelemetryChannel(TelemetryConfiguration configuration) {
         super(configuration);
@@ -92,26 +107,31 @@ public final class InProcessTelemetryChannel extends TelemetryChannelBase<String
 
     @Override
     protected boolean doSend(Telemetry telemetry) {
-        StringWriter writer = new StringWriter();
-        JsonTelemetryDataSerializer jsonWriter = null;
+        TelemetryByteBuffer buffer = bufferPool.acquire();
+        boolean handedOver = false;
         try {
-            jsonWriter = new JsonTelemetryDataSerializer(writer);
+            JsonTelemetryDataSerializer jsonWriter = new JsonTelemetryDataSerializer(writers.get().setTarget(buffer));
             telemetry.serialize(jsonWriter);
             jsonWriter.close();
-            String asJson = writer.toString();
-            telemetryBuffer.add(asJson);
+            telemetryBuffer.add(buffer);
+            handedOver = true;
             telemetry.reset();
 
         } catch (IOException e) {
             InternalLogger.INSTANCE.error("Failed to serialize Telemetry");
             InternalLogger.INSTANCE.trace("Stack trace is %s", ExceptionUtils.getStackTrace(e));
             return false;
+        } finally {
+            // Once added, the buffer belongs to the telemetry buffer, otherwise it goes back to the pool
+            if (!handedOver) {
+                buffer.release();
+            }
         }
         return true;
     }
 
     @Override
-    protected ConfiguredTransmitterFactory<String> createTransmitterFactory() {
+    protected ConfiguredTransmitterFactory<TelemetryByteBuffer> createTransmitterFactory() {
         return new InProcessTelemetryTransmitterFactory();
     }
 
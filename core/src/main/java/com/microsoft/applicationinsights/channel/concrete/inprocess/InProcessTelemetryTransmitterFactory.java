@@ -22,34 +22,64 @@
 package com.microsoft.applicationinsights.channel.concrete.inprocess;
 
 import com.microsoft.applicationinsights.TelemetryConfiguration;
+import com.microsoft.applicationinsights.channel.concrete.TelemetryChannelBase;
 import com.microsoft.applicationinsights.internal.channel.ConfiguredTransmitterFactory;
 import com.microsoft.applicationinsights.internal.channel.TelemetriesTransmitter;
 import com.microsoft.applicationinsights.internal.channel.TransmissionOutput;
 import com.microsoft.applicationinsights.internal.channel.TransmissionDispatcher;
+import com.microsoft.applicationinsights.internal.channel.TransmissionStorage;
 import com.microsoft.applicationinsights.internal.channel.TransmissionsLoader;
 import com.microsoft.applicationinsights.internal.channel.common.ActiveTransmissionFileSystemOutput;
 import com.microsoft.applicationinsights.internal.channel.common.ActiveTransmissionLoader;
 import com.microsoft.applicationinsights.internal.channel.common.ActiveTransmissionNetworkOutput;
+import com.microsoft.applicationinsights.internal.channel.common.AdaptiveConcurrencyLimit;
+import com.microsoft.applicationinsights.internal.channel.common.AsyncTransmissionNetworkOutput;
 import com.microsoft.applicationinsights.internal.channel.common.ErrorHandler;
-import com.microsoft.applicationinsights.internal.channel.common.GzipTelemetrySerializer;
+import com.microsoft.applicationinsights.internal.channel.common.GzipTelemetryByteBufferSerializer;
 import com.microsoft.applicationinsights.internal.channel.common.NonBlockingDispatcher;
+import com.microsoft.applicationinsights.internal.channel.common.OverloadPolicy;
 import com.microsoft.applicationinsights.internal.channel.common.PartialSuccessHandler;
+import com.microsoft.applicationinsights.internal.channel.common.SegmentedTransmissionLog;
+import com.microsoft.applicationinsights.internal.channel.common.TelemetryByteBuffer;
 import com.microsoft.applicationinsights.internal.channel.common.ThrottlingHandler;
 import com.microsoft.applicationinsights.internal.channel.common.TransmissionFileSystemOutput;
 import com.microsoft.applicationinsights.internal.channel.common.TransmissionNetworkOutput;
 import com.microsoft.applicationinsights.internal.channel.common.TransmissionPolicyManager;
 import com.microsoft.applicationinsights.internal.channel.common.TransmissionPolicyStateFetcher;
 import com.microsoft.applicationinsights.internal.channel.common.TransmitterImpl;
+import com.microsoft.applicationinsights.internal.logger.InternalLogger;
+import com.microsoft.applicationinsights.internal.util.LimitsEnforcer;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.zip.Deflater;
 
 import javax.annotation.Nullable;
 
 /**
  * Created by gupele on 1/15/2015.
  */
-final class InProcessTelemetryTransmitterFactory implements ConfiguredTransmitterFactory {
+final class InProcessTelemetryTransmitterFactory implements ConfiguredTransmitterFactory<TelemetryByteBuffer> {
+    private static final int MIN_MAX_TRANSMISSION_SIZE_IN_KB = 0;
+    private static final int MAX_MAX_TRANSMISSION_SIZE_IN_KB = 16 * 1024;
+    private static final int DEFAULT_MAX_TRANSMISSION_SIZE_IN_KB = 0;
+    private static final int MIN_MAX_IN_FLIGHT_REQUESTS = 1;
+    private static final int MAX_MAX_IN_FLIGHT_REQUESTS = 1024;
+    private static final int MIN_MAX_IN_FLIGHT_SIZE_IN_MB = 1;
+    private static final int MAX_MAX_IN_FLIGHT_SIZE_IN_MB = 1024;
+    private static final int MIN_SENDER_THREADS = 1;
+    private static final int MAX_MAX_SENDER_THREADS = 64;
+    private static final int DEFAULT_MAX_SENDER_THREADS = 32;
+    private static final int INITIAL_SENDER_THREADS = 7;
+    private static final int MIN_OVERLOAD_BLOCK_TIMEOUT_IN_MILLIS = 0;
+    private static final int MAX_OVERLOAD_BLOCK_TIMEOUT_IN_MILLIS = 60000;
+    private static final int DEFAULT_OVERLOAD_BLOCK_TIMEOUT_IN_MILLIS = 100;
+    private static final int MIN_OVERLOAD_SAMPLING_PERCENTAGE = 1;
+    private static final int MAX_OVERLOAD_SAMPLING_PERCENTAGE = 100;
+
     @Deprecated
     @Override
-    public TelemetriesTransmitter create(@Nullable String endpoint, String maxTransmissionStorageCapacity, boolean throttlingIsEnabled, int maxInstantRetries) {
+    public TelemetriesTransmitter<TelemetryByteBuffer> create(@Nullable String endpoint, String maxTransmissionStorageCapacity, boolean throttlingIsEnabled, int maxInstantRetries) {
         final TransmissionPolicyManager transmissionPolicyManager = new TransmissionPolicyManager(throttlingIsEnabled);
         transmissionPolicyManager.addTransmissionHandler(new ErrorHandler(transmissionPolicyManager));
         transmissionPolicyManager.addTransmissionHandler(new PartialSuccessHandler(transmissionPolicyManager));
@@ -58,41 +88,174 @@ final class InProcessTelemetryTransmitterFactory implements ConfiguredTransmitte
         // An active object with the network sender
         TransmissionNetworkOutput actualNetworkSender = TransmissionNetworkOutput.create(endpoint, transmissionPolicyManager);
 
-        return finishTransmitterConstruction(maxTransmissionStorageCapacity, transmissionPolicyManager, actualNetworkSender);
+        return finishTransmitterConstruction(maxTransmissionStorageCapacity, transmissionPolicyManager, actualNetworkSender, Collections.<String, String>emptyMap());
+    }
+
+    @Override
+    public TelemetriesTransmitter<TelemetryByteBuffer> create(TelemetryConfiguration configuration, String maxTransmissionStorageCapacity, boolean throttlingIsEnabled, int maxInstantRetries) {
+        return create(configuration, maxTransmissionStorageCapacity, throttlingIsEnabled, maxInstantRetries, Collections.<String, String>emptyMap());
     }
 
     @Override
-    public TelemetriesTransmitter create(TelemetryConfiguration configuration, String maxTransmissionStorageCapacity, boolean throttlingIsEnabled, int maxInstantRetries) {
+    public TelemetriesTransmitter<TelemetryByteBuffer> create(TelemetryConfiguration configuration, String maxTransmissionStorageCapacity, boolean throttlingIsEnabled, int maxInstantRetries, Map<String, String> channelConfig) {
         final TransmissionPolicyManager transmissionPolicyManager = new TransmissionPolicyManager(throttlingIsEnabled);
         transmissionPolicyManager.addTransmissionHandler(new ErrorHandler(transmissionPolicyManager));
         transmissionPolicyManager.addTransmissionHandler(new PartialSuccessHandler(transmissionPolicyManager));
         transmissionPolicyManager.addTransmissionHandler(new ThrottlingHandler(transmissionPolicyManager));
         transmissionPolicyManager.setMaxInstantRetries(maxInstantRetries);
+        if (Boolean.parseBoolean(channelConfig.get(TelemetryChannelBase.ASYNC_HTTP_TRANSPORT_NAME))) {
+            return finishTransmitterConstruction(maxTransmissionStorageCapacity, transmissionPolicyManager, createAsyncNetworkOutput(configuration, transmissionPolicyManager, channelConfig), channelConfig);
+        }
+
         // An active object with the network sender
         TransmissionNetworkOutput actualNetworkSender = TransmissionNetworkOutput.create(configuration, transmissionPolicyManager);
 
-        return finishTransmitterConstruction(maxTransmissionStorageCapacity, transmissionPolicyManager, actualNetworkSender);
+        return finishTransmitterConstruction(maxTransmissionStorageCapacity, transmissionPolicyManager, actualNetworkSender, channelConfig);
     }
 
-    private TelemetriesTransmitter finishTransmitterConstruction(String maxTransmissionStorageCapacity, TransmissionPolicyManager transmissionPolicyManager, TransmissionNetworkOutput actualNetworkSender) {
+    private TelemetriesTransmitter<TelemetryByteBuffer> finishTransmitterConstruction(String maxTransmissionStorageCapacity, TransmissionPolicyManager transmissionPolicyManager, TransmissionNetworkOutput actualNetworkSender, Map<String, String> channelConfig) {
         TransmissionPolicyStateFetcher stateFetcher = transmissionPolicyManager.getTransmissionPolicyState();
 
-        TransmissionOutput networkSender = new ActiveTransmissionNetworkOutput(actualNetworkSender, stateFetcher);
+        TransmissionOutput networkSender = new ActiveTransmissionNetworkOutput(actualNetworkSender, stateFetcher, createConcurrencyLimit(transmissionPolicyManager, channelConfig));
 
         // An active object with the file system sender
-        TransmissionFileSystemOutput fileSystemSender = new TransmissionFileSystemOutput(null, maxTransmissionStorageCapacity);
+        TransmissionStorage fileSystemSender = createTransmissionStorage(maxTransmissionStorageCapacity, channelConfig);
         TransmissionOutput activeFileSystemOutput = new ActiveTransmissionFileSystemOutput(fileSystemSender, stateFetcher);
 
         // The dispatcher works with the two active senders
         TransmissionDispatcher dispatcher = new NonBlockingDispatcher(new TransmissionOutput[]{networkSender, activeFileSystemOutput});
         actualNetworkSender.setTransmissionDispatcher(dispatcher);
 
+        return createTransmitter(fileSystemSender, stateFetcher, dispatcher, channelConfig);
+    }
 
+    /**
+     * The asynchronous network sender doesn't block the dispatching thread, so it is used without an active object.
+     */
+    private TelemetriesTransmitter<TelemetryByteBuffer> finishTransmitterConstruction(String maxTransmissionStorageCapacity, TransmissionPolicyManager transmissionPolicyManager, AsyncTransmissionNetworkOutput networkSender, Map<String, String> channelConfig) {
+        TransmissionPolicyStateFetcher stateFetcher = transmissionPolicyManager.getTransmissionPolicyState();
+
+        // An active object with the file system sender
+        TransmissionStorage fileSystemSender = createTransmissionStorage(maxTransmissionStorageCapacity, channelConfig);
+        TransmissionOutput activeFileSystemOutput = new ActiveTransmissionFileSystemOutput(fileSystemSender, stateFetcher);
+
+        TransmissionDispatcher dispatcher = new NonBlockingDispatcher(new TransmissionOutput[]{networkSender, activeFileSystemOutput});
+        networkSender.setTransmissionDispatcher(dispatcher);
+
+        return createTransmitter(fileSystemSender, stateFetcher, dispatcher, channelConfig);
+    }
+
+    private TelemetriesTransmitter<TelemetryByteBuffer> createTransmitter(TransmissionStorage fileSystemSender, TransmissionPolicyStateFetcher stateFetcher, TransmissionDispatcher dispatcher, Map<String, String> channelConfig) {
         // The loader works with the file system loader as the active one does
         TransmissionsLoader transmissionsLoader = new ActiveTransmissionLoader(fileSystemSender, stateFetcher, dispatcher);
 
         // The Transmitter manage all
+        String overloadPolicyName = channelConfig.get(TelemetryChannelBase.OVERLOAD_POLICY_NAME);
+        if (overloadPolicyName == null) {
+            return new TransmitterImpl<>(dispatcher, createSerializer(channelConfig), transmissionsLoader);
+        }
+
+        LimitsEnforcer blockTimeoutEnforcer = LimitsEnforcer.createWithClosestLimitOnError(
+                MIN_OVERLOAD_BLOCK_TIMEOUT_IN_MILLIS, MAX_OVERLOAD_BLOCK_TIMEOUT_IN_MILLIS, DEFAULT_OVERLOAD_BLOCK_TIMEOUT_IN_MILLIS,
+                TelemetryChannelBase.OVERLOAD_BLOCK_TIMEOUT_IN_MILLIS_NAME, channelConfig.get(TelemetryChannelBase.OVERLOAD_BLOCK_TIMEOUT_IN_MILLIS_NAME));
+        LimitsEnforcer samplingPercentageEnforcer = LimitsEnforcer.createWithClosestLimitOnError(
+                MIN_OVERLOAD_SAMPLING_PERCENTAGE, MAX_OVERLOAD_SAMPLING_PERCENTAGE, TransmitterImpl.DEFAULT_OVERLOAD_SAMPLING_PERCENTAGE,
+                TelemetryChannelBase.OVERLOAD_SAMPLING_PERCENTAGE_NAME, channelConfig.get(TelemetryChannelBase.OVERLOAD_SAMPLING_PERCENTAGE_NAME));
+        OverloadPolicy overloadPolicy = parseOverloadPolicy(overloadPolicyName);
+
+        InternalLogger.INSTANCE.info("Using overload policy %s", overloadPolicy);
+        return new TransmitterImpl<>(dispatcher, createSerializer(channelConfig), transmissionsLoader,
+                overloadPolicy, blockTimeoutEnforcer.getCurrentValue(), samplingPercentageEnforcer.getCurrentValue());
+    }
+
+    private static OverloadPolicy parseOverloadPolicy(String overloadPolicyName) {
+        try {
+            return OverloadPolicy.valueOf(overloadPolicyName.trim().toUpperCase());
+        } catch (IllegalArgumentException e) {
+            InternalLogger.INSTANCE.error("Unknown %s '%s', using %s", TelemetryChannelBase.OVERLOAD_POLICY_NAME, overloadPolicyName, OverloadPolicy.DROP_NEWEST);
+            return OverloadPolicy.DROP_NEWEST;
+        }
+    }
+
+    /**
+     * @return The limit that adapts the number of sender threads, or null when the number is fixed.
+     */
+    private static AdaptiveConcurrencyLimit createConcurrencyLimit(TransmissionPolicyManager transmissionPolicyManager, Map<String, String> channelConfig) {
+        if (!Boolean.parseBoolean(channelConfig.get(TelemetryChannelBase.ADAPTIVE_SENDER_CONCURRENCY_NAME))) {
+            return null;
+        }
+
+        LimitsEnforcer maxSenderThreadsEnforcer = LimitsEnforcer.createWithClosestLimitOnError(
+                MIN_SENDER_THREADS, MAX_MAX_SENDER_THREADS, DEFAULT_MAX_SENDER_THREADS,
+                TelemetryChannelBase.MAX_SENDER_THREADS_NAME, channelConfig.get(TelemetryChannelBase.MAX_SENDER_THREADS_NAME));
+        int maxSenderThreads = maxSenderThreadsEnforcer.getCurrentValue();
+
+        InternalLogger.INSTANCE.info("Using adaptive sender concurrency with up to %d threads", maxSenderThreads);
+        return createConcurrencyLimit(transmissionPolicyManager, maxSenderThreads);
+    }
+
+    private static AdaptiveConcurrencyLimit createConcurrencyLimit(TransmissionPolicyManager transmissionPolicyManager, int maxLimit) {
+        AdaptiveConcurrencyLimit concurrencyLimit = new AdaptiveConcurrencyLimit(MIN_SENDER_THREADS, maxLimit, Math.min(INITIAL_SENDER_THREADS, maxLimit));
+        transmissionPolicyManager.addTransmissionHandler(concurrencyLimit);
+        return concurrencyLimit;
+    }
+
+    private static AsyncTransmissionNetworkOutput createAsyncNetworkOutput(TelemetryConfiguration configuration, TransmissionPolicyManager transmissionPolicyManager, Map<String, String> channelConfig) {
+        LimitsEnforcer maxInFlightRequestsEnforcer = LimitsEnforcer.createWithClosestLimitOnError(
+                MIN_MAX_IN_FLIGHT_REQUESTS, MAX_MAX_IN_FLIGHT_REQUESTS, AsyncTransmissionNetworkOutput.DEFAULT_MAX_IN_FLIGHT_REQUESTS,
+                TelemetryChannelBase.MAX_IN_FLIGHT_REQUESTS_NAME, channelConfig.get(TelemetryChannelBase.MAX_IN_FLIGHT_REQUESTS_NAME));
+        LimitsEnforcer maxInFlightSizeEnforcer = LimitsEnforcer.createWithClosestLimitOnError(
+                MIN_MAX_IN_FLIGHT_SIZE_IN_MB, MAX_MAX_IN_FLIGHT_SIZE_IN_MB, (int) (AsyncTransmissionNetworkOutput.DEFAULT_MAX_IN_FLIGHT_BYTES / (1024 * 1024)),
+                TelemetryChannelBase.MAX_IN_FLIGHT_SIZE_IN_MB_NAME, channelConfig.get(TelemetryChannelBase.MAX_IN_FLIGHT_SIZE_IN_MB_NAME));
+
+        InternalLogger.INSTANCE.info("Using asynchronous http transport with up to %d requests and %d MB in flight",
+                maxInFlightRequestsEnforcer.getCurrentValue(), maxInFlightSizeEnforcer.getCurrentValue());
+
+        // The adaptive limit then bounds the requests in flight instead of the sender threads, up to MaxInFlightRequests
+        AdaptiveConcurrencyLimit concurrencyLimit = null;
+        if (Boolean.parseBoolean(channelConfig.get(TelemetryChannelBase.ADAPTIVE_SENDER_CONCURRENCY_NAME))) {
+            InternalLogger.INSTANCE.info("Using adaptive sender concurrency with up to %d requests in flight", maxInFlightRequestsEnforcer.getCurrentValue());
+            concurrencyLimit = createConcurrencyLimit(transmissionPolicyManager, maxInFlightRequestsEnforcer.getCurrentValue());
+        }
+
+        return AsyncTransmissionNetworkOutput.create(configuration, transmissionPolicyManager,
+                maxInFlightRequestsEnforcer.getCurrentValue(), maxInFlightSizeEnforcer.getCurrentValue() * 1024L * 1024L, concurrencyLimit);
+    }
+
+    /**
+     * The segmented transmission log is used when enabled, falling back to a file per transmission if it cannot be opened.
+     */
+    private static TransmissionStorage createTransmissionStorage(String maxTransmissionStorageCapacity, Map<String, String> channelConfig) {
+        if (Boolean.parseBoolean(channelConfig.get(TelemetryChannelBase.SEGMENTED_TRANSMISSION_STORAGE_NAME))) {
+            try {
+                return new SegmentedTransmissionLog(null, maxTransmissionStorageCapacity);
+            } catch (Exception e) {
+                InternalLogger.INSTANCE.error("Failed to open the segmented transmission log, using transmission files instead: %s", e.toString());
+            }
+        }
+
+        return new TransmissionFileSystemOutput(null, maxTransmissionStorageCapacity);
+    }
+
+    /**
+     * The streaming Gzip encoder is used once the compression level or the maximum transmission size is configured.
+     */
+    private static GzipTelemetryByteBufferSerializer createSerializer(Map<String, String> channelConfig) {
+        String compressionLevel = channelConfig.get(TelemetryChannelBase.COMPRESSION_LEVEL_NAME);
+        String maxTransmissionSizeInKB = channelConfig.get(TelemetryChannelBase.MAX_TRANSMISSION_SIZE_IN_KB_NAME);
+        if (compressionLevel == null && maxTransmissionSizeInKB == null) {
+            return new GzipTelemetryByteBufferSerializer();
+        }
+
+        LimitsEnforcer compressionLevelEnforcer = LimitsEnforcer.createWithClosestLimitOnError(
+                Deflater.DEFAULT_COMPRESSION, Deflater.BEST_COMPRESSION, Deflater.DEFAULT_COMPRESSION,
+                TelemetryChannelBase.COMPRESSION_LEVEL_NAME, compressionLevel);
+        LimitsEnforcer maxTransmissionSizeEnforcer = LimitsEnforcer.createWithClosestLimitOnError(
+                MIN_MAX_TRANSMISSION_SIZE_IN_KB, MAX_MAX_TRANSMISSION_SIZE_IN_KB, DEFAULT_MAX_TRANSMISSION_SIZE_IN_KB,
+                TelemetryChannelBase.MAX_TRANSMISSION_SIZE_IN_KB_NAME, maxTransmissionSizeInKB);
 
-        return new TransmitterImpl(dispatcher, new GzipTelemetrySerializer(), transmissionsLoader);
+        InternalLogger.INSTANCE.info("Using streaming compression with level %d and maximum transmission size of %d KB (0 is unlimited)",
+                compressionLevelEnforcer.getCurrentValue(), maxTransmissionSizeEnforcer.getCurrentValue());
+        return new GzipTelemetryByteBufferSerializer(compressionLevelEnforcer.getCurrentValue(), maxTransmissionSizeEnforcer.getCurrentValue() * 1024);
     }
 }
@@ -28,6 +28,8 @@ import com.microsoft.applicationinsights.telemetry.Telemetry;
  * or deny it. Returning 'false' means that the Telemetry will not be sent while 'true' means you approve it.
  *
  * The Telemetry might go through other filters though, that might deny its sending.
+ * Processors that only handle some types of Telemetry can implement {@link TypedTelemetryProcessor}
+ * so that they are not called for the other ones.
  *
  * To enable this processor you need to add it in the ApplicationInsights.xml like this:
  *
@@ -0,0 +1,40 @@
+/*
+ * ApplicationInsights-Java
+ * Copyright (c) Microsoft Corporation
+ * All rights reserved.
+ *
+ * MIT License
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the ""Software""), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package com.microsoft.applicationinsights.extensibility;
+
+import java.util.Collection;
+
+import com.microsoft.applicationinsights.telemetry.Telemetry;
+
+/**
+ * A {@link TelemetryProcessor} that only handles some types of telemetry.
+ *
+ * The {@link #process(Telemetry)} method is only called for the telemetries that are instances of one of
+ * the types returned by {@link #getTelemetryTypes()}, all the other ones are let through as if it returned 'true'.
+ * The types are read once, when the processor is added to the configuration, and must not change afterwards.
+ */
+public interface TypedTelemetryProcessor extends TelemetryProcessor {
+    /**
+     * @return The types of telemetry that the processor handles, including their subclasses.
+     */
+    Collection<Class<? extends Telemetry>> getTelemetryTypes();
+}
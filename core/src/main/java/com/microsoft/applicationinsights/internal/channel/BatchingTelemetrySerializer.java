@@ -19,42 +19,28 @@
  * DEALINGS IN THE SOFTWARE.
  */
 
-package com.microsoft.applicationinsights.internal.perfcounter;
+package com.microsoft.applicationinsights.internal.channel;
 
-import org.junit.Test;
+import java.util.Collection;
+import java.util.List;
 
-import static org.junit.Assert.*;
+import com.microsoft.applicationinsights.internal.channel.common.Transmission;
 
-public final class UnixProcessIOtParserTest {
-    @Test
-    public void testProcess() {
-        UnixProcessIOtParser parser = new UnixProcessIOtParser();
-
-        parser.process("rchar: 1661777");
-        assertFalse(parser.done());
-
-        parser.process("wchar: 7431");
-        assertFalse(parser.done());
-
-        parser.process("syscr: 1240");
-        assertFalse(parser.done());
-
-        parser.process("syscw: 123");
-        assertFalse(parser.done());
-
-        parser.process("read_bytes: 7335936");
-        assertFalse(parser.done());
-
-        parser.process("write_bytes: 12288");
-        assertTrue(parser.done());
-        assertEquals(7335936 + 12288, parser.getValue(), 0.0);
-
-        parser.process("cancelled_write_bytes: 0");
-        assertTrue(parser.done());
-        assertEquals(7335936 + 12288, parser.getValue(), 0.0);
-
-        parser.process("write_bytes: 12288");
-        assertTrue(parser.done());
-        assertEquals(7335936 + 12288, parser.getValue(), 0.0);
-    }
+/**
+ * A {@link TelemetrySerializer} that may split a container of telemetries into several transmissions,
+ * for example to keep every transmission under a size limit.
+ *
+ * @param <T> The type of the already serialized telemetry items
+ */
+public interface BatchingTelemetrySerializer<T> extends TelemetrySerializer<T> {
+    /**
+     * @param telemetries A collection of Telemetry instances
+     * @return The transmissions that together hold all the input, might be empty if the serialization failed
+     */
+    List<Transmission> serializeBatches(Collection<T> telemetries);
+
+    /**
+     * Releases the resources the serializer keeps between calls, called when the channel stops.
+     */
+    void stop();
 }
@@ -2,6 +2,7 @@ package com.microsoft.applicationinsights.internal.channel;
 
 import com.microsoft.applicationinsights.TelemetryConfiguration;
 
+import java.util.Map;
 import javax.annotation.Nullable;
 
 public interface ConfiguredTransmitterFactory<T> extends TransmitterFactory<T> {
@@ -14,4 +15,16 @@ public interface ConfiguredTransmitterFactory<T> extends TransmitterFactory<T> {
      * @return
      */
     TelemetriesTransmitter<T> create(@Nullable TelemetryConfiguration configuration, String maxTransmissionStorageCapacity, boolean throttlingIsEnabled, int maxInstantRetries);
+
+    /**
+     * Same as {@link #create(TelemetryConfiguration, String, boolean, int)}, with the channel's configuration
+     * options for the settings of the transmitter's components.
+     * @param configuration The configuration for the current TelemetryClient
+     * @param maxTransmissionStorageCapacity
+     * @param throttlingIsEnabled
+     * @param maxInstantRetries
+     * @param channelConfig Key/Value pairs of the channel configuration options, never null
+     * @return
+     */
+    TelemetriesTransmitter<T> create(@Nullable TelemetryConfiguration configuration, String maxTransmissionStorageCapacity, boolean throttlingIsEnabled, int maxInstantRetries, Map<String, String> channelConfig);
 }
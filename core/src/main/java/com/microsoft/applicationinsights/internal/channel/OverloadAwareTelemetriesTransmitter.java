@@ -19,33 +19,20 @@
  * DEALINGS IN THE SOFTWARE.
  */
 
-package com.microsoft.applicationinsights.internal.perfcounter;
+package com.microsoft.applicationinsights.internal.channel;
 
-import org.junit.Test;
+import com.microsoft.applicationinsights.telemetry.Telemetry;
 
-import static org.junit.Assert.*;
-
-public final class UnixTotalMemInfoReaderTest {
-    @Test
-    public void testProcess() {
-        UnixTotalMemInfoParser reader = new UnixTotalMemInfoParser();
-        reader.process("MemTotal:        3973736 kB");
-        assertTrue(!reader.done());
-
-        reader.process("MemFree:          431064 kB");
-        assertTrue(!reader.done());
-
-        reader.process("Buffers:           46604 kB");
-        assertTrue(!reader.done());
-
-        reader.process("Cached:           494648 kB");
-        assertTrue(reader.done());
-
-        assertEquals(972316, reader.getValue(), 0.0);
-
-        reader.process("Cached:           494648 kB");
-        assertTrue(reader.done());
-
-        assertEquals(972316, reader.getValue(), 0.0);
-    }
-}
\ No newline at end of file
+/**
+ * A {@link TelemetriesTransmitter} that can shed telemetries before they are buffered
+ * when it is falling behind the rate at which they are tracked.
+ *
+ * @param <T> The type of the already serialized telemetry items
+ */
+public interface OverloadAwareTelemetriesTransmitter<T> extends TelemetriesTransmitter<T> {
+    /**
+     * @param telemetry The telemetry that is about to be buffered
+     * @return False if the telemetry should be dropped to relieve the transmitter
+     */
+    boolean admit(Telemetry telemetry);
+}
@@ -19,51 +19,18 @@
  * DEALINGS IN THE SOFTWARE.
  */
 
-package com.microsoft.applicationinsights.internal.perfcounter;
+package com.microsoft.applicationinsights.internal.channel;
+
+import com.microsoft.applicationinsights.internal.channel.common.Transmission;
 
 /**
- * Created by gupele on 3/16/2015.
+ * A {@link TransmissionOutput} that keeps the transmissions it gets so they can be fetched back,
+ * oldest first, once they can be sent again.
  */
-@SuppressWarnings("deprecation")
-public class UnixParsingState {
-    // TODO v3 fields private
-    /**
-     * @deprecated use {@link #getDoneCounter()} and {@link #setDoneCounter(int)}
-     */
-    @Deprecated
-    public int doneCounter;
-
+public interface TransmissionStorage extends TransmissionOutput {
     /**
-     * @deprecated use {@link #getDoneCounter()} and {@link #setDoneCounter(int)}
+     * Removes the oldest stored transmission from the storage.
+     * @return The oldest transmission, or null if there is none
      */
-    @Deprecated
-    public double returnValue;
-
-    public UnixParsingState(int doneCounter) {
-        this.doneCounter = doneCounter;
-    }
-
-    public int getDoneCounter() {
-        return doneCounter;
-    }
-
-    public void setDoneCounter(int doneCounter) {
-        this.doneCounter = doneCounter;
-    }
-
-    public void decrementDoneCounter() {
-        this.doneCounter--;
-    }
-
-    public double getReturnValue() {
-        return returnValue;
-    }
-
-    public void setReturnValue(double returnValue) {
-        this.returnValue = returnValue;
-    }
-
-    public void addToReturnValue(double addend) {
-        this.returnValue += addend;
-    }
+    Transmission fetchOldest();
 }
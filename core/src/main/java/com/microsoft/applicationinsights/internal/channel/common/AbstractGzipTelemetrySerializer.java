@@ -0,0 +1,386 @@
+/*
+ * ApplicationInsights-Java
+ * Copyright (c) Microsoft Corporation
+ * All rights reserved.
+ *
+ * MIT License
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the ""Software""), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package com.microsoft.applicationinsights.internal.channel.common;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+import com.microsoft.applicationinsights.internal.channel.BatchingTelemetrySerializer;
+import com.microsoft.applicationinsights.internal.channel.TelemetrySerializer;
+import com.microsoft.applicationinsights.internal.logger.InternalLogger;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+
+/**
+ * The base class for the {@link TelemetrySerializer} implementations that separate the
+ * already serialized telemetry items by newline and compress the result by Gzip.
+ *
+ * By default every call compresses through a new {@link GZIPOutputStream}. In streaming mode, which is
+ * used when a compression level or a maximum transmission size is set, the {@link GzipTransmissionEncoder}s
+ * are reused through a small pool, and a container is cut into several transmissions before an item would
+ * take the compressed size over the limit. An item that is bigger than the limit by itself is sent alone.
+ * In both modes the compression time and ratio of every transmission are recorded.
+ *
+ * @param <T> The type of the already serialized telemetry items
+ */
+abstract class AbstractGzipTelemetrySerializer<T> implements BatchingTelemetrySerializer<T> {
+    public final static int NO_MAX_TRANSMISSION_SIZE = 0;
+
+    /// Encoders beyond that number are ended once they are not used anymore
+    private final static int MAX_IDLE_ENCODERS = 4;
+
+    private final static String GZIP_WEB_CONTENT_TYPE = "application/x-json-stream";
+    private final static String GZIP_WEB_ENCODING_TYPE = "gzip";
+
+    private final byte[] newlineString;
+
+    private final boolean streaming;
+
+    private final int maxTransmissionSizeInBytes;
+
+    private final int compressionLevel;
+
+    private final BlockingQueue<GzipTransmissionEncoder> idleEncoders = new ArrayBlockingQueue<GzipTransmissionEncoder>(MAX_IDLE_ENCODERS);
+
+    private volatile boolean stopped;
+
+    private final AtomicLong numberOfTransmissions = new AtomicLong();
+    private final AtomicLong uncompressedBytes = new AtomicLong();
+    private final AtomicLong compressedBytes = new AtomicLong();
+    private final AtomicLong compressionTimeInNanos = new AtomicLong();
+
+    protected AbstractGzipTelemetrySerializer() {
+        this(false, Deflater.DEFAULT_COMPRESSION, NO_MAX_TRANSMISSION_SIZE);
+    }
+
+    /**
+     * Creates a serializer in streaming mode.
+     * @param compressionLevel The {@link Deflater} compression level, between -1 and 9
+     * @param maxTransmissionSizeInBytes The maximum compressed size of a transmission, {@link #NO_MAX_TRANSMISSION_SIZE} for no limit
+     */
+    protected AbstractGzipTelemetrySerializer(int compressionLevel, int maxTransmissionSizeInBytes) {
+        this(true, compressionLevel, maxTransmissionSizeInBytes);
+    }
+
+    private AbstractGzipTelemetrySerializer(boolean streaming, int compressionLevel, int maxTransmissionSizeInBytes) {
+        Preconditions.checkArgument(compressionLevel >= Deflater.DEFAULT_COMPRESSION && compressionLevel <= Deflater.BEST_COMPRESSION, "compressionLevel must be between -1 and 9");
+        Preconditions.checkArgument(maxTransmissionSizeInBytes >= 0, "maxTransmissionSizeInBytes must not be a negative number");
+
+        this.newlineString = System.getProperty("line.separator").getBytes();
+        this.streaming = streaming;
+        this.maxTransmissionSizeInBytes = maxTransmissionSizeInBytes;
+        this.compressionLevel = compressionLevel;
+    }
+
+    public boolean isStreaming() {
+        return streaming;
+    }
+
+    public int getMaxTransmissionSizeInBytes() {
+        return maxTransmissionSizeInBytes;
+    }
+
+    public long getNumberOfTransmissions() {
+        return numberOfTransmissions.get();
+    }
+
+    public long getUncompressedBytes() {
+        return uncompressedBytes.get();
+    }
+
+    public long getCompressedBytes() {
+        return compressedBytes.get();
+    }
+
+    public long getCompressionTimeInNanos() {
+        return compressionTimeInNanos.get();
+    }
+
+    int getNumberOfIdleEncoders() {
+        return idleEncoders.size();
+    }
+
+    /**
+     * Ends the pooled encoders, an encoder that is in use is ended once its serialization is done.
+     */
+    @Override
+    public void stop() {
+        stopped = true;
+        GzipTransmissionEncoder encoder;
+        while ((encoder = idleEncoders.poll()) != null) {
+            encoder.close();
+        }
+    }
+
+    @Override
+    public Optional<Transmission> serialize(Collection<T> telemetries) {
+        Preconditions.checkNotNull(telemetries, "telemetries must be non-null value");
+        Preconditions.checkArgument(!telemetries.isEmpty(), "telemetries: One or more telemetry item is expected");
+
+        if (streaming) {
+            List<Transmission> transmissions = encode(telemetries, NO_MAX_TRANSMISSION_SIZE);
+            return transmissions.isEmpty() ? Optional.<Transmission>absent() : Optional.of(transmissions.get(0));
+        }
+
+        return Optional.fromNullable(compress(telemetries));
+    }
+
+    @Override
+    public List<Transmission> serializeBatches(Collection<T> telemetries) {
+        Preconditions.checkNotNull(telemetries, "telemetries must be non-null value");
+        Preconditions.checkArgument(!telemetries.isEmpty(), "telemetries: One or more telemetry item is expected");
+
+        if (streaming) {
+            return encode(telemetries, maxTransmissionSizeInBytes);
+        }
+
+        Transmission result = compress(telemetries);
+        return result == null ? Collections.<Transmission>emptyList() : Collections.singletonList(result);
+    }
+
+    private List<Transmission> encode(Collection<T> telemetries, int maxSizeInBytes) {
+        List<Transmission> result = new ArrayList<Transmission>(1);
+        GzipTransmissionEncoder encoder = null;
+        try {
+            encoder = acquireEncoder();
+            long start = System.nanoTime();
+            int counter = 0;
+            // The exact size is only known after a flush, which hurts the compression ratio. Between flushes
+            // the size is bounded by the worst case growth of deflate, and the encoder is only flushed
+            // once that bound might go over the limit
+            int measuredSize = GzipTransmissionEncoder.EMPTY_TRANSMISSION_SIZE;
+            long measuredUncompressedSize = 0;
+            for (T telemetry : telemetries) {
+                if (counter != 0 && maxSizeInBytes != NO_MAX_TRANSMISSION_SIZE) {
+                    long itemSize = newlineString.length + getSerializedSize(telemetry);
+                    long pendingSize = encoder.getUncompressedSize() - measuredUncompressedSize + itemSize;
+                    if (measuredSize + GzipTransmissionEncoder.getMaxDeflatedSize(pendingSize) > maxSizeInBytes) {
+                        measuredSize = encoder.flushAndGetTransmissionSize();
+                        measuredUncompressedSize = encoder.getUncompressedSize();
+                        if (measuredSize + GzipTransmissionEncoder.getMaxDeflatedSize(itemSize) > maxSizeInBytes) {
+                            result.add(finishTransmission(encoder, counter, start));
+                            encoder.reset();
+                            counter = 0;
+                            start = System.nanoTime();
+                            measuredSize = GzipTransmissionEncoder.EMPTY_TRANSMISSION_SIZE;
+                            measuredUncompressedSize = 0;
+                        }
+                    }
+                }
+
+                if (counter != 0) {
+                    encoder.write(newlineString);
+                }
+
+                try {
+                    writeTelemetry(encoder, telemetry);
+                    ++counter;
+                } catch (Exception e) {
+                    InternalLogger.INSTANCE.error("Failed to serialize , exception: %s", e.toString());
+                }
+            }
+
+            if (counter != 0) {
+                result.add(finishTransmission(encoder, counter, start));
+            }
+        } catch (Exception e) {
+            InternalLogger.INSTANCE.error("Failed to serialize , exception: %s", e.toString());
+        } finally {
+            if (encoder != null) {
+                releaseEncoder(encoder);
+            }
+            onSerialized(telemetries);
+        }
+
+        return result;
+    }
+
+    private GzipTransmissionEncoder acquireEncoder() {
+        GzipTransmissionEncoder encoder = idleEncoders.poll();
+        if (encoder == null) {
+            return new GzipTransmissionEncoder(compressionLevel);
+        }
+        encoder.reset();
+        return encoder;
+    }
+
+    private void releaseEncoder(GzipTransmissionEncoder encoder) {
+        if (stopped || !idleEncoders.offer(encoder)) {
+            encoder.close();
+            return;
+        }
+
+        // 'stop' might have drained the pool before the encoder was offered
+        if (stopped && idleEncoders.remove(encoder)) {
+            encoder.close();
+        }
+    }
+
+    private Transmission finishTransmission(GzipTransmissionEncoder encoder, int numberOfTelemetries, long start) {
+        long uncompressedSize = encoder.getUncompressedSize();
+        byte[] content = encoder.finishTransmission();
+        recordTransmission(numberOfTelemetries, uncompressedSize, content.length, System.nanoTime() - start);
+
+        return new Transmission(content, GZIP_WEB_CONTENT_TYPE, GZIP_WEB_ENCODING_TYPE);
+    }
+
+    private void recordTransmission(int numberOfTelemetries, long uncompressedSize, long compressedSize, long elapsedNanos) {
+        numberOfTransmissions.incrementAndGet();
+        uncompressedBytes.addAndGet(uncompressedSize);
+        compressedBytes.addAndGet(compressedSize);
+        compressionTimeInNanos.addAndGet(elapsedNanos);
+
+        if (InternalLogger.INSTANCE.isTraceEnabled()) {
+            InternalLogger.INSTANCE.trace("Compressed %d telemetries from %d to %d bytes (ratio %.2f) in %d microseconds",
+                    numberOfTelemetries, uncompressedSize, compressedSize,
+                    compressedSize == 0 ? 0.0 : (double) uncompressedSize / compressedSize,
+                    TimeUnit.NANOSECONDS.toMicros(elapsedNanos));
+        }
+    }
+
+    private Transmission compress(Collection<T> telemetries) {
+        Transmission result = null;
+        boolean succeeded = false;
+        long start = System.nanoTime();
+        int counter = 0;
+        try {
+            ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
+
+            try {
+                GZIPOutputStream zipStream = new GZIPOutputStream(byteStream);
+                CountingOutputStream countingStream = new CountingOutputStream(zipStream);
+
+                try {
+                    counter = compress(countingStream, telemetries);
+                    succeeded = counter > 0;
+                } catch (Exception e) {
+                    InternalLogger.INSTANCE.error("Failed to serialize , exception: %s", e.toString());
+                } catch (ThreadDeath td) {
+                    throw td;
+                } catch (Throwable t) {
+                    try {
+                        InternalLogger.INSTANCE.error("Failed to serialize, unknown exception: %s", t.toString());                    } catch (ThreadDeath td) {
+                        throw td;
+                    } catch (Throwable t2) {
+                        // chomp
+                    }
+                } finally {
+                    zipStream.close();
+                }
+
+                if (succeeded) {
+                    recordTransmission(counter, countingStream.getCount(), byteStream.size(), System.nanoTime() - start);
+                }
+            } finally {
+                byteStream.close();
+
+                // The creation of the result must be done after the 'zipStream' is closed
+                if (succeeded) {
+                    result = new Transmission(byteStream.toByteArray(), GZIP_WEB_CONTENT_TYPE, GZIP_WEB_ENCODING_TYPE);
+                }
+            }
+        } catch(Exception e) {
+            InternalLogger.INSTANCE.error("Failed to serialize , exception: %s", e.toString());
+        } finally {
+            onSerialized(telemetries);
+        }
+
+        return result;
+    }
+
+    /**
+     * Writes the content of one serialized telemetry item to the compressed stream.
+     */
+    protected abstract void writeTelemetry(OutputStream out, T telemetry) throws IOException;
+
+    /**
+     * @return The number of bytes {@link #writeTelemetry} writes for the item, an upper bound is acceptable
+     */
+    protected abstract int getSerializedSize(T telemetry);
+
+    /**
+     * Called once the items are no longer needed, whether the serialization succeeded or not.
+     */
+    protected void onSerialized(Collection<T> telemetries) {
+    }
+
+    private int compress(OutputStream zipStream, Collection<T> telemetries) throws IOException {
+        int counter = 0;
+
+        // The format is:
+        // 1. Separate each Telemetry by newline
+        // 2. Compress the entire data by using Gzip
+        for (T telemetry : telemetries) {
+
+            if (counter != 0) {
+                zipStream.write(newlineString);
+            }
+
+            try {
+                writeTelemetry(zipStream, telemetry);
+                ++counter;
+            } catch (Exception e) {
+                InternalLogger.INSTANCE.error("Failed to serialize , exception: %s", e.toString());
+            }
+        }
+
+        return counter;
+    }
+
+    private static final class CountingOutputStream extends OutputStream {
+        private final OutputStream out;
+
+        private long count;
+
+        private CountingOutputStream(OutputStream out) {
+            this.out = out;
+        }
+
+        @Override
+        public void write(int b) throws IOException {
+            out.write(b);
+            ++count;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+            count += len;
+        }
+
+        private long getCount() {
+            return count;
+        }
+    }
+}
@@ -90,7 +90,8 @@ public final class ActiveTransmissionFileSystemOutput implements TransmissionOut
 
     @Override
     public void stop(long timeout, TimeUnit timeUnit) {
-        actualOutput.stop(timeout, timeUnit);
+        // Let the pending transmissions be persisted before stopping the actual output
         ThreadPoolUtils.stop(threadPool, timeout, timeUnit);
+        actualOutput.stop(timeout, timeUnit);
     }
 }
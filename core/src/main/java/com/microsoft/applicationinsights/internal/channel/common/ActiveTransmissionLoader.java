@@ -27,13 +27,14 @@ import java.util.concurrent.atomic.AtomicBoolean;
 
 import com.google.common.base.Preconditions;
 import com.microsoft.applicationinsights.internal.channel.TransmissionDispatcher;
+import com.microsoft.applicationinsights.internal.channel.TransmissionStorage;
 import com.microsoft.applicationinsights.internal.channel.TransmissionsLoader;
 import com.microsoft.applicationinsights.internal.logger.InternalLogger;
 
 /**
- * The class is responsible for loading transmission files that were saved to the disk
+ * The class is responsible for loading transmissions that were saved to the disk
  *
- * The class will ask for the oldest transmission file and will hand it to the dispatcher
+ * The class will ask the storage for the oldest transmission and will hand it to the dispatcher
  *
  * Created by gupele on 12/22/2014.
  */
@@ -46,7 +47,7 @@ public final class ActiveTransmissionLoader implements TransmissionsLoader {
     private static final long DEFAULT_SLEEP_INTERVAL_AFTER_DISPATCHING_IN_MILLS = 100;
 
     // The helper class that encapsulates the file system access
-    private final TransmissionFileSystemOutput fileSystem;
+    private final TransmissionStorage fileSystem;
 
     // A synchronized flag to let us know when to stop
     private final AtomicBoolean done = new AtomicBoolean(false);
@@ -63,11 +64,11 @@ public final class ActiveTransmissionLoader implements TransmissionsLoader {
 
     private final long sleepIntervalWhenNoTransmissionsFoundInMills;
 
-    public ActiveTransmissionLoader(TransmissionFileSystemOutput fileSystem, TransmissionPolicyStateFetcher transmissionPolicy, TransmissionDispatcher dispatcher) {
+    public ActiveTransmissionLoader(TransmissionStorage fileSystem, TransmissionPolicyStateFetcher transmissionPolicy, TransmissionDispatcher dispatcher) {
         this(fileSystem, dispatcher, transmissionPolicy, DEFAULT_NUMBER_OF_THREADS);
     }
 
-    public ActiveTransmissionLoader(final TransmissionFileSystemOutput fileSystem,
+    public ActiveTransmissionLoader(final TransmissionStorage fileSystem,
                                     final TransmissionDispatcher dispatcher,
                                     final TransmissionPolicyStateFetcher transmissionPolicy,
                                     int numberOfThreads) {
@@ -178,7 +179,7 @@ public final class ActiveTransmissionLoader implements TransmissionsLoader {
     }
 
     private void fetchNext(boolean shouldDispatch) throws InterruptedException {
-        Transmission transmission = fileSystem.fetchOldestFile();
+        Transmission transmission = fileSystem.fetchOldest();
         if (transmission == null) {
             Thread.sleep(sleepIntervalWhenNoTransmissionsFoundInMills);
         } else {
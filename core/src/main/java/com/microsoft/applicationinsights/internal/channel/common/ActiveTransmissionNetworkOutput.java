@@ -22,47 +22,69 @@
 package com.microsoft.applicationinsights.internal.channel.common;
 
 import java.util.concurrent.RejectedExecutionException;
-import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import javax.annotation.Nullable;
+
 import com.google.common.base.Preconditions;
 import com.microsoft.applicationinsights.internal.channel.TransmissionOutput;
-import com.microsoft.applicationinsights.internal.util.ThreadPoolUtils;
+import com.microsoft.applicationinsights.internal.perfcounter.PerformanceCounterContainer;
+import com.microsoft.applicationinsights.internal.util.SDKScheduler;
+import com.microsoft.applicationinsights.internal.util.TaskGroup;
 
 /**
+ * Sends transmissions on the workers of the {@link SDKScheduler}.
+ *
+ * The number of concurrent sends is fixed, unless an {@link AdaptiveConcurrencyLimit} is given, in which case
+ * the task group is resized to the limit after every send. The current limit and queue depth are then
+ * reported as performance counters.
+ *
  * Created by gupele on 12/18/2014.
  */
 public final class ActiveTransmissionNetworkOutput implements TransmissionOutput {
     private final static int DEFAULT_MAX_MESSAGES_IN_BUFFER = 128;
-    private final static int DEFAULT_MIN_NUMBER_OF_THREADS = 7;
     private final static int DEFAULT_MAX_NUMBER_OF_THREADS = 7;
-    private final static long DEFAULT_REMOVE_IDLE_THREAD_TIMEOUT_IN_SECONDS = 60L;
     private final static AtomicInteger INTSTANCE_ID_POOL = new AtomicInteger(1);
 
     private final int maxThreads;
-    private final ThreadPoolExecutor outputThreads;
+    private final TaskGroup outputTasks;
     private final TransmissionOutput actualOutput;
     private final TransmissionPolicyStateFetcher transmissionPolicy;
     private final int instanceId = INTSTANCE_ID_POOL.getAndIncrement();
+    private final AdaptiveConcurrencyLimit concurrencyLimit;
+    private final SenderConcurrencyPerformanceCounter concurrencyPerformanceCounter;
 
     public ActiveTransmissionNetworkOutput(TransmissionOutput actualOutput, TransmissionPolicyStateFetcher transmissionPolicy) {
         this(actualOutput, transmissionPolicy, DEFAULT_MAX_MESSAGES_IN_BUFFER);
     }
 
     public ActiveTransmissionNetworkOutput(TransmissionOutput actualOutput, TransmissionPolicyStateFetcher transmissionPolicy, int maxMessagesInBuffer) {
+        this(actualOutput, transmissionPolicy, maxMessagesInBuffer, null);
+    }
+
+    public ActiveTransmissionNetworkOutput(TransmissionOutput actualOutput, TransmissionPolicyStateFetcher transmissionPolicy, @Nullable AdaptiveConcurrencyLimit concurrencyLimit) {
+        this(actualOutput, transmissionPolicy, DEFAULT_MAX_MESSAGES_IN_BUFFER, concurrencyLimit);
+    }
+
+    public ActiveTransmissionNetworkOutput(TransmissionOutput actualOutput, TransmissionPolicyStateFetcher transmissionPolicy, int maxMessagesInBuffer, @Nullable AdaptiveConcurrencyLimit concurrencyLimit) {
         Preconditions.checkNotNull(transmissionPolicy, "transmissionPolicy must be a valid non-null value");
 
         this.actualOutput = actualOutput;
         this.transmissionPolicy = transmissionPolicy;
-
-        maxThreads = DEFAULT_MAX_NUMBER_OF_THREADS;
-        outputThreads = ThreadPoolUtils.newLimitedThreadPool(
-                DEFAULT_MIN_NUMBER_OF_THREADS,
-                maxThreads,
-                DEFAULT_REMOVE_IDLE_THREAD_TIMEOUT_IN_SECONDS,
-                maxMessagesInBuffer);
-        outputThreads.setThreadFactory(ThreadPoolUtils.createDaemonThreadFactory(ActiveTransmissionNetworkOutput.class, instanceId));
+        this.concurrencyLimit = concurrencyLimit;
+
+        String groupName = ActiveTransmissionNetworkOutput.class.getSimpleName() + "_" + instanceId;
+        if (concurrencyLimit == null) {
+            maxThreads = DEFAULT_MAX_NUMBER_OF_THREADS;
+            outputTasks = SDKScheduler.INSTANCE.createBlockingTaskGroup(groupName, maxThreads, maxMessagesInBuffer);
+            concurrencyPerformanceCounter = null;
+        } else {
+            maxThreads = concurrencyLimit.getMaxLimit();
+            outputTasks = SDKScheduler.INSTANCE.createBlockingTaskGroup(groupName, concurrencyLimit.getLimit(), maxMessagesInBuffer);
+            concurrencyPerformanceCounter = new SenderConcurrencyPerformanceCounter(this, instanceId);
+            PerformanceCounterContainer.INSTANCE.register(concurrencyPerformanceCounter);
+        }
     }
 
     @Override
@@ -72,11 +94,15 @@ public final class ActiveTransmissionNetworkOutput implements TransmissionOutput
                 return false;
             }
 
-            outputThreads.execute(new Runnable() {
+            outputTasks.execute(new Runnable() {
                 @Override
                 public void run() {
                     try {
-                        actualOutput.send(transmission);
+                        long startTime = System.nanoTime();
+                        if (actualOutput.send(transmission) && concurrencyLimit != null) {
+                            concurrencyLimit.onSample(System.nanoTime() - startTime, outputTasks.getQueuedTaskCount());
+                            applyConcurrencyLimit(concurrencyLimit.getLimit());
+                        }
                     } catch (ThreadDeath td) {
                         throw td;
                     } catch (Throwable throwable) {
@@ -96,12 +122,35 @@ public final class ActiveTransmissionNetworkOutput implements TransmissionOutput
 
     @Override
     public void stop(long timeout, TimeUnit timeUnit) {
+        if (concurrencyPerformanceCounter != null) {
+            PerformanceCounterContainer.INSTANCE.unregister(concurrencyPerformanceCounter);
+        }
         actualOutput.stop(timeout, timeUnit);
-        ThreadPoolUtils.stop(outputThreads, timeout, timeUnit);
+        outputTasks.stop(timeout, timeUnit);
     }
 
     public int getNumberOfMaxThreads() {
         return this.maxThreads;
     }
+
+    /**
+     * @return The number of threads that may send concurrently.
+     */
+    public int getConcurrencyLimit() {
+        return outputTasks.getMaxConcurrentTasks();
+    }
+
+    /**
+     * @return The number of transmissions waiting for a thread.
+     */
+    public int getQueueDepth() {
+        return outputTasks.getQueuedTaskCount();
+    }
+
+    private void applyConcurrencyLimit(int limit) {
+        if (limit != outputTasks.getMaxConcurrentTasks()) {
+            outputTasks.setMaxConcurrentTasks(limit);
+        }
+    }
 }
 
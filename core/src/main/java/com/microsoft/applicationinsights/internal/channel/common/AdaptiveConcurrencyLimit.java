@@ -0,0 +1,138 @@
+/*
+ * ApplicationInsights-Java
+ * Copyright (c) Microsoft Corporation
+ * All rights reserved.
+ *
+ * MIT License
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the ""Software""), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package com.microsoft.applicationinsights.internal.channel.common;
+
+import com.google.common.base.Preconditions;
+import com.microsoft.applicationinsights.internal.channel.TransmissionHandler;
+import com.microsoft.applicationinsights.internal.channel.TransmissionHandlerArgs;
+import com.microsoft.applicationinsights.internal.logger.InternalLogger;
+
+/**
+ * An AIMD (additive increase, multiplicative decrease) limit on the number of transmissions
+ * that are sent concurrently.
+ *
+ * The limit grows by about one for every 'limit' sends that completed within {@link #LATENCY_TOLERANCE} times the
+ * baseline latency while transmissions were waiting in the queue. It is cut by {@link #LATENCY_DECREASE_RATIO}
+ * when the latency goes above that, and by {@link #OVERLOAD_DECREASE_RATIO} when the endpoint throttles,
+ * is unavailable or the send fails. The baseline is the lowest latency seen, slowly drifting up
+ * towards the observed latencies so it follows changes of the network.
+ *
+ * The class is registered as a {@link TransmissionHandler} to be told about throttling and failures.
+ */
+public final class AdaptiveConcurrencyLimit implements TransmissionHandler {
+    static final double LATENCY_TOLERANCE = 2.0;
+    static final double LATENCY_DECREASE_RATIO = 0.9;
+    static final double OVERLOAD_DECREASE_RATIO = 0.5;
+    private static final int BASELINE_DRIFT_SAMPLES = 1000;
+
+    private final int minLimit;
+    private final int maxLimit;
+
+    private double limit;
+
+    private long baselineLatencyInNanos;
+
+    /// Decreases within one baseline latency of the previous one are caused by the same burst
+    private long lastDecreaseTimeInNanos;
+    private boolean decreased;
+
+    public AdaptiveConcurrencyLimit(int minLimit, int maxLimit, int initialLimit) {
+        Preconditions.checkArgument(minLimit > 0, "minLimit must be a positive number");
+        Preconditions.checkArgument(maxLimit >= minLimit, "maxLimit must not be smaller than minLimit");
+        Preconditions.checkArgument(initialLimit >= minLimit && initialLimit <= maxLimit, "initialLimit must be between minLimit and maxLimit");
+
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.limit = initialLimit;
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public int getMaxLimit() {
+        return maxLimit;
+    }
+
+    /**
+     * Called when a send completed.
+     *
+     * @param latencyInNanos How long the send took.
+     * @param queueDepth The number of transmissions waiting to be sent.
+     */
+    public synchronized void onSample(long latencyInNanos, int queueDepth) {
+        if (baselineLatencyInNanos == 0 || latencyInNanos < baselineLatencyInNanos) {
+            baselineLatencyInNanos = latencyInNanos;
+        } else {
+            baselineLatencyInNanos += (latencyInNanos - baselineLatencyInNanos) / BASELINE_DRIFT_SAMPLES;
+        }
+
+        if (latencyInNanos > baselineLatencyInNanos * LATENCY_TOLERANCE) {
+            decrease(LATENCY_DECREASE_RATIO);
+        } else if (queueDepth > 0) {
+            // No need to grow when the current limit keeps up with the load
+            limit = Math.min(maxLimit, limit + 1.0 / limit);
+        }
+    }
+
+    /**
+     * Called when the endpoint is overloaded or cannot be reached.
+     */
+    public synchronized void onOverload() {
+        decrease(OVERLOAD_DECREASE_RATIO);
+    }
+
+    @Override
+    public void onTransmissionSent(TransmissionHandlerArgs args) {
+        if (args.getException() != null) {
+            onOverload();
+            return;
+        }
+
+        switch (args.getResponseCode()) {
+            case TransmissionSendResult.THROTTLED:
+            case TransmissionSendResult.THROTTLED_OVER_EXTENDED_TIME:
+            case TransmissionSendResult.SERVICE_UNAVAILABLE:
+            case TransmissionSendResult.REQUEST_TIMEOUT:
+                onOverload();
+                break;
+
+            default:
+                break;
+        }
+    }
+
+    private void decrease(double ratio) {
+        long now = System.nanoTime();
+        if (decreased && now - lastDecreaseTimeInNanos < baselineLatencyInNanos) {
+            return;
+        }
+
+        int previous = (int) limit;
+        limit = Math.max(minLimit, limit * ratio);
+        decreased = true;
+        lastDecreaseTimeInNanos = now;
+        if ((int) limit != previous) {
+            InternalLogger.INSTANCE.trace("Sender concurrency limit decreased from %d to %d", previous, (int) limit);
+        }
+    }
+}
@@ -0,0 +1,296 @@
+/*
+ * ApplicationInsights-Java
+ * Copyright (c) Microsoft Corporation
+ * All rights reserved.
+ *
+ * MIT License
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the ""Software""), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package com.microsoft.applicationinsights.internal.channel.common;
+
+import java.io.IOException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nullable;
+
+import com.google.common.base.Preconditions;
+import com.microsoft.applicationinsights.TelemetryConfiguration;
+import com.microsoft.applicationinsights.internal.channel.TransmissionDispatcher;
+import com.microsoft.applicationinsights.internal.channel.TransmissionOutput;
+import com.microsoft.applicationinsights.internal.logger.InternalLogger;
+import com.microsoft.applicationinsights.internal.util.SSLOptionsUtil;
+import com.microsoft.applicationinsights.internal.util.ThreadPoolUtils;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpStatus;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.impl.nio.client.HttpAsyncClients;
+import org.apache.http.impl.nio.reactor.IOReactorConfig;
+import org.apache.http.nio.conn.ssl.SSLIOSessionStrategy;
+import org.apache.http.ssl.SSLContexts;
+import org.apache.http.util.EntityUtils;
+
+/**
+ * Sends {@link Transmission}s with Apache's non-blocking HttpAsyncClient.
+ *
+ * Unlike {@link TransmissionNetworkOutput}, the calling thread is not held for the duration of the request,
+ * so many requests can be in flight on a few I/O threads and no {@link ActiveTransmissionNetworkOutput} is needed.
+ * The number of requests and the number of bytes in flight are capped; a transmission over the caps is refused,
+ * which lets the dispatcher hand it to the next output. When an {@link AdaptiveConcurrencyLimit} is given, it further
+ * caps the requests in flight. It is sampled with the latency of every successful request, and the transmissions it
+ * refused since the previous sample stand for the queue depth.
+ *
+ * Responses are handled on the completion callbacks, through the same {@link TransmissionPolicyManager}
+ * back off and transmission handlers that {@link TransmissionNetworkOutput} uses.
+ */
+public final class AsyncTransmissionNetworkOutput implements TransmissionOutput {
+    public static final int DEFAULT_MAX_IN_FLIGHT_REQUESTS = 64;
+    public static final long DEFAULT_MAX_IN_FLIGHT_BYTES = 16L * 1024 * 1024;
+
+    private static final int DEFAULT_NUMBER_OF_IO_THREADS = 2;
+    private static final AtomicInteger INSTANCE_ID_POOL = new AtomicInteger(1);
+
+    private final CloseableHttpAsyncClient httpClient;
+
+    private final TelemetryConfiguration configuration;
+
+    private final TransmissionPolicyManager transmissionPolicyManager;
+
+    private TransmissionDispatcher transmissionDispatcher;
+
+    private final int maxInFlightRequests;
+    private final Semaphore inFlightRequests;
+
+    private final long maxInFlightBytes;
+    private final AtomicLong inFlightBytes = new AtomicLong();
+
+    private final AdaptiveConcurrencyLimit concurrencyLimit;
+    private final AtomicInteger refusedByConcurrencyLimit = new AtomicInteger();
+
+    private volatile boolean stopped;
+
+    public static AsyncTransmissionNetworkOutput create(@Nullable TelemetryConfiguration configuration, TransmissionPolicyManager transmissionPolicyManager,
+                                                        int maxInFlightRequests, long maxInFlightBytes) {
+        return create(configuration, transmissionPolicyManager, maxInFlightRequests, maxInFlightBytes, null);
+    }
+
+    public static AsyncTransmissionNetworkOutput create(@Nullable TelemetryConfiguration configuration, TransmissionPolicyManager transmissionPolicyManager,
+                                                        int maxInFlightRequests, long maxInFlightBytes, @Nullable AdaptiveConcurrencyLimit concurrencyLimit) {
+        RequestConfig requestConfig = RequestConfig.custom()
+                .setConnectionRequestTimeout(ApacheSender.REQUEST_TIMEOUT_IN_MILLIS)
+                .setSocketTimeout(ApacheSender.REQUEST_TIMEOUT_IN_MILLIS)
+                .setConnectTimeout(ApacheSender.REQUEST_TIMEOUT_IN_MILLIS)
+                .build();
+
+        final String[] allowedProtocols = SSLOptionsUtil.getAllowedProtocols();
+        CloseableHttpAsyncClient httpClient = HttpAsyncClients.custom()
+                .setDefaultRequestConfig(requestConfig)
+                .setDefaultIOReactorConfig(IOReactorConfig.custom().setIoThreadCount(DEFAULT_NUMBER_OF_IO_THREADS).build())
+                .setSSLStrategy(new SSLIOSessionStrategy(SSLContexts.createDefault(), allowedProtocols, null, SSLIOSessionStrategy.getDefaultHostnameVerifier()))
+                .setMaxConnTotal(ApacheSender.DEFAULT_MAX_TOTAL_CONNECTIONS)
+                .setMaxConnPerRoute(ApacheSender.DEFAULT_MAX_CONNECTIONS_PER_ROUTE)
+                .setThreadFactory(ThreadPoolUtils.createDaemonThreadFactory(AsyncTransmissionNetworkOutput.class, INSTANCE_ID_POOL.getAndIncrement()))
+                .useSystemProperties()
+                .build();
+        httpClient.start();
+
+        return new AsyncTransmissionNetworkOutput(httpClient, configuration, transmissionPolicyManager, maxInFlightRequests, maxInFlightBytes, concurrencyLimit);
+    }
+
+    AsyncTransmissionNetworkOutput(CloseableHttpAsyncClient httpClient, @Nullable TelemetryConfiguration configuration, TransmissionPolicyManager transmissionPolicyManager,
+                                   int maxInFlightRequests, long maxInFlightBytes) {
+        this(httpClient, configuration, transmissionPolicyManager, maxInFlightRequests, maxInFlightBytes, null);
+    }
+
+    AsyncTransmissionNetworkOutput(CloseableHttpAsyncClient httpClient, @Nullable TelemetryConfiguration configuration, TransmissionPolicyManager transmissionPolicyManager,
+                                   int maxInFlightRequests, long maxInFlightBytes, @Nullable AdaptiveConcurrencyLimit concurrencyLimit) {
+        Preconditions.checkNotNull(httpClient, "httpClient should be a valid non-null value");
+        Preconditions.checkNotNull(transmissionPolicyManager, "transmissionPolicyManager should be a valid non-null value");
+        Preconditions.checkArgument(maxInFlightRequests > 0, "maxInFlightRequests must be a positive number");
+        Preconditions.checkArgument(maxInFlightBytes > 0, "maxInFlightBytes must be a positive number");
+
+        this.httpClient = httpClient;
+        this.configuration = configuration;
+        this.transmissionPolicyManager = transmissionPolicyManager;
+        this.maxInFlightRequests = maxInFlightRequests;
+        this.inFlightRequests = new Semaphore(maxInFlightRequests);
+        this.maxInFlightBytes = maxInFlightBytes;
+        this.concurrencyLimit = concurrencyLimit;
+    }
+
+    /**
+     * Used to inject the dispatcher used for this output so it can be injected to the retry logic.
+     *
+     * @param transmissionDispatcher The dispatcher to be injected.
+     */
+    public void setTransmissionDispatcher(TransmissionDispatcher transmissionDispatcher) {
+        this.transmissionDispatcher = transmissionDispatcher;
+    }
+
+    /**
+     * Starts sending the transmission without waiting for the response.
+     *
+     * @param transmission The data to send
+     * @return False when the output is stopped, blocked or has too much data in flight, so the next output should be used.
+     */
+    @Override
+    public boolean send(Transmission transmission) {
+        if (stopped || transmissionPolicyManager.getTransmissionPolicyState().getCurrentState() != TransmissionPolicy.UNBLOCKED) {
+            return false;
+        }
+
+        if (!inFlightRequests.tryAcquire()) {
+            return false;
+        }
+
+        // The permit just taken is counted as in flight
+        if (concurrencyLimit != null && getNumberOfRequestsInFlight() > concurrencyLimit.getLimit()) {
+            inFlightRequests.release();
+            refusedByConcurrencyLimit.incrementAndGet();
+            return false;
+        }
+
+        int size = transmission.getContent().length;
+        long currentInFlightBytes = inFlightBytes.addAndGet(size);
+        // A single transmission larger than the cap is still sent when nothing else is in flight
+        if (currentInFlightBytes > maxInFlightBytes && currentInFlightBytes != size) {
+            release(size);
+            return false;
+        }
+
+        try {
+            httpClient.execute(TransmissionNetworkOutput.createTransmissionPostRequest(getIngestionEndpoint(), transmission),
+                               new TransmissionCallback(transmission, size));
+            return true;
+        } catch (Exception e) {
+            release(size);
+            InternalLogger.INSTANCE.error("Failed to send, unexpected exception.%nStack Trace:%n%s", ExceptionUtils.getStackTrace(e));
+        }
+
+        return false;
+    }
+
+    /**
+     * Waits for the requests in flight, up to the timeout, and closes the client.
+     */
+    @Override
+    public synchronized void stop(long timeout, TimeUnit timeUnit) {
+        if (stopped) {
+            return;
+        }
+
+        stopped = true;
+        try {
+            if (inFlightRequests.tryAcquire(maxInFlightRequests, timeout, timeUnit)) {
+                inFlightRequests.release(maxInFlightRequests);
+            } else {
+                InternalLogger.INSTANCE.trace("Requests still in flight when stopping, they will be cancelled");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        try {
+            httpClient.close();
+        } catch (IOException e) {
+            InternalLogger.INSTANCE.error("Failed to close http client, exception: %s", e.toString());
+        }
+    }
+
+    int getNumberOfRequestsInFlight() {
+        return maxInFlightRequests - inFlightRequests.availablePermits();
+    }
+
+    long getNumberOfBytesInFlight() {
+        return inFlightBytes.get();
+    }
+
+    private void release(int size) {
+        inFlightBytes.addAndGet(-size);
+        inFlightRequests.release();
+    }
+
+    private String getIngestionEndpoint() {
+        if (configuration != null) {
+            return configuration.getEndpointProvider().getIngestionEndpointURL().toString();
+        }
+        return TransmissionNetworkOutput.DEFAULT_SERVER_URI;
+    }
+
+    /**
+     * Runs on the I/O threads once the request is done; the limits are released before
+     * the handlers run since they might dispatch the transmission again.
+     */
+    private final class TransmissionCallback implements FutureCallback<HttpResponse> {
+        private final Transmission transmission;
+        private final int size;
+        private final long startTime = System.nanoTime();
+
+        private TransmissionCallback(Transmission transmission, int size) {
+            this.transmission = transmission;
+            this.size = size;
+        }
+
+        @Override
+        public void completed(HttpResponse response) {
+            int code = response.getStatusLine().getStatusCode();
+            String reason = response.getStatusLine().getReasonPhrase();
+            Header retryAfterHeader = response.getFirstHeader(TransmissionNetworkOutput.RESPONSE_THROTTLING_HEADER);
+            String respString = null;
+            Throwable ex = null;
+            try {
+                HttpEntity respEntity = response.getEntity();
+                if (respEntity != null) {
+                    respString = EntityUtils.toString(respEntity);
+                }
+            } catch (IOException e) {
+                ex = e;
+                InternalLogger.INSTANCE.error("Failed to read the response.%nStack Trace:%n%s", ExceptionUtils.getStackTrace(e));
+            }
+
+            release(size);
+            if (code == HttpStatus.SC_OK) {
+                // If we've completed then clear the back off flags as the channel does not need
+                // to be throttled
+                transmissionPolicyManager.clearBackoff();
+                if (concurrencyLimit != null) {
+                    concurrencyLimit.onSample(System.nanoTime() - startTime, refusedByConcurrencyLimit.getAndSet(0));
+                }
+            }
+            TransmissionNetworkOutput.onTransmissionSent(transmissionPolicyManager, transmissionDispatcher, transmission, code, reason, respString, ex, retryAfterHeader);
+        }
+
+        @Override
+        public void failed(Exception e) {
+            release(size);
+            InternalLogger.INSTANCE.error("Failed to send.%nStack Trace:%n%s", ExceptionUtils.getStackTrace(e));
+            TransmissionNetworkOutput.onTransmissionSent(transmissionPolicyManager, transmissionDispatcher, transmission, 0, null, null, e, null);
+        }
+
+        @Override
+        public void cancelled() {
+            release(size);
+            InternalLogger.INSTANCE.trace("Sending a transmission was cancelled");
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * ApplicationInsights-Java
+ * Copyright (c) Microsoft Corporation
+ * All rights reserved.
+ *
+ * MIT License
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the ""Software""), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package com.microsoft.applicationinsights.internal.channel.common;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Counts the telemetries that were dropped by the channel before being sent, per {@link Reason}.
+ */
+public final class DroppedTelemetryCounters {
+    public enum Reason {
+        /// The batch was rejected since too many batches were waiting to be sent
+        REJECTED("Rejected"),
+
+        /// The batch was evicted from the pending batches to make room for a newer one
+        EVICTED("Evicted"),
+
+        /// The calling thread waited for room for too long
+        BLOCK_TIMEOUT("Block Timeout"),
+
+        /// The telemetry was sampled out while the channel was overloaded
+        SAMPLED_OUT("Sampled Out");
+
+        private final String displayName;
+
+        Reason(String displayName) {
+            this.displayName = displayName;
+        }
+
+        public String getDisplayName() {
+            return displayName;
+        }
+    }
+
+    private final AtomicLong[] counters;
+
+    public DroppedTelemetryCounters() {
+        counters = new AtomicLong[Reason.values().length];
+        for (int i = 0; i < counters.length; ++i) {
+            counters[i] = new AtomicLong();
+        }
+    }
+
+    public void add(Reason reason, long numberOfTelemetries) {
+        counters[reason.ordinal()].addAndGet(numberOfTelemetries);
+    }
+
+    public long get(Reason reason) {
+        return counters[reason.ordinal()].get();
+    }
+
+    /**
+     * @return The number of telemetries dropped for that reason since the previous call.
+     */
+    public long getAndReset(Reason reason) {
+        return counters[reason.ordinal()].getAndSet(0);
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * ApplicationInsights-Java
+ * Copyright (c) Microsoft Corporation
+ * All rights reserved.
+ *
+ * MIT License
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the ""Software""), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package com.microsoft.applicationinsights.internal.channel.common;
+
+import com.microsoft.applicationinsights.TelemetryClient;
+import com.microsoft.applicationinsights.internal.logger.InternalLogger;
+import com.microsoft.applicationinsights.internal.perfcounter.PerformanceCounter;
+import com.microsoft.applicationinsights.telemetry.MetricTelemetry;
+
+/**
+ * Reports the number of telemetries dropped by a {@link TransmitterImpl} since the previous report, per reason.
+ */
+final class DroppedTelemetryPerformanceCounter implements PerformanceCounter {
+    static final String METRIC_NAME = "Dropped Telemetry Items";
+    static final String REASON_PROPERTY_NAME = "Reason";
+
+    private final DroppedTelemetryCounters counters;
+    private final String id;
+
+    DroppedTelemetryPerformanceCounter(DroppedTelemetryCounters counters, int instanceId) {
+        this.counters = counters;
+        this.id = DroppedTelemetryPerformanceCounter.class.getSimpleName() + "-" + instanceId;
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public void report(TelemetryClient telemetryClient) {
+        for (DroppedTelemetryCounters.Reason reason : DroppedTelemetryCounters.Reason.values()) {
+            long dropped = counters.getAndReset(reason);
+            if (dropped == 0) {
+                continue;
+            }
+
+            InternalLogger.INSTANCE.trace("Performance Counter: %s (%s): %s", METRIC_NAME, reason.getDisplayName(), dropped);
+
+            MetricTelemetry telemetry = new MetricTelemetry();
+            telemetry.markAsCustomPerfCounter();
+            telemetry.setName(METRIC_NAME);
+            telemetry.setValue(dropped);
+            telemetry.getProperties().put(REASON_PROPERTY_NAME, reason.getDisplayName());
+            telemetryClient.track(telemetry);
+        }
+    }
+}
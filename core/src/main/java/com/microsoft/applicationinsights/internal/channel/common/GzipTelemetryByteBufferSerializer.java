@@ -0,0 +1,65 @@
+/*
+ * ApplicationInsights-Java
+ * Copyright (c) Microsoft Corporation
+ * All rights reserved.
+ *
+ * MIT License
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the ""Software""), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package com.microsoft.applicationinsights.internal.channel.common;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Collection;
+
+import com.microsoft.applicationinsights.internal.channel.TelemetrySerializer;
+
+/**
+ * The {@link TelemetrySerializer} for items that were serialized as UTF-8 into pooled {@link TelemetryByteBuffer}s.
+ *
+ * The buffers are streamed into the Gzip stage as they are and are released back to their pool once the
+ * batch was compressed.
+ */
+public final class GzipTelemetryByteBufferSerializer extends AbstractGzipTelemetrySerializer<TelemetryByteBuffer> {
+    public GzipTelemetryByteBufferSerializer() {
+    }
+
+    /**
+     * Creates a serializer in streaming mode, see {@link AbstractGzipTelemetrySerializer}.
+     * @param compressionLevel The compression level, between -1 and 9
+     * @param maxTransmissionSizeInBytes The maximum compressed size of a transmission, 0 for no limit
+     */
+    public GzipTelemetryByteBufferSerializer(int compressionLevel, int maxTransmissionSizeInBytes) {
+        super(compressionLevel, maxTransmissionSizeInBytes);
+    }
+
+    @Override
+    protected void writeTelemetry(OutputStream out, TelemetryByteBuffer telemetry) throws IOException {
+        telemetry.writeTo(out);
+    }
+
+    @Override
+    protected int getSerializedSize(TelemetryByteBuffer telemetry) {
+        return telemetry.size();
+    }
+
+    @Override
+    protected void onSerialized(Collection<TelemetryByteBuffer> telemetries) {
+        for (TelemetryByteBuffer telemetry : telemetries) {
+            telemetry.release();
+        }
+    }
+}
@@ -21,19 +21,13 @@
 
 package com.microsoft.applicationinsights.internal.channel.common;
 
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.io.StringWriter;
-import java.util.Collection;
-import java.util.zip.GZIPOutputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
 
+import com.google.common.base.Utf8;
 import com.microsoft.applicationinsights.internal.channel.TelemetrySerializer;
-import com.microsoft.applicationinsights.internal.logger.InternalLogger;
 import com.microsoft.applicationinsights.telemetry.Telemetry;
-import com.microsoft.applicationinsights.telemetry.JsonTelemetryDataSerializer;
-
-import com.google.common.base.Optional;
-import com.google.common.base.Preconditions;
 
 /**
  * The class is an implementation of the {@link TelemetrySerializer}
@@ -41,80 +35,31 @@ import com.google.common.base.Preconditions;
  *
  * Created by gupele on 12/17/2014.
  */
-public final class GzipTelemetrySerializer implements TelemetrySerializer {
-    private final static String GZIP_WEB_CONTENT_TYPE = "application/x-json-stream";
-    private final static String GZIP_WEB_ENCODING_TYPE = "gzip";
-
-    private final byte[] newlineString;
-
+public final class GzipTelemetrySerializer extends AbstractGzipTelemetrySerializer<String> {
     public GzipTelemetrySerializer() {
-        this.newlineString = System.getProperty("line.separator").getBytes();
     }
 
-    @Override
-    public Optional<Transmission> serialize(Collection<String> telemetries) {
-        Preconditions.checkNotNull(telemetries, "telemetries must be non-null value");
-        Preconditions.checkArgument(!telemetries.isEmpty(), "telemetries: One or more telemetry item is expected");
-
-        Transmission result = null;
-        boolean succeeded = false;
-        try {
-            ByteArrayOutputStream byteStream = new ByteArrayOutputStream();
-
-            try {
-                GZIPOutputStream zipStream = new GZIPOutputStream(byteStream);
-
-                try {
-                    succeeded = compress(zipStream, telemetries);
-                } catch (Exception e) {
-                    InternalLogger.INSTANCE.error("Failed to serialize , exception: %s", e.toString());
-                } catch (ThreadDeath td) {
-                    throw td;
-                } catch (Throwable t) {
-                    try {
-                        InternalLogger.INSTANCE.error("Failed to serialize, unknown exception: %s", t.toString());                    } catch (ThreadDeath td) {
-                        throw td;
-                    } catch (Throwable t2) {
-                        // chomp
-                    }
-                } finally {
-                    zipStream.close();
-                }
-            } finally {
-                byteStream.close();
-
-                // The creation of the result must be done after the 'zipStream' is closed
-                if (succeeded) {
-                    result = new Transmission(byteStream.toByteArray(), GZIP_WEB_CONTENT_TYPE, GZIP_WEB_ENCODING_TYPE);
-                }
-            }
-        } catch(Exception e) {
-            InternalLogger.INSTANCE.error("Failed to serialize , exception: %s", e.toString());
-        }
-
-        return Optional.fromNullable(result);
+    /**
+     * Creates a serializer in streaming mode, see {@link AbstractGzipTelemetrySerializer}.
+     * @param compressionLevel The compression level, between -1 and 9
+     * @param maxTransmissionSizeInBytes The maximum compressed size of a transmission, 0 for no limit
+     */
+    public GzipTelemetrySerializer(int compressionLevel, int maxTransmissionSizeInBytes) {
+        super(compressionLevel, maxTransmissionSizeInBytes);
     }
 
-    private boolean compress(GZIPOutputStream zipStream, Collection<String> telemetries) throws IOException {
-        int counter = 0;
-
-        // The format is:
-        // 1. Separate each Telemetry by newline
-        // 2. Compress the entire data by using Gzip
-        for (String telemetry : telemetries) {
-
-            if (counter != 0) {
-                zipStream.write(newlineString);
-            }
+    @Override
+    protected void writeTelemetry(OutputStream out, String telemetry) throws IOException {
+        out.write(telemetry.getBytes(StandardCharsets.UTF_8));
+    }
 
-            try {
-                zipStream.write(telemetry.getBytes());
-                ++counter;
-            } catch (Exception e) {
-                InternalLogger.INSTANCE.error("Failed to serialize , exception: %s", e.toString());
-            }
+    @Override
+    protected int getSerializedSize(String telemetry) {
+        try {
+            return Utf8.encodedLength(telemetry);
+        } catch (IllegalArgumentException e) {
+            // Unpaired surrogates are written as a single replacement byte
+            return telemetry.length() * 3;
         }
-
-        return counter > 0;
     }
 }
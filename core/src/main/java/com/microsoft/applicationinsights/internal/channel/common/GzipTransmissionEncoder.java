@@ -0,0 +1,170 @@
+/*
+ * ApplicationInsights-Java
+ * Copyright (c) Microsoft Corporation
+ * All rights reserved.
+ *
+ * MIT License
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the ""Software""), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package com.microsoft.applicationinsights.internal.channel.common;
+
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * A Gzip encoder that can be reused for many transmissions.
+ *
+ * Unlike {@link java.util.zip.GZIPOutputStream}, the {@link Deflater} and the output buffer are kept
+ * between transmissions, so encoding a batch does not allocate a native deflater nor grow a new buffer.
+ * The encoder is not thread safe, it is meant to be used by one sender thread at a time, and must be
+ * closed to release its native deflater.
+ */
+final class GzipTransmissionEncoder extends OutputStream {
+    private static final byte[] GZIP_HEADER = {
+            (byte) 0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0
+    };
+
+    private static final int GZIP_TRAILER_SIZE = 8;
+
+    /// The size of a transmission without any compressed data
+    static final int EMPTY_TRANSMISSION_SIZE = GZIP_HEADER.length + GZIP_TRAILER_SIZE;
+
+    private static final int INITIAL_OUTPUT_CAPACITY = 16 * 1024;
+
+    private final Deflater deflater;
+
+    private final CRC32 crc = new CRC32();
+
+    private final byte[] singleByte = new byte[1];
+
+    private byte[] output = new byte[INITIAL_OUTPUT_CAPACITY];
+
+    private int outputSize;
+
+    GzipTransmissionEncoder(int compressionLevel) {
+        this.deflater = new Deflater(compressionLevel, true);
+        reset();
+    }
+
+    /**
+     * Starts a new transmission, dropping whatever was written so far.
+     */
+    void reset() {
+        deflater.reset();
+        crc.reset();
+        System.arraycopy(GZIP_HEADER, 0, output, 0, GZIP_HEADER.length);
+        outputSize = GZIP_HEADER.length;
+    }
+
+    @Override
+    public void write(int b) {
+        singleByte[0] = (byte) b;
+        write(singleByte, 0, 1);
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        if (len == 0) {
+            return;
+        }
+
+        crc.update(b, off, len);
+        deflater.setInput(b, off, len);
+        while (!deflater.needsInput()) {
+            deflate();
+        }
+    }
+
+    /**
+     * @return The number of uncompressed bytes written since the last reset
+     */
+    long getUncompressedSize() {
+        return deflater.getBytesRead();
+    }
+
+    /**
+     * The largest number of bytes that writing the given number of bytes and then finishing the transmission
+     * might add, which is reached when deflate falls back to stored blocks. Based on zlib's deflateBound,
+     * with room for one more flush marker.
+     */
+    static long getMaxDeflatedSize(long uncompressedSize) {
+        return uncompressedSize + (uncompressedSize >> 12) + (uncompressedSize >> 14) + (uncompressedSize >> 25) + 18;
+    }
+
+    /**
+     * Flushes the data that the deflater keeps internally, so the returned size is exact.
+     * The flush slightly reduces the compression ratio, so it should not be called for every write.
+     * @return The size of the transmission if it was finished now, without the few bytes that end the deflate stream
+     */
+    int flushAndGetTransmissionSize() {
+        int written;
+        do {
+            if (outputSize == output.length) {
+                ensureCapacity(output.length);
+            }
+            written = deflater.deflate(output, outputSize, output.length - outputSize, Deflater.SYNC_FLUSH);
+            outputSize += written;
+        } while (outputSize == output.length);
+
+        return outputSize + GZIP_TRAILER_SIZE;
+    }
+
+    /**
+     * Completes the Gzip stream and returns its content. The encoder must be reset before it is reused.
+     */
+    byte[] finishTransmission() {
+        deflater.finish();
+        while (!deflater.finished()) {
+            deflate();
+        }
+
+        ensureCapacity(GZIP_TRAILER_SIZE);
+        writeIntLittleEndian((int) crc.getValue());
+        writeIntLittleEndian((int) deflater.getBytesRead());
+
+        return Arrays.copyOf(output, outputSize);
+    }
+
+    /**
+     * Releases the native resources of the deflater.
+     */
+    @Override
+    public void close() {
+        deflater.end();
+    }
+
+    private void deflate() {
+        if (outputSize == output.length) {
+            ensureCapacity(output.length);
+        }
+        outputSize += deflater.deflate(output, outputSize, output.length - outputSize);
+    }
+
+    private void ensureCapacity(int additional) {
+        if (outputSize + additional > output.length) {
+            output = Arrays.copyOf(output, Math.max(outputSize + additional, output.length << 1));
+        }
+    }
+
+    private void writeIntLittleEndian(int value) {
+        output[outputSize++] = (byte) value;
+        output[outputSize++] = (byte) (value >> 8);
+        output[outputSize++] = (byte) (value >> 16);
+        output[outputSize++] = (byte) (value >> 24);
+    }
+}
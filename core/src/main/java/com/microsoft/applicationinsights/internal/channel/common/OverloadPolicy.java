@@ -0,0 +1,41 @@
+/*
+ * ApplicationInsights-Java
+ * Copyright (c) Microsoft Corporation
+ * All rights reserved.
+ *
+ * MIT License
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the ""Software""), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package com.microsoft.applicationinsights.internal.channel.common;
+
+/**
+ * What the {@link TransmitterImpl} does with a batch of telemetries when too many batches are already waiting to be sent.
+ */
+public enum OverloadPolicy {
+    /// The new batch is dropped, this is the default
+    DROP_NEWEST,
+
+    /// The oldest batch that is waiting to be sent is dropped to make room for the new one
+    DROP_OLDEST,
+
+    /// The calling thread waits for room for a limited time, after which the new batch is dropped
+    BLOCK,
+
+    /// Telemetries are sampled by type before they are buffered: requests, dependencies and exceptions are kept,
+    /// traces and metrics are sampled first and the other types once heavily overloaded.
+    /// The new batch is dropped if there is still no room
+    SAMPLE
+}
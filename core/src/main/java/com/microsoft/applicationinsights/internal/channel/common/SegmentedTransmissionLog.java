@@ -0,0 +1,527 @@
+/*
+ * ApplicationInsights-Java
+ * Copyright (c) Microsoft Corporation
+ * All rights reserved.
+ *
+ * MIT License
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the ""Software""), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package com.microsoft.applicationinsights.internal.channel.common;
+
+import java.io.File;
+import java.io.FileFilter;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Preconditions;
+import com.microsoft.applicationinsights.internal.channel.TransmissionStorage;
+import com.microsoft.applicationinsights.internal.logger.InternalLogger;
+import com.microsoft.applicationinsights.internal.util.LimitsEnforcer;
+import com.microsoft.applicationinsights.internal.util.LocalFileSystemUtils;
+import com.microsoft.applicationinsights.internal.util.SDKScheduler;
+import com.microsoft.applicationinsights.internal.util.TaskGroup;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.FilenameUtils;
+import org.apache.commons.io.IOUtils;
+
+/**
+ * Keeps the {@link Transmission}s that need to be saved to the file system in an append-only log
+ * made of rolling segment files, instead of the file per transmission of {@link TransmissionFileSystemOutput}.
+ *
+ * Transmissions are appended, in the format of {@link TransmissionFileFormat}, to the newest segment
+ * and are fetched back in order from the oldest one. An index file keeps the read offset and the last synced
+ * write offset, so a restart continues where it stopped without listing and sorting the folder.
+ *
+ * Writes are synced to the disk in batches, at most once every {@link #SYNC_INTERVAL_IN_MILLIS}, and a periodic task
+ * syncs what is left once the writes stop, as does stopping the log.
+ * Fetching a transmission acknowledges it, since the dispatcher persists it again if it cannot be sent,
+ * and a segment is deleted once all of its transmissions were fetched.
+ *
+ * Transmission files left in the folder by {@link TransmissionFileSystemOutput} are imported when the log is opened.
+ */
+public final class SegmentedTransmissionLog implements TransmissionStorage {
+    private static final String SEGMENT_FILE_EXTENSION = "seg";
+    private static final String INDEX_FILE_NAME = "segments.idx";
+
+    private static final int INDEX_MAGIC = 0x41494958; // "AIIX"
+    private static final byte INDEX_VERSION = 1;
+    private static final int INDEX_SIZE = 4 + 1 + 8 + 8 + 8 + 8;
+
+    public static final long DEFAULT_SEGMENT_SIZE_IN_BYTES = 1024 * 1024;
+    static final long SYNC_INTERVAL_IN_MILLIS = 1000;
+
+    /// The folder in which we keep the segments and the index
+    private final File folder;
+
+    private final long segmentSizeInBytes;
+
+    /// Capacity is the size of disk that we are can use
+    private final long capacityInBytes;
+
+    /// The ids of the segments on the disk, oldest first, the last one is the one being written
+    private final ArrayDeque<Long> segments = new ArrayDeque<Long>();
+
+    private final ByteBuffer indexBuffer = ByteBuffer.allocate(INDEX_SIZE);
+
+    private FileChannel indexChannel;
+    private FileLock indexLock;
+
+    private FileChannel writeChannel;
+    private long writeOffset;
+    private long syncedWriteOffset;
+
+    private FileChannel readChannel;
+    private long readOffset;
+
+    /// The size of the transmissions that were written and not fetched yet
+    private long sizeInBytes;
+
+    private long lastSyncTimeInMillis;
+    private boolean unsynced;
+    private boolean stopped;
+
+    private final TaskGroup syncTasks;
+
+    public SegmentedTransmissionLog(String folderPath, String maxTransmissionStorageCapacity) {
+        this(folderPath == null ? new File(LocalFileSystemUtils.getTempDir(), TransmissionFileSystemOutput.TRANSMISSION_DEFAULT_FOLDER) : new File(folderPath),
+             LimitsEnforcer.createWithClosestLimitOnError(TransmissionFileSystemOutput.MIN_CAPACITY_MEGABYTES,
+                                                          TransmissionFileSystemOutput.MAX_CAPACITY_MEGABYTES,
+                                                          TransmissionFileSystemOutput.DEFAULT_CAPACITY_MEGABYTES,
+                                                          TransmissionFileSystemOutput.MAX_TRANSMISSION_STORAGE_CAPACITY_NAME,
+                                                          maxTransmissionStorageCapacity).getCurrentValue() * 1024L * 1024L,
+             DEFAULT_SEGMENT_SIZE_IN_BYTES);
+    }
+
+    SegmentedTransmissionLog(File folder, long capacityInBytes, long segmentSizeInBytes) {
+        Preconditions.checkNotNull(folder, "folder must be a non-null value");
+        Preconditions.checkArgument(capacityInBytes > 0, "capacityInBytes must be a positive number");
+        Preconditions.checkArgument(segmentSizeInBytes > 0, "segmentSizeInBytes must be a positive number");
+
+        if (!folder.exists()) {
+            folder.mkdir();
+        }
+
+        if (!folder.exists() || !folder.canRead() || !folder.canWrite()) {
+            throw new IllegalArgumentException("Folder must exist with read and write permissions");
+        }
+
+        this.folder = folder;
+        this.capacityInBytes = capacityInBytes;
+        this.segmentSizeInBytes = segmentSizeInBytes;
+
+        try {
+            open();
+        } catch (IOException e) {
+            closeChannels();
+            throw new IllegalStateException("Failed to open the transmission log in " + folder, e);
+        }
+
+        importTransmissionFiles();
+
+        syncTasks = SDKScheduler.INSTANCE.createTaskGroup(SegmentedTransmissionLog.class.getSimpleName(), 1, 0);
+        syncTasks.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                syncUnsynced();
+            }
+        }, SYNC_INTERVAL_IN_MILLIS, SYNC_INTERVAL_IN_MILLIS, TimeUnit.MILLISECONDS);
+    }
+
+    @Override
+    public synchronized boolean send(Transmission transmission) {
+        if (!append(transmission)) {
+            return false;
+        }
+
+        InternalLogger.INSTANCE.info("Data persisted to file. To be sent when the network is available.");
+        return true;
+    }
+
+    /**
+     * The lock must be held.
+     */
+    private boolean append(Transmission transmission) {
+        if (stopped) {
+            return false;
+        }
+
+        if (sizeInBytes >= capacityInBytes) {
+            InternalLogger.INSTANCE.logAlways(InternalLogger.LoggingLevel.WARN, "Persistent storage max capacity has been reached; "
+                + "currently at %.3f KB. Telemetry will be lost, "
+                + "please consider increasing the value of MaxTransmissionStorageFilesCapacityInMB property in the configuration file.",
+                (sizeInBytes / 1024.0));
+            return false;
+        }
+
+        try {
+            if (writeOffset >= segmentSizeInBytes) {
+                rollSegment();
+            }
+
+            long recordSize;
+            try {
+                recordSize = TransmissionFileFormat.write(writeChannel, transmission);
+            } catch (IOException e) {
+                // Drop what was written of the record so the segment ends with a complete one
+                writeChannel.truncate(writeOffset);
+                writeChannel.position(writeOffset);
+                throw e;
+            }
+
+            writeOffset += recordSize;
+            sizeInBytes += recordSize;
+            unsynced = true;
+            syncIfNeeded();
+        } catch (IOException e) {
+            InternalLogger.INSTANCE.error("Failed to save transmission, exception: %s", e.toString());
+            return false;
+        }
+
+        return true;
+    }
+
+    @Override
+    public synchronized Transmission fetchOldest() {
+        if (stopped) {
+            return null;
+        }
+
+        try {
+            while (true) {
+                boolean isWriteSegment = segments.size() == 1;
+                if (readChannel == null) {
+                    readChannel = FileChannel.open(segmentFile(segments.peekFirst()).toPath(), StandardOpenOption.READ);
+                }
+
+                long end = isWriteSegment ? writeOffset : readChannel.size();
+                if (readOffset >= end) {
+                    if (isWriteSegment) {
+                        syncIfNeeded();
+                        return null;
+                    }
+
+                    deleteReadSegment();
+                    continue;
+                }
+
+                Transmission transmission = null;
+                long nextReadOffset;
+                try {
+                    readChannel.position(readOffset);
+                    transmission = TransmissionFileFormat.read(readChannel);
+                    nextReadOffset = readChannel.position();
+                } catch (IOException e) {
+                    InternalLogger.INSTANCE.error("Skipping corrupted transmissions in segment %s, exception: %s", segments.peekFirst(), e.toString());
+                    nextReadOffset = end;
+                }
+
+                sizeInBytes -= nextReadOffset - readOffset;
+                readOffset = nextReadOffset;
+                writeIndex();
+                syncIfNeeded();
+
+                if (transmission != null) {
+                    return transmission;
+                }
+            }
+        } catch (IOException e) {
+            InternalLogger.INSTANCE.error("Error fetching oldest transmission: %s", e.toString());
+        }
+
+        return null;
+    }
+
+    @Override
+    public void stop(long timeout, TimeUnit timeUnit) {
+        // Outside of the lock, since the periodic sync might be waiting for it
+        syncTasks.stop(timeout, timeUnit);
+
+        synchronized (this) {
+            if (stopped) {
+                return;
+            }
+
+            stopped = true;
+            try {
+                sync();
+            } catch (IOException e) {
+                InternalLogger.INSTANCE.error("Failed to sync the transmission log, exception: %s", e.toString());
+            }
+            closeChannels();
+        }
+    }
+
+    synchronized long getSizeInBytes() {
+        return sizeInBytes;
+    }
+
+    synchronized long getSyncedWriteOffset() {
+        return syncedWriteOffset;
+    }
+
+    synchronized long getWriteOffset() {
+        return writeOffset;
+    }
+
+    private synchronized void syncUnsynced() {
+        if (stopped || !unsynced) {
+            return;
+        }
+
+        try {
+            sync();
+        } catch (IOException e) {
+            InternalLogger.INSTANCE.error("Failed to sync the transmission log, exception: %s", e.toString());
+        }
+    }
+
+    synchronized int getNumberOfSegments() {
+        return segments.size();
+    }
+
+    private void open() throws IOException {
+        indexChannel = FileChannel.open(new File(folder, INDEX_FILE_NAME).toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+        try {
+            indexLock = indexChannel.tryLock();
+        } catch (OverlappingFileLockException e) {
+            indexLock = null;
+        }
+        if (indexLock == null) {
+            throw new IOException("The transmission log is used by another channel or process");
+        }
+
+        long indexReadSegment = -1;
+        long indexReadOffset = 0;
+        long indexWriteSegment = -1;
+        long indexWriteOffset = 0;
+        if (indexChannel.size() >= INDEX_SIZE) {
+            indexBuffer.clear();
+            while (indexBuffer.hasRemaining()) {
+                if (indexChannel.read(indexBuffer, indexBuffer.position()) < 0) {
+                    break;
+                }
+            }
+            indexBuffer.flip();
+            if (indexBuffer.getInt() == INDEX_MAGIC && indexBuffer.get() == INDEX_VERSION) {
+                indexReadSegment = indexBuffer.getLong();
+                indexReadOffset = indexBuffer.getLong();
+                indexWriteSegment = indexBuffer.getLong();
+                indexWriteOffset = indexBuffer.getLong();
+            } else {
+                InternalLogger.INSTANCE.warn("Ignoring unknown transmission log index in %s", folder);
+            }
+        }
+
+        long nextSegment = Math.max(indexReadSegment, 0);
+        for (long segment : listSegments()) {
+            if (segment < indexReadSegment) {
+                // Fully fetched before the log was last closed
+                FileUtils.deleteQuietly(segmentFile(segment));
+                continue;
+            }
+
+            segments.addLast(segment);
+            nextSegment = segment + 1;
+        }
+        if (segments.isEmpty()) {
+            segments.addLast(nextSegment);
+        }
+
+        long writeSegment = segments.peekLast();
+        writeChannel = FileChannel.open(segmentFile(writeSegment).toPath(), StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+        long validFrom = writeSegment == indexWriteSegment ? Math.min(indexWriteOffset, writeChannel.size()) : 0;
+        writeOffset = findEndOfRecords(writeChannel, validFrom);
+        if (writeChannel.size() > writeOffset) {
+            InternalLogger.INSTANCE.warn("Dropping %d bytes of incomplete transmissions at the end of segment %s", writeChannel.size() - writeOffset, writeSegment);
+            writeChannel.truncate(writeOffset);
+        }
+        writeChannel.position(writeOffset);
+
+        readOffset = segments.peekFirst() == indexReadSegment ? indexReadOffset : 0;
+        if (segments.size() == 1) {
+            readOffset = Math.min(readOffset, writeOffset);
+        }
+
+        sizeInBytes = writeOffset - readOffset;
+        for (long segment : segments) {
+            if (segment != writeSegment) {
+                sizeInBytes += segmentFile(segment).length();
+            }
+        }
+
+        sync();
+    }
+
+    private List<Long> listSegments() {
+        File[] files = folder.listFiles(new FileFilter() {
+            @Override
+            public boolean accept(File file) {
+                return file.isFile() && SEGMENT_FILE_EXTENSION.equals(FilenameUtils.getExtension(file.getName()));
+            }
+        });
+
+        List<Long> result = new ArrayList<Long>();
+        if (files == null) {
+            return result;
+        }
+
+        for (File file : files) {
+            try {
+                result.add(Long.parseLong(FilenameUtils.getBaseName(file.getName())));
+            } catch (NumberFormatException e) {
+                InternalLogger.INSTANCE.warn("Ignoring unexpected file %s in the transmission log folder", file.getName());
+            }
+        }
+        Collections.sort(result);
+        return result;
+    }
+
+    /**
+     * Imports the transmissions saved by {@link TransmissionFileSystemOutput}, oldest first.
+     */
+    private synchronized void importTransmissionFiles() {
+        List<File> files = new ArrayList<File>(FileUtils.listFiles(folder, new String[] {TransmissionFileSystemOutput.TRANSMISSION_FILE_EXTENSION_FOR_SEARCH}, false));
+        if (files.isEmpty()) {
+            return;
+        }
+
+        Collections.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File file1, File file2) {
+                long file1LastModified = file1.lastModified();
+                long file2LastModified = file2.lastModified();
+                return file1LastModified < file2LastModified ? -1 : (file1LastModified > file2LastModified ? 1 : 0);
+            }
+        });
+
+        int imported = 0;
+        for (File file : files) {
+            try {
+                if (!append(TransmissionFileFormat.read(file))) {
+                    break;
+                }
+                ++imported;
+            } catch (IOException e) {
+                InternalLogger.INSTANCE.error("Failed to import transmission file %s, exception: %s", file.getName(), e.toString());
+            }
+            FileUtils.deleteQuietly(file);
+        }
+
+        InternalLogger.INSTANCE.info("Imported %d transmission files into the transmission log", imported);
+    }
+
+    /**
+     * @return The offset after the last complete record, starting the scan at an offset known to be valid
+     */
+    private static long findEndOfRecords(FileChannel channel, long validFrom) throws IOException {
+        long end = validFrom;
+        channel.position(validFrom);
+        try {
+            while (end < channel.size()) {
+                TransmissionFileFormat.skip(channel);
+                end = channel.position();
+            }
+        } catch (IOException e) {
+            // The rest of the segment was not completely written
+        }
+        return end;
+    }
+
+    private void rollSegment() throws IOException {
+        writeChannel.force(false);
+        writeChannel.close();
+
+        long segment = segments.peekLast() + 1;
+        writeChannel = FileChannel.open(segmentFile(segment).toPath(), StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING);
+        segments.addLast(segment);
+        writeOffset = 0;
+        syncedWriteOffset = 0;
+        writeIndex();
+    }
+
+    private void deleteReadSegment() throws IOException {
+        IOUtils.closeQuietly(readChannel);
+        readChannel = null;
+
+        File segmentFile = segmentFile(segments.pollFirst());
+        readOffset = 0;
+        writeIndex();
+
+        if (!segmentFile.delete()) {
+            InternalLogger.INSTANCE.warn("Failed to delete fetched transmission segment %s", segmentFile.getName());
+        }
+    }
+
+    private void syncIfNeeded() throws IOException {
+        if (unsynced && System.currentTimeMillis() - lastSyncTimeInMillis >= SYNC_INTERVAL_IN_MILLIS) {
+            sync();
+        }
+    }
+
+    private void sync() throws IOException {
+        writeChannel.force(false);
+        syncedWriteOffset = writeOffset;
+        writeIndex();
+        indexChannel.force(false);
+
+        lastSyncTimeInMillis = System.currentTimeMillis();
+        unsynced = false;
+    }
+
+    private void writeIndex() throws IOException {
+        indexBuffer.clear();
+        indexBuffer.putInt(INDEX_MAGIC);
+        indexBuffer.put(INDEX_VERSION);
+        indexBuffer.putLong(segments.peekFirst());
+        indexBuffer.putLong(readOffset);
+        indexBuffer.putLong(segments.peekLast());
+        indexBuffer.putLong(syncedWriteOffset);
+        indexBuffer.flip();
+        while (indexBuffer.hasRemaining()) {
+            indexChannel.write(indexBuffer, indexBuffer.position());
+        }
+    }
+
+    private File segmentFile(long segment) {
+        return new File(folder, String.format("%019d.%s", segment, SEGMENT_FILE_EXTENSION));
+    }
+
+    private void closeChannels() {
+        IOUtils.closeQuietly(readChannel);
+        IOUtils.closeQuietly(writeChannel);
+        if (indexLock != null) {
+            try {
+                indexLock.release();
+            } catch (IOException e) {
+                // Released with the channel anyway
+            }
+        }
+        IOUtils.closeQuietly(indexChannel);
+        readChannel = null;
+        writeChannel = null;
+        indexChannel = null;
+    }
+}
@@ -0,0 +1,66 @@
+/*
+ * ApplicationInsights-Java
+ * Copyright (c) Microsoft Corporation
+ * All rights reserved.
+ *
+ * MIT License
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the ""Software""), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package com.microsoft.applicationinsights.internal.channel.common;
+
+import com.microsoft.applicationinsights.TelemetryClient;
+import com.microsoft.applicationinsights.internal.logger.InternalLogger;
+import com.microsoft.applicationinsights.internal.perfcounter.PerformanceCounter;
+import com.microsoft.applicationinsights.telemetry.MetricTelemetry;
+
+/**
+ * Reports the concurrency limit and the queue depth of an adaptive {@link ActiveTransmissionNetworkOutput}.
+ */
+final class SenderConcurrencyPerformanceCounter implements PerformanceCounter {
+    static final String CONCURRENCY_LIMIT_METRIC_NAME = "Sender Concurrency Limit";
+    static final String QUEUE_DEPTH_METRIC_NAME = "Sender Queue Depth";
+
+    private final ActiveTransmissionNetworkOutput output;
+    private final String id;
+
+    SenderConcurrencyPerformanceCounter(ActiveTransmissionNetworkOutput output, int instanceId) {
+        this.output = output;
+        this.id = SenderConcurrencyPerformanceCounter.class.getSimpleName() + "-" + instanceId;
+    }
+
+    @Override
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public void report(TelemetryClient telemetryClient) {
+        int concurrencyLimit = output.getConcurrencyLimit();
+        int queueDepth = output.getQueueDepth();
+        InternalLogger.INSTANCE.trace("Performance Counter: %s: %s, %s: %s", CONCURRENCY_LIMIT_METRIC_NAME, concurrencyLimit, QUEUE_DEPTH_METRIC_NAME, queueDepth);
+
+        telemetryClient.track(createMetric(CONCURRENCY_LIMIT_METRIC_NAME, concurrencyLimit));
+        telemetryClient.track(createMetric(QUEUE_DEPTH_METRIC_NAME, queueDepth));
+    }
+
+    private static MetricTelemetry createMetric(String name, double value) {
+        MetricTelemetry telemetry = new MetricTelemetry();
+        telemetry.markAsCustomPerfCounter();
+        telemetry.setName(name);
+        telemetry.setValue(value);
+        return telemetry;
+    }
+}
@@ -0,0 +1,103 @@
+/*
+ * ApplicationInsights-Java
+ * Copyright (c) Microsoft Corporation
+ * All rights reserved.
+ *
+ * MIT License
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the ""Software""), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package com.microsoft.applicationinsights.internal.channel.common;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import com.google.common.base.Preconditions;
+import com.microsoft.applicationinsights.internal.channel.TelemetriesTransmitter;
+import com.microsoft.applicationinsights.internal.util.LimitsEnforcer;
+
+/**
+ * A {@link TelemetryBuffer} that spreads incoming telemetries over a number of independent stripes.
+ *
+ * Every stripe is a regular buffer with its own lock, container and generation, so the scheduled
+ * 'pick-up' and the 'send now' behavior of each stripe is exactly the one of {@link TelemetryBuffer}.
+ * Application threads are mapped to a stripe by their thread id, which means that on machines with many
+ * cores the request threads are no longer serialized behind a single monitor.
+ *
+ * Note that every stripe batches up to 'maxTelemetriesInBatch' items, so the number of buffered
+ * telemetries may be up to 'stripes * maxTelemetriesInBatch'.
+ */
+public final class StripedTelemetryBuffer<T> extends TelemetryBuffer<T> {
+
+    /// The stripes other than this instance, which acts as the first stripe
+    private final List<TelemetryBuffer<T>> otherStripes;
+
+    private final int numberOfStripes;
+
+    /**
+     * @param sender The sender object for transmitting the telemetries
+     * @param maxTelemetriesInBatchEnforcer For getting the number of maximum number of telemetries in a batch within limits
+     * @param transmitBufferTimeoutInSecondsEnforcer For getting the number of transmit buffer timeout in seconds within limits
+     * @param numberOfStripes The number of stripes, must be a positive number
+     */
+    public StripedTelemetryBuffer(TelemetriesTransmitter<T> sender, LimitsEnforcer maxTelemetriesInBatchEnforcer, LimitsEnforcer transmitBufferTimeoutInSecondsEnforcer, int numberOfStripes) {
+        super(sender, maxTelemetriesInBatchEnforcer, transmitBufferTimeoutInSecondsEnforcer);
+        Preconditions.checkArgument(numberOfStripes > 0, "numberOfStripes must be a positive number");
+
+        this.numberOfStripes = numberOfStripes;
+        otherStripes = new ArrayList<TelemetryBuffer<T>>(numberOfStripes - 1);
+        for (int i = 1; i < numberOfStripes; ++i) {
+            otherStripes.add(new TelemetryBuffer<T>(sender, maxTelemetriesInBatchEnforcer, transmitBufferTimeoutInSecondsEnforcer));
+        }
+    }
+
+    public int getNumberOfStripes() {
+        return numberOfStripes;
+    }
+
+    @Override
+    public void setMaxTelemetriesInBatch(int value) {
+        super.setMaxTelemetriesInBatch(value);
+        for (TelemetryBuffer<T> stripe : otherStripes) {
+            stripe.setMaxTelemetriesInBatch(value);
+        }
+    }
+
+    @Override
+    public void setTransmitBufferTimeoutInSeconds(int value) {
+        super.setTransmitBufferTimeoutInSeconds(value);
+        for (TelemetryBuffer<T> stripe : otherStripes) {
+            stripe.setTransmitBufferTimeoutInSeconds(value);
+        }
+    }
+
+    @Override
+    public void add(T telemetry) {
+        int index = (int) (Thread.currentThread().getId() % numberOfStripes);
+        if (index == 0) {
+            super.add(telemetry);
+        } else {
+            otherStripes.get(index - 1).add(telemetry);
+        }
+    }
+
+    @Override
+    public void flush() {
+        super.flush();
+        for (TelemetryBuffer<T> stripe : otherStripes) {
+            stripe.flush();
+        }
+    }
+}
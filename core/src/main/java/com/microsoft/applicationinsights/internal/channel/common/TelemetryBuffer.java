@@ -124,12 +124,14 @@ public class TelemetryBuffer<T> {
      * @param value The max amount of Telemetries that are allowed in a batch.
      */
     public void setMaxTelemetriesInBatch(int value) {
+        boolean shouldFlush;
         synchronized (lock) {
             maxTelemetriesInBatch = maxTelemetriesInBatchEnforcer.normalizeValue(value);
-            if (telemetries != null && maxTelemetriesInBatch < telemetries.size()) {
-                // Request for smaller buffers, we flush if our buffer contains more elements
-                flush();
-            }
+            // Request for smaller buffers, we flush if our buffer contains more elements
+            shouldFlush = telemetries != null && maxTelemetriesInBatch < telemetries.size();
+        }
+        if (shouldFlush) {
+            flush();
         }
     }
 
@@ -146,13 +148,15 @@ public class TelemetryBuffer<T> {
      * @param value The amount of time to wait before sending the buffer.
      */
     public void setTransmitBufferTimeoutInSeconds(int value) {
+        boolean shouldFlush;
         synchronized (lock) {
             int oldValue = transmitBufferTimeoutInSeconds;
             transmitBufferTimeoutInSeconds = this.transmitBufferTimeoutInSecondsEnforcer.normalizeValue(value);
             // Request for quicker flushes, we flush if the previous timeout is bigger
-            if (transmitBufferTimeoutInSeconds < oldValue) {
-                flush();
-            }
+            shouldFlush = transmitBufferTimeoutInSeconds < oldValue;
+        }
+        if (shouldFlush) {
+            flush();
         }
     }
 
@@ -177,17 +181,14 @@ public class TelemetryBuffer<T> {
     public void add(T telemetry) {
         Preconditions.checkNotNull(telemetry, "Telemetry must be non null value");
 
+        List<T> readyToBeSent = null;
         synchronized (lock) {
             telemetries.add(telemetry);
 
             int currentSize = telemetries.size();
 
             if (currentSize >= maxTelemetriesInBatch) {
-                if (!sender.sendNow(prepareTelemetriesForSend())) {
-                    // 'prepareTelemetriesForSend' already created a new container
-                    // so basically we have nothing to do, the old container is lost
-                    InternalLogger.INSTANCE.error("Failed to send buffer data to network");
-                }
+                readyToBeSent = prepareTelemetriesForSend();
             } else if (currentSize == 1) {
                 if (!sender.scheduleSend(new TelemetryBufferTelemetriesFetcher(generation), transmitBufferTimeoutInSeconds, TimeUnit.SECONDS)) {
                     // We cannot schedule send so we give up the Telemetry
@@ -198,18 +199,31 @@ public class TelemetryBuffer<T> {
                 }
             }
         }
+
+        // The full container was already detached from the buffer, so it is handed to the sender
+        // outside of the lock to let other threads keep adding to the new container
+        if (readyToBeSent != null && !sender.sendNow(readyToBeSent)) {
+            // 'prepareTelemetriesForSend' already created a new container
+            // so basically we have nothing to do, the old container is lost
+            InternalLogger.INSTANCE.error("Failed to send buffer data to network");
+        }
     }
 
     /**
      * The method will flush the telemetries currently in the buffer to the {@link com.microsoft.applicationinsights.internal.channel.TelemetriesTransmitter}
      */
     public void flush() {
+        List<T> readyToBeSent;
         synchronized (lock) {
-            if (telemetries.size() != 0) {
-                if (!sender.sendNow(prepareTelemetriesForSend())) {
-                    InternalLogger.INSTANCE.error("Failed to flush buffer data to network");
-                }
+            if (telemetries.size() == 0) {
+                return;
             }
+            readyToBeSent = prepareTelemetriesForSend();
+        }
+
+        // As in 'add', the sender might block (for example when overloaded) so it is called outside of the lock
+        if (!sender.sendNow(readyToBeSent)) {
+            InternalLogger.INSTANCE.error("Failed to flush buffer data to network");
         }
     }
 
@@ -0,0 +1,98 @@
+/*
+ * ApplicationInsights-Java
+ * Copyright (c) Microsoft Corporation
+ * All rights reserved.
+ *
+ * MIT License
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the ""Software""), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package com.microsoft.applicationinsights.internal.channel.common;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * A growable byte container that holds one serialized telemetry item encoded as UTF-8.
+ *
+ * Instances are taken from a {@link TelemetryByteBufferPool} by the channel, filled by a
+ * {@link Utf8TelemetryWriter} and released back to the pool once the compression stage has
+ * written their content, so the byte arrays are reused between items instead of being garbage.
+ */
+public final class TelemetryByteBuffer {
+    private final TelemetryByteBufferPool pool;
+
+    private byte[] bytes;
+
+    private int size;
+
+    TelemetryByteBuffer(TelemetryByteBufferPool pool, int initialCapacity) {
+        Preconditions.checkArgument(initialCapacity > 0, "initialCapacity must be a positive number");
+
+        this.pool = pool;
+        this.bytes = new byte[initialCapacity];
+        this.size = 0;
+    }
+
+    public void write(int b) {
+        ensureCapacity(size + 1);
+        bytes[size++] = (byte) b;
+    }
+
+    public void write(byte[] source, int offset, int length) {
+        ensureCapacity(size + length);
+        System.arraycopy(source, offset, bytes, size, length);
+        size += length;
+    }
+
+    /**
+     * Writes the content of the buffer to the stream without copying it.
+     * @param out The stream to write to
+     * @throws IOException If the stream fails
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        out.write(bytes, 0, size);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public int capacity() {
+        return bytes.length;
+    }
+
+    /**
+     * Returns the buffer to the pool it was taken from. The buffer must not be used after that call.
+     */
+    public void release() {
+        if (pool != null) {
+            pool.release(this);
+        }
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    private void ensureCapacity(int requiredCapacity) {
+        if (requiredCapacity > bytes.length) {
+            bytes = Arrays.copyOf(bytes, Math.max(requiredCapacity, bytes.length << 1));
+        }
+    }
+}
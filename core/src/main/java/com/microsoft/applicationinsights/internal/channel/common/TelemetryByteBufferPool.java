@@ -0,0 +1,87 @@
+/*
+ * ApplicationInsights-Java
+ * Copyright (c) Microsoft Corporation
+ * All rights reserved.
+ *
+ * MIT License
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the ""Software""), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package com.microsoft.applicationinsights.internal.channel.common;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * A bounded pool of {@link TelemetryByteBuffer} instances.
+ *
+ * The pool never blocks: when it is empty a new buffer is created, and when it is full, or when a
+ * buffer grew beyond the retained capacity, the released buffer is simply left to the garbage collector.
+ */
+public final class TelemetryByteBufferPool {
+    public static final int DEFAULT_INITIAL_BUFFER_CAPACITY = 1024;
+
+    /// Enough to hold two full batches of the maximum telemetry buffer capacity
+    public static final int DEFAULT_MAX_POOLED_BUFFERS = 2000;
+
+    public static final int DEFAULT_MAX_RETAINED_BUFFER_CAPACITY = 64 * 1024;
+
+    private final BlockingQueue<TelemetryByteBuffer> buffers;
+
+    private final int initialBufferCapacity;
+
+    private final int maxRetainedBufferCapacity;
+
+    public TelemetryByteBufferPool() {
+        this(DEFAULT_MAX_POOLED_BUFFERS, DEFAULT_INITIAL_BUFFER_CAPACITY, DEFAULT_MAX_RETAINED_BUFFER_CAPACITY);
+    }
+
+    public TelemetryByteBufferPool(int maxPooledBuffers, int initialBufferCapacity, int maxRetainedBufferCapacity) {
+        Preconditions.checkArgument(maxPooledBuffers > 0, "maxPooledBuffers must be a positive number");
+        Preconditions.checkArgument(initialBufferCapacity > 0, "initialBufferCapacity must be a positive number");
+        Preconditions.checkArgument(maxRetainedBufferCapacity >= initialBufferCapacity, "maxRetainedBufferCapacity must not be smaller than initialBufferCapacity");
+
+        this.buffers = new ArrayBlockingQueue<TelemetryByteBuffer>(maxPooledBuffers);
+        this.initialBufferCapacity = initialBufferCapacity;
+        this.maxRetainedBufferCapacity = maxRetainedBufferCapacity;
+    }
+
+    /**
+     * @return An empty buffer, either a pooled one or a new one if the pool is empty
+     */
+    public TelemetryByteBuffer acquire() {
+        TelemetryByteBuffer buffer = buffers.poll();
+        if (buffer == null) {
+            buffer = new TelemetryByteBuffer(this, initialBufferCapacity);
+        }
+
+        return buffer;
+    }
+
+    public int getNumberOfPooledBuffers() {
+        return buffers.size();
+    }
+
+    void release(TelemetryByteBuffer buffer) {
+        if (buffer.capacity() > maxRetainedBufferCapacity) {
+            return;
+        }
+
+        buffer.clear();
+        buffers.offer(buffer);
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ * ApplicationInsights-Java
+ * Copyright (c) Microsoft Corporation
+ * All rights reserved.
+ *
+ * MIT License
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the ""Software""), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package com.microsoft.applicationinsights.internal.channel.common;
+
+import java.io.BufferedInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InvalidClassException;
+import java.io.ObjectInputStream;
+import java.io.ObjectStreamClass;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * The on-disk format of the {@link Transmission}s saved by {@link TransmissionFileSystemOutput},
+ * also used for the records appended to the segments of {@link SegmentedTransmissionLog}.
+ *
+ * The format is a fixed header followed by the raw payload, all written in big endian:
+ * <pre>
+ *     magic (int) | format version (byte) | transmission version (int) | number of sends (int) |
+ *     number of persistence (int) | content type (short length + UTF-8) | encoding type (short length + UTF-8) |
+ *     payload length (int) | payload
+ * </pre>
+ *
+ * Files written by older versions of the SDK hold a Java serialized {@link Transmission}. They are still
+ * read, through an {@link ObjectInputStream} that only resolves the classes a Transmission is made of,
+ * and are saved in the current format the next time they are persisted.
+ */
+final class TransmissionFileFormat {
+    static final int MAGIC = 0x41495452; // "AITR"
+    static final byte FORMAT_VERSION = 1;
+
+    /// The first two bytes of every Java serialization stream
+    private static final short JAVA_SERIALIZATION_MAGIC = (short) 0xACED;
+
+    /// The header fields up to and including the length of the content type
+    private static final int HEADER_PREFIX_SIZE = 4 + 1 + 4 + 4 + 4 + 2;
+
+    /// The length of the encoding type and the length of the payload
+    private static final int HEADER_SUFFIX_SIZE = 2 + 4;
+
+    private TransmissionFileFormat() {
+    }
+
+    static void write(File file, Transmission transmission) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            write(channel, transmission);
+        }
+    }
+
+    /**
+     * Writes the transmission as one record at the current position of the channel.
+     * @return The number of bytes written
+     */
+    static long write(FileChannel channel, Transmission transmission) throws IOException {
+        byte[] contentType = transmission.getWebContentType().getBytes(StandardCharsets.UTF_8);
+        byte[] encodingType = transmission.getWebContentEncodingType().getBytes(StandardCharsets.UTF_8);
+        byte[] content = transmission.getContent();
+
+        ByteBuffer header = ByteBuffer.allocate(HEADER_PREFIX_SIZE + contentType.length + HEADER_SUFFIX_SIZE + encodingType.length);
+        header.putInt(MAGIC);
+        header.put(FORMAT_VERSION);
+        header.putInt(transmission.getVersion());
+        header.putInt(transmission.getNumberOfSends());
+        header.putInt(transmission.getNumberOfPersistence());
+        header.putShort((short) contentType.length);
+        header.put(contentType);
+        header.putShort((short) encodingType.length);
+        header.put(encodingType);
+        header.putInt(content.length);
+        header.flip();
+
+        long recordSize = header.remaining() + content.length;
+        ByteBuffer[] buffers = {header, ByteBuffer.wrap(content)};
+        while (buffers[1].hasRemaining()) {
+            channel.write(buffers);
+        }
+        return recordSize;
+    }
+
+    static Transmission read(File file) throws IOException {
+        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+            ByteBuffer magic = ByteBuffer.allocate(4);
+            readFully(channel, magic, 4);
+            if (magic.getInt(0) != MAGIC) {
+                if (magic.getShort(0) == JAVA_SERIALIZATION_MAGIC) {
+                    channel.position(0);
+                    return readLegacy(Channels.newInputStream(channel));
+                }
+                throw new IOException("Unknown transmission file format");
+            }
+
+            channel.position(0);
+            return read(channel);
+        }
+    }
+
+    /**
+     * Reads one record from the current position of the channel, leaving the channel positioned after it.
+     */
+    static Transmission read(FileChannel channel) throws IOException {
+        RecordHeader header = readHeader(channel);
+
+        byte[] content = new byte[header.contentLength];
+        readFully(channel, ByteBuffer.wrap(content), header.contentLength);
+
+        Transmission transmission = new Transmission(content, header.contentType, header.encodingType, header.version);
+        transmission.setNumberOfSends(header.numberOfSends);
+        transmission.setNumberOfPersistence(header.numberOfPersistence);
+        return transmission;
+    }
+
+    /**
+     * Validates the record at the current position of the channel and moves the channel past it.
+     */
+    static void skip(FileChannel channel) throws IOException {
+        RecordHeader header = readHeader(channel);
+        channel.position(channel.position() + header.contentLength);
+    }
+
+    private static RecordHeader readHeader(FileChannel channel) throws IOException {
+        ByteBuffer prefix = ByteBuffer.allocate(HEADER_PREFIX_SIZE);
+        readFully(channel, prefix, HEADER_PREFIX_SIZE);
+        prefix.flip();
+        if (prefix.getInt() != MAGIC) {
+            throw new IOException("Unknown transmission file format");
+        }
+        byte formatVersion = prefix.get();
+        if (formatVersion != FORMAT_VERSION) {
+            throw new IOException("Unsupported transmission file format version " + formatVersion);
+        }
+
+        RecordHeader header = new RecordHeader();
+        header.version = prefix.getInt();
+        header.numberOfSends = prefix.getInt();
+        header.numberOfPersistence = prefix.getInt();
+        header.contentType = readString(channel, prefix.getShort());
+        header.encodingType = readString(channel, readShort(channel));
+        header.contentLength = readInt(channel);
+        if (header.contentLength < 0 || header.contentLength > channel.size() - channel.position()) {
+            throw new IOException("Corrupted transmission file, bad payload length " + header.contentLength);
+        }
+        return header;
+    }
+
+    private static Transmission readLegacy(InputStream in) throws IOException {
+        try (ObjectInputStream input = new TransmissionObjectInputStream(new BufferedInputStream(in))) {
+            return (Transmission) input.readObject();
+        } catch (ClassNotFoundException e) {
+            throw new IOException("Failed to read legacy transmission file", e);
+        }
+    }
+
+    private static String readString(FileChannel channel, short length) throws IOException {
+        if (length < 0) {
+            throw new IOException("Corrupted transmission file, negative string length");
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(length);
+        readFully(channel, buffer, length);
+        return new String(buffer.array(), StandardCharsets.UTF_8);
+    }
+
+    private static short readShort(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(2);
+        readFully(channel, buffer, 2);
+        return buffer.getShort(0);
+    }
+
+    private static int readInt(FileChannel channel) throws IOException {
+        ByteBuffer buffer = ByteBuffer.allocate(4);
+        readFully(channel, buffer, 4);
+        return buffer.getInt(0);
+    }
+
+    private static void readFully(FileChannel channel, ByteBuffer buffer, int length) throws IOException {
+        int limit = buffer.position() + length;
+        buffer.limit(limit);
+        while (buffer.position() < limit) {
+            if (channel.read(buffer) < 0) {
+                throw new IOException("Unexpected end of transmission file");
+            }
+        }
+    }
+
+    private static final class RecordHeader {
+        int version;
+        int numberOfSends;
+        int numberOfPersistence;
+        String contentType;
+        String encodingType;
+        int contentLength;
+    }
+
+    /**
+     * Only lets the classes that make a {@link Transmission} be deserialized.
+     */
+    private static final class TransmissionObjectInputStream extends ObjectInputStream {
+        private TransmissionObjectInputStream(InputStream in) throws IOException {
+            super(in);
+        }
+
+        @Override
+        protected Class<?> resolveClass(ObjectStreamClass desc) throws IOException, ClassNotFoundException {
+            String name = desc.getName();
+            if (!Transmission.class.getName().equals(name) && !byte[].class.getName().equals(name)) {
+                throw new InvalidClassException(name, "Unexpected class in transmission file");
+            }
+            return super.resolveClass(desc);
+        }
+    }
+}
@@ -22,18 +22,9 @@
 package com.microsoft.applicationinsights.internal.channel.common;
 
 import java.io.File;
-import java.io.InputStream;
-import java.io.ObjectInput;
-import java.io.FileInputStream;
-import java.io.BufferedInputStream;
-import java.io.ObjectInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.FileOutputStream;
-import java.io.OutputStream;
-import java.io.BufferedOutputStream;
-import java.io.ObjectOutput;
-import java.io.ObjectOutputStream;
+import java.nio.file.NoSuchFileException;
 
 import java.util.ArrayList;
 import java.util.HashSet;
@@ -44,7 +35,7 @@ import java.util.Comparator;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
-import com.microsoft.applicationinsights.internal.channel.TransmissionOutput;
+import com.microsoft.applicationinsights.internal.channel.TransmissionStorage;
 import com.microsoft.applicationinsights.internal.logger.InternalLogger;
 
 import com.microsoft.applicationinsights.internal.util.LimitsEnforcer;
@@ -63,25 +54,25 @@ import org.apache.commons.lang3.exception.ExceptionUtils;
  * The class works on a pre-defined folder and should know the size of disk it can use.
  *
  * With that data it knows how to store incoming Transmissions and store them into files that can be later
- * be read back into Transmissions.
+ * be read back into Transmissions. The format of the files is described in {@link TransmissionFileFormat}.
  *
  * Created by gupele on 12/18/2014.
  */
-public final class TransmissionFileSystemOutput implements TransmissionOutput {
+public final class TransmissionFileSystemOutput implements TransmissionStorage {
     private final static String TRANSMISSION_FILE_PREFIX = "Transmission";
-    private final static String TRANSMISSION_DEFAULT_FOLDER = "transmissions";
+    final static String TRANSMISSION_DEFAULT_FOLDER = "transmissions";
     private final static String TEMP_FILE_EXTENSION = ".tmp";
     private final static String TRANSMISSION_FILE_EXTENSION = ".trn";
-    private final static String TRANSMISSION_FILE_EXTENSION_FOR_SEARCH = "trn";
+    final static String TRANSMISSION_FILE_EXTENSION_FOR_SEARCH = "trn";
     private final static int NUMBER_OF_FILES_TO_CACHE = 128;
 
     private final static int MAX_RETRY_FOR_DELETE = 2;
     private final static int DELETE_TIMEOUT_ON_FAILURE_IN_MILLS = 100;
 
     public final static int DEFAULT_CAPACITY_MEGABYTES = 10;
-    private final static int MAX_CAPACITY_MEGABYTES = 1000;
-    private final static int MIN_CAPACITY_MEGABYTES = 1;
-    private static final String MAX_TRANSMISSION_STORAGE_CAPACITY_NAME = "Channel.MaxTransmissionStorageCapacityInMB";
+    final static int MAX_CAPACITY_MEGABYTES = 1000;
+    final static int MIN_CAPACITY_MEGABYTES = 1;
+    static final String MAX_TRANSMISSION_STORAGE_CAPACITY_NAME = "Channel.MaxTransmissionStorageCapacityInMB";
 
 
     /// The folder in which we save transmission files
@@ -166,6 +157,11 @@ public final class TransmissionFileSystemOutput implements TransmissionOutput {
     public void stop(long timeout, TimeUnit timeUnit) {
     }
 
+    @Override
+    public Transmission fetchOldest() {
+        return fetchOldestFile();
+    }
+
     public Transmission fetchOldestFile() {
         try {
             Optional<File> oldestFile = fetchOldestFromCache();
@@ -245,19 +241,16 @@ public final class TransmissionFileSystemOutput implements TransmissionOutput {
         return asList;
     }
 
-    @SuppressWarnings("lgtm[java/input-resource-leak]") // All the streams close their delegates.
     private Optional<Transmission> loadTransmission(File file) {
         Transmission transmission = null;
 
         if (file == null) {
             return Optional.absent();
         }
-        try (ObjectInput input = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)))) {
-            transmission = (Transmission)input.readObject();
-        } catch (FileNotFoundException e) {
+        try {
+            transmission = TransmissionFileFormat.read(file);
+        } catch (FileNotFoundException | NoSuchFileException e) {
             InternalLogger.INSTANCE.error("Failed to load transmission, file not found, exception: %s", e.toString());
-        } catch (ClassNotFoundException e) {
-            InternalLogger.INSTANCE.error("Failed to load transmission, non transmission, exception: %s", e.toString());
         } catch (IOException e) {
             InternalLogger.INSTANCE.error("Failed to load transmission, io exception: %s", e.toString());
         }
@@ -294,10 +287,9 @@ public final class TransmissionFileSystemOutput implements TransmissionOutput {
         return Optional.fromNullable(transmissionFile);
     }
 
-    @SuppressWarnings("lgtm[java/input-resource-leak]") // All the streams close their delegates.
     private boolean saveTransmission(File transmissionFile, Transmission transmission) {
-        try (ObjectOutput output = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(transmissionFile)))) {
-            output.writeObject(transmission);
+        try {
+            TransmissionFileFormat.write(transmissionFile, transmission);
             return true;
         } catch (IOException e) {
             InternalLogger.INSTANCE.error("Failed to save transmission, exception: %s", e.toString());
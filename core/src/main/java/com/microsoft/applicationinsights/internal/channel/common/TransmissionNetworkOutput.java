@@ -55,7 +55,7 @@ import java.util.concurrent.TimeUnit;
 public final class TransmissionNetworkOutput implements TransmissionOutput {
     private static final String CONTENT_TYPE_HEADER = "Content-Type";
     private static final String CONTENT_ENCODING_HEADER = "Content-Encoding";
-    private static final String RESPONSE_THROTTLING_HEADER = "Retry-After";
+    static final String RESPONSE_THROTTLING_HEADER = "Retry-After";
 
     public static final String DEFAULT_SERVER_URI = "https://dc.services.visualstudio.com/v2/track";
 
@@ -222,21 +222,7 @@ public final class TransmissionNetworkOutput implements TransmissionOutput {
                 }
                 httpClient.dispose(response);
 
-                if (code == HttpStatus.SC_BAD_REQUEST) {
-                    InternalLogger.INSTANCE.error("Error sending data: %s", reason);
-                } else if (code != HttpStatus.SC_OK) {
-                    // Invoke the listeners for handling things like errors
-                    // The listeners will handle the back off logic as well as the dispatch
-                    // operation
-                    TransmissionHandlerArgs args = new TransmissionHandlerArgs();
-                    args.setTransmission(transmission);
-                    args.setTransmissionDispatcher(transmissionDispatcher);
-                    args.setResponseBody(respString);
-                    args.setResponseCode(code);
-                    args.setException(ex);
-                    args.setRetryHeader(retryAfterHeader);
-                    this.transmissionPolicyManager.onTransmissionSent(args);
-                }
+                onTransmissionSent(transmissionPolicyManager, transmissionDispatcher, transmission, code, reason, respString, ex, retryAfterHeader);
             }
         }
         // If we end up here we've hit an error code we do not expect (403, 401, 400,
@@ -246,14 +232,42 @@ public final class TransmissionNetworkOutput implements TransmissionOutput {
         return true;
     }
 
+    /**
+     * Invokes the transmission handlers when the transmission was not accepted by the endpoint.
+     * The handlers will handle the back off logic as well as the dispatch operation.
+     */
+    static void onTransmissionSent(TransmissionPolicyManager transmissionPolicyManager, TransmissionDispatcher transmissionDispatcher,
+                                   Transmission transmission, int code, String reason, String respString, Throwable ex, Header retryAfterHeader) {
+        if (code == HttpStatus.SC_BAD_REQUEST) {
+            InternalLogger.INSTANCE.error("Error sending data: %s", reason);
+        } else if (code != HttpStatus.SC_OK) {
+            // Invoke the listeners for handling things like errors
+            // The listeners will handle the back off logic as well as the dispatch
+            // operation
+            TransmissionHandlerArgs args = new TransmissionHandlerArgs();
+            args.setTransmission(transmission);
+            args.setTransmissionDispatcher(transmissionDispatcher);
+            args.setResponseBody(respString);
+            args.setResponseCode(code);
+            args.setException(ex);
+            args.setRetryHeader(retryAfterHeader);
+            transmissionPolicyManager.onTransmissionSent(args);
+        }
+    }
+
+    private HttpPost createTransmissionPostRequest(Transmission transmission) {
+        return createTransmissionPostRequest(getIngestionEndpoint(), transmission);
+    }
+
     /**
      * Generates the HTTP POST to send to the endpoint.
      *
+     * @param endpoint The endpoint to send the transmission to.
      * @param transmission The transmission to send.
      * @return The completed {@link HttpPost} object
      */
-    private HttpPost createTransmissionPostRequest(Transmission transmission) {
-        HttpPost request = new HttpPost(getIngestionEndpoint());
+    static HttpPost createTransmissionPostRequest(String endpoint, Transmission transmission) {
+        HttpPost request = new HttpPost(endpoint);
         request.addHeader(CONTENT_TYPE_HEADER, transmission.getWebContentType());
         request.addHeader(CONTENT_ENCODING_HEADER, transmission.getWebContentEncodingType());
 
@@ -25,7 +25,6 @@ import java.util.ArrayList;
 import java.util.Calendar;
 import java.util.Date;
 import java.util.List;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicLong;
@@ -37,7 +36,8 @@ import com.microsoft.applicationinsights.internal.channel.TransmissionHandlerObs
 import com.microsoft.applicationinsights.internal.logger.InternalLogger;
 import com.microsoft.applicationinsights.internal.shutdown.SDKShutdownActivity;
 import com.microsoft.applicationinsights.internal.shutdown.Stoppable;
-import com.microsoft.applicationinsights.internal.util.ThreadPoolUtils;
+import com.microsoft.applicationinsights.internal.util.SDKScheduler;
+import com.microsoft.applicationinsights.internal.util.TaskGroup;
 
 /**
  * This class is responsible for managing the transmission state.
@@ -68,8 +68,8 @@ public final class TransmissionPolicyManager implements Stoppable, TransmissionH
     // Make sure that we don't double block, we do that by keeping un up-to-date generation id
     private AtomicLong generation = new AtomicLong(0);
 
-    // A thread that will callback when the timeout expires
-    private ScheduledThreadPoolExecutor threads;
+    // Calls back when the timeout expires
+    private TaskGroup threads;
 
     // Keeps the current policy state of the transmission
     private final TransmissionPolicyState policyState = new TransmissionPolicyState();
@@ -155,7 +155,9 @@ public final class TransmissionPolicyManager implements Stoppable, TransmissionH
      */
     @Override
     public synchronized void stop(long timeout, TimeUnit timeUnit) {
-        ThreadPoolUtils.stop(threads, timeout, timeUnit);
+        if (threads != null) {
+            threads.stop(timeout, timeUnit);
+        }
         this.backoffManager.remove();
     }
 
@@ -216,8 +218,7 @@ public final class TransmissionPolicyManager implements Stoppable, TransmissionH
             return;
         }
 
-        threads = new ScheduledThreadPoolExecutor(1);
-        threads.setThreadFactory(ThreadPoolUtils.createDaemonThreadFactory(TransmissionPolicyManager.class, instanceId));
+        threads = SDKScheduler.INSTANCE.createTaskGroup(TransmissionPolicyManager.class.getSimpleName() + "_" + instanceId, 1, 0);
 
         SDKShutdownActivity.INSTANCE.register(this);
     }
@@ -22,18 +22,30 @@
 package com.microsoft.applicationinsights.internal.channel.common;
 
 import java.util.Collection;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ConcurrentLinkedDeque;
 import java.util.concurrent.Semaphore;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
 
+import com.microsoft.applicationinsights.internal.channel.BatchingTelemetrySerializer;
+import com.microsoft.applicationinsights.internal.channel.OverloadAwareTelemetriesTransmitter;
 import com.microsoft.applicationinsights.internal.channel.TelemetriesTransmitter;
 import com.microsoft.applicationinsights.internal.channel.TelemetrySerializer;
 import com.microsoft.applicationinsights.internal.channel.TransmissionDispatcher;
 import com.microsoft.applicationinsights.internal.channel.TransmissionsLoader;
+import com.microsoft.applicationinsights.internal.channel.samplingV2.SamplingScoreGeneratorV2;
 import com.microsoft.applicationinsights.internal.logger.InternalLogger;
-import com.microsoft.applicationinsights.internal.util.ThreadPoolUtils;
+import com.microsoft.applicationinsights.internal.perfcounter.PerformanceCounterContainer;
+import com.microsoft.applicationinsights.internal.util.SDKScheduler;
+import com.microsoft.applicationinsights.internal.util.TaskGroup;
+import com.microsoft.applicationinsights.telemetry.ExceptionTelemetry;
+import com.microsoft.applicationinsights.telemetry.MetricTelemetry;
+import com.microsoft.applicationinsights.telemetry.PerformanceCounterTelemetry;
+import com.microsoft.applicationinsights.telemetry.RemoteDependencyTelemetry;
+import com.microsoft.applicationinsights.telemetry.RequestTelemetry;
+import com.microsoft.applicationinsights.telemetry.SupportSampling;
+import com.microsoft.applicationinsights.telemetry.Telemetry;
+import com.microsoft.applicationinsights.telemetry.TraceTelemetry;
 
 import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
@@ -48,15 +60,20 @@ import org.apache.commons.lang3.exception.ExceptionUtils;
  * The class makes sure that the container of telemetries is sent using internal threads
  * and not the 'application' threads
  *
+ * When too many containers are waiting to be sent, the {@link OverloadPolicy} decides which telemetries
+ * are dropped, and the dropped telemetries are counted per reason and reported as performance counters.
+ *
  * Created by gupele on 12/18/2014.
+ *
+ * @param <T> The type of the already serialized telemetry items
  */
-public final class TransmitterImpl implements TelemetriesTransmitter<String> {
-    private static abstract class SendHandler {
+public final class TransmitterImpl<T> implements OverloadAwareTelemetriesTransmitter<T> {
+    private static abstract class SendHandler<T> {
         protected final TransmissionDispatcher transmissionDispatcher;
 
-        protected final TelemetrySerializer serializer;
+        protected final TelemetrySerializer<T> serializer;
 
-        protected SendHandler(TransmissionDispatcher transmissionDispatcher, TelemetrySerializer serializer) {
+        protected SendHandler(TransmissionDispatcher transmissionDispatcher, TelemetrySerializer<T> serializer) {
             Preconditions.checkNotNull(transmissionDispatcher, "transmissionDispatcher should be a non-null value");
             Preconditions.checkNotNull(serializer, "serializer should be a non-null value");
 
@@ -64,11 +81,18 @@ public final class TransmitterImpl implements TelemetriesTransmitter<String> {
             this.serializer = serializer;
         }
 
-        protected void dispatch(Collection<String> telemetries) {
+        protected void dispatch(Collection<T> telemetries) {
             if (telemetries.isEmpty()) {
                 return;
             }
 
+            if (serializer instanceof BatchingTelemetrySerializer) {
+                for (Transmission transmission : ((BatchingTelemetrySerializer<T>) serializer).serializeBatches(telemetries)) {
+                    transmissionDispatcher.dispatch(transmission);
+                }
+                return;
+            }
+
             Optional<Transmission> transmission = serializer.serialize(telemetries);
             if (!transmission.isPresent()) {
                 return;
@@ -78,10 +102,10 @@ public final class TransmitterImpl implements TelemetriesTransmitter<String> {
         }
     }
 
-    private static final class ScheduledSendHandler extends SendHandler implements Runnable {
-        private final TelemetriesFetcher<String> telemetriesFetcher;
+    private static final class ScheduledSendHandler<T> extends SendHandler<T> implements Runnable {
+        private final TelemetriesFetcher<T> telemetriesFetcher;
 
-        public ScheduledSendHandler(TransmissionDispatcher transmissionDispatcher, TelemetriesFetcher<String> telemetriesFetcher, TelemetrySerializer serializer) {
+        public ScheduledSendHandler(TransmissionDispatcher transmissionDispatcher, TelemetriesFetcher<T> telemetriesFetcher, TelemetrySerializer<T> serializer) {
             super(transmissionDispatcher,  serializer);
 
             Preconditions.checkNotNull(telemetriesFetcher, "telemetriesFetcher should be a non-null value");
@@ -91,62 +115,113 @@ public final class TransmitterImpl implements TelemetriesTransmitter<String> {
 
         @Override
         public void run() {
-            Collection<String> telemetriesToSend = telemetriesFetcher.fetch();
+            Collection<T> telemetriesToSend = telemetriesFetcher.fetch();
             dispatch(telemetriesToSend);
         }
     }
 
-    private static final class SendNowHandler extends SendHandler implements Runnable {
-        private final Collection<String> telemetries;
+    private static final class SendNowHandler<T> extends SendHandler<T> implements Runnable {
+        private final ConcurrentLinkedDeque<Collection<T>> pendingTelemetries;
 
-        public SendNowHandler(TransmissionDispatcher transmissionDispatcher, TelemetrySerializer serializer, Collection<String> telemetries) {
+        public SendNowHandler(TransmissionDispatcher transmissionDispatcher, TelemetrySerializer<T> serializer, ConcurrentLinkedDeque<Collection<T>> pendingTelemetries) {
             super(transmissionDispatcher,  serializer);
 
-            Preconditions.checkNotNull(telemetries, "telemetries should be non-null value");
+            Preconditions.checkNotNull(pendingTelemetries, "pendingTelemetries should be non-null value");
 
-            this.telemetries = telemetries;
+            this.pendingTelemetries = pendingTelemetries;
         }
 
         @Override
         public void run() {
-            dispatch(telemetries);
+            // Every handler sends the oldest pending container, which might already have been evicted
+            Collection<T> telemetries = pendingTelemetries.pollFirst();
+            if (telemetries != null) {
+                dispatch(telemetries);
+            }
         }
     }
 
     private static final int MAX_PENDING_SCHEDULE_REQUESTS = 16384;
 
+    private static final int MAX_CONCURRENT_SENDS = 2;
+
+    public static final int DEFAULT_OVERLOAD_SAMPLING_PERCENTAGE = 10;
+
     private static final AtomicInteger INSTANCE_ID_POOL = new AtomicInteger(1);
 
     private final TransmissionDispatcher transmissionDispatcher;
 
-    private final TelemetrySerializer serializer;
+    private final TelemetrySerializer<T> serializer;
 
-    private final ScheduledExecutorService threadPool;
+    private final TaskGroup sendTasks;
 
     private final TransmissionsLoader transmissionsLoader;
 
     private final Semaphore semaphore;
 
+    private final int maxPendingRequests;
+
+    /// The containers passed to 'sendNow' that are waiting for a thread, oldest first
+    private final ConcurrentLinkedDeque<Collection<T>> pendingTelemetries = new ConcurrentLinkedDeque<Collection<T>>();
+
+    private final OverloadPolicy overloadPolicy;
+
+    private final long blockTimeoutInMillis;
+
+    private final double overloadSamplingPercentage;
+
+    private final DroppedTelemetryCounters droppedTelemetryCounters = new DroppedTelemetryCounters();
+
+    private final DroppedTelemetryPerformanceCounter droppedTelemetryPerformanceCounter;
+
     private final int instanceId = INSTANCE_ID_POOL.getAndIncrement();
 
-    public TransmitterImpl(TransmissionDispatcher transmissionDispatcher, TelemetrySerializer serializer, TransmissionsLoader transmissionsLoader) {
+    public TransmitterImpl(TransmissionDispatcher transmissionDispatcher, TelemetrySerializer<T> serializer, TransmissionsLoader transmissionsLoader) {
+        this(transmissionDispatcher, serializer, transmissionsLoader, OverloadPolicy.DROP_NEWEST, 0, DEFAULT_OVERLOAD_SAMPLING_PERCENTAGE, MAX_PENDING_SCHEDULE_REQUESTS);
+    }
+
+    /**
+     * Creates a transmitter with an explicit overload policy.
+     *
+     * @param overloadPolicy What to do when too many containers are waiting to be sent.
+     * @param blockTimeoutInMillis How long {@link OverloadPolicy#BLOCK} lets the calling thread wait for room.
+     * @param overloadSamplingPercentage The percentage of telemetries {@link OverloadPolicy#SAMPLE} keeps while overloaded.
+     */
+    public TransmitterImpl(TransmissionDispatcher transmissionDispatcher, TelemetrySerializer<T> serializer, TransmissionsLoader transmissionsLoader,
+                           OverloadPolicy overloadPolicy, long blockTimeoutInMillis, int overloadSamplingPercentage) {
+        this(transmissionDispatcher, serializer, transmissionsLoader, overloadPolicy, blockTimeoutInMillis, overloadSamplingPercentage, MAX_PENDING_SCHEDULE_REQUESTS);
+    }
+
+    TransmitterImpl(TransmissionDispatcher transmissionDispatcher, TelemetrySerializer<T> serializer, TransmissionsLoader transmissionsLoader,
+                    OverloadPolicy overloadPolicy, long blockTimeoutInMillis, int overloadSamplingPercentage, int maxPendingRequests) {
         Preconditions.checkNotNull(transmissionDispatcher, "transmissionDispatcher must be non-null value");
         Preconditions.checkNotNull(serializer, "serializer must be non-null value");
         Preconditions.checkNotNull(transmissionsLoader, "transmissionsLoader must be non-null value");
+        Preconditions.checkNotNull(overloadPolicy, "overloadPolicy must be non-null value");
+        Preconditions.checkArgument(blockTimeoutInMillis >= 0, "blockTimeoutInMillis must not be negative");
+        Preconditions.checkArgument(overloadSamplingPercentage > 0 && overloadSamplingPercentage <= 100, "overloadSamplingPercentage must be between 1 and 100");
+        Preconditions.checkArgument(maxPendingRequests > 0, "maxPendingRequests must be positive");
 
         this.transmissionDispatcher = transmissionDispatcher;
         this.serializer = serializer;
+        this.overloadPolicy = overloadPolicy;
+        this.blockTimeoutInMillis = blockTimeoutInMillis;
+        this.overloadSamplingPercentage = overloadSamplingPercentage;
+        this.maxPendingRequests = maxPendingRequests;
 
-        semaphore = new Semaphore(MAX_PENDING_SCHEDULE_REQUESTS);
+        semaphore = new Semaphore(maxPendingRequests);
 
-        threadPool = Executors.newScheduledThreadPool(2, ThreadPoolUtils.createDaemonThreadFactory(TransmitterImpl.class, instanceId));
+        sendTasks = SDKScheduler.INSTANCE.createTaskGroup(TransmitterImpl.class.getSimpleName() + "_" + instanceId, MAX_CONCURRENT_SENDS, maxPendingRequests);
 
         this.transmissionsLoader = transmissionsLoader;
         this.transmissionsLoader.load(false);
+
+        droppedTelemetryPerformanceCounter = new DroppedTelemetryPerformanceCounter(droppedTelemetryCounters, instanceId);
+        PerformanceCounterContainer.INSTANCE.register(droppedTelemetryPerformanceCounter);
     }
 
     @Override
-    public boolean scheduleSend(TelemetriesFetcher telemetriesFetcher, long value, TimeUnit timeUnit) {
+    public boolean scheduleSend(TelemetriesFetcher<T> telemetriesFetcher, long value, TimeUnit timeUnit) {
         Preconditions.checkNotNull(telemetriesFetcher, "telemetriesFetcher should be non-null value");
 
         if (!semaphore.tryAcquire()) {
@@ -154,8 +229,8 @@ public final class TransmitterImpl implements TelemetriesTransmitter<String> {
         }
 
         try {
-            final Runnable command = new ScheduledSendHandler(transmissionDispatcher, telemetriesFetcher, serializer);
-            threadPool.schedule(new Runnable() {
+            final Runnable command = new ScheduledSendHandler<T>(transmissionDispatcher, telemetriesFetcher, serializer);
+            sendTasks.schedule(new Runnable() {
                 public void run() {
                     try {
                         semaphore.release();
@@ -194,16 +269,29 @@ public final class TransmitterImpl implements TelemetriesTransmitter<String> {
     }
 
     @Override
-    public boolean sendNow(Collection<String> telemetries) {
+    public boolean sendNow(Collection<T> telemetries) {
         Preconditions.checkNotNull(telemetries, "telemetries should be non-null value");
 
-        if (!semaphore.tryAcquire()) {
+        if (!acquireForSendNow()) {
+            if (overloadPolicy == OverloadPolicy.DROP_OLDEST) {
+                // The handler that was scheduled for the evicted container will send the new one
+                Collection<T> evicted = pendingTelemetries.pollFirst();
+                if (evicted != null) {
+                    pendingTelemetries.addLast(telemetries);
+                    droppedTelemetryCounters.add(DroppedTelemetryCounters.Reason.EVICTED, evicted.size());
+                    return true;
+                }
+            }
+
+            boolean timedOut = overloadPolicy == OverloadPolicy.BLOCK && blockTimeoutInMillis > 0;
+            droppedTelemetryCounters.add(timedOut ? DroppedTelemetryCounters.Reason.BLOCK_TIMEOUT : DroppedTelemetryCounters.Reason.REJECTED, telemetries.size());
             return false;
         }
 
-        final Runnable command = new SendNowHandler(transmissionDispatcher, serializer, telemetries);
+        pendingTelemetries.addLast(telemetries);
+        final Runnable command = new SendNowHandler<T>(transmissionDispatcher, serializer, pendingTelemetries);
         try {
-            threadPool.execute(new Runnable() {
+            sendTasks.execute(new Runnable() {
                 public void run() {
                     try {
                         semaphore.release();
@@ -229,6 +317,7 @@ public final class TransmitterImpl implements TelemetriesTransmitter<String> {
             throw td;
         } catch (Throwable t) {
             try {
+                pendingTelemetries.removeLastOccurrence(telemetries);
                 semaphore.release();
                 InternalLogger.INSTANCE.error("Error in scheduledSend of telemetry items failed. %d items were not sent ", telemetries.size());
                 InternalLogger.INSTANCE.trace("Stack trace generated is %s", ExceptionUtils.getStackTrace(t));
@@ -242,10 +331,83 @@ public final class TransmitterImpl implements TelemetriesTransmitter<String> {
         return false;
     }
 
+    /**
+     * While overloaded, the {@link OverloadPolicy#SAMPLE} policy samples by telemetry type: requests, dependencies
+     * and exceptions are always kept, traces and metrics are sampled first, and the other types are only sampled
+     * once the channel is heavily overloaded. Telemetries are sampled by their operation, so the items of a kept
+     * operation stay together.
+     */
+    @Override
+    public boolean admit(Telemetry telemetry) {
+        if (overloadPolicy != OverloadPolicy.SAMPLE || !isOverloaded()) {
+            return true;
+        }
+
+        if (telemetry instanceof RequestTelemetry || telemetry instanceof RemoteDependencyTelemetry || telemetry instanceof ExceptionTelemetry) {
+            return true;
+        }
+
+        boolean sampledFirst = telemetry instanceof TraceTelemetry || telemetry instanceof MetricTelemetry || telemetry instanceof PerformanceCounterTelemetry;
+        if (!sampledFirst && !isHeavilyOverloaded()) {
+            return true;
+        }
+
+        if (SamplingScoreGeneratorV2.getSamplingScore(telemetry) >= overloadSamplingPercentage) {
+            droppedTelemetryCounters.add(DroppedTelemetryCounters.Reason.SAMPLED_OUT, 1);
+            return false;
+        }
+
+        if (telemetry instanceof SupportSampling) {
+            // The same score was used by any earlier sampling, so the effective percentage is the lower one
+            SupportSampling sampledTelemetry = (SupportSampling) telemetry;
+            Double samplingPercentage = sampledTelemetry.getSamplingPercentage();
+            if (samplingPercentage == null || samplingPercentage > overloadSamplingPercentage) {
+                sampledTelemetry.setSamplingPercentage(overloadSamplingPercentage);
+            }
+        }
+
+        return true;
+    }
+
+    /**
+     * @return True when at least half of the pending requests are in use.
+     */
+    boolean isOverloaded() {
+        return semaphore.availablePermits() <= maxPendingRequests / 2;
+    }
+
+    /**
+     * @return True when at least three quarters of the pending requests are in use.
+     */
+    boolean isHeavilyOverloaded() {
+        return semaphore.availablePermits() <= maxPendingRequests / 4;
+    }
+
+    DroppedTelemetryCounters getDroppedTelemetryCounters() {
+        return droppedTelemetryCounters;
+    }
+
+    private boolean acquireForSendNow() {
+        if (overloadPolicy != OverloadPolicy.BLOCK || blockTimeoutInMillis == 0) {
+            return semaphore.tryAcquire();
+        }
+
+        try {
+            return semaphore.tryAcquire(blockTimeoutInMillis, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
     @Override
     public void stop(long timeout, TimeUnit timeUnit) {
+        PerformanceCounterContainer.INSTANCE.unregister(droppedTelemetryPerformanceCounter);
         transmissionsLoader.stop(timeout, timeUnit);
-        ThreadPoolUtils.stop(threadPool, timeout, timeUnit);
+        sendTasks.stop(timeout, timeUnit);
+        if (serializer instanceof BatchingTelemetrySerializer) {
+            ((BatchingTelemetrySerializer<T>) serializer).stop();
+        }
         transmissionDispatcher.stop(timeout, timeUnit);
     }
 }
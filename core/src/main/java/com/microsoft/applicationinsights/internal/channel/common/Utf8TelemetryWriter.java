@@ -0,0 +1,120 @@
+/*
+ * ApplicationInsights-Java
+ * Copyright (c) Microsoft Corporation
+ * All rights reserved.
+ *
+ * MIT License
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the ""Software""), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package com.microsoft.applicationinsights.internal.channel.common;
+
+import java.io.Writer;
+
+/**
+ * A {@link Writer} that encodes characters as UTF-8 straight into a {@link TelemetryByteBuffer}.
+ *
+ * The writer is not thread safe and is meant to be reused by one thread, calling {@link #setTarget}
+ * for every new item. Flushing the writer has no effect. Closing it writes a replacement character
+ * if the last write ended with an unpaired high surrogate, and leaves the target open.
+ */
+public final class Utf8TelemetryWriter extends Writer {
+    private static final int REPLACEMENT_CHAR = '?';
+
+    private TelemetryByteBuffer target;
+
+    /// A high surrogate seen at the end of the previous write call, 0 if none
+    private char pendingHighSurrogate;
+
+    public Utf8TelemetryWriter setTarget(TelemetryByteBuffer target) {
+        this.target = target;
+        this.pendingHighSurrogate = 0;
+        return this;
+    }
+
+    @Override
+    public void write(int c) {
+        writeChar((char) c);
+    }
+
+    @Override
+    public void write(char[] cbuf, int off, int len) {
+        for (int i = off; i < off + len; ++i) {
+            writeChar(cbuf[i]);
+        }
+    }
+
+    @Override
+    public void write(String str, int off, int len) {
+        for (int i = off; i < off + len; ++i) {
+            writeChar(str.charAt(i));
+        }
+    }
+
+    @Override
+    public Writer append(CharSequence csq) {
+        CharSequence value = csq == null ? "null" : csq;
+        for (int i = 0; i < value.length(); ++i) {
+            writeChar(value.charAt(i));
+        }
+        return this;
+    }
+
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() {
+        if (pendingHighSurrogate != 0) {
+            pendingHighSurrogate = 0;
+            target.write(REPLACEMENT_CHAR);
+        }
+    }
+
+    private void writeChar(char c) {
+        if (pendingHighSurrogate != 0) {
+            char high = pendingHighSurrogate;
+            pendingHighSurrogate = 0;
+            if (Character.isLowSurrogate(c)) {
+                writeCodePoint(Character.toCodePoint(high, c));
+                return;
+            }
+            target.write(REPLACEMENT_CHAR);
+        }
+
+        if (c < 0x80) {
+            target.write(c);
+        } else if (c < 0x800) {
+            target.write(0xC0 | (c >> 6));
+            target.write(0x80 | (c & 0x3F));
+        } else if (Character.isHighSurrogate(c)) {
+            pendingHighSurrogate = c;
+        } else if (Character.isLowSurrogate(c)) {
+            target.write(REPLACEMENT_CHAR);
+        } else {
+            target.write(0xE0 | (c >> 12));
+            target.write(0x80 | ((c >> 6) & 0x3F));
+            target.write(0x80 | (c & 0x3F));
+        }
+    }
+
+    private void writeCodePoint(int codePoint) {
+        target.write(0xF0 | (codePoint >> 18));
+        target.write(0x80 | ((codePoint >> 12) & 0x3F));
+        target.write(0x80 | ((codePoint >> 6) & 0x3F));
+        target.write(0x80 | (codePoint & 0x3F));
+    }
+}
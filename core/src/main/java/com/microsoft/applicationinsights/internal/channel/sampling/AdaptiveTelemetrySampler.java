@@ -23,7 +23,6 @@ package com.microsoft.applicationinsights.internal.channel.sampling;
 
 import java.util.Date;
 import java.util.Set;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -31,7 +30,8 @@ import com.microsoft.applicationinsights.channel.TelemetrySampler;
 import com.microsoft.applicationinsights.internal.logger.InternalLogger;
 import com.microsoft.applicationinsights.internal.shutdown.SDKShutdownActivity;
 import com.microsoft.applicationinsights.internal.shutdown.Stoppable;
-import com.microsoft.applicationinsights.internal.util.ThreadPoolUtils;
+import com.microsoft.applicationinsights.internal.util.SDKScheduler;
+import com.microsoft.applicationinsights.internal.util.TaskGroup;
 import com.microsoft.applicationinsights.telemetry.Telemetry;
 
 /**
@@ -142,14 +142,16 @@ public final class AdaptiveTelemetrySampler implements Stoppable, TelemetrySampl
 
     private final AtomicLong counter = new AtomicLong(0);
 
-    private ScheduledThreadPoolExecutor threads;
+    private TaskGroup threads;
 
     // We use the 'FixedRateTelemetrySampler' to do the actual sampling
     private final FixedRateTelemetrySampler sampler = new FixedRateTelemetrySampler();
 
     @Override
     public synchronized void stop(long timeout, TimeUnit timeUnit) {
-        ThreadPoolUtils.stop(threads, timeout, timeUnit);
+        if (threads != null) {
+            threads.stop(timeout, timeUnit);
+        }
     }
 
     /**
@@ -230,8 +232,7 @@ public final class AdaptiveTelemetrySampler implements Stoppable, TelemetrySampl
     }
 
     private void createTimerThread() {
-        threads = new ScheduledThreadPoolExecutor(1);
-        threads.setThreadFactory(ThreadPoolUtils.createDaemonThreadFactory(AdaptiveTelemetrySampler.class));
+        threads = SDKScheduler.INSTANCE.createTaskGroup(AdaptiveTelemetrySampler.class.getSimpleName(), 1, 0);
     }
 
     private int getIntValueOrDefault(String name, String valueAsString, int defaultValue, int minValue, int maxValue) {
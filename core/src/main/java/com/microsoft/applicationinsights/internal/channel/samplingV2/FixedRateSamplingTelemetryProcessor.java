@@ -10,6 +10,7 @@ import com.microsoft.applicationinsights.telemetry.RemoteDependencyTelemetry;
 import com.microsoft.applicationinsights.telemetry.RequestTelemetry;
 import com.microsoft.applicationinsights.telemetry.SupportSampling;
 import com.microsoft.applicationinsights.telemetry.Telemetry;
+import com.microsoft.applicationinsights.telemetry.TelemetryContext;
 import com.microsoft.applicationinsights.telemetry.TraceTelemetry;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.exception.ExceptionUtils;
@@ -182,6 +183,61 @@ public final class FixedRateSamplingTelemetryProcessor implements TelemetryProce
         return true;
     }
 
+    /**
+     * Decides whether the telemetry will be sampled out using only the operation id it already has, so that
+     * {@link com.microsoft.applicationinsights.TelemetryClient} can drop it before initializing its context and
+     * running the initializers. For the first sampling processor of the pipeline this makes the same decision as
+     * {@link #process(Telemetry)}, which still sets the sampling percentage of the telemetries that are kept.
+     *
+     * @param telemetry The telemetry before its context is initialized
+     * @return true if the telemetry is sampled out, false if it is kept or has no operation id yet
+     */
+    public boolean isSampledOutEarly(Telemetry telemetry) {
+        return isSampledOutEarly(telemetry, null);
+    }
+
+    /**
+     * Like {@link #isSampledOutEarly(Telemetry)}, for a processor that might run after other sampling processors.
+     * In {@link #process(Telemetry)} the first processor that samples the telemetry sets its percentage on it,
+     * and the later processors use that percentage instead of their own.
+     *
+     * @param telemetry The telemetry before its context is initialized
+     * @param pipelineSamplingPercentage The percentage an earlier processor of the pipeline sets on the telemetry, or null
+     * @return true if the telemetry is sampled out, false if it is kept or has no operation id yet
+     */
+    public boolean isSampledOutEarly(Telemetry telemetry, Double pipelineSamplingPercentage) {
+        Double sp = getSamplingPercentageFor(telemetry);
+        if (sp == null) {
+            return false;
+        }
+
+        // Without an operation id the score is random, so it must only be drawn once
+        TelemetryContext context = telemetry.getContext();
+        if (context == null || StringUtils.isEmpty(context.getOperation().getId())) {
+            return false;
+        }
+
+        Double itemSamplingPercentage = ((SupportSampling) telemetry).getSamplingPercentage();
+        if (itemSamplingPercentage != null) {
+            sp = itemSamplingPercentage;
+        } else if (pipelineSamplingPercentage != null) {
+            sp = pipelineSamplingPercentage;
+        }
+        return SamplingScoreGeneratorV2.getSamplingScore(telemetry) >= sp;
+    }
+
+    /**
+     * @param telemetry The telemetry
+     * @return The percentage {@link #process(Telemetry)} sets on the telemetry if it has none, or null if this processor does not sample it
+     */
+    public Double getSamplingPercentageFor(Telemetry telemetry) {
+        if (!(telemetry instanceof SupportSampling) || !isSamplingApplicable(telemetry.getClass())) {
+            return null;
+        }
+
+        return samplingPercentage;
+    }
+
     /**
      * Determines if the argument is applicable for sampling
      *
@@ -56,6 +56,42 @@ public class ChannelXmlElement {
     @XStreamAlias("MaxInstantRetry")
     private String maxInstantRetry;
 
+    @XStreamAlias("BufferStripes")
+    private String bufferStripes;
+
+    @XStreamAlias("CompressionLevel")
+    private String compressionLevel;
+
+    @XStreamAlias("MaxTransmissionSizeInKB")
+    private String maxTransmissionSizeInKB;
+
+    @XStreamAlias("SegmentedTransmissionStorage")
+    private boolean segmentedTransmissionStorage;
+
+    @XStreamAlias("AsyncHttpTransport")
+    private boolean asyncHttpTransport;
+
+    @XStreamAlias("MaxInFlightRequests")
+    private String maxInFlightRequests;
+
+    @XStreamAlias("MaxInFlightSizeInMB")
+    private String maxInFlightSizeInMB;
+
+    @XStreamAlias("AdaptiveSenderConcurrency")
+    private boolean adaptiveSenderConcurrency;
+
+    @XStreamAlias("MaxSenderThreads")
+    private String maxSenderThreads;
+
+    @XStreamAlias("OverloadPolicy")
+    private String overloadPolicy;
+
+    @XStreamAlias("OverloadBlockTimeoutInMillis")
+    private String overloadBlockTimeoutInMillis;
+
+    @XStreamAlias("OverloadSamplingPercentage")
+    private String overloadSamplingPercentage;
+
     @XStreamAsAttribute
     private String type = "com.microsoft.applicationinsights.channel.concrete.inprocess.InProcessTelemetryChannel";
 
@@ -139,6 +175,102 @@ public class ChannelXmlElement {
         this.maxInstantRetry = maxInstantRetry;
     }
 
+    public String getBufferStripes() {
+        return bufferStripes;
+    }
+
+    public void setBufferStripes(String bufferStripes) {
+        this.bufferStripes = bufferStripes;
+    }
+
+    public String getCompressionLevel() {
+        return compressionLevel;
+    }
+
+    public void setCompressionLevel(String compressionLevel) {
+        this.compressionLevel = compressionLevel;
+    }
+
+    public String getMaxTransmissionSizeInKB() {
+        return maxTransmissionSizeInKB;
+    }
+
+    public void setMaxTransmissionSizeInKB(String maxTransmissionSizeInKB) {
+        this.maxTransmissionSizeInKB = maxTransmissionSizeInKB;
+    }
+
+    public boolean getSegmentedTransmissionStorage() {
+        return segmentedTransmissionStorage;
+    }
+
+    public void setSegmentedTransmissionStorage(boolean segmentedTransmissionStorage) {
+        this.segmentedTransmissionStorage = segmentedTransmissionStorage;
+    }
+
+    public boolean getAsyncHttpTransport() {
+        return asyncHttpTransport;
+    }
+
+    public void setAsyncHttpTransport(boolean asyncHttpTransport) {
+        this.asyncHttpTransport = asyncHttpTransport;
+    }
+
+    public String getMaxInFlightRequests() {
+        return maxInFlightRequests;
+    }
+
+    public void setMaxInFlightRequests(String maxInFlightRequests) {
+        this.maxInFlightRequests = maxInFlightRequests;
+    }
+
+    public String getMaxInFlightSizeInMB() {
+        return maxInFlightSizeInMB;
+    }
+
+    public void setMaxInFlightSizeInMB(String maxInFlightSizeInMB) {
+        this.maxInFlightSizeInMB = maxInFlightSizeInMB;
+    }
+
+    public boolean getAdaptiveSenderConcurrency() {
+        return adaptiveSenderConcurrency;
+    }
+
+    public void setAdaptiveSenderConcurrency(boolean adaptiveSenderConcurrency) {
+        this.adaptiveSenderConcurrency = adaptiveSenderConcurrency;
+    }
+
+    public String getMaxSenderThreads() {
+        return maxSenderThreads;
+    }
+
+    public void setMaxSenderThreads(String maxSenderThreads) {
+        this.maxSenderThreads = maxSenderThreads;
+    }
+
+    public String getOverloadPolicy() {
+        return overloadPolicy;
+    }
+
+    public void setOverloadPolicy(String overloadPolicy) {
+        this.overloadPolicy = overloadPolicy;
+    }
+
+    public String getOverloadBlockTimeoutInMillis() {
+        return overloadBlockTimeoutInMillis;
+    }
+
+    public void setOverloadBlockTimeoutInMillis(String overloadBlockTimeoutInMillis) {
+        this.overloadBlockTimeoutInMillis = overloadBlockTimeoutInMillis;
+    }
+
+    public String getOverloadSamplingPercentage() {
+        return overloadSamplingPercentage;
+    }
+
+    public void setOverloadSamplingPercentage(String overloadSamplingPercentage) {
+        this.overloadSamplingPercentage = overloadSamplingPercentage;
+    }
+
     public Map<String, String> getData() {
         HashMap<String, String> data = new HashMap<String, String>();
         if (developerMode) {
@@ -166,6 +298,54 @@ public class ChannelXmlElement {
             data.put("MaxInstantRetry", maxInstantRetry);
         }
 
+        if (!Strings.isNullOrEmpty(bufferStripes)) {
+            data.put("BufferStripes", bufferStripes);
+        }
+
+        if (!Strings.isNullOrEmpty(compressionLevel)) {
+            data.put("CompressionLevel", compressionLevel);
+        }
+
+        if (!Strings.isNullOrEmpty(maxTransmissionSizeInKB)) {
+            data.put("MaxTransmissionSizeInKB", maxTransmissionSizeInKB);
+        }
+
+        if (segmentedTransmissionStorage) {
+            data.put("SegmentedTransmissionStorage", "true");
+        }
+
+        if (asyncHttpTransport) {
+            data.put("AsyncHttpTransport", "true");
+        }
+
+        if (!Strings.isNullOrEmpty(maxInFlightRequests)) {
+            data.put("MaxInFlightRequests", maxInFlightRequests);
+        }
+
+        if (!Strings.isNullOrEmpty(maxInFlightSizeInMB)) {
+            data.put("MaxInFlightSizeInMB", maxInFlightSizeInMB);
+        }
+
+        if (adaptiveSenderConcurrency) {
+            data.put("AdaptiveSenderConcurrency", "true");
+        }
+
+        if (!Strings.isNullOrEmpty(maxSenderThreads)) {
+            data.put("MaxSenderThreads", maxSenderThreads);
+        }
+
+        if (!Strings.isNullOrEmpty(overloadPolicy)) {
+            data.put("OverloadPolicy", overloadPolicy);
+        }
+
+        if (!Strings.isNullOrEmpty(overloadBlockTimeoutInMillis)) {
+            data.put("OverloadBlockTimeoutInMillis", overloadBlockTimeoutInMillis);
+        }
+
+        if (!Strings.isNullOrEmpty(overloadSamplingPercentage)) {
+            data.put("OverloadSamplingPercentage", overloadSamplingPercentage);
+        }
+
         data.put("Throttling", throttling ? "true" : "false");
 
         return data;
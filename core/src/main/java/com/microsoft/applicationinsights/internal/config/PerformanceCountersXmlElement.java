@@ -35,6 +35,12 @@ public class PerformanceCountersXmlElement {
     @XStreamAlias("UseBuiltIn")
     private boolean useBuiltIn = true;
 
+    @XStreamAlias("ThreadCpu")
+    private boolean threadCpu = false;
+
+    @XStreamAlias("TaskGroups")
+    private boolean taskGroups = false;
+
     @XStreamAsAttribute
     private long collectionFrequencyInSec = 60;
 
@@ -66,6 +72,22 @@ public class PerformanceCountersXmlElement {
         this.useBuiltIn = useBuiltIn;
     }
 
+    public boolean isThreadCpu() {
+        return threadCpu;
+    }
+
+    public void setThreadCpu(boolean threadCpu) {
+        this.threadCpu = threadCpu;
+    }
+
+    public boolean isTaskGroups() {
+        return taskGroups;
+    }
+
+    public void setTaskGroups(boolean taskGroups) {
+        this.taskGroups = taskGroups;
+    }
+
     public ArrayList<WindowsPerformanceCounterXmlElement> getWindowsPCs() {
         return windowsPCWrapper.windowsPCs;
     }
@@ -65,6 +65,8 @@ public final class ReflectionUtils {
         addClass(com.microsoft.applicationinsights.internal.processor.PageViewTelemetryFilter.class);
         addClass(com.microsoft.applicationinsights.internal.processor.TelemetryEventFilter.class);
         addClass(com.microsoft.applicationinsights.internal.processor.TraceTelemetryFilter.class);
+        addClass(com.microsoft.applicationinsights.internal.processor.DuplicateExceptionFilter.class);
+        addClass(com.microsoft.applicationinsights.internal.processor.PathTemplateProcessor.class);
     }
 
     static void addClass(Class<?> clazz) {
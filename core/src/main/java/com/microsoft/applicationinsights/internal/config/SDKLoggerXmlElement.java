@@ -50,6 +50,12 @@ public class SDKLoggerXmlElement {
     @XStreamAlias("NumberOfTotalSizeInMB")
     private String numberOfTotalSizeInMB;
 
+    @XStreamAlias("Async")
+    private String async;
+
+    @XStreamAlias("AsyncBufferSize")
+    private String asyncBufferSize;
+
     public String getType() {
         return type;
     }
@@ -98,6 +104,22 @@ public class SDKLoggerXmlElement {
         this.numberOfTotalSizeInMB = numberOfTotalSizeInMB;
     }
 
+    public String getAsync() {
+        return async;
+    }
+
+    public void setAsync(String async) {
+        this.async = async;
+    }
+
+    public String getAsyncBufferSize() {
+        return asyncBufferSize;
+    }
+
+    public void setAsyncBufferSize(String asyncBufferSize) {
+        this.asyncBufferSize = asyncBufferSize;
+    }
+
     public Map<String, String> getData() {
         HashMap<String, String> data = new HashMap<String, String>();
         data.put("Level", getLevel());
@@ -105,6 +127,8 @@ public class SDKLoggerXmlElement {
         data.put("NumberOfFiles", getNumberOfFiles());
         data.put("NumberOfTotalSizeInMB", getNumberOfTotalSizeInMB());
         data.put("BaseFolderPath", getBaseFolderPath());
+        data.put("Async", getAsync());
+        data.put("AsyncBufferSize", getAsyncBufferSize());
         return data;
     }
 }
@@ -50,7 +50,9 @@ import com.microsoft.applicationinsights.internal.perfcounter.PerformanceCounter
 
 import com.google.common.base.Strings;
 import com.microsoft.applicationinsights.internal.perfcounter.ProcessPerformanceCountersModule;
+import com.microsoft.applicationinsights.internal.processor.DuplicateExceptionFilter;
 import com.microsoft.applicationinsights.internal.processor.PageViewTelemetryFilter;
+import com.microsoft.applicationinsights.internal.processor.PathTemplateProcessor;
 import com.microsoft.applicationinsights.internal.processor.RequestTelemetryFilter;
 import com.microsoft.applicationinsights.internal.processor.SyntheticSourceFilter;
 import com.microsoft.applicationinsights.internal.processor.TelemetryEventFilter;
@@ -273,6 +275,8 @@ public enum TelemetryConfigurationFactory {
         p.add(SyntheticSourceFilter.class.getCanonicalName());
         p.add(TelemetryEventFilter.class.getCanonicalName());
         p.add(TraceTelemetryFilter.class.getCanonicalName());
+        p.add(DuplicateExceptionFilter.class.getCanonicalName());
+        p.add(PathTemplateProcessor.class.getCanonicalName());
     }
 
 
@@ -5,7 +5,8 @@ import com.microsoft.applicationinsights.TelemetryConfiguration;
 import com.microsoft.applicationinsights.internal.logger.InternalLogger;
 import com.microsoft.applicationinsights.internal.shutdown.SDKShutdownActivity;
 import com.microsoft.applicationinsights.internal.shutdown.Stoppable;
-import com.microsoft.applicationinsights.internal.util.ThreadPoolUtils;
+import com.microsoft.applicationinsights.internal.util.SDKScheduler;
+import com.microsoft.applicationinsights.internal.util.TaskGroup;
 import com.microsoft.applicationinsights.telemetry.MetricTelemetry;
 import org.apache.commons.lang3.StringUtils;
 
@@ -14,9 +15,6 @@ import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.ExecutorService;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -66,14 +64,19 @@ public class HeartBeatProvider implements HeartBeatProviderInterface, Stoppable
   private TelemetryClient telemetryClient;
 
   /**
-   * ThreadPool used for adding properties to concurrent dictionary
+   * The most property updates that may wait for the previous ones
    */
-  private ExecutorService propertyUpdateService;
+  private static final int MAX_PROPERTY_UPDATES = 16;
 
   /**
-   * Threadpool used to send data heartbeat telemetry
+   * Tasks used for adding properties to concurrent dictionary
    */
-  private ScheduledExecutorService heartBeatSenderService;
+  private TaskGroup propertyUpdateService;
+
+  /**
+   * Tasks used to send data heartbeat telemetry
+   */
+  private TaskGroup heartBeatSenderService;
 
   /**
    * Heartbeat enabled state
@@ -85,8 +88,8 @@ public class HeartBeatProvider implements HeartBeatProviderInterface, Stoppable
     this.heartbeatProperties = new ConcurrentHashMap<>();
     this.isEnabled = true;
     this.heartbeatsSent = 0;
-    this.propertyUpdateService = Executors.newCachedThreadPool(ThreadPoolUtils.createDaemonThreadFactory(HeartBeatProvider.class, "propertyUpdateService"));
-    this.heartBeatSenderService = Executors.newSingleThreadScheduledExecutor( ThreadPoolUtils.createDaemonThreadFactory(HeartBeatProvider.class, "heartBeatSenderService"));
+    this.propertyUpdateService = SDKScheduler.INSTANCE.createTaskGroup(HeartBeatProvider.class.getSimpleName() + "_propertyUpdateService", 1, MAX_PROPERTY_UPDATES);
+    this.heartBeatSenderService = SDKScheduler.INSTANCE.createTaskGroup(HeartBeatProvider.class.getSimpleName() + "_heartBeatSenderService", 1, 0);
     SDKShutdownActivity.INSTANCE.register(this);
   }
 
@@ -225,8 +228,8 @@ public class HeartBeatProvider implements HeartBeatProviderInterface, Stoppable
 
   @Override
   public void stop(long timeout, TimeUnit timeUnit) {
-    ThreadPoolUtils.stop(propertyUpdateService, timeout, timeUnit);
-    ThreadPoolUtils.stop(heartBeatSenderService, timeout, timeUnit);
+    propertyUpdateService.stop(timeout, timeUnit);
+    heartBeatSenderService.stop(timeout, timeUnit);
   }
 
   /**
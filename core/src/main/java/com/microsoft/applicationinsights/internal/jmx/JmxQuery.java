@@ -0,0 +1,223 @@
+/*
+ * ApplicationInsights-Java
+ * Copyright (c) Microsoft Corporation
+ * All rights reserved.
+ *
+ * MIT License
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the ""Software""), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package com.microsoft.applicationinsights.internal.jmx;
+
+import com.microsoft.applicationinsights.internal.logger.InternalLogger;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.management.Attribute;
+import javax.management.AttributeList;
+import javax.management.AttributeNotFoundException;
+import javax.management.InstanceNotFoundException;
+import javax.management.MBeanServer;
+import javax.management.MalformedObjectNameException;
+import javax.management.ObjectName;
+import javax.management.openmbean.CompositeData;
+import javax.management.openmbean.TabularData;
+import java.lang.management.ManagementFactory;
+
+/**
+ * A pre-compiled fetch of a set of attributes from the MBeans that match an object name.
+ *
+ * The object name is parsed and the composite/tabular attribute paths are split once, when the query
+ * is created. The matching MBeans are resolved once and then only again after an MBean was registered
+ * or unregistered, and all the attributes of an MBean are read with a single getAttributes call.
+ *
+ * Instances are not thread safe, every performance counter owns its queries.
+ */
+public final class JmxQuery {
+    private static final String COMPOSITE_ATTRIBUTE_TYPE = "COMPOSITE";
+    private static final String TABULAR_ATTRIBUTE_TYPE = "TABULAR";
+
+    private static final class CompiledAttribute {
+        final JmxAttributeData data;
+        final JmxDataFetcher.AttributeType type;
+        final int index;
+        final Object[] tabularKey;
+        final String itemName;
+
+        CompiledAttribute(JmxAttributeData data, JmxDataFetcher.AttributeType type, int index, Object[] tabularKey, String itemName) {
+            this.data = data;
+            this.type = type;
+            this.index = index;
+            this.tabularKey = tabularKey;
+            this.itemName = itemName;
+        }
+    }
+
+    private final String objectNameValue;
+    private final ObjectName objectName;
+    private final CompiledAttribute[] attributes;
+
+    /// The distinct names that are passed to getAttributes, composite/tabular attributes are fetched by their outer name
+    private final String[] attributeNames;
+
+    private Set<ObjectName> objects;
+    private long objectsGeneration;
+
+    public JmxQuery(String objectName, Collection<JmxAttributeData> attributes) throws MalformedObjectNameException {
+        this.objectNameValue = objectName;
+        this.objectName = new ObjectName(objectName);
+
+        List<String> names = new ArrayList<String>();
+        this.attributes = new CompiledAttribute[attributes.size()];
+        int i = 0;
+        for (JmxAttributeData attribute : attributes) {
+            this.attributes[i++] = compile(attribute, names);
+        }
+        this.attributeNames = names.toArray(new String[names.size()]);
+    }
+
+    /**
+     * Fetches the attributes of all the MBeans that match the object name.
+     * @return A map that represent each attribute: the key is the displayed name for that attribute
+     * and the value is a list of values found
+     * @throws Exception In case the object name is not found or an attribute could not be read.
+     */
+    public Map<String, Collection<Object>> fetch() throws Exception {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        Set<ObjectName> objects = resolveObjects(server);
+
+        List<List<Object>> values = new ArrayList<List<Object>>(attributes.length);
+        for (int i = 0; i < attributes.length; ++i) {
+            values.add(new ArrayList<Object>(objects.size()));
+        }
+
+        Object[] rawValues = new Object[attributeNames.length];
+        boolean[] found = new boolean[attributeNames.length];
+        for (ObjectName object : objects) {
+            AttributeList attributeList;
+            try {
+                attributeList = server.getAttributes(object, attributeNames);
+            } catch (InstanceNotFoundException e) {
+                // unregistered since it was resolved, the next fetch resolves the object name again
+                this.objects = null;
+                continue;
+            }
+
+            readAttributeList(attributeList, rawValues, found);
+            for (int i = 0; i < attributes.length; ++i) {
+                CompiledAttribute attribute = attributes[i];
+                try {
+                    if (!found[attribute.index]) {
+                        throw new AttributeNotFoundException("No such attribute: " + attributeNames[attribute.index]);
+                    }
+                    Object value = extract(attribute, rawValues[attribute.index]);
+                    if (value != null) {
+                        values.get(i).add(value);
+                    }
+                } catch (Exception e) {
+                    InternalLogger.INSTANCE.error("Failed to fetch JMX object '%s' with attribute '%s': '%s'", objectNameValue, attribute.data.name, e.toString());
+                    throw e;
+                }
+            }
+        }
+
+        Map<String, Collection<Object>> result = new HashMap<String, Collection<Object>>();
+        for (int i = 0; i < attributes.length; ++i) {
+            result.put(attributes[i].data.displayName, values.get(i));
+        }
+        return result;
+    }
+
+    private Set<ObjectName> resolveObjects(MBeanServer server) {
+        long generation = MBeanRegistrations.INSTANCE.getGeneration(server);
+        Set<ObjectName> current = objects;
+        if (current == null || generation == MBeanRegistrations.UNKNOWN_GENERATION || generation != objectsGeneration) {
+            current = new LinkedHashSet<ObjectName>(server.queryNames(objectName, null));
+            objects = current;
+            objectsGeneration = generation;
+        }
+        if (current.isEmpty()) {
+            String errorMsg = String.format("Cannot find object name '%s'", objectNameValue);
+            throw new IllegalArgumentException(errorMsg);
+        }
+        return current;
+    }
+
+    private void readAttributeList(AttributeList attributeList, Object[] rawValues, boolean[] found) {
+        for (int i = 0; i < found.length; ++i) {
+            found[i] = false;
+            rawValues[i] = null;
+        }
+        for (Attribute attribute : attributeList.asList()) {
+            for (int i = 0; i < attributeNames.length; ++i) {
+                if (!found[i] && attributeNames[i].equals(attribute.getName())) {
+                    found[i] = true;
+                    rawValues[i] = attribute.getValue();
+                    break;
+                }
+            }
+        }
+    }
+
+    private static Object extract(CompiledAttribute attribute, Object value) {
+        switch (attribute.type) {
+            case TABULAR:
+                CompositeData row = ((TabularData) value).get(attribute.tabularKey);
+                return row.get(attribute.itemName);
+
+            case COMPOSITE:
+                return ((CompositeData) value).get(attribute.itemName);
+
+            default:
+                return value;
+        }
+    }
+
+    private static CompiledAttribute compile(JmxAttributeData attribute, List<String> names) {
+        JmxDataFetcher.AttributeType type = JmxDataFetcher.AttributeType.REGULAR;
+        if (COMPOSITE_ATTRIBUTE_TYPE.equals(attribute.type)) {
+            type = JmxDataFetcher.AttributeType.COMPOSITE;
+        } else if (TABULAR_ATTRIBUTE_TYPE.equals(attribute.type)) {
+            type = JmxDataFetcher.AttributeType.TABULAR;
+        }
+
+        String name = attribute.name;
+        Object[] tabularKey = null;
+        String itemName = null;
+        if (type != JmxDataFetcher.AttributeType.REGULAR) {
+            String[] inners = attribute.name.split("\\.");
+            name = inners[0];
+            if (type == JmxDataFetcher.AttributeType.TABULAR) {
+                tabularKey = new Object[] { inners[1] };
+                itemName = inners[2];
+            } else {
+                itemName = inners[1];
+            }
+        }
+
+        int index = names.indexOf(name);
+        if (index < 0) {
+            index = names.size();
+            names.add(name);
+        }
+        return new CompiledAttribute(attribute, type, index, tabularKey, itemName);
+    }
+}
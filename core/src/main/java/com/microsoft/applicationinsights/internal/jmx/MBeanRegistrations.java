@@ -0,0 +1,115 @@
+/*
+ * ApplicationInsights-Java
+ * Copyright (c) Microsoft Corporation
+ * All rights reserved.
+ *
+ * MIT License
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the ""Software""), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package com.microsoft.applicationinsights.internal.jmx;
+
+import com.microsoft.applicationinsights.internal.logger.InternalLogger;
+import com.microsoft.applicationinsights.internal.shutdown.SDKShutdownActivity;
+import com.microsoft.applicationinsights.internal.shutdown.Stoppable;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.MBeanServer;
+import javax.management.MBeanServerDelegate;
+import javax.management.MBeanServerNotification;
+import javax.management.Notification;
+import javax.management.NotificationListener;
+
+/**
+ * Counts the MBean registrations and unregistrations of the platform MBean server, so object names
+ * that were resolved with queryNames are only resolved again after the set of MBeans changed.
+ *
+ * The listener is removed when the SDK shuts down, so the platform MBean server does not keep
+ * the class loader of the SDK alive after a web application is undeployed.
+ */
+enum MBeanRegistrations implements Stoppable {
+    INSTANCE;
+
+    /// Returned when the MBean server does not send notifications, cached object names are then never valid
+    static final long UNKNOWN_GENERATION = -1;
+
+    private final AtomicLong generation = new AtomicLong();
+    private volatile boolean listening;
+    private boolean failed;
+    private MBeanServer listenedServer;
+    private boolean registeredForShutdown;
+
+    private final NotificationListener listener = new NotificationListener() {
+        @Override
+        public void handleNotification(Notification notification, Object handback) {
+            if (notification instanceof MBeanServerNotification) {
+                generation.incrementAndGet();
+            }
+        }
+    };
+
+    long getGeneration(MBeanServer server) {
+        if (!listening && !startListening(server)) {
+            return UNKNOWN_GENERATION;
+        }
+        return generation.get();
+    }
+
+    boolean isListening() {
+        return listening;
+    }
+
+    private synchronized boolean startListening(MBeanServer server) {
+        if (listening) {
+            return true;
+        }
+        if (failed) {
+            return false;
+        }
+        try {
+            server.addNotificationListener(MBeanServerDelegate.DELEGATE_NAME, listener, null, null);
+            listenedServer = server;
+            listening = true;
+            if (!registeredForShutdown) {
+                registeredForShutdown = true;
+                SDKShutdownActivity.INSTANCE.register(this);
+            }
+        } catch (Exception e) {
+            failed = true;
+            InternalLogger.INSTANCE.warn("Failed to listen to MBean registrations, JMX object names will be resolved on every fetch: '%s'", e.toString());
+        }
+        return listening;
+    }
+
+    @Override
+    public synchronized void stop(long timeout, TimeUnit timeUnit) {
+        if (!listening) {
+            return;
+        }
+
+        listening = false;
+        // The registrations are not counted anymore, the object names resolved so far must be resolved again
+        generation.incrementAndGet();
+        try {
+            listenedServer.removeNotificationListener(MBeanServerDelegate.DELEGATE_NAME, listener);
+        } catch (Exception e) {
+            InternalLogger.INSTANCE.warn("Failed to stop listening to MBean registrations: '%s'", e.toString());
+        } finally {
+            listenedServer = null;
+        }
+    }
+}
@@ -26,7 +26,7 @@ import java.util.Map;
 
 import com.microsoft.applicationinsights.TelemetryClient;
 import com.microsoft.applicationinsights.internal.jmx.JmxAttributeData;
-import com.microsoft.applicationinsights.internal.jmx.JmxDataFetcher;
+import com.microsoft.applicationinsights.internal.jmx.JmxQuery;
 import com.microsoft.applicationinsights.internal.logger.InternalLogger;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 
@@ -40,6 +40,7 @@ public abstract class AbstractJmxPerformanceCounter implements PerformanceCounte
     private final String id;
     private final String objectName;
     private final Collection<JmxAttributeData> attributes;
+    private JmxQuery query;
     private boolean relevant = true;
     private boolean firstTime = true;
 
@@ -60,8 +61,10 @@ public abstract class AbstractJmxPerformanceCounter implements PerformanceCounte
         }
 
         try {
-            Map<String, Collection<Object>> result =
-                    JmxDataFetcher.fetch(objectName, attributes);
+            if (query == null) {
+                query = new JmxQuery(objectName, attributes);
+            }
+            Map<String, Collection<Object>> result = query.fetch();
 
             for (Map.Entry<String, Collection<Object>> displayAndValues : result.entrySet()) {
                 boolean ok = true;
@@ -36,6 +36,7 @@ import com.google.common.base.Strings;
  */
 abstract class AbstractUnixPerformanceCounter extends AbstractPerformanceCounter {
     private final File processFile;
+    private final ProcFileReader processFileReader;
     private final String path;
 
     protected AbstractUnixPerformanceCounter(String path) {
@@ -44,6 +45,7 @@ abstract class AbstractUnixPerformanceCounter extends AbstractPerformanceCounter
 
         this.path = path;
         processFile = new File(path);
+        processFileReader = new ProcFileReader(processFile);
         if (!processFile.canRead()) {
             logPerfCounterErrorError("Can not read");
         }
@@ -57,4 +59,8 @@ abstract class AbstractUnixPerformanceCounter extends AbstractPerformanceCounter
     protected File getProcessFile() {
         return processFile;
     }
+
+    ProcFileReader getProcessFileReader() {
+        return processFileReader;
+    }
 }
@@ -47,6 +47,19 @@ public final class Constants {
     public final static String PROCESS_IO_PC_ID = PERFORMANCE_COUNTER_PREFIX + "ProcessIOPerformanceCounter";
     public final static String PROCESS_IO_PC_COUNTER_NAME = "IO Data Bytes/sec";
 
+    public final static String THREAD_CPU_PC_ID = PERFORMANCE_COUNTER_PREFIX + "ThreadCpuPerformanceCounter";
+    public final static String THREAD_CPU_PC_COUNTER_NAME = "Thread % Processor Time";
+
+    public final static String TASK_GROUP_PC_ID = PERFORMANCE_COUNTER_PREFIX + "TaskGroupPerformanceCounter";
+
+    public final static String CONTAINER_PC_ID = PERFORMANCE_COUNTER_PREFIX + "ContainerPerformanceCounter";
+    public final static String CONTAINER_PC_CATEGORY_NAME = "Container";
+    public final static String CONTAINER_THROTTLED_PERIODS_PC_COUNTER_NAME = "Throttled Periods";
+    public final static String CONTAINER_THROTTLED_TIME_PC_COUNTER_NAME = "Throttled Time (ms)";
+    public final static String CONTAINER_MEMORY_PC_COUNTER_NAME = "Memory Usage Bytes";
+    public final static String CONTAINER_MEMORY_PERCENT_PC_COUNTER_NAME = "% Memory Used";
+    public final static String CONTAINER_OOM_KILLS_PC_COUNTER_NAME = "OOM Kills";
+
     public final static String INSTANCE_NAME_TOTAL = "_Total";
 
     public final static String PROCESS_CATEGORY = "Process";
@@ -0,0 +1,121 @@
+/*
+ * ApplicationInsights-Java
+ * Copyright (c) Microsoft Corporation
+ * All rights reserved.
+ *
+ * MIT License
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the ""Software""), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package com.microsoft.applicationinsights.internal.perfcounter;
+
+import java.io.IOException;
+
+import com.google.common.base.Ticker;
+import com.microsoft.applicationinsights.internal.logger.InternalLogger;
+import com.microsoft.applicationinsights.internal.system.SystemInformation;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+
+/**
+ * Calculates the cpu usage of the container the process runs in, out of the cpu quota of its cgroup.
+ *
+ * The process cpu usage is relative to all the cpus of the host, so a container limited to a fraction
+ * of them looks idle while it is being throttled; this calculator reports the usage against the limit.
+ * When the cgroup has no cpu limit the usage is relative to the available processors.
+ */
+public final class ContainerCpuPerformanceCounterCalculator {
+    private final UnixCGroup cgroup;
+    private final Ticker ticker;
+
+    private final UnixCGroup.CpuStat cpuStat = new UnixCGroup.CpuStat();
+    private long prevUsageNanos = -1;
+    private long prevTime;
+    private double cpuLimit = UnixCGroup.NO_LIMIT;
+
+    /**
+     * @return a calculator for the cgroup of the process, or null if the process does not run in a cgroup.
+     */
+    public static ContainerCpuPerformanceCounterCalculator create() {
+        if (!SystemInformation.INSTANCE.isUnix()) {
+            return null;
+        }
+        UnixCGroup cgroup = UnixCGroup.detect();
+        if (cgroup == null) {
+            return null;
+        }
+        return new ContainerCpuPerformanceCounterCalculator(cgroup, Ticker.systemTicker());
+    }
+
+    ContainerCpuPerformanceCounterCalculator(UnixCGroup cgroup, Ticker ticker) {
+        this.cgroup = cgroup;
+        this.ticker = ticker;
+    }
+
+    /**
+     * @return the percentage of the cpu limit used since the previous call, or null on the first call or on error.
+     */
+    public Double getCpuUsage() {
+        Double cpuUsage = null;
+        try {
+            long time = ticker.read();
+            cgroup.readCpuStat(cpuStat);
+            cpuLimit = cgroup.getCpuLimit();
+
+            long usageNanos = cpuStat.usageNanos;
+            if (prevUsageNanos >= 0 && usageNanos >= prevUsageNanos && time > prevTime) {
+                double cpus = cpuLimit > 0 ? cpuLimit : Runtime.getRuntime().availableProcessors();
+                double usedCpus = (usageNanos - prevUsageNanos) / (double) (time - prevTime);
+                cpuUsage = Math.min(100.0, 100.0 * usedCpus / cpus);
+            }
+            prevUsageNanos = usageNanos;
+            prevTime = time;
+        } catch (Exception e) {
+            InternalLogger.INSTANCE.error("Error in getContainerCpuUsage: '%s'", e.toString());
+            InternalLogger.INSTANCE.trace("Stack trace generated is %s", ExceptionUtils.getStackTrace(e));
+        }
+
+        return cpuUsage;
+    }
+
+    /**
+     * @return true if the last call to {@link #getCpuUsage()} found a cpu limit on the cgroup.
+     */
+    public boolean hasCpuLimit() {
+        return cpuLimit > 0;
+    }
+
+    /**
+     * @return true if the cgroup of the process is the one of a container, see {@link UnixCGroup#isContainer()}.
+     */
+    public boolean isContainer() {
+        try {
+            return cgroup.isContainer();
+        } catch (Exception e) {
+            InternalLogger.INSTANCE.error("Error while reading the cgroup limits: '%s'", e.toString());
+            return false;
+        }
+    }
+
+    /**
+     * @return the cpu statistics read by the last call to {@link #getCpuUsage()}.
+     */
+    UnixCGroup.CpuStat getCpuStat() {
+        return cpuStat;
+    }
+
+    UnixCGroup getCGroup() {
+        return cgroup;
+    }
+}
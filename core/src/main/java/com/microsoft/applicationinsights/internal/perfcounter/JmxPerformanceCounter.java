@@ -25,7 +25,7 @@ import com.google.common.base.Preconditions;
 import com.google.common.base.Strings;
 import com.microsoft.applicationinsights.TelemetryClient;
 import com.microsoft.applicationinsights.internal.jmx.JmxAttributeData;
-import com.microsoft.applicationinsights.internal.jmx.JmxDataFetcher;
+import com.microsoft.applicationinsights.internal.jmx.JmxQuery;
 import com.microsoft.applicationinsights.internal.logger.InternalLogger;
 import com.microsoft.applicationinsights.internal.system.SystemInformation;
 import com.microsoft.applicationinsights.telemetry.PerformanceCounterTelemetry;
@@ -42,7 +42,7 @@ import java.util.Map;
 public final class JmxPerformanceCounter implements PerformanceCounter {
     private final PerformanceCounterTelemetry telemetry;
     private final Map<String, Collection<JmxAttributeData>> objectToAttributes;
-    private Map.Entry<String, Collection<JmxAttributeData>> entry;
+    private JmxQuery query;
     private final String id;
     private boolean relevant = true;
 
@@ -79,24 +79,25 @@ public final class JmxPerformanceCounter implements PerformanceCounter {
         }
 
         Map<String, Collection<Object>> data = null;
-        if (entry == null) {
+        if (query == null) {
             for (Map.Entry<String, Collection<JmxAttributeData>> entry : objectToAttributes.entrySet()) {
                 try {
-                    data = JmxDataFetcher.fetch(entry.getKey(), entry.getValue());
-                    this.entry = entry;
+                    JmxQuery candidate = new JmxQuery(entry.getKey(), entry.getValue());
+                    data = candidate.fetch();
+                    query = candidate;
                     break;
                 } catch (Exception e) {
                 }
             }
 
-            if (entry == null) {
+            if (query == null) {
                 relevant = false;
                 InternalLogger.INSTANCE.error("Could not find JMX data for '%s'. Performance Counter will be ignored.", getId());
                 return;
             }
         } else {
             try {
-                data = JmxDataFetcher.fetch(entry.getKey(), entry.getValue());
+                data = query.fetch();
             } catch (Exception e) {
                 InternalLogger.INSTANCE.error("Failed to fetch JMX data for '%s'..", getId());
                 return;
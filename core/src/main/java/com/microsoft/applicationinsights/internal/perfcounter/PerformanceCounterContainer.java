@@ -23,7 +23,6 @@ package com.microsoft.applicationinsights.internal.perfcounter;
 
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 import com.google.common.base.Preconditions;
@@ -34,7 +33,8 @@ import com.microsoft.applicationinsights.extensibility.PerformanceCountersCollec
 import com.microsoft.applicationinsights.internal.logger.InternalLogger;
 import com.microsoft.applicationinsights.internal.shutdown.SDKShutdownActivity;
 import com.microsoft.applicationinsights.internal.shutdown.Stoppable;
-import com.microsoft.applicationinsights.internal.util.ThreadPoolUtils;
+import com.microsoft.applicationinsights.internal.util.SDKScheduler;
+import com.microsoft.applicationinsights.internal.util.TaskGroup;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 
 /**
@@ -77,7 +77,7 @@ public enum PerformanceCounterContainer implements Stoppable {
 
     private TelemetryClient telemetryClient;
 
-    private ScheduledThreadPoolExecutor threads;
+    private TaskGroup threads;
 
     /**
      * /**
@@ -152,7 +152,7 @@ public enum PerformanceCounterContainer implements Stoppable {
             return;
         }
 
-        ThreadPoolUtils.stop(threads, timeout, timeUnit);
+        threads.stop(timeout, timeUnit);
         initialized = false;
     }
 
@@ -290,8 +290,7 @@ public enum PerformanceCounterContainer implements Stoppable {
     }
 
     private void createThreadToCollect() {
-        threads = new ScheduledThreadPoolExecutor(1);
-        threads.setThreadFactory(ThreadPoolUtils.createDaemonThreadFactory(PerformanceCounterContainer.class));
+        threads = SDKScheduler.INSTANCE.createTaskGroup(PerformanceCounterContainer.class.getSimpleName(), 1, 0);
     }
 
     public void setPlugin(PerformanceCountersCollectionPlugin plugin) {
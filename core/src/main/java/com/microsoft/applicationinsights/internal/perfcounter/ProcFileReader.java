@@ -0,0 +1,212 @@
+/*
+ * ApplicationInsights-Java
+ * Copyright (c) Microsoft Corporation
+ * All rights reserved.
+ *
+ * MIT License
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the ""Software""), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package com.microsoft.applicationinsights.internal.perfcounter;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * Reads small text files of the '/proc' and '/sys/fs/cgroup' filesystems.
+ *
+ * The content of a file is read into a byte buffer that is kept between reads, and numbers are
+ * parsed straight out of that buffer through a cursor, so a collection does not create Strings.
+ * The files have no meaningful size, they are read until the end of the stream.
+ *
+ * Instances are not thread safe.
+ */
+final class ProcFileReader {
+    private static final int INITIAL_BUFFER_SIZE = 4096;
+
+    private final File file;
+    private File source;
+    private byte[] buffer = new byte[INITIAL_BUFFER_SIZE];
+    private int length;
+    private int position;
+
+    /**
+     * Creates a reader that can only read files through {@link #read(File)}.
+     */
+    ProcFileReader() {
+        this(null);
+    }
+
+    ProcFileReader(File file) {
+        this.file = file;
+    }
+
+    File getFile() {
+        return file;
+    }
+
+    static byte[] ascii(String value) {
+        return value.getBytes(StandardCharsets.US_ASCII);
+    }
+
+    /**
+     * Reads the content of the file and moves the cursor to its start.
+     */
+    void read() throws IOException {
+        read(file);
+    }
+
+    /**
+     * Reads the content of another file into this reader's buffer and moves the cursor to its start.
+     */
+    void read(File source) throws IOException {
+        this.source = source;
+        length = 0;
+        position = 0;
+        FileInputStream in = new FileInputStream(source);
+        try {
+            int read;
+            while ((read = in.read(buffer, length, buffer.length - length)) > 0) {
+                length += read;
+                if (length == buffer.length) {
+                    buffer = Arrays.copyOf(buffer, buffer.length * 2);
+                }
+            }
+        } finally {
+            in.close();
+        }
+    }
+
+    /**
+     * Moves the cursor right after the prefix of the first line that starts with it.
+     * @return false if no line starts with the prefix, the cursor is then left unchanged.
+     */
+    boolean findLine(byte[] prefix) {
+        int lineStart = 0;
+        while (lineStart < length) {
+            if (startsWith(lineStart, prefix)) {
+                position = lineStart + prefix.length;
+                return true;
+            }
+            lineStart = indexOf((byte) '\n', lineStart);
+            if (lineStart < 0) {
+                break;
+            }
+            ++lineStart;
+        }
+        return false;
+    }
+
+    /**
+     * Moves the cursor right after the last occurrence of the character in the file.
+     * @return false if the character is not found, the cursor is then left unchanged.
+     */
+    boolean skipPastLast(char c) {
+        for (int i = length - 1; i >= position; --i) {
+            if (buffer[i] == c) {
+                position = i + 1;
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return true if there is another token before the end of the current line.
+     */
+    boolean hasNextOnLine() {
+        skipBlanks();
+        return position < length && buffer[position] != '\n';
+    }
+
+    /**
+     * Consumes the next token if it is equal to the given one.
+     */
+    boolean nextIs(byte[] token) {
+        skipBlanks();
+        int end = position + token.length;
+        if (!startsWith(position, token) || (end < length && !isSeparator(buffer[end]))) {
+            return false;
+        }
+        position = end;
+        return true;
+    }
+
+    void skipToken() {
+        skipBlanks();
+        while (position < length && !isSeparator(buffer[position])) {
+            ++position;
+        }
+    }
+
+    /**
+     * Parses the next token of the current line as a decimal long.
+     * @throws NumberFormatException if the next token does not start with a number.
+     */
+    long nextLong() {
+        skipBlanks();
+        boolean negative = position < length && buffer[position] == '-';
+        int start = negative ? position + 1 : position;
+        int i = start;
+        long value = 0;
+        while (i < length && buffer[i] >= '0' && buffer[i] <= '9') {
+            int digit = buffer[i] - '0';
+            if (value > (Long.MAX_VALUE - digit) / 10) {
+                throw new NumberFormatException("Number too large at offset " + position + " of " + source);
+            }
+            value = value * 10 + digit;
+            ++i;
+        }
+        if (i == start) {
+            throw new NumberFormatException("Expected a number at offset " + position + " of " + source);
+        }
+        position = i;
+        return negative ? -value : value;
+    }
+
+    private void skipBlanks() {
+        while (position < length && (buffer[position] == ' ' || buffer[position] == '\t')) {
+            ++position;
+        }
+    }
+
+    private boolean startsWith(int offset, byte[] prefix) {
+        if (offset + prefix.length > length) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length; ++i) {
+            if (buffer[offset + i] != prefix[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private int indexOf(byte b, int from) {
+        for (int i = from; i < length; ++i) {
+            if (buffer[i] == b) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean isSeparator(byte b) {
+        return b == ' ' || b == '\t' || b == '\n';
+    }
+}
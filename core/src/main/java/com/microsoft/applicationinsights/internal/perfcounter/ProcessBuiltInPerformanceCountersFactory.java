@@ -35,6 +35,8 @@ import com.microsoft.applicationinsights.internal.system.SystemInformation;
  */
 final class ProcessBuiltInPerformanceCountersFactory implements PerformanceCountersFactory, WindowsPerformanceCountersFactory {
     private Iterable<WindowsPerformanceCounterData> windowsPCsData;
+    private boolean threadCpuEnabled;
+    private boolean taskGroupsEnabled;
 
     /**
      * Creates the {@link com.microsoft.applicationinsights.internal.perfcounter.PerformanceCounter} that are
@@ -76,6 +78,9 @@ final class ProcessBuiltInPerformanceCountersFactory implements PerformanceCount
 
         performanceCounters.add(new ProcessMemoryPerformanceCounter());
         performanceCounters.add(new ProcessCpuPerformanceCounter());
+        if (taskGroupsEnabled) {
+            performanceCounters.add(new TaskGroupPerformanceCounter());
+        }
 
         return performanceCounters;
     }
@@ -89,6 +94,14 @@ final class ProcessBuiltInPerformanceCountersFactory implements PerformanceCount
         performanceCounters.add(new UnixProcessIOPerformanceCounter());
         performanceCounters.add(new UnixTotalCpuPerformanceCounter());
         performanceCounters.add(new UnixTotalMemoryPerformanceCounter());
+        if (threadCpuEnabled) {
+            performanceCounters.add(new UnixThreadCpuPerformanceCounter());
+        }
+
+        ContainerCpuPerformanceCounterCalculator containerCalculator = ContainerCpuPerformanceCounterCalculator.create();
+        if (containerCalculator != null && containerCalculator.isContainer()) {
+            performanceCounters.add(new UnixCGroupPerformanceCounter(containerCalculator));
+        }
 
         return performanceCounters;
     }
@@ -140,4 +153,18 @@ final class ProcessBuiltInPerformanceCountersFactory implements PerformanceCount
     public void setWindowsPCs(Iterable<WindowsPerformanceCounterData> windowsPCsData) {
         this.windowsPCsData = windowsPCsData;
     }
+
+    /**
+     * @param threadCpuEnabled Whether the cpu usage of the busiest threads is reported on Unix, off by default.
+     */
+    void setThreadCpuEnabled(boolean threadCpuEnabled) {
+        this.threadCpuEnabled = threadCpuEnabled;
+    }
+
+    /**
+     * @param taskGroupsEnabled Whether the statistics of the task groups of the SDK are reported, off by default.
+     */
+    void setTaskGroupsEnabled(boolean taskGroupsEnabled) {
+        this.taskGroupsEnabled = taskGroupsEnabled;
+    }
 }
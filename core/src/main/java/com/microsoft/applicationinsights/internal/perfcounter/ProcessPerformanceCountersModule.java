@@ -57,6 +57,11 @@ public final class ProcessPerformanceCountersModule extends AbstractPerformanceC
      */
     @Override
     public void addConfigurationData(PerformanceCountersXmlElement configuration) {
+        if (factory instanceof ProcessBuiltInPerformanceCountersFactory) {
+            ((ProcessBuiltInPerformanceCountersFactory) factory).setThreadCpuEnabled(configuration.isThreadCpu());
+            ((ProcessBuiltInPerformanceCountersFactory) factory).setTaskGroupsEnabled(configuration.isTaskGroups());
+        }
+
         if (!SystemInformation.INSTANCE.isWindows()) {
             InternalLogger.INSTANCE.trace("Windows performance counters are not relevant on this OS.");
             return;
@@ -0,0 +1,134 @@
+/*
+ * ApplicationInsights-Java
+ * Copyright (c) Microsoft Corporation
+ * All rights reserved.
+ *
+ * MIT License
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the ""Software""), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package com.microsoft.applicationinsights.internal.perfcounter;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.microsoft.applicationinsights.TelemetryClient;
+import com.microsoft.applicationinsights.internal.logger.InternalLogger;
+import com.microsoft.applicationinsights.internal.util.SDKScheduler;
+import com.microsoft.applicationinsights.internal.util.TaskGroup;
+import com.microsoft.applicationinsights.telemetry.MetricTelemetry;
+
+/**
+ * Reports the load of the {@link TaskGroup}s of the {@link SDKScheduler}, one set of metrics per group
+ * with the name of the group in the {@link #TASK_GROUP_PROPERTY} property.
+ *
+ * The active and queued tasks are sampled, the other counts are the difference since the previous report.
+ * Groups that were idle since the previous report are not sent.
+ * These are metrics of the SDK itself, sent to the resource of the application, so the counter is only
+ * created when 'TaskGroups' is enabled in the performance counters configuration.
+ */
+final class TaskGroupPerformanceCounter extends AbstractPerformanceCounter {
+    static final String TASK_GROUP_PROPERTY = "Task Group";
+    static final String ACTIVE_TASKS_METRIC_NAME = "SDK Active Tasks";
+    static final String QUEUED_TASKS_METRIC_NAME = "SDK Queued Tasks";
+    static final String COMPLETED_TASKS_METRIC_NAME = "SDK Completed Tasks";
+    static final String FAILED_TASKS_METRIC_NAME = "SDK Failed Tasks";
+    static final String REJECTED_TASKS_METRIC_NAME = "SDK Rejected Tasks";
+    static final String SKIPPED_RUNS_METRIC_NAME = "SDK Skipped Runs";
+    static final String RUN_TIME_METRIC_NAME = "SDK Task Run Time (ms)";
+
+    /**
+     * The cumulative counts of a group at the previous report.
+     */
+    private static final class Counts {
+        long completed;
+        long failed;
+        long rejected;
+        long skipped;
+        long runTimeInMillis;
+    }
+
+    private final SDKScheduler scheduler;
+    private Map<TaskGroup, Counts> prevCounts = new HashMap<TaskGroup, Counts>();
+
+    TaskGroupPerformanceCounter() {
+        this(SDKScheduler.INSTANCE);
+    }
+
+    TaskGroupPerformanceCounter(SDKScheduler scheduler) {
+        this.scheduler = scheduler;
+    }
+
+    @Override
+    public String getId() {
+        return Constants.TASK_GROUP_PC_ID;
+    }
+
+    @Override
+    public void report(TelemetryClient telemetryClient) {
+        // The groups that were stopped since the previous report are dropped
+        Map<TaskGroup, Counts> counts = new HashMap<TaskGroup, Counts>();
+        for (TaskGroup taskGroup : scheduler.getTaskGroups()) {
+            Counts current = new Counts();
+            current.completed = taskGroup.getCompletedTaskCount();
+            current.failed = taskGroup.getFailedTaskCount();
+            current.rejected = taskGroup.getRejectedTaskCount();
+            current.skipped = taskGroup.getSkippedRunCount();
+            current.runTimeInMillis = taskGroup.getRunTime(TimeUnit.MILLISECONDS);
+            counts.put(taskGroup, current);
+
+            Counts prev = prevCounts.get(taskGroup);
+            if (prev == null) {
+                prev = new Counts();
+            }
+            report(telemetryClient, taskGroup, current, prev);
+        }
+        prevCounts = counts;
+    }
+
+    private static void report(TelemetryClient telemetryClient, TaskGroup taskGroup, Counts current, Counts prev) {
+        int activeTasks = taskGroup.getActiveTaskCount();
+        int queuedTasks = taskGroup.getQueuedTaskCount();
+        long completed = current.completed - prev.completed;
+        long failed = current.failed - prev.failed;
+        long rejected = current.rejected - prev.rejected;
+        long skipped = current.skipped - prev.skipped;
+        long runTimeInMillis = current.runTimeInMillis - prev.runTimeInMillis;
+        if (activeTasks == 0 && queuedTasks == 0 && completed == 0 && failed == 0 && rejected == 0 && skipped == 0) {
+            return;
+        }
+
+        String name = taskGroup.getName();
+        InternalLogger.INSTANCE.trace("Performance Counter: task group '%s': active %d, queued %d, completed %d, failed %d, rejected %d, skipped %d, run time %d ms",
+                name, activeTasks, queuedTasks, completed, failed, rejected, skipped, runTimeInMillis);
+        telemetryClient.track(createMetric(name, ACTIVE_TASKS_METRIC_NAME, activeTasks));
+        telemetryClient.track(createMetric(name, QUEUED_TASKS_METRIC_NAME, queuedTasks));
+        telemetryClient.track(createMetric(name, COMPLETED_TASKS_METRIC_NAME, completed));
+        telemetryClient.track(createMetric(name, FAILED_TASKS_METRIC_NAME, failed));
+        telemetryClient.track(createMetric(name, REJECTED_TASKS_METRIC_NAME, rejected));
+        telemetryClient.track(createMetric(name, SKIPPED_RUNS_METRIC_NAME, skipped));
+        telemetryClient.track(createMetric(name, RUN_TIME_METRIC_NAME, runTimeInMillis));
+    }
+
+    private static MetricTelemetry createMetric(String taskGroupName, String name, double value) {
+        MetricTelemetry telemetry = new MetricTelemetry();
+        telemetry.markAsCustomPerfCounter();
+        telemetry.setName(name);
+        telemetry.setValue(value);
+        telemetry.getProperties().put(TASK_GROUP_PROPERTY, taskGroupName);
+        return telemetry;
+    }
+}
@@ -0,0 +1,305 @@
+/*
+ * ApplicationInsights-Java
+ * Copyright (c) Microsoft Corporation
+ * All rights reserved.
+ *
+ * MIT License
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the ""Software""), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package com.microsoft.applicationinsights.internal.perfcounter;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+
+import com.microsoft.applicationinsights.internal.logger.InternalLogger;
+
+/**
+ * Reads the cpu and memory limits and usage of the control group (cgroup) of the process, for both cgroup v1 and v2.
+ *
+ * The cgroup of the process is the one listed in '/proc/self/cgroup', under the cgroup filesystem
+ * mounted at '/sys/fs/cgroup'. Container runtimes that do not use a cgroup namespace list the full path
+ * of the container on the host but mount its cgroup at the root, so the root is used when that path does not exist.
+ */
+final class UnixCGroup {
+    enum Version {
+        V1,
+        V2
+    }
+
+    /**
+     * The cumulative cpu statistics of a cgroup, the values are -1 when the cgroup does not report them.
+     */
+    static final class CpuStat {
+        long usageNanos = -1;
+        long periods = -1;
+        long throttledPeriods = -1;
+        long throttledNanos = -1;
+    }
+
+    final static String DEFAULT_ROOT = "/sys/fs/cgroup";
+    final static String SELF_CGROUP_FILE = "/proc/self/cgroup";
+
+    /// The key of the cgroup v2 hierarchy in the paths read from '/proc/self/cgroup', which lists no controllers for it
+    private final static String V2_HIERARCHY = "";
+    private final static String ROOT_PATH = "/";
+
+    /// Returned when there is no limit
+    final static long NO_LIMIT = -1;
+
+    /// cgroup v1 reports 'no limit' as the largest long rounded down to the page size
+    private final static long V1_UNLIMITED_MEMORY = Long.MAX_VALUE - 65535;
+
+    private final static byte[] MAX = ProcFileReader.ascii("max");
+    private final static byte[] V2_USAGE = ProcFileReader.ascii("usage_usec ");
+    private final static byte[] V2_THROTTLED_TIME = ProcFileReader.ascii("throttled_usec ");
+    private final static byte[] V1_THROTTLED_TIME = ProcFileReader.ascii("throttled_time ");
+    private final static byte[] PERIODS = ProcFileReader.ascii("nr_periods ");
+    private final static byte[] THROTTLED_PERIODS = ProcFileReader.ascii("nr_throttled ");
+    private final static byte[] OOM_KILLS = ProcFileReader.ascii("oom_kill ");
+    private final static long NANOS_IN_MICRO = 1000;
+
+    private final Version version;
+    private final boolean inRootCGroup;
+    private final ProcFileReader cpuQuotaReader;
+    private final ProcFileReader cpuPeriodReader;
+    private final ProcFileReader memoryLimitReader;
+    private final ProcFileReader cpuStatReader;
+    private final ProcFileReader cpuUsageReader;
+    private final ProcFileReader memoryUsageReader;
+    private final ProcFileReader memoryEventsReader;
+
+    private UnixCGroup(Version version, boolean inRootCGroup, File cpuFolder, File cpuAccountingFolder, File memoryFolder) {
+        this.version = version;
+        this.inRootCGroup = inRootCGroup;
+        if (version == Version.V2) {
+            cpuQuotaReader = new ProcFileReader(new File(cpuFolder, "cpu.max"));
+            cpuPeriodReader = cpuQuotaReader;
+            memoryLimitReader = new ProcFileReader(new File(memoryFolder, "memory.max"));
+            cpuStatReader = new ProcFileReader(new File(cpuFolder, "cpu.stat"));
+            cpuUsageReader = cpuStatReader;
+            memoryUsageReader = new ProcFileReader(new File(memoryFolder, "memory.current"));
+            memoryEventsReader = new ProcFileReader(new File(memoryFolder, "memory.events"));
+        } else {
+            cpuQuotaReader = new ProcFileReader(new File(cpuFolder, "cpu.cfs_quota_us"));
+            cpuPeriodReader = new ProcFileReader(new File(cpuFolder, "cpu.cfs_period_us"));
+            memoryLimitReader = new ProcFileReader(new File(memoryFolder, "memory.limit_in_bytes"));
+            cpuStatReader = new ProcFileReader(new File(cpuFolder, "cpu.stat"));
+            cpuUsageReader = new ProcFileReader(new File(cpuAccountingFolder, "cpuacct.usage"));
+            memoryUsageReader = new ProcFileReader(new File(memoryFolder, "memory.usage_in_bytes"));
+            memoryEventsReader = new ProcFileReader(new File(memoryFolder, "memory.oom_control"));
+        }
+    }
+
+    /**
+     * @return the cgroup of the process, or null if there is no cgroup filesystem.
+     */
+    static UnixCGroup detect() {
+        return detect(new File(DEFAULT_ROOT), new File(SELF_CGROUP_FILE));
+    }
+
+    /**
+     * @param root The folder the cgroup filesystem is mounted at.
+     * @param selfCGroupFile The file that lists the cgroups of the process. The process is taken to be
+     *                       in the root cgroup of the hierarchies it does not list.
+     */
+    static UnixCGroup detect(File root, File selfCGroupFile) {
+        Map<String, String> paths = readPaths(selfCGroupFile);
+        if (new File(root, "cgroup.controllers").isFile()) {
+            String path = getPath(paths, V2_HIERARCHY);
+            File folder = resolve(root, path);
+            return new UnixCGroup(Version.V2, isRoot(path), folder, folder, folder);
+        }
+        if (new File(root, "cpu").isDirectory() || new File(root, "memory").isDirectory()) {
+            String cpuPath = getPath(paths, "cpu");
+            String memoryPath = getPath(paths, "memory");
+            return new UnixCGroup(Version.V1, isRoot(cpuPath) && isRoot(memoryPath),
+                    resolve(new File(root, "cpu"), cpuPath),
+                    resolve(new File(root, "cpuacct"), getPath(paths, "cpuacct")),
+                    resolve(new File(root, "memory"), memoryPath));
+        }
+        return null;
+    }
+
+    /**
+     * Each line of the file is 'hierarchy id:comma separated controllers:path', the controllers are empty for cgroup v2.
+     * @return the path of the cgroup of the process by controller, empty if the file cannot be read.
+     */
+    static Map<String, String> readPaths(File selfCGroupFile) {
+        Map<String, String> paths = new HashMap<String, String>();
+        BufferedReader reader = null;
+        try {
+            reader = new BufferedReader(new InputStreamReader(new FileInputStream(selfCGroupFile), StandardCharsets.UTF_8));
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split(":", 3);
+                if (fields.length < 3) {
+                    continue;
+                }
+                for (String controller : fields[1].split(",")) {
+                    paths.put(controller, fields[2]);
+                }
+            }
+        } catch (IOException e) {
+            InternalLogger.INSTANCE.trace("Could not read '%s': '%s'", selfCGroupFile, e.toString());
+        } finally {
+            if (reader != null) {
+                try {
+                    reader.close();
+                } catch (IOException e) {
+                    // chomp
+                }
+            }
+        }
+        return paths;
+    }
+
+    private static String getPath(Map<String, String> paths, String controller) {
+        String path = paths.get(controller);
+        return path == null ? ROOT_PATH : path;
+    }
+
+    private static boolean isRoot(String path) {
+        return ROOT_PATH.equals(path);
+    }
+
+    private static File resolve(File mount, String path) {
+        if (isRoot(path)) {
+            return mount;
+        }
+        File folder = new File(mount, path);
+        return folder.isDirectory() ? folder : mount;
+    }
+
+    Version getVersion() {
+        return version;
+    }
+
+    /**
+     * @return true if '/proc/self/cgroup' puts the process in the root cgroup, for both the cpu and the memory.
+     */
+    boolean isInRootCGroup() {
+        return inRootCGroup;
+    }
+
+    /**
+     * The root cgroup holds every process of the host that was not put in a cgroup of its own,
+     * its usage is not the one of a container.
+     * @return true if the process is in a cgroup below the root, or if its cgroup has a cpu or memory limit.
+     */
+    boolean isContainer() throws IOException {
+        return !inRootCGroup || getCpuLimit() > 0 || getMemoryLimit() > 0;
+    }
+
+    /**
+     * @return the number of cpus the cgroup may use per period, or {@link #NO_LIMIT}.
+     */
+    double getCpuLimit() throws IOException {
+        if (!readIfExists(cpuQuotaReader) || cpuQuotaReader.nextIs(MAX)) {
+            return NO_LIMIT;
+        }
+        long quota = cpuQuotaReader.nextLong();
+        if (version == Version.V1 && !readIfExists(cpuPeriodReader)) {
+            return NO_LIMIT;
+        }
+        long period = cpuPeriodReader.nextLong();
+        if (quota <= 0 || period <= 0) {
+            return NO_LIMIT;
+        }
+        return (double) quota / period;
+    }
+
+    /**
+     * @return the memory limit of the cgroup in bytes, or {@link #NO_LIMIT}.
+     */
+    long getMemoryLimit() throws IOException {
+        if (!readIfExists(memoryLimitReader) || memoryLimitReader.nextIs(MAX)) {
+            return NO_LIMIT;
+        }
+        long limit = memoryLimitReader.nextLong();
+        if (limit <= 0 || limit >= V1_UNLIMITED_MEMORY) {
+            return NO_LIMIT;
+        }
+        return limit;
+    }
+
+    /**
+     * Reads the cumulative cpu usage and throttling of the cgroup into the given statistics.
+     */
+    void readCpuStat(CpuStat stat) throws IOException {
+        stat.usageNanos = -1;
+        stat.periods = -1;
+        stat.throttledPeriods = -1;
+        stat.throttledNanos = -1;
+
+        if (readIfExists(cpuStatReader)) {
+            stat.periods = readValue(cpuStatReader, PERIODS, 1);
+            stat.throttledPeriods = readValue(cpuStatReader, THROTTLED_PERIODS, 1);
+            if (version == Version.V2) {
+                stat.throttledNanos = readValue(cpuStatReader, V2_THROTTLED_TIME, NANOS_IN_MICRO);
+                stat.usageNanos = readValue(cpuStatReader, V2_USAGE, NANOS_IN_MICRO);
+            } else {
+                stat.throttledNanos = readValue(cpuStatReader, V1_THROTTLED_TIME, 1);
+            }
+        }
+        if (version == Version.V1 && readIfExists(cpuUsageReader)) {
+            stat.usageNanos = cpuUsageReader.nextLong();
+        }
+    }
+
+    /**
+     * @return the memory used by the cgroup in bytes, page cache included, or -1 if it is not reported.
+     */
+    long getMemoryUsage() throws IOException {
+        if (!readIfExists(memoryUsageReader)) {
+            return -1;
+        }
+        return memoryUsageReader.nextLong();
+    }
+
+    /**
+     * @return the number of processes of the cgroup killed because it was out of memory, or -1 if it is not reported.
+     */
+    long getOomKills() throws IOException {
+        if (!readIfExists(memoryEventsReader)) {
+            return -1;
+        }
+        return readValue(memoryEventsReader, OOM_KILLS, 1);
+    }
+
+    private static long readValue(ProcFileReader reader, byte[] key, long multiplier) {
+        if (!reader.findLine(key)) {
+            return -1;
+        }
+        return reader.nextLong() * multiplier;
+    }
+
+    /**
+     * Controllers that are not enabled for the cgroup have no files, which means no limit.
+     */
+    private static boolean readIfExists(ProcFileReader reader) throws IOException {
+        if (!reader.getFile().isFile()) {
+            return false;
+        }
+        reader.read();
+        return true;
+    }
+}
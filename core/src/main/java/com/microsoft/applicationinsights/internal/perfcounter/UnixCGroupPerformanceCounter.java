@@ -0,0 +1,124 @@
+/*
+ * ApplicationInsights-Java
+ * Copyright (c) Microsoft Corporation
+ * All rights reserved.
+ *
+ * MIT License
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the ""Software""), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package com.microsoft.applicationinsights.internal.perfcounter;
+
+import java.io.IOException;
+
+import com.microsoft.applicationinsights.TelemetryClient;
+import com.microsoft.applicationinsights.internal.logger.InternalLogger;
+import com.microsoft.applicationinsights.telemetry.PerformanceCounterTelemetry;
+
+import org.apache.commons.lang3.exception.ExceptionUtils;
+
+/**
+ * The class supplies the resource usage of the container the process runs in, as seen by its cgroup:
+ * the cpu usage out of the cpu limit, the cpu throttling, the memory usage and the out of memory kills.
+ *
+ * Throttling and kills are sent as the difference since the previous report.
+ */
+final class UnixCGroupPerformanceCounter extends AbstractPerformanceCounter {
+    private final static double NANOS_IN_MILLI = 1000000.0;
+
+    private final ContainerCpuPerformanceCounterCalculator cpuCalculator;
+    private final UnixCGroup cgroup;
+
+    private long prevThrottledPeriods = -1;
+    private long prevThrottledNanos = -1;
+    private long prevOomKills = -1;
+
+    UnixCGroupPerformanceCounter(ContainerCpuPerformanceCounterCalculator cpuCalculator) {
+        this.cpuCalculator = cpuCalculator;
+        this.cgroup = cpuCalculator.getCGroup();
+    }
+
+    @Override
+    public String getId() {
+        return Constants.CONTAINER_PC_ID;
+    }
+
+    @Override
+    public void report(TelemetryClient telemetryClient) {
+        Double cpuUsage = cpuCalculator.getCpuUsage();
+        if (cpuUsage != null) {
+            send(telemetryClient, Constants.CPU_PC_COUNTER_NAME, cpuUsage);
+        }
+        reportThrottling(telemetryClient, cpuCalculator.getCpuStat());
+
+        try {
+            reportMemory(telemetryClient);
+        } catch (Exception e) {
+            InternalLogger.INSTANCE.error("Error while reading the cgroup memory: '%s'", e.toString());
+            InternalLogger.INSTANCE.trace("Stack trace generated is %s", ExceptionUtils.getStackTrace(e));
+        }
+    }
+
+    private void reportThrottling(TelemetryClient telemetryClient, UnixCGroup.CpuStat cpuStat) {
+        if (cpuStat.throttledPeriods >= 0) {
+            if (prevThrottledPeriods >= 0) {
+                send(telemetryClient, Constants.CONTAINER_THROTTLED_PERIODS_PC_COUNTER_NAME, delta(cpuStat.throttledPeriods, prevThrottledPeriods));
+            }
+            prevThrottledPeriods = cpuStat.throttledPeriods;
+        }
+        if (cpuStat.throttledNanos >= 0) {
+            if (prevThrottledNanos >= 0) {
+                send(telemetryClient, Constants.CONTAINER_THROTTLED_TIME_PC_COUNTER_NAME, delta(cpuStat.throttledNanos, prevThrottledNanos) / NANOS_IN_MILLI);
+            }
+            prevThrottledNanos = cpuStat.throttledNanos;
+        }
+    }
+
+    private void reportMemory(TelemetryClient telemetryClient) throws IOException {
+        long memoryUsage = cgroup.getMemoryUsage();
+        if (memoryUsage >= 0) {
+            send(telemetryClient, Constants.CONTAINER_MEMORY_PC_COUNTER_NAME, memoryUsage);
+
+            long memoryLimit = cgroup.getMemoryLimit();
+            if (memoryLimit > 0) {
+                send(telemetryClient, Constants.CONTAINER_MEMORY_PERCENT_PC_COUNTER_NAME, Math.min(100.0, 100.0 * memoryUsage / memoryLimit));
+            }
+        }
+
+        long oomKills = cgroup.getOomKills();
+        if (oomKills >= 0) {
+            if (prevOomKills >= 0) {
+                send(telemetryClient, Constants.CONTAINER_OOM_KILLS_PC_COUNTER_NAME, delta(oomKills, prevOomKills));
+            }
+            prevOomKills = oomKills;
+        }
+    }
+
+    /**
+     * The counters are reset when the cgroup is recreated, the new value is the delta then.
+     */
+    private static long delta(long value, long prevValue) {
+        return value >= prevValue ? value - prevValue : value;
+    }
+
+    private static void send(TelemetryClient telemetryClient, String counterName, double value) {
+        InternalLogger.INSTANCE.trace("Performance Counter: %s %s: %s", Constants.CONTAINER_PC_CATEGORY_NAME, counterName, value);
+        telemetryClient.track(new PerformanceCounterTelemetry(
+                Constants.CONTAINER_PC_CATEGORY_NAME,
+                counterName,
+                Constants.INSTANCE_NAME_TOTAL,
+                value));
+    }
+}
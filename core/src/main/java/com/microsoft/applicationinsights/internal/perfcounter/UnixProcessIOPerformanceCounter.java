@@ -21,9 +21,6 @@
 
 package com.microsoft.applicationinsights.internal.perfcounter;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
-
 import com.microsoft.applicationinsights.TelemetryClient;
 import com.microsoft.applicationinsights.internal.logger.InternalLogger;
 import com.microsoft.applicationinsights.internal.system.SystemInformation;
@@ -42,6 +39,8 @@ import org.apache.commons.lang3.exception.ExceptionUtils;
  */
 final class UnixProcessIOPerformanceCounter extends AbstractUnixPerformanceCounter {
     private final static double NANOS_IN_SECOND = 1000000000.0;
+    private final static byte[] READ_BYTES_PREFIX = ProcFileReader.ascii("read_bytes:");
+    private final static byte[] WRITE_BYTES_PREFIX = ProcFileReader.ascii("write_bytes:");
 
     private double prevProcessIO;
 
@@ -91,33 +90,28 @@ final class UnixProcessIOPerformanceCounter extends AbstractUnixPerformanceCount
      * @return the current IO for current process, or null if the datum could not be measured.
      */
     public Double getCurrentIOForCurrentProcess() {
-        BufferedReader bufferedReader = null;
-
-        Double result = null;
-        UnixProcessIOtParser parser = new UnixProcessIOtParser();
+        ProcFileReader reader = getProcessFileReader();
         try {
-            bufferedReader = new BufferedReader(new FileReader(getProcessFile()));
-            String line;
-            while (!parser.done() && (line = bufferedReader.readLine()) != null) {
-                parser.process(line);
-            }
-
-            result = parser.getValue();
+            reader.read();
+            return (double) parseReadAndWrittenBytes(reader);
         } catch (Exception e) {
-            result = null;
             logPerfCounterErrorError("Error while parsing file: '%s'", getId());
             InternalLogger.INSTANCE.trace("Stack trace generated is %s", ExceptionUtils.getStackTrace(e));
-        } finally {
-            if (bufferedReader != null ) {
-                try {
-                    bufferedReader.close();
-                } catch (Exception e) {
-                    logPerfCounterErrorError("Error while closing file : '%s'", e.toString());
-                    InternalLogger.INSTANCE.trace("Stack trace generated is %s", ExceptionUtils.getStackTrace(e));
-                }
-            }
+            return null;
         }
+    }
 
+    /**
+     * @return the sum of the 'read_bytes' and 'write_bytes' of an io file that was read by the reader.
+     */
+    static long parseReadAndWrittenBytes(ProcFileReader reader) {
+        long result = 0;
+        if (reader.findLine(READ_BYTES_PREFIX)) {
+            result += reader.nextLong();
+        }
+        if (reader.findLine(WRITE_BYTES_PREFIX)) {
+            result += reader.nextLong();
+        }
         return result;
     }
 }
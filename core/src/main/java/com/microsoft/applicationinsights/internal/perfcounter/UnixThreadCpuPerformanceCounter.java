@@ -0,0 +1,137 @@
+/*
+ * ApplicationInsights-Java
+ * Copyright (c) Microsoft Corporation
+ * All rights reserved.
+ *
+ * MIT License
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the ""Software""), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package com.microsoft.applicationinsights.internal.perfcounter;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import com.microsoft.applicationinsights.TelemetryClient;
+import com.microsoft.applicationinsights.internal.logger.InternalLogger;
+import com.microsoft.applicationinsights.telemetry.PerformanceCounterTelemetry;
+
+/**
+ * The class supplies the cpu usage of the busiest threads of the process, read by {@link UnixThreadCpuReader}.
+ *
+ * Only the threads that used the most cpu since the previous report are sent, one counter instance
+ * per thread, named by the thread id. That is the 'nid' in hexadecimal in a Java thread dump.
+ * Since every report reads a file per thread, the counter is only created when 'ThreadCpu' is enabled
+ * in the performance counters configuration.
+ */
+final class UnixThreadCpuPerformanceCounter extends AbstractPerformanceCounter {
+    /// The kernel reports the thread times in clock ticks (USER_HZ), which are 100 per second
+    private final static double TICKS_PER_SECOND = 100.0;
+    private final static double NANOS_IN_SECOND = 1000000000.0;
+
+    final static int MAX_REPORTED_THREADS = 5;
+
+    static final class ThreadCpuUsage {
+        final long threadId;
+        final double cpuUsage;
+
+        ThreadCpuUsage(long threadId, double cpuUsage) {
+            this.threadId = threadId;
+            this.cpuUsage = cpuUsage;
+        }
+    }
+
+    private final UnixThreadCpuReader reader;
+    private final int numberOfCpus;
+
+    private long prevNanos = -1;
+
+    UnixThreadCpuPerformanceCounter() {
+        this(new UnixThreadCpuReader(), ManagementFactory.getOperatingSystemMXBean().getAvailableProcessors());
+    }
+
+    UnixThreadCpuPerformanceCounter(UnixThreadCpuReader reader, int numberOfCpus) {
+        this.reader = reader;
+        this.numberOfCpus = numberOfCpus;
+    }
+
+    @Override
+    public String getId() {
+        return Constants.THREAD_CPU_PC_ID;
+    }
+
+    @Override
+    public void report(TelemetryClient telemetryClient) {
+        long nanos = System.nanoTime();
+        if (!reader.read()) {
+            return;
+        }
+
+        if (prevNanos >= 0 && nanos > prevNanos) {
+            double elapsedSeconds = (nanos - prevNanos) / NANOS_IN_SECOND;
+            for (ThreadCpuUsage usage : getBusiestThreads(reader.getThreads(), elapsedSeconds, numberOfCpus, MAX_REPORTED_THREADS)) {
+                String threadId = String.valueOf(usage.threadId);
+                InternalLogger.INSTANCE.trace("Performance Counter: %s %s %s: %s", getProcessCategoryName(), Constants.THREAD_CPU_PC_COUNTER_NAME, threadId, usage.cpuUsage);
+                telemetryClient.track(new PerformanceCounterTelemetry(
+                        getProcessCategoryName(),
+                        Constants.THREAD_CPU_PC_COUNTER_NAME,
+                        threadId,
+                        usage.cpuUsage));
+            }
+        }
+
+        prevNanos = nanos;
+    }
+
+    /**
+     * Threads that used no cpu are left out.
+     * @return the cpu usage of at most maxThreads threads, in percent of all the cpus, the busiest first.
+     */
+    static List<ThreadCpuUsage> getBusiestThreads(Collection<UnixThreadCpuReader.ThreadCpuTicks> threads,
+                                                  double elapsedSeconds, int numberOfCpus, int maxThreads) {
+        // the busiest threads so far, kept sorted, so only the reported threads allocate a usage
+        long[] busiestThreadIds = new long[maxThreads];
+        double[] busiestCpuUsages = new double[maxThreads];
+        int count = 0;
+        for (UnixThreadCpuReader.ThreadCpuTicks thread : threads) {
+            long usedTicks = thread.ticks - thread.prevTicks;
+            if (usedTicks <= 0) {
+                continue;
+            }
+
+            double cpuUsage = Math.min(100.0, 100.0 * usedTicks / TICKS_PER_SECOND / elapsedSeconds / numberOfCpus);
+            if (count == maxThreads && cpuUsage <= busiestCpuUsages[count - 1]) {
+                continue;
+            }
+
+            int index = count < maxThreads ? count++ : count - 1;
+            while (index > 0 && busiestCpuUsages[index - 1] < cpuUsage) {
+                busiestThreadIds[index] = busiestThreadIds[index - 1];
+                busiestCpuUsages[index] = busiestCpuUsages[index - 1];
+                --index;
+            }
+            busiestThreadIds[index] = thread.threadId;
+            busiestCpuUsages[index] = cpuUsage;
+        }
+
+        List<ThreadCpuUsage> usages = new ArrayList<ThreadCpuUsage>(count);
+        for (int i = 0; i < count; ++i) {
+            usages.add(new ThreadCpuUsage(busiestThreadIds[i], busiestCpuUsages[i]));
+        }
+        return usages;
+    }
+}
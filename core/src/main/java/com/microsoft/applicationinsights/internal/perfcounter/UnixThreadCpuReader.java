@@ -0,0 +1,142 @@
+/*
+ * ApplicationInsights-Java
+ * Copyright (c) Microsoft Corporation
+ * All rights reserved.
+ *
+ * MIT License
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the ""Software""), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package com.microsoft.applicationinsights.internal.perfcounter;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+/**
+ * Reads the cpu time used by each thread of the current process out of the '/proc/self/task/[tid]/stat' files.
+ *
+ * The values are in clock ticks (USER_HZ, normally 100 per second), as reported by the kernel.
+ * The state of a thread, including the path of its stat file, is kept from one read to the next,
+ * so reading a thread that was already seen allocates nothing but its folder name.
+ */
+final class UnixThreadCpuReader {
+    private final static String TASK_FOLDER = "/proc/self/task";
+
+    /// The fields that follow the command name (the 2nd field) in a stat file, up to the user time (the 14th field)
+    private final static int FIELDS_BEFORE_USER_TIME = 11;
+
+    /**
+     * The cpu time of one thread at the last two reads.
+     */
+    static final class ThreadCpuTicks {
+        final long threadId;
+        private final File statFile;
+
+        /// 0 for a thread that started since the previous read
+        long prevTicks;
+        long ticks;
+
+        private long readCount;
+
+        ThreadCpuTicks(long threadId, File statFile) {
+            this.threadId = threadId;
+            this.statFile = statFile;
+        }
+    }
+
+    private final File taskFolder;
+    private final ProcFileReader reader = new ProcFileReader();
+
+    /// Keyed by the name of the folder of the thread, which is its id
+    private final Map<String, ThreadCpuTicks> threads = new HashMap<String, ThreadCpuTicks>();
+    private long readCount;
+
+    UnixThreadCpuReader() {
+        this(new File(TASK_FOLDER));
+    }
+
+    UnixThreadCpuReader(File taskFolder) {
+        this.taskFolder = taskFolder;
+    }
+
+    /**
+     * Reads the user plus system time of every thread of the process.
+     * Threads that exited since the previous read, or while the folder is being read, are dropped.
+     * @return false if the task folder could not be listed.
+     */
+    boolean read() {
+        String[] threadIds = taskFolder.list();
+        if (threadIds == null) {
+            return false;
+        }
+
+        ++readCount;
+        for (String threadId : threadIds) {
+            try {
+                ThreadCpuTicks thread = threads.get(threadId);
+                if (thread == null) {
+                    thread = new ThreadCpuTicks(Long.parseLong(threadId), new File(new File(taskFolder, threadId), "stat"));
+                    reader.read(thread.statFile);
+                    thread.ticks = parseCpuTicks(reader);
+                    threads.put(threadId, thread);
+                } else {
+                    reader.read(thread.statFile);
+                    long ticks = parseCpuTicks(reader);
+                    thread.prevTicks = thread.ticks;
+                    thread.ticks = ticks;
+                }
+                thread.readCount = readCount;
+            } catch (IOException e) {
+                // the thread is gone
+            } catch (NumberFormatException e) {
+                // not a thread folder or not a stat file
+            }
+        }
+
+        for (Iterator<ThreadCpuTicks> iterator = threads.values().iterator(); iterator.hasNext(); ) {
+            if (iterator.next().readCount != readCount) {
+                iterator.remove();
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return the threads found by the last read, owned by the reader until the next read.
+     */
+    Collection<ThreadCpuTicks> getThreads() {
+        return threads.values();
+    }
+
+    /**
+     * @return the user time plus the system time of a stat file that was read by the reader.
+     */
+    static long parseCpuTicks(ProcFileReader reader) {
+        // the command name is in parentheses and may contain anything, including spaces and parentheses
+        if (!reader.skipPastLast(')')) {
+            throw new NumberFormatException("Missing command name in stat file");
+        }
+        for (int i = 0; i < FIELDS_BEFORE_USER_TIME; ++i) {
+            reader.skipToken();
+        }
+        long userTime = reader.nextLong();
+        long systemTime = reader.nextLong();
+        return userTime + systemTime;
+    }
+}
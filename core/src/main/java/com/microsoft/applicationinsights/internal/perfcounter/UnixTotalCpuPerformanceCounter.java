@@ -21,16 +21,13 @@
 
 package com.microsoft.applicationinsights.internal.perfcounter;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
-import java.util.ArrayList;
+import java.util.Arrays;
 
 import com.microsoft.applicationinsights.TelemetryClient;
 import com.microsoft.applicationinsights.internal.logger.InternalLogger;
 import com.microsoft.applicationinsights.telemetry.PerformanceCounterTelemetry;
 import com.microsoft.applicationinsights.telemetry.Telemetry;
 
-import com.google.common.base.Strings;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 
 /**
@@ -40,7 +37,9 @@ import org.apache.commons.lang3.exception.ExceptionUtils;
  */
 final class UnixTotalCpuPerformanceCounter extends AbstractUnixPerformanceCounter {
     private final static String STAT_FILE = "/proc/stat";
+    private final static byte[] TOTAL_CPU_PREFIX = ProcFileReader.ascii("cpu ");
 
+    private long[] cpuCounters = new long[16];
     private long[] prevCpuCounters;
     private long prevTotalCpuValue;
 
@@ -56,29 +55,15 @@ final class UnixTotalCpuPerformanceCounter extends AbstractUnixPerformanceCounte
 
     @Override
     public void report(TelemetryClient telemetryClient) {
-        String line = getLineOfData();
-
-        if (!Strings.isNullOrEmpty(line)) {
-            String[] rawStringValues = line.split(" ");
-
-            ArrayList<String> stringValues = new ArrayList<String>(rawStringValues.length - 1);
-            for (int i = 1; i < rawStringValues.length; ++i) {
-                String stringValue = rawStringValues[i];
-                if (Strings.isNullOrEmpty(stringValue)) {
-                    continue;
-                }
-
-                stringValues.add(stringValue);
-            }
-
-            String[] array = stringValues.toArray(new String[stringValues.size()]);
+        int count = readCpuCounters();
 
+        if (count > 0) {
             if (prevCpuCounters == null) {
-                getCountersForTheFirstTime(array);
+                getCountersForTheFirstTime(count);
                 return;
             }
 
-            double totalCpuUsage = calculateTotalCpuUsage(array);
+            double totalCpuUsage = calculateTotalCpuUsage(count);
 
             InternalLogger.INSTANCE.trace("Sending Performance Counter: %s %s %s: %s", Constants.TOTAL_CPU_PC_CATEGORY_NAME, Constants.CPU_PC_COUNTER_NAME, Constants.INSTANCE_NAME_TOTAL, totalCpuUsage);
             Telemetry telemetry = new PerformanceCounterTelemetry(
@@ -91,55 +76,52 @@ final class UnixTotalCpuPerformanceCounter extends AbstractUnixPerformanceCounte
         }
     }
 
-    private String getLineOfData() {
-        BufferedReader bufferedReader = null;
-
-        String line = null;
+    /**
+     * Reads the values of the first, aggregated, 'cpu' line into cpuCounters.
+     * @return the number of values read, 0 if the file could not be read.
+     */
+    private int readCpuCounters() {
+        ProcFileReader reader = getProcessFileReader();
         try {
-            bufferedReader = new BufferedReader(new FileReader(getProcessFile()));
-            line = bufferedReader.readLine();
+            reader.read();
+            if (!reader.findLine(TOTAL_CPU_PREFIX)) {
+                return 0;
+            }
+
+            int count = 0;
+            while (reader.hasNextOnLine()) {
+                if (count == cpuCounters.length) {
+                    cpuCounters = Arrays.copyOf(cpuCounters, count * 2);
+                }
+                cpuCounters[count++] = reader.nextLong();
+            }
+            return count;
         } catch (Exception e) {
             logPerfCounterErrorError("Error while parsing file: '%s'", e.toString());
             InternalLogger.INSTANCE.trace("Stack trace generated is %s", ExceptionUtils.getStackTrace(e));
-        } finally {
-            if (bufferedReader != null ) {
-                try {
-                    bufferedReader.close();
-                } catch (Exception e) {
-                    logPerfCounterErrorError("Error while closing file : '%s'", e.toString());
-                    InternalLogger.INSTANCE.trace("Stack trace generated is %s", ExceptionUtils.getStackTrace(e));
-                }
-            }
+            return 0;
         }
-
-        return line;
     }
 
-    private void getCountersForTheFirstTime(String[] stringValues) {
-        prevCpuCounters = new long[stringValues.length];
+    private void getCountersForTheFirstTime(int count) {
+        prevCpuCounters = Arrays.copyOf(cpuCounters, count);
         prevTotalCpuValue = 0;
-        for (int i = 0; i < stringValues.length; ++i) {
-            String stringValue = stringValues[i];
-            long value = Long.parseLong(stringValue);
-            prevCpuCounters[i] = value;
-            prevTotalCpuValue += value;
+        for (int i = 0; i < count; ++i) {
+            prevTotalCpuValue += prevCpuCounters[i];
         }
     }
 
-    private double calculateTotalCpuUsage(String[] stringValues) {
-        long[] cpuCounters = new long[stringValues.length];
+    private double calculateTotalCpuUsage(int count) {
         long totalCpuValue = 0;
         double diffIdle = 0.0;
-        for (int i = 0; i < stringValues.length; ++i) {
-            String stringValue = stringValues[i];
-            long value = Long.parseLong(stringValue);
-            cpuCounters[i] = value - prevCpuCounters[i];
+        for (int i = 0; i < count && i < prevCpuCounters.length; ++i) {
+            long value = cpuCounters[i];
+            if (i == 3) {
+                diffIdle = value - prevCpuCounters[i];
+            }
             prevCpuCounters[i] = value;
 
             totalCpuValue += value;
-            if (i == 3) {
-                diffIdle = cpuCounters[i];
-            }
         }
 
         double totalDiff = totalCpuValue - prevTotalCpuValue;
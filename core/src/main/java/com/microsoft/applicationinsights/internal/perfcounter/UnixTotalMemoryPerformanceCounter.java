@@ -21,9 +21,6 @@
 
 package com.microsoft.applicationinsights.internal.perfcounter;
 
-import java.io.BufferedReader;
-import java.io.FileReader;
-
 import com.microsoft.applicationinsights.TelemetryClient;
 import com.microsoft.applicationinsights.internal.logger.InternalLogger;
 import com.microsoft.applicationinsights.telemetry.PerformanceCounterTelemetry;
@@ -38,6 +35,13 @@ final class UnixTotalMemoryPerformanceCounter extends AbstractUnixPerformanceCou
     private final static String MEM_FILE = "/proc/meminfo";
     private final static double KB = 1024.0;
 
+    /// Free memory is what is not used at all plus what is used by the kernel for caches
+    private final static byte[][] AVAILABLE_MEMORY_PREFIXES = {
+            ProcFileReader.ascii("MemFree:"),
+            ProcFileReader.ascii("Buffers:"),
+            ProcFileReader.ascii("Cached:")
+    };
+
     public UnixTotalMemoryPerformanceCounter() {
         super(MEM_FILE);
     }
@@ -65,32 +69,28 @@ final class UnixTotalMemoryPerformanceCounter extends AbstractUnixPerformanceCou
     }
 
     private Double getTotalAvailableMemory() {
-        BufferedReader bufferedReader = null;
-
-        Double result = null;
-        UnixTotalMemInfoParser reader = new UnixTotalMemInfoParser();
+        ProcFileReader reader = getProcessFileReader();
         try {
-            bufferedReader = new BufferedReader(new FileReader(getProcessFile()));
-            String line;
-            while (!reader.done() && (line = bufferedReader.readLine()) != null) {
-                reader.process(line);
-            }
+            reader.read();
 
             // The value we get is in KB so we need to translate that to bytes.
-            result = reader.getValue() * KB;
+            return parseAvailableMemoryInKB(reader) * KB;
         } catch (Exception e) {
-            result = null;
             logPerfCounterErrorError("Error while parsing file: '%s'", e.toString());
-        } finally {
-            if (bufferedReader != null ) {
-                try {
-                    bufferedReader.close();
-                } catch (Exception e) {
-                    logPerfCounterErrorError("Error while closing file : '%s'", e.toString());
-                }
-            }
+            return null;
         }
+    }
 
+    /**
+     * @return the available memory, in KB, of a meminfo file that was read by the reader.
+     */
+    static long parseAvailableMemoryInKB(ProcFileReader reader) {
+        long result = 0;
+        for (byte[] prefix : AVAILABLE_MEMORY_PREFIXES) {
+            if (reader.findLine(prefix)) {
+                result += reader.nextLong();
+            }
+        }
         return result;
     }
 }
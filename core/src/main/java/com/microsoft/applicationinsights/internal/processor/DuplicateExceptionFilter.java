@@ -0,0 +1,203 @@
+/*
+ * ApplicationInsights-Java
+ * Copyright (c) Microsoft Corporation
+ * All rights reserved.
+ *
+ * MIT License
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the ""Software""), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package com.microsoft.applicationinsights.internal.processor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Ticker;
+import com.microsoft.applicationinsights.extensibility.TypedTelemetryProcessor;
+import com.microsoft.applicationinsights.internal.annotation.BuiltInProcessor;
+import com.microsoft.applicationinsights.internal.logger.InternalLogger;
+import com.microsoft.applicationinsights.telemetry.ExceptionTelemetry;
+import com.microsoft.applicationinsights.telemetry.Telemetry;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+
+/**
+ * The class lets through only one ExceptionTelemetry per exception fingerprint per interval.
+ *
+ * The fingerprint of an exception is the class and stack trace of the exception and of each of its causes.
+ * Duplicates within the interval are filtered out and counted, and the next exception with the same fingerprint
+ * that is sent carries their number in the '{@value #SUPPRESSED_OCCURRENCES_METRIC}' metric.
+ * Exceptions that were not created from a Throwable are never filtered out.
+ * <p>
+ * Invalid values would prevent the filter from being used.
+ */
+@BuiltInProcessor("DuplicateExceptionFilter")
+public final class DuplicateExceptionFilter implements TypedTelemetryProcessor {
+
+    public static final String SUPPRESSED_OCCURRENCES_METRIC = "Suppressed Occurrences";
+
+    public static final long DEFAULT_INTERVAL_IN_SECONDS = 60;
+
+    /// Fingerprints beyond this number are not tracked, so their exceptions are not filtered out
+    public static final int DEFAULT_MAX_FINGERPRINTS = 1000;
+
+    /// Guards against cycles in the chain of causes
+    private static final int MAX_FINGERPRINT_DEPTH = 64;
+
+    private static final Collection<Class<? extends Telemetry>> TELEMETRY_TYPES =
+            Collections.<Class<? extends Telemetry>>singletonList(ExceptionTelemetry.class);
+
+    private static final class Occurrences {
+        private long intervalStartInNanos;
+        private long suppressed;
+
+        private Occurrences(long intervalStartInNanos) {
+            this.intervalStartInNanos = intervalStartInNanos;
+        }
+    }
+
+    private final Ticker ticker;
+    private final ConcurrentMap<List<Object>, Occurrences> occurrences = new ConcurrentHashMap<List<Object>, Occurrences>();
+    private volatile long intervalInNanos = TimeUnit.SECONDS.toNanos(DEFAULT_INTERVAL_IN_SECONDS);
+    private volatile int maxFingerprints = DEFAULT_MAX_FINGERPRINTS;
+    private volatile long lastCleanupInNanos;
+
+    public DuplicateExceptionFilter() {
+        this(Ticker.systemTicker());
+    }
+
+    DuplicateExceptionFilter(Ticker ticker) {
+        this.ticker = ticker;
+        this.lastCleanupInNanos = ticker.read();
+    }
+
+    @Override
+    public boolean process(Telemetry telemetry) {
+        if (!(telemetry instanceof ExceptionTelemetry)) {
+            return true;
+        }
+
+        ExceptionTelemetry exceptionTelemetry = (ExceptionTelemetry) telemetry;
+        Throwable throwable = exceptionTelemetry.getThrowable();
+        if (throwable == null) {
+            return true;
+        }
+
+        long now = ticker.read();
+        removeExpired(now);
+
+        List<Object> fingerprint = getFingerprint(throwable);
+        Occurrences current = occurrences.get(fingerprint);
+        if (current == null) {
+            if (occurrences.size() >= maxFingerprints) {
+                return true;
+            }
+            current = occurrences.putIfAbsent(fingerprint, new Occurrences(now));
+            if (current == null) {
+                return true;
+            }
+        }
+
+        long suppressed;
+        synchronized (current) {
+            if (now - current.intervalStartInNanos < intervalInNanos) {
+                ++current.suppressed;
+                return false;
+            }
+
+            suppressed = current.suppressed;
+            current.suppressed = 0;
+            current.intervalStartInNanos = now;
+        }
+
+        if (suppressed > 0) {
+            exceptionTelemetry.getMetrics().put(SUPPRESSED_OCCURRENCES_METRIC, (double) suppressed);
+        }
+        return true;
+    }
+
+    @Override
+    public Collection<Class<? extends Telemetry>> getTelemetryTypes() {
+        return TELEMETRY_TYPES;
+    }
+
+    public void setIntervalInSeconds(String intervalInSeconds) throws NumberFormatException {
+        try {
+            long value = Long.parseLong(intervalInSeconds.trim());
+            if (value <= 0) {
+                throw new NumberFormatException("IntervalInSeconds must be positive: " + intervalInSeconds);
+            }
+            this.intervalInNanos = TimeUnit.SECONDS.toNanos(value);
+            InternalLogger.INSTANCE.trace("DuplicateExceptionFilter: successfully set IntervalInSeconds to %s", intervalInSeconds);
+        } catch (NumberFormatException e) {
+            InternalLogger.INSTANCE.error("DuplicateExceptionFilter: failed to set IntervalInSeconds:%s Exception : %s ",
+                    intervalInSeconds, ExceptionUtils.getStackTrace(e));
+            throw e;
+        }
+    }
+
+    public void setMaxFingerprints(String maxFingerprints) throws NumberFormatException {
+        try {
+            int value = Integer.parseInt(maxFingerprints.trim());
+            if (value <= 0) {
+                throw new NumberFormatException("MaxFingerprints must be positive: " + maxFingerprints);
+            }
+            this.maxFingerprints = value;
+            InternalLogger.INSTANCE.trace("DuplicateExceptionFilter: successfully set MaxFingerprints to %s", maxFingerprints);
+        } catch (NumberFormatException e) {
+            InternalLogger.INSTANCE.error("DuplicateExceptionFilter: failed to set MaxFingerprints:%s Exception : %s ",
+                    maxFingerprints, ExceptionUtils.getStackTrace(e));
+            throw e;
+        }
+    }
+
+    /**
+     * Once an interval, forgets the fingerprints that were not seen for a whole interval, so that
+     * fingerprints of exceptions that stopped happening do not take the place of new ones.
+     * Duplicates of forgotten fingerprints that were never reported are dropped with them.
+     */
+    private void removeExpired(long now) {
+        if (now - lastCleanupInNanos < intervalInNanos) {
+            return;
+        }
+        lastCleanupInNanos = now;
+
+        Iterator<Occurrences> iterator = occurrences.values().iterator();
+        while (iterator.hasNext()) {
+            Occurrences current = iterator.next();
+            synchronized (current) {
+                if (now - current.intervalStartInNanos >= 2 * intervalInNanos) {
+                    iterator.remove();
+                }
+            }
+        }
+    }
+
+    private static List<Object> getFingerprint(Throwable throwable) {
+        List<Object> fingerprint = new ArrayList<Object>();
+        int depth = 0;
+        for (Throwable current = throwable; current != null && depth < MAX_FINGERPRINT_DEPTH; current = current.getCause(), ++depth) {
+            fingerprint.add(current.getClass());
+            fingerprint.add(Arrays.asList(current.getStackTrace()));
+        }
+        return fingerprint;
+    }
+}
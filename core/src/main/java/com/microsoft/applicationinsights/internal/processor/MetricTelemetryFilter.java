@@ -22,10 +22,12 @@
 package com.microsoft.applicationinsights.internal.processor;
 
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 
-import com.microsoft.applicationinsights.extensibility.TelemetryProcessor;
+import com.microsoft.applicationinsights.extensibility.TypedTelemetryProcessor;
 import com.microsoft.applicationinsights.internal.logger.InternalLogger;
 import com.microsoft.applicationinsights.internal.util.LocalStringsUtils;
 import com.microsoft.applicationinsights.telemetry.MetricTelemetry;
@@ -39,7 +41,10 @@ import org.apache.commons.lang3.exception.ExceptionUtils;
  * <p>
  * Created by gupele on 8/7/2016.
  */
-public final class MetricTelemetryFilter implements TelemetryProcessor {
+public final class MetricTelemetryFilter implements TypedTelemetryProcessor {
+    private static final Collection<Class<? extends Telemetry>> TELEMETRY_TYPES =
+            Collections.<Class<? extends Telemetry>>singletonList(MetricTelemetry.class);
+
     private HashSet<String> notNeeded = new HashSet<String>();
 
     public void setNotNeeded(String allNotNeeded) throws Throwable {
@@ -83,4 +88,9 @@ public final class MetricTelemetryFilter implements TelemetryProcessor {
         }
         return true;
     }
+
+    @Override
+    public Collection<Class<? extends Telemetry>> getTelemetryTypes() {
+        return TELEMETRY_TYPES;
+    }
 }
@@ -23,11 +23,13 @@ package com.microsoft.applicationinsights.internal.processor;
 
 import java.net.URI;
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
-import com.microsoft.applicationinsights.extensibility.TelemetryProcessor;
+import com.microsoft.applicationinsights.extensibility.TypedTelemetryProcessor;
 import com.microsoft.applicationinsights.internal.annotation.BuiltInProcessor;
 import com.microsoft.applicationinsights.internal.logger.InternalLogger;
 import com.microsoft.applicationinsights.internal.util.LocalStringsUtils;
@@ -46,7 +48,10 @@ import org.apache.commons.lang3.exception.ExceptionUtils;
  * Created by gupele on 7/26/2016.
  */
 @BuiltInProcessor("PageViewTelemetryFilter")
-public final class PageViewTelemetryFilter implements TelemetryProcessor {
+public final class PageViewTelemetryFilter implements TypedTelemetryProcessor {
+    private static final Collection<Class<? extends Telemetry>> TELEMETRY_TYPES =
+            Collections.<Class<? extends Telemetry>>singletonList(PageViewTelemetry.class);
+
 
     private long durationThresholdInMS = 0l;
     private final Set<String> notNeededUrls = new HashSet<String>();
@@ -90,6 +95,11 @@ public final class PageViewTelemetryFilter implements TelemetryProcessor {
         return false;
     }
 
+    @Override
+    public Collection<Class<? extends Telemetry>> getTelemetryTypes() {
+        return TELEMETRY_TYPES;
+    }
+
     public void setDurationThresholdInMS(String durationThresholdInMS) throws NumberFormatException {
         try {
             this.durationThresholdInMS = Long.parseLong(durationThresholdInMS);
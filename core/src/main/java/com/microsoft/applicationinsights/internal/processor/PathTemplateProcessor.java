@@ -0,0 +1,263 @@
+/*
+ * ApplicationInsights-Java
+ * Copyright (c) Microsoft Corporation
+ * All rights reserved.
+ *
+ * MIT License
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the ""Software""), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package com.microsoft.applicationinsights.internal.processor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.microsoft.applicationinsights.extensibility.TelemetryProcessor;
+import com.microsoft.applicationinsights.internal.annotation.BuiltInProcessor;
+import com.microsoft.applicationinsights.internal.logger.InternalLogger;
+import com.microsoft.applicationinsights.internal.util.LocalStringsUtils;
+import com.microsoft.applicationinsights.telemetry.RemoteDependencyTelemetry;
+import com.microsoft.applicationinsights.telemetry.RequestTelemetry;
+import com.microsoft.applicationinsights.telemetry.Telemetry;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+
+/**
+ * The class replaces the variable parts of the paths in request and HTTP dependency names, so that
+ * '{@code GET /orders/12345}' and '{@code GET /orders/67890}' are both named '{@code GET /orders/{int}}'.
+ *
+ * Only names made of a method and a path, like the ones of the web module and of the agent, are rewritten.
+ * The path is first matched against the configured templates, where a '{@code {name}}' segment matches any
+ * single segment. Otherwise numeric, GUID and hexadecimal segments are replaced by '{@value #INT_SEGMENT}',
+ * '{@value #GUID_SEGMENT}' and '{@value #HEX_SEGMENT}'. Once MaxNames distinct names were produced, names
+ * that were not seen before are reported as '{@code <method> }{@value #OTHER_PATH}'.
+ * The operation name of all telemetry items is rewritten the same way, since it is the name of the request.
+ * <p>
+ * Invalid values would prevent the processor from being used.
+ */
+@BuiltInProcessor("PathTemplateProcessor")
+public final class PathTemplateProcessor implements TelemetryProcessor {
+
+    public static final String INT_SEGMENT = "{int}";
+    public static final String GUID_SEGMENT = "{guid}";
+    public static final String HEX_SEGMENT = "{hex}";
+    public static final String OTHER_PATH = "(other)";
+
+    public static final int DEFAULT_MAX_NAMES = 1000;
+
+    /// Shorter hexadecimal segments are too likely to be words, e.g. 'cafe' or 'added'
+    private static final int MIN_HEX_SEGMENT_LENGTH = 8;
+
+    private static final int GUID_LENGTH = 36;
+
+    private volatile List<String[]> templates = Collections.emptyList();
+    private volatile boolean detectIdSegments = true;
+    private volatile int maxNames = DEFAULT_MAX_NAMES;
+
+    private final ConcurrentMap<String, Boolean> names = new ConcurrentHashMap<String, Boolean>();
+
+    @Override
+    public boolean process(Telemetry telemetry) {
+        if (telemetry instanceof RequestTelemetry) {
+            RequestTelemetry requestTelemetry = (RequestTelemetry) telemetry;
+            String name = requestTelemetry.getName();
+            String normalized = normalize(name);
+            if (normalized != name) {
+                boolean allowAgentToOverrideName = requestTelemetry.isAllowAgentToOverrideName();
+                requestTelemetry.setName(normalized);
+                requestTelemetry.setAllowAgentToOverrideName(allowAgentToOverrideName);
+            }
+        } else if (telemetry instanceof RemoteDependencyTelemetry) {
+            RemoteDependencyTelemetry dependencyTelemetry = (RemoteDependencyTelemetry) telemetry;
+            String name = dependencyTelemetry.getName();
+            String normalized = normalize(name);
+            if (normalized != name) {
+                dependencyTelemetry.setName(normalized);
+            }
+        }
+
+        String operationName = telemetry.getContext().getOperation().getName();
+        String normalizedOperationName = normalize(operationName);
+        if (normalizedOperationName != operationName) {
+            telemetry.getContext().getOperation().setName(normalizedOperationName);
+        }
+        return true;
+    }
+
+    /**
+     * @param name The name, which is returned as is if it is not made of a method and a path.
+     * @return The name with its path normalized, or the same instance if it is unchanged.
+     */
+    String normalize(String name) {
+        if (name == null) {
+            return null;
+        }
+        int pathStart = name.indexOf(' ') + 1;
+        if (pathStart <= 1 || pathStart >= name.length() || name.charAt(pathStart) != '/') {
+            return name;
+        }
+
+        String normalized = normalizePath(name, pathStart);
+        if (names.containsKey(normalized)) {
+            return normalized;
+        }
+        if (names.size() >= maxNames) {
+            return name.substring(0, pathStart) + OTHER_PATH;
+        }
+        names.putIfAbsent(normalized, Boolean.TRUE);
+        return normalized;
+    }
+
+    public void setTemplates(String templates) {
+        List<String[]> parsed = new ArrayList<String[]>();
+        if (!LocalStringsUtils.isNullOrEmpty(templates)) {
+            for (String template : templates.split(",")) {
+                template = template.trim();
+                if (template.isEmpty()) {
+                    continue;
+                }
+                if (template.charAt(0) != '/') {
+                    InternalLogger.INSTANCE.error("PathTemplateProcessor: template '%s' does not start with '/', ignored", template);
+                    continue;
+                }
+                parsed.add(template.substring(1).split("/", -1));
+            }
+        }
+        this.templates = parsed;
+        InternalLogger.INSTANCE.trace("PathTemplateProcessor: successfully set %d Templates", parsed.size());
+    }
+
+    public void setDetectIdSegments(String detectIdSegments) {
+        this.detectIdSegments = Boolean.parseBoolean(detectIdSegments.trim());
+        InternalLogger.INSTANCE.trace("PathTemplateProcessor: successfully set DetectIdSegments to %s", detectIdSegments);
+    }
+
+    public void setMaxNames(String maxNames) throws NumberFormatException {
+        try {
+            int value = Integer.parseInt(maxNames.trim());
+            if (value <= 0) {
+                throw new NumberFormatException("MaxNames must be positive: " + maxNames);
+            }
+            this.maxNames = value;
+            InternalLogger.INSTANCE.trace("PathTemplateProcessor: successfully set MaxNames to %s", maxNames);
+        } catch (NumberFormatException e) {
+            InternalLogger.INSTANCE.error("PathTemplateProcessor: failed to set MaxNames:%s Exception : %s ",
+                    maxNames, ExceptionUtils.getStackTrace(e));
+            throw e;
+        }
+    }
+
+    private String normalizePath(String name, int pathStart) {
+        String path = name.substring(pathStart + 1);
+        String[] segments = path.split("/", -1);
+
+        for (String[] template : templates) {
+            if (matches(template, segments)) {
+                return join(name, pathStart, template);
+            }
+        }
+
+        if (!detectIdSegments) {
+            return name;
+        }
+        boolean replaced = false;
+        for (int i = 0; i < segments.length; i++) {
+            String replacement = getIdSegment(segments[i]);
+            if (replacement != null) {
+                segments[i] = replacement;
+                replaced = true;
+            }
+        }
+        if (!replaced) {
+            return name;
+        }
+        return join(name, pathStart, segments);
+    }
+
+    private static String join(String name, int pathStart, String[] segments) {
+        StringBuilder sb = new StringBuilder(name.length());
+        sb.append(name, 0, pathStart);
+        for (String segment : segments) {
+            sb.append('/').append(segment);
+        }
+        return sb.toString();
+    }
+
+    private static boolean matches(String[] template, String[] segments) {
+        if (template.length != segments.length) {
+            return false;
+        }
+        for (int i = 0; i < template.length; i++) {
+            String expected = template[i];
+            boolean variable = expected.length() > 2 && expected.charAt(0) == '{'
+                    && expected.charAt(expected.length() - 1) == '}';
+            if (variable ? segments[i].isEmpty() : !expected.equals(segments[i])) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static String getIdSegment(String segment) {
+        int length = segment.length();
+        if (length == 0) {
+            return null;
+        }
+        boolean digitsOnly = true;
+        boolean hexOnly = true;
+        boolean hasDigit = false;
+        for (int i = 0; i < length; i++) {
+            char c = segment.charAt(i);
+            if (c >= '0' && c <= '9') {
+                hasDigit = true;
+            } else {
+                digitsOnly = false;
+                if (!isHexLetter(c)) {
+                    hexOnly = false;
+                }
+            }
+        }
+        if (digitsOnly) {
+            return INT_SEGMENT;
+        }
+        if (hexOnly && hasDigit && length >= MIN_HEX_SEGMENT_LENGTH) {
+            return HEX_SEGMENT;
+        }
+        if (length == GUID_LENGTH && isGuid(segment)) {
+            return GUID_SEGMENT;
+        }
+        return null;
+    }
+
+    private static boolean isGuid(String segment) {
+        for (int i = 0; i < GUID_LENGTH; i++) {
+            char c = segment.charAt(i);
+            if (i == 8 || i == 13 || i == 18 || i == 23) {
+                if (c != '-') {
+                    return false;
+                }
+            } else if (!(c >= '0' && c <= '9') && !isHexLetter(c)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isHexLetter(char c) {
+        return (c >= 'a' && c <= 'f') || (c >= 'A' && c <= 'F');
+    }
+}
@@ -26,8 +26,11 @@ import java.util.HashSet;
 import java.util.List;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Collection;
+import java.util.Collections;
 
-import com.microsoft.applicationinsights.extensibility.TelemetryProcessor;
+import com.microsoft.applicationinsights.extensibility.TypedTelemetryProcessor;
 import com.microsoft.applicationinsights.internal.annotation.BuiltInProcessor;
 import com.microsoft.applicationinsights.internal.logger.InternalLogger;
 import com.microsoft.applicationinsights.internal.util.LocalStringsUtils;
@@ -46,7 +49,10 @@ import org.apache.commons.lang3.exception.ExceptionUtils;
  * Created by gupele on 7/26/2016.
  */
 @BuiltInProcessor("RequestTelemetryFilter")
-public final class RequestTelemetryFilter implements TelemetryProcessor {
+public final class RequestTelemetryFilter implements TypedTelemetryProcessor {
+    private static final Collection<Class<? extends Telemetry>> TELEMETRY_TYPES =
+            Collections.<Class<? extends Telemetry>>singletonList(RequestTelemetry.class);
+
     private static final class FromTo {
         public final int from;
         public final int to;
@@ -57,10 +63,15 @@ public final class RequestTelemetryFilter implements TelemetryProcessor {
         }
     }
 
+    /// Response codes below this value are looked up in tables instead of being compared to each range
+    private static final int RESPONSE_CODE_TABLE_SIZE = 1000;
+
     private long minimumDurationInMS = 0;
     private boolean hasBlocked;
     private final Set<String> exactBadResponseCodes = new HashSet<String>();
     private final List<FromTo> ignoredResponseCodeRange = new ArrayList<FromTo>();
+    private final BitSet exactBadResponseCodeTable = new BitSet(RESPONSE_CODE_TABLE_SIZE);
+    private final BitSet ignoredResponseCodeTable = new BitSet(RESPONSE_CODE_TABLE_SIZE);
 
     public RequestTelemetryFilter() {
     }
@@ -79,13 +90,24 @@ public final class RequestTelemetryFilter implements TelemetryProcessor {
             RequestTelemetry requestTelemetry = (RequestTelemetry) telemetry;
             String responseCode = requestTelemetry.getResponseCode();
 
-            if (exactBadResponseCodes.contains(requestTelemetry.getResponseCode())) {
-                return false;
-            }
+            int tableIndex = getTableIndex(responseCode);
+            if (tableIndex >= 0) {
+                if (exactBadResponseCodeTable.get(tableIndex) || ignoredResponseCodeTable.get(tableIndex)) {
+                    return false;
+                }
+            } else {
+                if (exactBadResponseCodes.contains(responseCode)) {
+                    return false;
+                }
 
-            int asInt = Integer.parseInt(responseCode);
-            for (FromTo fromTo : ignoredResponseCodeRange) {
-                if (fromTo.from <= asInt && fromTo.to >= asInt) {
+                int asInt;
+                try {
+                    asInt = Integer.parseInt(responseCode);
+                } catch (NumberFormatException e) {
+                    // the duration is not checked either for requests without a numeric response code
+                    return true;
+                }
+                if (isIgnored(asInt)) {
                     return false;
                 }
             }
@@ -103,6 +125,11 @@ public final class RequestTelemetryFilter implements TelemetryProcessor {
         return true;
     }
 
+    @Override
+    public Collection<Class<? extends Telemetry>> getTelemetryTypes() {
+        return TELEMETRY_TYPES;
+    }
+
     public void setMinimumDurationInMS(String minimumDurationInMS) throws Throwable {
         try {
             this.minimumDurationInMS = Long.parseLong(minimumDurationInMS);
@@ -137,6 +164,10 @@ public final class RequestTelemetryFilter implements TelemetryProcessor {
                     List<String> fromTo = Arrays.asList(ex.split("-"));
                     if (fromTo.size() == 1) {
                         exactBadResponseCodes.add(ex);
+                        int tableIndex = getTableIndex(ex);
+                        if (tableIndex >= 0) {
+                            exactBadResponseCodeTable.set(tableIndex);
+                        }
                         continue;
                     }
                     if (fromTo.size() != 2) {
@@ -148,6 +179,9 @@ public final class RequestTelemetryFilter implements TelemetryProcessor {
                     int f = Integer.parseInt(fromTo.get(0));
                     int t = Integer.parseInt(fromTo.get(1));
                     ignoredResponseCodeRange.add(new FromTo(f, t));
+                    if (f <= t && f < RESPONSE_CODE_TABLE_SIZE && t >= 0) {
+                        ignoredResponseCodeTable.set(Math.max(f, 0), Math.min(t, RESPONSE_CODE_TABLE_SIZE - 1) + 1);
+                    }
                 }
                 hasBlocked = !exactBadResponseCodes.isEmpty() || !ignoredResponseCodeRange.isEmpty();
             }
@@ -167,4 +201,39 @@ public final class RequestTelemetryFilter implements TelemetryProcessor {
             throw t;
         }
     }
+
+    private boolean isIgnored(int responseCode) {
+        if (responseCode >= 0 && responseCode < RESPONSE_CODE_TABLE_SIZE) {
+            return ignoredResponseCodeTable.get(responseCode);
+        }
+        for (FromTo fromTo : ignoredResponseCodeRange) {
+            if (fromTo.from <= responseCode && fromTo.to >= responseCode) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return The value of response codes of one to three digits without leading zeros, which can be
+     *         looked up in the tables, or -1 for the other ones, that have to be parsed.
+     */
+    private static int getTableIndex(String responseCode) {
+        if (responseCode == null) {
+            return -1;
+        }
+        int length = responseCode.length();
+        if (length == 0 || length > 3 || (length > 1 && responseCode.charAt(0) == '0')) {
+            return -1;
+        }
+        int value = 0;
+        for (int i = 0; i < length; ++i) {
+            char c = responseCode.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            value = value * 10 + (c - '0');
+        }
+        return value;
+    }
 }
@@ -22,11 +22,13 @@
 package com.microsoft.applicationinsights.internal.processor;
 
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 
-import com.microsoft.applicationinsights.extensibility.TelemetryProcessor;
+import com.microsoft.applicationinsights.extensibility.TypedTelemetryProcessor;
 import com.microsoft.applicationinsights.internal.annotation.BuiltInProcessor;
 import com.microsoft.applicationinsights.internal.logger.InternalLogger;
 import com.microsoft.applicationinsights.internal.util.LocalStringsUtils;
@@ -42,7 +44,10 @@ import org.apache.commons.lang3.exception.ExceptionUtils;
  * Created by gupele on 7/26/2016.
  */
 @BuiltInProcessor("TelemetryEventFilter")
-public final class TelemetryEventFilter implements TelemetryProcessor {
+public final class TelemetryEventFilter implements TypedTelemetryProcessor {
+    private static final Collection<Class<? extends Telemetry>> TELEMETRY_TYPES =
+            Collections.<Class<? extends Telemetry>>singletonList(EventTelemetry.class);
+
     private final Set<String> notNeededNames = new HashSet<String>();
 
     public TelemetryEventFilter() {
@@ -67,6 +72,11 @@ public final class TelemetryEventFilter implements TelemetryProcessor {
         return !notNeededNames.contains(eventName);
     }
 
+    @Override
+    public Collection<Class<? extends Telemetry>> getTelemetryTypes() {
+        return TELEMETRY_TYPES;
+    }
+
     public void setNotNeededNames(String notNeededNames) throws Throwable {
         try {
             List<String> notNeededAsList = Arrays.asList(notNeededNames.split(","));
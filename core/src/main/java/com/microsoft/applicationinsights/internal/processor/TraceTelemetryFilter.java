@@ -21,7 +21,7 @@
 
 package com.microsoft.applicationinsights.internal.processor;
 
-import com.microsoft.applicationinsights.extensibility.TelemetryProcessor;
+import com.microsoft.applicationinsights.extensibility.TypedTelemetryProcessor;
 import com.microsoft.applicationinsights.internal.annotation.BuiltInProcessor;
 import com.microsoft.applicationinsights.internal.logger.InternalLogger;
 import com.microsoft.applicationinsights.internal.util.LocalStringsUtils;
@@ -30,6 +30,8 @@ import com.microsoft.applicationinsights.telemetry.Telemetry;
 import com.microsoft.applicationinsights.telemetry.TraceTelemetry;
 import org.apache.commons.lang3.exception.ExceptionUtils;
 
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -48,7 +50,10 @@ import java.util.Map;
  * Created by gupele on 7/26/2016.
  */
 @BuiltInProcessor("TraceTelemetryFilter")
-public final class TraceTelemetryFilter implements TelemetryProcessor {
+public final class TraceTelemetryFilter implements TypedTelemetryProcessor {
+    private static final Collection<Class<? extends Telemetry>> TELEMETRY_TYPES =
+            Collections.<Class<? extends Telemetry>>singletonList(TraceTelemetry.class);
+
     private SeverityLevel fromSeverityLevel = null;
 
     @Override
@@ -77,6 +82,11 @@ public final class TraceTelemetryFilter implements TelemetryProcessor {
         return tt.getSeverityLevel().compareTo(this.fromSeverityLevel) >= 0;
     }
 
+    @Override
+    public Collection<Class<? extends Telemetry>> getTelemetryTypes() {
+        return TELEMETRY_TYPES;
+    }
+
 
     /**
      * @deprecated Not intended for public use. Visibility will be reduced in a future unbindFromRunawayChildThreads.
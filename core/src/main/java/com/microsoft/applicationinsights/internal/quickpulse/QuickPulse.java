@@ -24,12 +24,14 @@ package com.microsoft.applicationinsights.internal.quickpulse;
 import java.util.UUID;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.CountDownLatch;
-import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.TimeUnit;
 
 import com.google.common.base.Preconditions;
 import com.microsoft.applicationinsights.internal.util.DeviceInfo;
 import com.microsoft.applicationinsights.internal.util.LocalStringsUtils;
+import com.microsoft.applicationinsights.internal.util.SDKScheduler;
+import com.microsoft.applicationinsights.internal.util.TaskGroup;
 import org.apache.http.client.methods.HttpPost;
 
 import com.microsoft.applicationinsights.TelemetryConfiguration;
@@ -44,7 +46,10 @@ import com.microsoft.applicationinsights.internal.shutdown.Stoppable;
 public enum QuickPulse implements Stoppable {
     INSTANCE;
 
+    private static final int MAX_PENDING_INITIALIZATIONS = 16;
+
     private volatile boolean initialized = false;
+    private final TaskGroup initializationTasks = SDKScheduler.INSTANCE.createTaskGroup(QuickPulse.class.getSimpleName(), 1, MAX_PENDING_INITIALIZATIONS);
     private Thread thread;
     private Thread senderThread;
     private DefaultQuickPulseCoordinator coordinator;
@@ -60,12 +65,17 @@ public enum QuickPulse implements Stoppable {
     public void initialize(final TelemetryConfiguration configuration) {
         Preconditions.checkNotNull(configuration);
         final CountDownLatch latch = new CountDownLatch(1);
-        Executors.newSingleThreadExecutor().execute(new Runnable() {
+        Runnable initialization = new Runnable() {
             @Override
             public void run() {
                 initializeSync(latch, configuration);
             }
-        });
+        };
+        try {
+            initializationTasks.execute(initialization);
+        } catch (RejectedExecutionException e) {
+            initialization.run();
+        }
         // don't return until initialization thread has INSTANCE lock
         try {
             latch.await();
@@ -30,6 +30,7 @@ import java.util.concurrent.atomic.AtomicReference;
 
 import com.microsoft.applicationinsights.TelemetryConfiguration;
 import com.microsoft.applicationinsights.internal.logger.InternalLogger;
+import com.microsoft.applicationinsights.internal.perfcounter.ContainerCpuPerformanceCounterCalculator;
 import com.microsoft.applicationinsights.internal.perfcounter.CpuPerformanceCounterCalculator;
 import com.microsoft.applicationinsights.telemetry.ExceptionTelemetry;
 import com.microsoft.applicationinsights.telemetry.RemoteDependencyTelemetry;
@@ -43,8 +44,8 @@ import org.apache.commons.lang3.exception.ExceptionUtils;
 public enum QuickPulseDataCollector {
     INSTANCE;
 
-    private String ikey;
-    private TelemetryConfiguration config;
+    private volatile String ikey;
+    private volatile TelemetryConfiguration config;
 
     static class FinalCounters {
         public final double exceptions;
@@ -58,6 +59,14 @@ public enum QuickPulseDataCollector {
         public final double cpuUsage;
 
         public FinalCounters(Counters currentCounters, MemoryMXBean memory, CpuPerformanceCounterCalculator cpuPerformanceCounterCalculator) {
+            this(currentCounters, memory, cpuPerformanceCounterCalculator, null);
+        }
+
+        /**
+         * Inside a container with a cpu limit, the cpu usage is the one of the container out of its limit.
+         */
+        public FinalCounters(Counters currentCounters, MemoryMXBean memory, CpuPerformanceCounterCalculator cpuPerformanceCounterCalculator,
+                             ContainerCpuPerformanceCounterCalculator containerCpuCalculator) {
             if (memory != null && memory.getHeapMemoryUsage() != null) {
                 memoryCommitted = memory.getHeapMemoryUsage().getCommitted();
             } else {
@@ -65,7 +74,10 @@ public enum QuickPulseDataCollector {
             }
 
             Double cpuDatum;
-            if (cpuPerformanceCounterCalculator != null
+            Double containerCpuDatum = containerCpuCalculator == null ? null : containerCpuCalculator.getCpuUsage();
+            if (containerCpuDatum != null && containerCpuCalculator.hasCpuLimit()) {
+                cpuUsage = containerCpuDatum;
+            } else if (cpuPerformanceCounterCalculator != null
                     && (cpuDatum = cpuPerformanceCounterCalculator.getProcessCpuUsage()) != null) {
                 // normally I wouldn't do this, but I prefer to avoid code duplication more than one-liners :)
                 cpuUsage = cpuDatum;
@@ -124,6 +136,7 @@ public enum QuickPulseDataCollector {
     private AtomicReference<Counters> counters = new AtomicReference<Counters>(null);
     private final MemoryMXBean memory;
     private final CpuPerformanceCounterCalculator cpuPerformanceCounterCalculator;
+    private final ContainerCpuPerformanceCounterCalculator containerCpuCalculator;
 
     QuickPulseDataCollector() {
         CpuPerformanceCounterCalculator temp;
@@ -142,6 +155,23 @@ public enum QuickPulseDataCollector {
             temp = null;
         }
         cpuPerformanceCounterCalculator = temp;
+
+        ContainerCpuPerformanceCounterCalculator containerTemp;
+        try {
+            containerTemp = ContainerCpuPerformanceCounterCalculator.create();
+        } catch (ThreadDeath td) {
+            throw td;
+        } catch (Throwable t) {
+            try {
+                InternalLogger.INSTANCE.error("Could not initialize %s:%n%s", ContainerCpuPerformanceCounterCalculator.class.getSimpleName(), ExceptionUtils.getStackTrace(t));
+            } catch (ThreadDeath td) {
+                throw td;
+            } catch (Throwable t2) {
+                // chomp
+            }
+            containerTemp = null;
+        }
+        containerCpuCalculator = containerTemp;
         memory = ManagementFactory.getMemoryMXBean();
     }
 
@@ -165,7 +195,7 @@ public enum QuickPulseDataCollector {
     public synchronized FinalCounters getAndRestart() {
         final Counters currentCounters = counters.getAndSet(new Counters());
         if (currentCounters != null) {
-            return new FinalCounters(currentCounters, memory, cpuPerformanceCounterCalculator);
+            return new FinalCounters(currentCounters, memory, cpuPerformanceCounterCalculator, containerCpuCalculator);
         }
 
         return null;
@@ -175,12 +205,17 @@ public enum QuickPulseDataCollector {
     synchronized FinalCounters peek() {
         final Counters currentCounters = this.counters.get(); // this should be the only differece
         if (currentCounters != null) {
-            return new FinalCounters(currentCounters, memory, cpuPerformanceCounterCalculator);
+            return new FinalCounters(currentCounters, memory, cpuPerformanceCounterCalculator, containerCpuCalculator);
         }
         return null;
     }
 
     public void add(Telemetry telemetry) {
+        // Nothing is collected while live metrics are disabled, which is checked before the instrumentation key
+        if (counters.get() == null) {
+            return;
+        }
+
         if (!telemetry.getContext().getInstrumentationKey().equals(getInstrumentationKey())) {
             return;
         }
@@ -195,9 +230,10 @@ public enum QuickPulseDataCollector {
         }
     }
 
-    private synchronized String getInstrumentationKey() {
-        if (config != null) {
-            return config.getInstrumentationKey();
+    private String getInstrumentationKey() {
+        TelemetryConfiguration currentConfig = config;
+        if (currentConfig != null) {
+            return currentConfig.getInstrumentationKey();
         } else {
             return ikey;
         }
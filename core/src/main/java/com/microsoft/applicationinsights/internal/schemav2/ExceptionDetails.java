@@ -72,6 +72,11 @@ public class ExceptionDetails
      */
     private List<StackFrame> parsedStack;
 
+    /**
+     * Whether parsedStack is shared with other exceptions, it is then copied before it is handed out.
+     */
+    private boolean parsedStackShared;
+
     /**
      * Initializes a new instance of the ExceptionDetails class.
      */
@@ -170,7 +175,10 @@ public class ExceptionDetails
     public List<StackFrame> getParsedStack() {
         if (this.parsedStack == null) {
             this.parsedStack = new ArrayList<StackFrame>();
+        } else if (this.parsedStackShared) {
+            this.parsedStack = copy(this.parsedStack);
         }
+        this.parsedStackShared = false;
         return this.parsedStack;
     }
 
@@ -179,6 +187,30 @@ public class ExceptionDetails
      */
     public void setParsedStack(List<StackFrame> value) {
         this.parsedStack = value;
+        this.parsedStackShared = false;
+    }
+
+    /**
+     * Sets the ParsedStack property to frames that are shared with other exceptions and must not be changed.
+     * The frames are only serialized as they are, getParsedStack() returns a copy of them.
+     */
+    public void setSharedParsedStack(List<StackFrame> value) {
+        this.parsedStack = value;
+        this.parsedStackShared = value != null;
+    }
+
+    private static List<StackFrame> copy(List<StackFrame> frames) {
+        List<StackFrame> copies = new ArrayList<StackFrame>(frames.size());
+        for (StackFrame frame : frames) {
+            StackFrame copy = new StackFrame();
+            copy.setLevel(frame.getLevel());
+            copy.setMethod(frame.getMethod());
+            copy.setAssembly(frame.getAssembly());
+            copy.setFileName(frame.getFileName());
+            copy.setLine(frame.getLine());
+            copies.add(copy);
+        }
+        return copies;
     }
 
 
@@ -22,6 +22,7 @@
 package com.microsoft.applicationinsights.internal.shutdown;
 
 import java.io.Closeable;
+import java.io.Flushable;
 import java.util.HashMap;
 import java.util.List;
 import java.util.ArrayList;
@@ -59,6 +60,8 @@ public enum SDKShutdownActivity {
         private final List<ChannelFetcher> fetchers = new ArrayList<ChannelFetcher>();
         private final List<Stoppable> stoppables = new ArrayList<Stoppable>();
         private final List<Closeable> closeables = new ArrayList<Closeable>();
+        /// Flushed before the channels stop, so what they flush is still sent
+        private final List<Flushable> flushables = new ArrayList<Flushable>();
 
         public synchronized void register(TelemetryChannel channel) {
             channels.put(channel, true);
@@ -76,6 +79,10 @@ public enum SDKShutdownActivity {
             closeables.add(closeable);
         }
 
+        public synchronized void register(Flushable flushable) {
+            flushables.add(flushable);
+        }
+
         public synchronized void register(final ExecutorService service) {
             register(new Stoppable() {
                 @Override
@@ -107,6 +114,7 @@ public enum SDKShutdownActivity {
             }
             InternalLogger.INSTANCE.info("Shutting down Applciation Insights");
             try {
+                flushFlushables();
                 stopChannels();
                 stopStoppables();
                 closeClosables();
@@ -131,6 +139,28 @@ public enum SDKShutdownActivity {
             }
         }
 
+        /**
+         * Make sure no exception is thrown!
+         */
+        private void flushFlushables() {
+            for (Flushable f : flushables) {
+                try {
+                    f.flush();
+                } catch (ThreadDeath td) {
+                    throw td;
+                } catch (Throwable t) {
+                    try {
+                        InternalLogger.INSTANCE.error("Failed to flush flushable class '%s': %s", f.getClass().getName(), t.toString());
+                        InternalLogger.INSTANCE.trace("Stack trace: %s", ExceptionUtils.getStackTrace(t));
+                    } catch (ThreadDeath td2) {
+                        throw td2;
+                    } catch (Throwable t2) {
+                        // chomp
+                    }
+                }
+            }
+        }
+
         /**
          * Make sure no exception is thrown!
          */
@@ -222,6 +252,13 @@ public enum SDKShutdownActivity {
         getShutdownAction().register(closable);
     }
 
+    /**
+     * The flushable is flushed before the channels are stopped.
+     */
+    public void register(Flushable flushable) {
+        getShutdownAction().register(flushable);
+    }
+
     public void register(ExecutorService service) {
         getShutdownAction().register(service);
     }
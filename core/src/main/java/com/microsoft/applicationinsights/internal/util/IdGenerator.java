@@ -0,0 +1,133 @@
+/*
+ * ApplicationInsights-Java
+ * Copyright (c) Microsoft Corporation
+ * All rights reserved.
+ *
+ * MIT License
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the ""Software""), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package com.microsoft.applicationinsights.internal.util;
+
+import java.security.SecureRandom;
+
+/**
+ * Generates the random ids used for correlation, such as operation ids, Request-Id roots and
+ * traceparent trace and span ids.
+ *
+ * The ids only need to be unique, not unpredictable, so they come from a per thread xorshift128+ generator
+ * instead of the shared {@link SecureRandom} behind {@link java.util.UUID#randomUUID()}, which contends across
+ * request threads. Each generator has 128 bits of state seeded from a {@link SecureRandom}, so ids stay unique
+ * across processes, unlike {@link java.util.concurrent.ThreadLocalRandom} which only has 48 bits of state on Java 7.
+ * The hex digits are written straight into a char array.
+ */
+public final class IdGenerator {
+
+    private static final class Generator {
+        private long s0;
+        private long s1;
+
+        private Generator(SecureRandom seed) {
+            do {
+                s0 = seed.nextLong();
+                s1 = seed.nextLong();
+            } while (s0 == 0 && s1 == 0);
+        }
+
+        private long nextLong() {
+            long x = s0;
+            long y = s1;
+            s0 = y;
+            x ^= x << 23;
+            s1 = x ^ y ^ (x >>> 17) ^ (y >>> 26);
+            return s1 + y;
+        }
+    }
+
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /// Only used to seed the generators, once per thread
+    private static final SecureRandom SEED = new SecureRandom();
+
+    private static final ThreadLocal<Generator> GENERATORS = new ThreadLocal<Generator>() {
+        @Override
+        protected Generator initialValue() {
+            return new Generator(SEED);
+        }
+    };
+
+    private IdGenerator() {
+    }
+
+    /**
+     * @param byteCount The number of random bytes.
+     * @return The lower case hex representation of byteCount random bytes, which is never all zeros.
+     */
+    public static String randomHex(int byteCount) {
+        char[] chars = new char[byteCount * 2];
+        Generator random = GENERATORS.get();
+        boolean allZeros;
+        do {
+            allZeros = true;
+            for (int i = 0; i < chars.length; i += 16) {
+                int digitCount = Math.min(16, chars.length - i);
+                long value = random.nextLong() >>> (64 - 4 * digitCount);
+                allZeros &= value == 0;
+                writeHex(value, chars, i, digitCount);
+            }
+        } while (allZeros && chars.length > 0);
+        return new String(chars);
+    }
+
+    /**
+     * @return A random version 4 UUID in its canonical form, e.g. 'f81d4fae-7dec-41d0-a765-00a0c91e6bf6'.
+     */
+    public static String randomUuid() {
+        Generator random = GENERATORS.get();
+        long most = (random.nextLong() & ~0xf000L) | 0x4000L;
+        long least = (random.nextLong() & ~(0xcL << 60)) | (0x8L << 60);
+
+        char[] chars = new char[36];
+        writeHex(most >>> 32, chars, 0, 8);
+        chars[8] = '-';
+        writeHex(most >>> 16, chars, 9, 4);
+        chars[13] = '-';
+        writeHex(most, chars, 14, 4);
+        chars[18] = '-';
+        writeHex(least >>> 48, chars, 19, 4);
+        chars[23] = '-';
+        writeHex(least, chars, 24, 12);
+        return new String(chars);
+    }
+
+    /**
+     * @return The 8 lower case hex digits of the value.
+     */
+    public static String toHex(int value) {
+        char[] chars = new char[8];
+        writeHex(value, chars, 0, 8);
+        return new String(chars);
+    }
+
+    /**
+     * Writes the lowest digitCount hex digits of the value into chars, starting at offset.
+     */
+    static void writeHex(long value, char[] chars, int offset, int digitCount) {
+        for (int i = offset + digitCount - 1; i >= offset; --i) {
+            chars[i] = HEX_DIGITS[(int) (value & 0xf)];
+            value >>>= 4;
+        }
+    }
+}
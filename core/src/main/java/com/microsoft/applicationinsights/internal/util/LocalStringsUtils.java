@@ -23,7 +23,6 @@ package com.microsoft.applicationinsights.internal.util;
 
 import java.text.DateFormat;
 import java.text.SimpleDateFormat;
-import java.util.UUID;
 import java.util.concurrent.ThreadLocalRandom;
 
 public class LocalStringsUtils {
@@ -47,13 +46,7 @@ public class LocalStringsUtils {
     }
 
     public static String generateRandomId(boolean removeDashes) {
-        String uuid = UUID.randomUUID().toString();
-
-        if (removeDashes) {
-            uuid = uuid.replace("-", "");
-        }
-
-        return uuid;
+        return removeDashes ? IdGenerator.randomHex(16) : IdGenerator.randomUuid();
     }
 
     public static String generateRandomIntegerId() {
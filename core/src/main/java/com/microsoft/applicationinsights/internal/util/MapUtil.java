@@ -104,6 +104,6 @@ public class MapUtil
         if (value == null)
             map.remove(key);
         else
-            map.put(key, LocalStringsUtils.getDateFormatter().format(value));
+            map.put(key, TimestampFormatter.ISO_8601.format(value));
     }
 }
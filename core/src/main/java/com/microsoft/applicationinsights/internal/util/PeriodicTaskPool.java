@@ -8,14 +8,12 @@ import org.apache.commons.lang3.StringUtils;
 import java.util.Map;
 import java.util.Objects;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.ScheduledFuture;
-import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 
 /**
  * A class to execute tasks on a schedule. This class should be used to run and manage all the
- * scheduled Tasks in SDK.
+ * scheduled Tasks in SDK. The tasks run on the shared threads of the {@link SDKScheduler}.
  *
  * <h3>Usage example</h3>
  *
@@ -49,12 +47,17 @@ public class PeriodicTaskPool implements Stoppable {
     private final Map<PeriodicRunnableTask, ScheduledFuture<?>> periodicTaskMap;
 
     /**
-     * The executor service which is responsible for running the tasks
+     * The most runs of the tasks that may wait for the running ones
      */
-    private final ScheduledExecutorService periodicTaskService;
+    private static final int MAX_QUEUED_RUNS = 1024;
 
     /**
-     * Number of threads in the TheadPool associated with periodicTaskService.
+     * The task group which is responsible for running the tasks
+     */
+    private final TaskGroup periodicTaskService;
+
+    /**
+     * Number of tasks of the pool that may run at the same time.
      */
     private final int poolSize;
 
@@ -66,8 +69,7 @@ public class PeriodicTaskPool implements Stoppable {
             throw new IllegalArgumentException("poolName must be non-empty");
         }
         this.poolSize = poolSize;
-        this.periodicTaskService = new ScheduledThreadPoolExecutor(this.poolSize,
-                ThreadPoolUtils.createNamedDaemonThreadFactory(poolName));
+        this.periodicTaskService = SDKScheduler.INSTANCE.createTaskGroup(poolName, this.poolSize, MAX_QUEUED_RUNS);
         this.periodicTaskMap = new ConcurrentHashMap<>();
     }
 
@@ -122,14 +124,8 @@ public class PeriodicTaskPool implements Stoppable {
 
     @Override
     public void stop(long timeout, TimeUnit timeUnit) {
-        periodicTaskService.shutdown();
         try {
-            if (!periodicTaskService.awaitTermination(timeout, timeUnit)) {
-                periodicTaskService.shutdownNow();
-            }
-        } catch (InterruptedException e) {
-            periodicTaskService.shutdownNow();
-            Thread.currentThread().interrupt();
+            periodicTaskService.stop(timeout, timeUnit);
         } finally {
             stopAndClear();
         }
@@ -0,0 +1,253 @@
+/*
+ * ApplicationInsights-Java
+ * Copyright (c) Microsoft Corporation
+ * All rights reserved.
+ *
+ * MIT License
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the ""Software""), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package com.microsoft.applicationinsights.internal.util;
+
+import java.io.Closeable;
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Preconditions;
+import com.microsoft.applicationinsights.internal.logger.InternalLogger;
+import com.microsoft.applicationinsights.internal.shutdown.SDKShutdownActivity;
+import org.apache.commons.lang3.StringUtils;
+
+/**
+ * The threads of the SDK: one small scheduler that only keeps time, one bounded pool of workers
+ * that runs the short tasks, and one pool for the tasks that block, such as the sending of telemetry.
+ *
+ * Components do not create thread pools of their own, they create a {@link TaskGroup} which bounds
+ * how many of their tasks run and wait at the same time and counts them. This way an application
+ * with several configurations shares a fixed number of threads instead of a pool per component.
+ *
+ * The groups created by {@link #createBlockingTaskGroup} reserve a thread for each of their tasks that may run
+ * at the same time, so a backlog of blocking calls can neither starve the periodic tasks of the other groups
+ * nor be held back by them.
+ *
+ * On JDK 21 and later the workers may be virtual threads, see {@link #VIRTUAL_THREADS_PROPERTY},
+ * the groups still bound the concurrency of their blocking tasks.
+ */
+public enum SDKScheduler {
+    INSTANCE;
+
+    public static final String SCHEDULER_THREADS_PROPERTY = "applicationinsights.scheduler.threads";
+    public static final String WORKER_THREADS_PROPERTY = "applicationinsights.scheduler.workers";
+    public static final String VIRTUAL_THREADS_PROPERTY = "applicationinsights.scheduler.virtualThreads";
+
+    private static final int DEFAULT_SCHEDULER_THREADS = 1;
+    private static final int DEFAULT_WORKER_THREADS = 8;
+    private static final long IDLE_WORKER_TIMEOUT_IN_SECONDS = 60L;
+    private static final long SHUTDOWN_TIMEOUT_IN_SECONDS = 5L;
+
+    private final CopyOnWriteArrayList<TaskGroup> taskGroups = new CopyOnWriteArrayList<TaskGroup>();
+
+    /// Both are created on first use, and again if a task is submitted after the SDK was shut down
+    private ScheduledThreadPoolExecutor scheduler;
+    private ExecutorService workers;
+    private ThreadPoolExecutor blockingWorkers;
+
+    /// The sum of the concurrency limits of the blocking groups, which is the size of their pool
+    private int reservedBlockingThreads;
+
+    /**
+     * The groups are stopped by their components, which are stopped before the closeables,
+     * so the threads are shut down last.
+     */
+    SDKScheduler() {
+        SDKShutdownActivity.INSTANCE.register(new Closeable() {
+            @Override
+            public void close() {
+                shutdown();
+            }
+        });
+    }
+
+    /**
+     * Creates a group of tasks.
+     *
+     * @param name The name of the group, used in logs and metrics.
+     * @param maxConcurrentTasks How many tasks of the group may run at the same time.
+     * @param maxQueuedTasks How many tasks of the group may wait for a worker before new ones are rejected.
+     */
+    public TaskGroup createTaskGroup(String name, int maxConcurrentTasks, int maxQueuedTasks) {
+        return createTaskGroup(name, maxConcurrentTasks, maxQueuedTasks, false);
+    }
+
+    /**
+     * Creates a group of tasks that block, on network calls for instance. They run on threads that are
+     * reserved for the group, as many as it may run at the same time, instead of on the shared workers.
+     *
+     * @param name The name of the group, used in logs and metrics.
+     * @param maxConcurrentTasks How many tasks of the group may run at the same time.
+     * @param maxQueuedTasks How many tasks of the group may wait for a worker before new ones are rejected.
+     */
+    public TaskGroup createBlockingTaskGroup(String name, int maxConcurrentTasks, int maxQueuedTasks) {
+        return createTaskGroup(name, maxConcurrentTasks, maxQueuedTasks, true);
+    }
+
+    private TaskGroup createTaskGroup(String name, int maxConcurrentTasks, int maxQueuedTasks, boolean blocking) {
+        Preconditions.checkArgument(!StringUtils.isBlank(name), "name must be non-empty");
+        TaskGroup taskGroup = new TaskGroup(this, name, maxConcurrentTasks, maxQueuedTasks, blocking);
+        taskGroups.add(taskGroup);
+        return taskGroup;
+    }
+
+    /**
+     * @return The groups that were created and not stopped yet.
+     */
+    public Collection<TaskGroup> getTaskGroups() {
+        return Collections.unmodifiableList(new ArrayList<TaskGroup>(taskGroups));
+    }
+
+    /**
+     * @return True if the workers are virtual threads.
+     */
+    public synchronized boolean usesVirtualThreads() {
+        return !(getWorkers() instanceof ThreadPoolExecutor);
+    }
+
+    void remove(TaskGroup taskGroup) {
+        taskGroups.remove(taskGroup);
+    }
+
+    synchronized ScheduledExecutorService getScheduler() {
+        if (scheduler == null || scheduler.isShutdown()) {
+            scheduler = new ScheduledThreadPoolExecutor(
+                    getIntProperty(SCHEDULER_THREADS_PROPERTY, DEFAULT_SCHEDULER_THREADS),
+                    ThreadPoolUtils.createNamedDaemonThreadFactory("ApplicationInsights-Scheduler"));
+            scheduler.setRemoveOnCancelPolicy(true);
+        }
+        return scheduler;
+    }
+
+    synchronized ExecutorService getWorkers() {
+        if (workers == null || workers.isShutdown()) {
+            workers = null;
+            if (Boolean.parseBoolean(System.getProperty(VIRTUAL_THREADS_PROPERTY))) {
+                workers = newVirtualThreadPerTaskExecutor();
+            }
+            if (workers == null) {
+                int threads = getIntProperty(WORKER_THREADS_PROPERTY, DEFAULT_WORKER_THREADS);
+                ThreadPoolExecutor pool = new ThreadPoolExecutor(threads, threads, IDLE_WORKER_TIMEOUT_IN_SECONDS, TimeUnit.SECONDS,
+                        new LinkedBlockingQueue<Runnable>(),
+                        ThreadPoolUtils.createNamedDaemonThreadFactory("ApplicationInsights-Worker"));
+                pool.allowCoreThreadTimeOut(true);
+                workers = pool;
+            }
+        }
+        return workers;
+    }
+
+    /**
+     * With virtual threads the blocking groups share the workers, which do not run out of threads.
+     */
+    synchronized ExecutorService getBlockingWorkers() {
+        ExecutorService sharedWorkers = getWorkers();
+        if (!(sharedWorkers instanceof ThreadPoolExecutor)) {
+            return sharedWorkers;
+        }
+        if (blockingWorkers == null || blockingWorkers.isShutdown()) {
+            int threads = Math.max(1, reservedBlockingThreads);
+            blockingWorkers = new ThreadPoolExecutor(threads, threads, IDLE_WORKER_TIMEOUT_IN_SECONDS, TimeUnit.SECONDS,
+                    new LinkedBlockingQueue<Runnable>(),
+                    ThreadPoolUtils.createNamedDaemonThreadFactory("ApplicationInsights-BlockingWorker"));
+            blockingWorkers.allowCoreThreadTimeOut(true);
+        }
+        return blockingWorkers;
+    }
+
+    /**
+     * Grows or shrinks the pool of the blocking groups when one of them changes its concurrency limit.
+     */
+    synchronized void reserveBlockingThreads(int threads) {
+        reservedBlockingThreads += threads;
+        if (blockingWorkers == null || blockingWorkers.isShutdown()) {
+            return;
+        }
+        int poolSize = Math.max(1, reservedBlockingThreads);
+        if (poolSize > blockingWorkers.getMaximumPoolSize()) {
+            blockingWorkers.setMaximumPoolSize(poolSize);
+            blockingWorkers.setCorePoolSize(poolSize);
+        } else {
+            blockingWorkers.setCorePoolSize(poolSize);
+            blockingWorkers.setMaximumPoolSize(poolSize);
+        }
+    }
+
+    synchronized int getReservedBlockingThreads() {
+        return reservedBlockingThreads;
+    }
+
+    private void shutdown() {
+        ScheduledExecutorService schedulerToStop;
+        ExecutorService workersToStop;
+        ExecutorService blockingWorkersToStop;
+        synchronized (this) {
+            schedulerToStop = scheduler;
+            workersToStop = workers;
+            blockingWorkersToStop = blockingWorkers;
+        }
+        ThreadPoolUtils.stop(schedulerToStop, SHUTDOWN_TIMEOUT_IN_SECONDS, TimeUnit.SECONDS);
+        ThreadPoolUtils.stop(workersToStop, SHUTDOWN_TIMEOUT_IN_SECONDS, TimeUnit.SECONDS);
+        ThreadPoolUtils.stop(blockingWorkersToStop, SHUTDOWN_TIMEOUT_IN_SECONDS, TimeUnit.SECONDS);
+    }
+
+    /**
+     * The SDK is built for Java 7, so the JDK 21 factory is looked up at runtime.
+     */
+    private static ExecutorService newVirtualThreadPerTaskExecutor() {
+        try {
+            Method factory = java.util.concurrent.Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+            return (ExecutorService) factory.invoke(null);
+        } catch (NoSuchMethodException e) {
+            InternalLogger.INSTANCE.warn("Virtual threads are not available before JDK 21, platform threads are used instead.");
+        } catch (Exception e) {
+            InternalLogger.INSTANCE.error("Failed to create virtual threads, platform threads are used instead: '%s'", e.toString());
+        }
+        return null;
+    }
+
+    private static int getIntProperty(String name, int defaultValue) {
+        String value = System.getProperty(name);
+        if (StringUtils.isBlank(value)) {
+            return defaultValue;
+        }
+        try {
+            int result = Integer.parseInt(value.trim());
+            if (result > 0) {
+                return result;
+            }
+        } catch (NumberFormatException e) {
+            // fall through to the error below
+        }
+        InternalLogger.INSTANCE.error("Illegal value '%s' for '%s', the default '%d' is used instead.", value, name, defaultValue);
+        return defaultValue;
+    }
+}
@@ -0,0 +1,565 @@
+/*
+ * ApplicationInsights-Java
+ * Copyright (c) Microsoft Corporation
+ * All rights reserved.
+ *
+ * MIT License
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the ""Software""), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package com.microsoft.applicationinsights.internal.util;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.google.common.base.Preconditions;
+import com.microsoft.applicationinsights.internal.logger.InternalLogger;
+import com.microsoft.applicationinsights.internal.shutdown.Stoppable;
+import org.apache.commons.lang3.exception.ExceptionUtils;
+
+/**
+ * The tasks of one component, run by the shared threads of the {@link SDKScheduler}.
+ *
+ * At most 'maxConcurrentTasks' of the tasks run at the same time and at most 'maxQueuedTasks'
+ * wait for their turn, more tasks are rejected with a {@link RejectedExecutionException}.
+ * The group counts its tasks, so the load of every component can be followed.
+ *
+ * The tasks run on the shared workers one at a time: a worker that ran a task of the group puts the next
+ * waiting one at the back of the queue of the pool, so the groups take turns. The tasks of a blocking group
+ * run on the threads it reserved instead, see {@link SDKScheduler#createBlockingTaskGroup}.
+ *
+ * Stopping the group behaves like stopping a thread pool of its own: the periodic tasks are cancelled,
+ * the tasks that were submitted or are due within the timeout are run, and the rest are dropped.
+ */
+public final class TaskGroup implements Stoppable {
+    private final SDKScheduler scheduler;
+    private final String name;
+    private final int maxQueuedTasks;
+    private final boolean blocking;
+
+    // The fields below are guarded by 'this'
+    private final ArrayDeque<Runnable> queuedTasks = new ArrayDeque<Runnable>();
+    private final Set<Future<?>> delayedTimers = new HashSet<Future<?>>();
+    private final Set<Future<?>> periodicTimers = new HashSet<Future<?>>();
+    private int maxConcurrentTasks;
+    private int activeTasks;
+    /// The threads reserved by a blocking group, the highest limit it had
+    private int reservedThreads;
+    private int pendingDelayedTasks;
+    private boolean stopped;
+    /// Set once stop() stopped waiting for the tasks, the delayed tasks that fire afterwards are dropped
+    private boolean drained;
+
+    private final Set<Thread> runningThreads = Collections.newSetFromMap(new ConcurrentHashMap<Thread, Boolean>());
+
+    private final AtomicLong submittedTasks = new AtomicLong();
+    private final AtomicLong completedTasks = new AtomicLong();
+    private final AtomicLong failedTasks = new AtomicLong();
+    private final AtomicLong rejectedTasks = new AtomicLong();
+    private final AtomicLong skippedRuns = new AtomicLong();
+    private final AtomicLong runTimeInNanos = new AtomicLong();
+
+    TaskGroup(SDKScheduler scheduler, String name, int maxConcurrentTasks, int maxQueuedTasks, boolean blocking) {
+        Preconditions.checkArgument(maxConcurrentTasks > 0, "maxConcurrentTasks must be positive");
+        Preconditions.checkArgument(maxQueuedTasks >= 0, "maxQueuedTasks must not be negative");
+
+        this.scheduler = scheduler;
+        this.name = name;
+        this.maxConcurrentTasks = maxConcurrentTasks;
+        this.maxQueuedTasks = maxQueuedTasks;
+        this.blocking = blocking;
+        if (blocking) {
+            reservedThreads = maxConcurrentTasks;
+            scheduler.reserveBlockingThreads(reservedThreads);
+        }
+    }
+
+    /**
+     * Runs the task on a worker.
+     *
+     * @throws RejectedExecutionException If the group is stopped or too many tasks are waiting.
+     */
+    public void execute(Runnable task) {
+        Preconditions.checkNotNull(task, "task must be non-null value");
+        submit(task, false);
+    }
+
+    /**
+     * Runs the task on a worker.
+     *
+     * @throws RejectedExecutionException If the group is stopped or too many tasks are waiting.
+     */
+    public <V> Future<V> submit(Callable<V> task) {
+        Preconditions.checkNotNull(task, "task must be non-null value");
+        FutureTask<V> future = new FutureTask<V>(task);
+        submit(future, false);
+        return future;
+    }
+
+    /**
+     * Runs the task on a worker once the delay expired. The queue limit is checked when the task is scheduled.
+     *
+     * @throws RejectedExecutionException If the group is stopped.
+     */
+    public ScheduledFuture<?> schedule(Runnable task, long delay, TimeUnit unit) {
+        Preconditions.checkNotNull(task, "task must be non-null value");
+        synchronized (this) {
+            checkNotStopped();
+            ++pendingDelayedTasks;
+        }
+
+        DelayedTask delayedTask = new DelayedTask(task);
+        ScheduledFuture<?> future;
+        try {
+            future = scheduler.getScheduler().schedule(delayedTask, delay, unit);
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                --pendingDelayedTasks;
+                notifyAll();
+            }
+            throw e;
+        }
+
+        synchronized (this) {
+            delayedTask.future = future;
+            if (!delayedTask.fired) {
+                delayedTimers.add(future);
+            }
+        }
+        return future;
+    }
+
+    /**
+     * Runs the task on a worker every period. A run that is due while the previous one is still running is skipped,
+     * and a run that fails is logged without cancelling the next ones.
+     *
+     * @throws RejectedExecutionException If the group is stopped.
+     */
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable task, long initialDelay, long period, TimeUnit unit) {
+        Preconditions.checkNotNull(task, "task must be non-null value");
+        synchronized (this) {
+            checkNotStopped();
+        }
+
+        PeriodicTask periodicTask = new PeriodicTask(task);
+        ScheduledFuture<?> future = scheduler.getScheduler().scheduleAtFixedRate(periodicTask, initialDelay, period, unit);
+        periodicTask.future = future;
+        synchronized (this) {
+            if (stopped) {
+                future.cancel(false);
+            } else {
+                removeDone(periodicTimers);
+                periodicTimers.add(future);
+            }
+        }
+        return future;
+    }
+
+    /**
+     * Changes how many tasks may run at the same time, waiting tasks are started if the limit grows.
+     */
+    public void setMaxConcurrentTasks(int maxConcurrentTasks) {
+        Preconditions.checkArgument(maxConcurrentTasks > 0, "maxConcurrentTasks must be positive");
+
+        List<Runnable> tasksToStart = new ArrayList<Runnable>();
+        synchronized (this) {
+            if (blocking && !stopped && maxConcurrentTasks > reservedThreads) {
+                scheduler.reserveBlockingThreads(maxConcurrentTasks - reservedThreads);
+                reservedThreads = maxConcurrentTasks;
+            }
+            this.maxConcurrentTasks = maxConcurrentTasks;
+            while (activeTasks < maxConcurrentTasks && !queuedTasks.isEmpty()) {
+                tasksToStart.add(queuedTasks.pollFirst());
+                ++activeTasks;
+            }
+        }
+
+        for (Runnable task : tasksToStart) {
+            try {
+                startWorker(task);
+            } catch (RejectedExecutionException e) {
+                InternalLogger.INSTANCE.error("Task group '%s' failed to start a task: '%s'", name, e.toString());
+            }
+        }
+    }
+
+    @Override
+    public void stop(long timeout, TimeUnit timeUnit) {
+        synchronized (this) {
+            if (stopped) {
+                return;
+            }
+            stopped = true;
+            for (Future<?> future : periodicTimers) {
+                future.cancel(false);
+            }
+            periodicTimers.clear();
+        }
+
+        long deadline = System.nanoTime() + timeUnit.toNanos(timeout);
+        boolean interrupted = false;
+        int droppedTasks;
+        boolean tasksStillRunning;
+        synchronized (this) {
+            while (activeTasks > 0 || pendingDelayedTasks > 0) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    break;
+                }
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                    break;
+                }
+            }
+
+            droppedTasks = queuedTasks.size() + pendingDelayedTasks;
+            queuedTasks.clear();
+            for (Future<?> future : delayedTimers) {
+                future.cancel(false);
+            }
+            delayedTimers.clear();
+            pendingDelayedTasks = 0;
+            drained = true;
+            tasksStillRunning = activeTasks > 0;
+
+            if (reservedThreads > 0) {
+                scheduler.reserveBlockingThreads(-reservedThreads);
+                reservedThreads = 0;
+            }
+        }
+
+        if (tasksStillRunning) {
+            for (Thread thread : runningThreads) {
+                thread.interrupt();
+            }
+        }
+        if (droppedTasks > 0) {
+            InternalLogger.INSTANCE.trace("Task group '%s' did not run %d tasks before it was stopped", name, droppedTasks);
+        }
+        scheduler.remove(this);
+
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public synchronized int getMaxConcurrentTasks() {
+        return maxConcurrentTasks;
+    }
+
+    public int getMaxQueuedTasks() {
+        return maxQueuedTasks;
+    }
+
+    public synchronized int getActiveTaskCount() {
+        return activeTasks;
+    }
+
+    public synchronized int getQueuedTaskCount() {
+        return queuedTasks.size();
+    }
+
+    public long getSubmittedTaskCount() {
+        return submittedTasks.get();
+    }
+
+    public long getCompletedTaskCount() {
+        return completedTasks.get();
+    }
+
+    public long getFailedTaskCount() {
+        return failedTasks.get();
+    }
+
+    public long getRejectedTaskCount() {
+        return rejectedTasks.get();
+    }
+
+    /**
+     * @return The number of periodic runs skipped because the previous run was still running.
+     */
+    public long getSkippedRunCount() {
+        return skippedRuns.get();
+    }
+
+    /**
+     * @return The time spent running the tasks of the group.
+     */
+    public long getRunTime(TimeUnit unit) {
+        return unit.convert(runTimeInNanos.get(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * @return True if the tasks of the group run on threads reserved for it.
+     */
+    public boolean isBlocking() {
+        return blocking;
+    }
+
+    public synchronized boolean isStopped() {
+        return stopped;
+    }
+
+    @Override
+    public String toString() {
+        return "TaskGroup{" +
+                "name='" + name + '\'' +
+                ", active=" + getActiveTaskCount() +
+                ", queued=" + getQueuedTaskCount() +
+                ", submitted=" + getSubmittedTaskCount() +
+                ", completed=" + getCompletedTaskCount() +
+                ", failed=" + getFailedTaskCount() +
+                ", rejected=" + getRejectedTaskCount() +
+                ", skipped=" + getSkippedRunCount() +
+                ", runTimeInMillis=" + getRunTime(TimeUnit.MILLISECONDS) +
+                '}';
+    }
+
+    /**
+     * @param delayed True for a task that was scheduled with a delay, it was admitted when it was scheduled
+     *                unless its timer fired after the group was stopped and drained.
+     */
+    private void submit(Runnable task, boolean delayed) {
+        synchronized (this) {
+            if (delayed) {
+                if (drained) {
+                    InternalLogger.INSTANCE.trace("Task group '%s' is stopped, a delayed task is dropped", name);
+                    return;
+                }
+                --pendingDelayedTasks;
+            } else {
+                checkNotStopped();
+            }
+
+            if (activeTasks >= maxConcurrentTasks) {
+                if (!delayed && queuedTasks.size() >= maxQueuedTasks) {
+                    rejectedTasks.incrementAndGet();
+                    throw new RejectedExecutionException(String.format("Task group '%s' has %d tasks waiting", name, queuedTasks.size()));
+                }
+                queuedTasks.addLast(task);
+                submittedTasks.incrementAndGet();
+                return;
+            }
+
+            ++activeTasks;
+            submittedTasks.incrementAndGet();
+        }
+
+        startWorker(task);
+    }
+
+    private void startWorker(Runnable task) {
+        try {
+            (blocking ? scheduler.getBlockingWorkers() : scheduler.getWorkers()).execute(new Worker(task));
+        } catch (RuntimeException e) {
+            synchronized (this) {
+                --activeTasks;
+                notifyAll();
+            }
+            submittedTasks.decrementAndGet();
+            rejectedTasks.incrementAndGet();
+            throw e;
+        }
+    }
+
+    /**
+     * @return The next task to run on the current worker, or null if the worker should be released.
+     */
+    private synchronized Runnable nextTask() {
+        Runnable task = activeTasks > maxConcurrentTasks ? null : queuedTasks.pollFirst();
+        if (task == null) {
+            --activeTasks;
+            notifyAll();
+        }
+        return task;
+    }
+
+    private void runTask(Runnable task) {
+        long startTime = System.nanoTime();
+        try {
+            task.run();
+            completedTasks.incrementAndGet();
+        } catch (ThreadDeath td) {
+            throw td;
+        } catch (Throwable t) {
+            failedTasks.incrementAndGet();
+            try {
+                InternalLogger.INSTANCE.error("Task of group '%s' failed: '%s'", name, t.toString());
+                InternalLogger.INSTANCE.trace("Stack trace generated is %s", ExceptionUtils.getStackTrace(t));
+            } catch (ThreadDeath td) {
+                throw td;
+            } catch (Throwable t2) {
+                // chomp
+            }
+        } finally {
+            runTimeInNanos.addAndGet(System.nanoTime() - startTime);
+        }
+    }
+
+    /**
+     * The task keeps the place of the one that ended, it is only dropped if the workers were shut down.
+     */
+    private void handOver(Runnable task) {
+        try {
+            startWorker(task);
+        } catch (RejectedExecutionException e) {
+            InternalLogger.INSTANCE.error("Task group '%s' failed to start a task: '%s'", name, e.toString());
+        }
+    }
+
+    private void checkNotStopped() {
+        if (stopped) {
+            rejectedTasks.incrementAndGet();
+            throw new RejectedExecutionException(String.format("Task group '%s' is stopped", name));
+        }
+    }
+
+    private static void removeDone(Set<Future<?>> futures) {
+        for (Iterator<Future<?>> iterator = futures.iterator(); iterator.hasNext();) {
+            if (iterator.next().isDone()) {
+                iterator.remove();
+            }
+        }
+    }
+
+    /**
+     * Runs a task of the group on a worker thread. On the shared workers the next waiting task is handed
+     * to a new worker, on the threads of a blocking group the worker keeps running them until none is waiting.
+     */
+    private final class Worker implements Runnable {
+        private Runnable task;
+
+        private Worker(Runnable task) {
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            Thread thread = Thread.currentThread();
+            runningThreads.add(thread);
+            try {
+                while (task != null) {
+                    runTask(task);
+                    // An interrupt sent while stopping is meant for the task, not for the next one
+                    Thread.interrupted();
+                    task = nextTask();
+                    if (task != null && !blocking) {
+                        Runnable next = task;
+                        task = null;
+                        handOver(next);
+                    }
+                }
+            } finally {
+                runningThreads.remove(thread);
+                if (task != null) {
+                    synchronized (TaskGroup.this) {
+                        --activeTasks;
+                        TaskGroup.this.notifyAll();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Hands the task over to a worker once the delay expired, the scheduler threads only keep time.
+     */
+    private final class DelayedTask implements Runnable {
+        private final Runnable task;
+        private Future<?> future;
+        private boolean fired;
+
+        private DelayedTask(Runnable task) {
+            this.task = task;
+        }
+
+        @Override
+        public void run() {
+            synchronized (TaskGroup.this) {
+                fired = true;
+                if (future != null) {
+                    delayedTimers.remove(future);
+                }
+            }
+            try {
+                submit(task, true);
+            } catch (RejectedExecutionException e) {
+                InternalLogger.INSTANCE.error("Task group '%s' failed to run a delayed task: '%s'", name, e.toString());
+            }
+        }
+    }
+
+    /**
+     * Hands the task over to a worker on every period, unless the previous run did not end yet.
+     */
+    private final class PeriodicTask implements Runnable {
+        private final AtomicBoolean running = new AtomicBoolean();
+        private final Runnable run;
+        private volatile Future<?> future;
+
+        private PeriodicTask(final Runnable task) {
+            run = new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        // The task may have been cancelled while this run waited for a worker
+                        Future<?> current = future;
+                        if (current == null || !current.isCancelled()) {
+                            task.run();
+                        }
+                    } finally {
+                        running.set(false);
+                    }
+                }
+            };
+        }
+
+        @Override
+        public void run() {
+            if (!running.compareAndSet(false, true)) {
+                skippedRuns.incrementAndGet();
+                return;
+            }
+            try {
+                submit(run, false);
+            } catch (RejectedExecutionException e) {
+                running.set(false);
+                if (!isStopped()) {
+                    InternalLogger.INSTANCE.error("Task group '%s' failed to run a periodic task: '%s'", name, e.toString());
+                }
+            }
+        }
+    }
+}
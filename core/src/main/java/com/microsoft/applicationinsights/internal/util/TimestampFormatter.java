@@ -0,0 +1,139 @@
+/*
+ * ApplicationInsights-Java
+ * Copyright (c) Microsoft Corporation
+ * All rights reserved.
+ *
+ * MIT License
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the ""Software""), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package com.microsoft.applicationinsights.internal.util;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import com.google.common.base.Preconditions;
+
+/**
+ * A thread safe timestamp formatter that avoids creating a {@link SimpleDateFormat} per call.
+ *
+ * Everything but the milliseconds only changes once a second, so the text before and after the
+ * milliseconds is formatted once per second and cached, and the milliseconds are written directly
+ * into the output. The cache is a small direct mapped table so timestamps from a few neighbouring
+ * seconds, which is typical for a batch of telemetry, do not evict each other.
+ *
+ * Timestamps are formatted in the default time zone, like the {@link SimpleDateFormat} instances they replace.
+ */
+public final class TimestampFormatter {
+
+    /// The format used for envelope times and Date fields: 'yyyy-MM-dd'T'HH:mm:ss.SSSZ'
+    public static final TimestampFormatter ISO_8601 = new TimestampFormatter("yyyy-MM-dd'T'HH:mm:ss.", "Z", true);
+
+    /// The format used for the 'TimeStamp' property of log events: 'EEE, dd MMM yyyy HH:mm:ss 'GMT''
+    public static final TimestampFormatter LOG_EVENT = new TimestampFormatter("EEE, dd MMM yyyy HH:mm:ss 'GMT'", "", false);
+
+    private static final int CACHE_SIZE = 8;
+
+    private static final class Entry {
+        private final long second;
+        private final String prefix;
+        private final String suffix;
+
+        private Entry(long second, String prefix, String suffix) {
+            this.second = second;
+            this.prefix = prefix;
+            this.suffix = suffix;
+        }
+    }
+
+    private final String prefixPattern;
+    private final String suffixPattern;
+    private final boolean withMillis;
+    private final AtomicReferenceArray<Entry> cache = new AtomicReferenceArray<Entry>(CACHE_SIZE);
+
+    TimestampFormatter(String prefixPattern, String suffixPattern, boolean withMillis) {
+        Preconditions.checkNotNull(prefixPattern, "prefixPattern must be a non-null value");
+        Preconditions.checkNotNull(suffixPattern, "suffixPattern must be a non-null value");
+
+        this.prefixPattern = prefixPattern;
+        this.suffixPattern = suffixPattern;
+        this.withMillis = withMillis;
+    }
+
+    public String format(Date date) {
+        return format(date.getTime());
+    }
+
+    public String format(long timeInMillis) {
+        Entry entry = getEntry(timeInMillis);
+        StringBuilder sb = new StringBuilder(entry.prefix.length() + 3 + entry.suffix.length());
+        formatTo(timeInMillis, sb);
+        return sb.toString();
+    }
+
+    public void formatTo(long timeInMillis, StringBuilder sb) {
+        Entry entry = getEntry(timeInMillis);
+        sb.append(entry.prefix);
+        if (withMillis) {
+            int millis = millisOfSecond(timeInMillis);
+            sb.append((char) ('0' + millis / 100))
+              .append((char) ('0' + millis / 10 % 10))
+              .append((char) ('0' + millis % 10));
+        }
+        sb.append(entry.suffix);
+    }
+
+    public void formatTo(long timeInMillis, Writer out) throws IOException {
+        Entry entry = getEntry(timeInMillis);
+        out.write(entry.prefix);
+        if (withMillis) {
+            int millis = millisOfSecond(timeInMillis);
+            out.write('0' + millis / 100);
+            out.write('0' + millis / 10 % 10);
+            out.write('0' + millis % 10);
+        }
+        out.write(entry.suffix);
+    }
+
+    private Entry getEntry(long timeInMillis) {
+        long second = secondOf(timeInMillis);
+        int index = (int) (second & (CACHE_SIZE - 1));
+        Entry entry = cache.get(index);
+        if (entry != null && entry.second == second) {
+            return entry;
+        }
+
+        // Racing threads may both format the same second; the results are equal so either may win.
+        Date secondStart = new Date(second * 1000);
+        String prefix = new SimpleDateFormat(prefixPattern, Locale.US).format(secondStart);
+        String suffix = suffixPattern.isEmpty() ? "" : new SimpleDateFormat(suffixPattern, Locale.US).format(secondStart);
+        entry = new Entry(second, prefix, suffix);
+        cache.set(index, entry);
+        return entry;
+    }
+
+    private static long secondOf(long timeInMillis) {
+        long second = timeInMillis / 1000;
+        return timeInMillis % 1000 < 0 ? second - 1 : second;
+    }
+
+    private static int millisOfSecond(long timeInMillis) {
+        return (int) (timeInMillis - secondOf(timeInMillis) * 1000);
+    }
+}
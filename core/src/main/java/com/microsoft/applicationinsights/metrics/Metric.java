@@ -0,0 +1,162 @@
+/*
+ * ApplicationInsights-Java
+ * Copyright (c) Microsoft Corporation
+ * All rights reserved.
+ *
+ * MIT License
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the ""Software""), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package com.microsoft.applicationinsights.metrics;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.google.common.base.Preconditions;
+import com.google.common.base.Strings;
+import com.microsoft.applicationinsights.telemetry.MetricTelemetry;
+
+/**
+ * A metric that is aggregated in the application and sent once per aggregation interval for every
+ * combination of dimension values, instead of once per tracked value.
+ *
+ * Get an instance with {@link com.microsoft.applicationinsights.TelemetryClient#getMetric(String, String...)}
+ * and keep it, tracking a value is cheap and does not create any telemetry.
+ *
+ * The number of combinations of dimension values is capped, values of new combinations beyond the cap are
+ * aggregated in a single overflow series where every dimension is {@link #OVERFLOW_DIMENSION_VALUE}.
+ */
+public final class Metric {
+    public static final int DEFAULT_MAX_SERIES_COUNT = 1000;
+    public static final String OVERFLOW_DIMENSION_VALUE = "Other";
+
+    private final String name;
+    private final List<String> dimensionNames;
+    private final int maxSeriesCount;
+
+    private final ConcurrentMap<List<String>, MetricSeries> series = new ConcurrentHashMap<List<String>, MetricSeries>();
+    private final AtomicInteger seriesCount = new AtomicInteger();
+    private final MetricSeries overflowSeries;
+
+    Metric(String name, String[] dimensionNames, int maxSeriesCount) {
+        Preconditions.checkArgument(!Strings.isNullOrEmpty(name), "name must be non-null and non-empty value");
+        Preconditions.checkNotNull(dimensionNames, "dimensionNames must be non-null value");
+        Preconditions.checkArgument(maxSeriesCount > 0, "maxSeriesCount must be positive");
+        for (String dimensionName : dimensionNames) {
+            Preconditions.checkArgument(!Strings.isNullOrEmpty(dimensionName), "dimension names must be non-null and non-empty values");
+        }
+
+        this.name = name;
+        this.dimensionNames = Collections.unmodifiableList(new ArrayList<String>(Arrays.asList(dimensionNames)));
+        this.maxSeriesCount = maxSeriesCount;
+
+        String[] overflowValues = new String[dimensionNames.length];
+        Arrays.fill(overflowValues, OVERFLOW_DIMENSION_VALUE);
+        this.overflowSeries = new MetricSeries(createDimensions(overflowValues));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public List<String> getDimensionNames() {
+        return dimensionNames;
+    }
+
+    /**
+     * @return The number of combinations of dimension values tracked so far, not including the overflow series.
+     */
+    public int getSeriesCount() {
+        return seriesCount.get();
+    }
+
+    /**
+     * Tracks a value for a combination of dimension values.
+     *
+     * @param value The value, NaN and infinite values are ignored.
+     * @param dimensionValues The values of the dimensions, in the order of the dimension names of the metric.
+     * @throws IllegalArgumentException if the number of dimension values is not the number of dimensions.
+     */
+    public void trackValue(double value, String... dimensionValues) {
+        Preconditions.checkArgument(dimensionValues.length == dimensionNames.size(),
+                "metric '%s' has %s dimensions but %s values were given", name, dimensionNames.size(), dimensionValues.length);
+
+        if (Double.isNaN(value) || Double.isInfinite(value)) {
+            return;
+        }
+
+        getSeries(dimensionValues).trackValue(value);
+    }
+
+    /**
+     * Takes the aggregates of the values tracked since the previous flush, one per series.
+     */
+    List<MetricTelemetry> flush(long intervalStartMillis, long intervalMillis) {
+        List<MetricTelemetry> telemetries = new ArrayList<MetricTelemetry>();
+        for (MetricSeries current : series.values()) {
+            addIfTracked(telemetries, current.flush(name, intervalStartMillis, intervalMillis));
+        }
+        addIfTracked(telemetries, overflowSeries.flush(name, intervalStartMillis, intervalMillis));
+
+        return telemetries;
+    }
+
+    private MetricSeries getSeries(String[] dimensionValues) {
+        MetricSeries current = series.get(Arrays.asList(dimensionValues));
+        if (current != null) {
+            return current;
+        }
+
+        if (seriesCount.incrementAndGet() > maxSeriesCount) {
+            seriesCount.decrementAndGet();
+            return overflowSeries;
+        }
+
+        // The values are copied since the caller might reuse the array
+        String[] key = dimensionValues.clone();
+        MetricSeries created = new MetricSeries(createDimensions(key));
+        current = series.putIfAbsent(Arrays.asList(key), created);
+        if (current != null) {
+            seriesCount.decrementAndGet();
+            return current;
+        }
+
+        return created;
+    }
+
+    private Map<String, String> createDimensions(String[] dimensionValues) {
+        Map<String, String> dimensions = new HashMap<String, String>();
+        for (int i = 0; i < dimensionValues.length; ++i) {
+            if (dimensionValues[i] != null) {
+                dimensions.put(dimensionNames.get(i), dimensionValues[i]);
+            }
+        }
+
+        return Collections.unmodifiableMap(dimensions);
+    }
+
+    private static void addIfTracked(List<MetricTelemetry> telemetries, MetricTelemetry telemetry) {
+        if (telemetry != null) {
+            telemetries.add(telemetry);
+        }
+    }
+}
@@ -0,0 +1,194 @@
+/*
+ * ApplicationInsights-Java
+ * Copyright (c) Microsoft Corporation
+ * All rights reserved.
+ *
+ * MIT License
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the ""Software""), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package com.microsoft.applicationinsights.metrics;
+
+import java.io.Flushable;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.WeakHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Preconditions;
+import com.microsoft.applicationinsights.TelemetryClient;
+import com.microsoft.applicationinsights.internal.logger.InternalLogger;
+import com.microsoft.applicationinsights.internal.shutdown.SDKShutdownActivity;
+import com.microsoft.applicationinsights.internal.util.SDKScheduler;
+import com.microsoft.applicationinsights.internal.util.TaskGroup;
+import com.microsoft.applicationinsights.telemetry.MetricTelemetry;
+
+/**
+ * Holds the {@link Metric} instances of a {@link TelemetryClient} and sends their aggregates through it
+ * once per aggregation interval.
+ *
+ * This class is part of the Application Insights infrastructure, use {@link TelemetryClient#getMetric(String, String...)}.
+ */
+public final class MetricManager {
+    public static final long DEFAULT_AGGREGATION_INTERVAL_IN_MILLIS = 60000;
+
+    /**
+     * Flushes the manager until it is no longer used, so that a {@link TelemetryClient} that
+     * is not referenced anymore can be collected along with its metrics.
+     */
+    private static final class FlushTask implements Runnable {
+        private final WeakReference<MetricManager> manager;
+        private volatile ScheduledFuture<?> future;
+
+        private FlushTask(MetricManager manager) {
+            this.manager = new WeakReference<MetricManager>(manager);
+        }
+
+        @Override
+        public void run() {
+            MetricManager current = manager.get();
+            if (current == null) {
+                if (future != null) {
+                    future.cancel(false);
+                }
+                return;
+            }
+
+            try {
+                current.flush();
+            } catch (ThreadDeath td) {
+                throw td;
+            } catch (Throwable t) {
+                try {
+                    InternalLogger.INSTANCE.error("Failed to flush aggregated metrics: '%s'", t.toString());
+                } catch (ThreadDeath td) {
+                    throw td;
+                } catch (Throwable t2) {
+                    // chomp
+                }
+            }
+        }
+    }
+
+    /// The flushes of all the clients wait for each other, one client flushes at a time
+    private static final int MAX_PENDING_FLUSHES = 1024;
+
+    /// A single task at a time flushes the metrics of all the clients
+    private static TaskGroup flushThread;
+
+    /// The scheduled managers, flushed once more when the SDK shuts down
+    private static final Set<MetricManager> liveManagers = Collections.synchronizedSet(Collections.newSetFromMap(new WeakHashMap<MetricManager, Boolean>()));
+
+    private static boolean shutdownFlushRegistered;
+
+    private final TelemetryClient telemetryClient;
+    private final long aggregationIntervalInMillis;
+    private final ConcurrentMap<String, Metric> metrics = new ConcurrentHashMap<String, Metric>();
+    private long intervalStartMillis = System.currentTimeMillis();
+
+    public MetricManager(TelemetryClient telemetryClient) {
+        this(telemetryClient, DEFAULT_AGGREGATION_INTERVAL_IN_MILLIS);
+
+        FlushTask flushTask = new FlushTask(this);
+        flushTask.future = getFlushThread().scheduleAtFixedRate(flushTask, aggregationIntervalInMillis, aggregationIntervalInMillis, TimeUnit.MILLISECONDS);
+        liveManagers.add(this);
+    }
+
+    MetricManager(TelemetryClient telemetryClient, long aggregationIntervalInMillis) {
+        Preconditions.checkNotNull(telemetryClient, "telemetryClient must be non-null value");
+        Preconditions.checkArgument(aggregationIntervalInMillis > 0, "aggregationIntervalInMillis must be positive");
+
+        this.telemetryClient = telemetryClient;
+        this.aggregationIntervalInMillis = aggregationIntervalInMillis;
+    }
+
+    /**
+     * Gets the metric with that name, creating it on first use.
+     *
+     * @param name The name of the metric.
+     * @param dimensionNames The names of the dimensions of the metric, the same on every call for that name.
+     * @return The metric.
+     * @throws IllegalArgumentException if the metric already exists with other dimension names.
+     */
+    public Metric getMetric(String name, String... dimensionNames) {
+        Metric metric = metrics.get(name);
+        if (metric == null) {
+            Metric created = new Metric(name, dimensionNames, Metric.DEFAULT_MAX_SERIES_COUNT);
+            metric = metrics.putIfAbsent(name, created);
+            if (metric == null) {
+                return created;
+            }
+        }
+
+        Preconditions.checkArgument(metric.getDimensionNames().equals(Arrays.asList(dimensionNames)),
+                "metric '%s' already exists with dimensions %s", name, metric.getDimensionNames());
+        return metric;
+    }
+
+    /**
+     * Sends the aggregates of the values tracked since the previous flush, one metric telemetry per series.
+     */
+    public synchronized void flush() {
+        long now = System.currentTimeMillis();
+        long intervalStart = intervalStartMillis;
+        intervalStartMillis = now;
+
+        for (Metric metric : metrics.values()) {
+            for (MetricTelemetry telemetry : metric.flush(intervalStart, now - intervalStart)) {
+                telemetryClient.track(telemetry);
+            }
+        }
+    }
+
+    /**
+     * Flushes the managers that are still in use, so that the values of the last interval are sent before the channels stop.
+     */
+    static void flushLiveManagers() {
+        List<MetricManager> managers;
+        synchronized (liveManagers) {
+            managers = new ArrayList<MetricManager>(liveManagers);
+        }
+
+        for (MetricManager manager : managers) {
+            new FlushTask(manager).run();
+        }
+    }
+
+    private static synchronized TaskGroup getFlushThread() {
+        if (flushThread == null || flushThread.isStopped()) {
+            flushThread = SDKScheduler.INSTANCE.createTaskGroup(MetricManager.class.getSimpleName(), 1, MAX_PENDING_FLUSHES);
+            SDKShutdownActivity.INSTANCE.register(flushThread);
+        }
+
+        if (!shutdownFlushRegistered) {
+            shutdownFlushRegistered = true;
+            SDKShutdownActivity.INSTANCE.register(new Flushable() {
+                @Override
+                public void flush() {
+                    flushLiveManagers();
+                }
+            });
+        }
+
+        return flushThread;
+    }
+}
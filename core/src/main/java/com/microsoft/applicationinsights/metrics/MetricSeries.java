@@ -0,0 +1,112 @@
+/*
+ * ApplicationInsights-Java
+ * Copyright (c) Microsoft Corporation
+ * All rights reserved.
+ *
+ * MIT License
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the ""Software""), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package com.microsoft.applicationinsights.metrics;
+
+import java.util.Date;
+import java.util.Map;
+
+import com.microsoft.applicationinsights.telemetry.MetricTelemetry;
+
+/**
+ * Aggregates the values tracked for one combination of dimension values of a {@link Metric}.
+ *
+ * The aggregate is kept in primitive fields guarded by the series itself, so tracking a value allocates nothing,
+ * and flushing takes the aggregate and resets it under the same lock, so every value falls into exactly one interval.
+ * The variance is accumulated with Welford's algorithm, which stays precise for large values with a small spread.
+ */
+final class MetricSeries {
+    static final String AGGREGATION_INTERVAL_PROPERTY_NAME = "_MS.AggregationIntervalMs";
+
+    private final Map<String, String> dimensions;
+
+    private long count;
+    private double sum;
+    private double min;
+    private double max;
+    private double mean;
+
+    /// The sum of the squared distances from the mean
+    private double squaredDistances;
+
+    MetricSeries(Map<String, String> dimensions) {
+        this.dimensions = dimensions;
+        reset();
+    }
+
+    Map<String, String> getDimensions() {
+        return dimensions;
+    }
+
+    synchronized void trackValue(double value) {
+        ++count;
+        double delta = value - mean;
+        mean += delta / count;
+        squaredDistances += delta * (value - mean);
+        sum += value;
+        min = Math.min(min, value);
+        max = Math.max(max, value);
+    }
+
+    /**
+     * Takes the aggregate of the values tracked since the previous flush and resets the series.
+     *
+     * @return The aggregate as a metric, or null if no value was tracked.
+     */
+    MetricTelemetry flush(String name, long intervalStartMillis, long intervalMillis) {
+        long currentCount;
+        double currentSum;
+        double currentMin;
+        double currentMax;
+        double currentSquaredDistances;
+        synchronized (this) {
+            if (count == 0) {
+                return null;
+            }
+
+            currentCount = count;
+            currentSum = sum;
+            currentMin = min;
+            currentMax = max;
+            currentSquaredDistances = squaredDistances;
+            reset();
+        }
+
+        MetricTelemetry telemetry = new MetricTelemetry(name, currentSum);
+        telemetry.setTimestamp(new Date(intervalStartMillis));
+        telemetry.setCount((int) Math.min(currentCount, Integer.MAX_VALUE));
+        telemetry.setMin(currentMin);
+        telemetry.setMax(currentMax);
+        telemetry.setStandardDeviation(Math.sqrt(Math.max(0.0, currentSquaredDistances / currentCount)));
+        telemetry.getProperties().putAll(dimensions);
+        telemetry.getProperties().put(AGGREGATION_INTERVAL_PROPERTY_NAME, String.valueOf(intervalMillis));
+        return telemetry;
+    }
+
+    private void reset() {
+        count = 0;
+        sum = 0.0;
+        min = Double.POSITIVE_INFINITY;
+        max = Double.NEGATIVE_INFINITY;
+        mean = 0.0;
+        squaredDistances = 0.0;
+    }
+}
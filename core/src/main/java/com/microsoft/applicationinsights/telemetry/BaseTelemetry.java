@@ -24,7 +24,7 @@ package com.microsoft.applicationinsights.telemetry;
 import com.microsoft.applicationinsights.internal.schemav2.Data;
 import com.microsoft.applicationinsights.internal.schemav2.Domain;
 import com.microsoft.applicationinsights.internal.schemav2.Envelope;
-import com.microsoft.applicationinsights.internal.util.LocalStringsUtils;
+import com.microsoft.applicationinsights.internal.util.TimestampFormatter;
 import com.microsoft.applicationinsights.internal.util.Sanitizer;
 
 import java.io.IOException;
@@ -159,7 +159,7 @@ public abstract class BaseTelemetry<T extends Domain> implements Telemetry {
         tmp.setBaseData(getData());
         tmp.setBaseType(this.getBaseTypeName());
         envelope.setData(tmp);
-        if (getTimestamp() != null) envelope.setTime(LocalStringsUtils.getDateFormatter().format(getTimestamp()));
+        if (getTimestamp() != null) envelope.setTime(TimestampFormatter.ISO_8601.format(getTimestamp()));
         envelope.setTags(context.getTags());
 
         envelope.serialize(writer);
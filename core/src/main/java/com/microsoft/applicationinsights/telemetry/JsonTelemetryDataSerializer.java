@@ -23,13 +23,11 @@ package com.microsoft.applicationinsights.telemetry;
 
 import com.google.common.base.Strings;
 import com.microsoft.applicationinsights.internal.schemav2.DataPointType;
-import com.microsoft.applicationinsights.internal.util.LocalStringsUtils;
+import com.microsoft.applicationinsights.internal.util.TimestampFormatter;
 
-import java.io.BufferedWriter;
 import java.io.IOException;
-import java.io.StringWriter;
 import java.io.Writer;
-import java.text.StringCharacterIterator;
+import java.text.CharacterIterator;
 import java.util.Date;
 import java.util.HashSet;
 import java.util.List;
@@ -38,6 +36,10 @@ import java.util.Set;
 
 /**
  * This class knows how to transform data that is relevant to {@link Telemetry} instances into JSON.
+ *
+ * The JSON is written in a single pass: nested {@link JsonSerializable} objects are written in place
+ * rather than into temporary writers, strings are escaped using a lookup table and integral numbers
+ * are written without creating intermediate strings.
  */
 public final class JsonTelemetryDataSerializer {
 
@@ -48,8 +50,12 @@ public final class JsonTelemetryDataSerializer {
     private final static String JSON_CLOSE_ARRAY = "]";
     private final static String JSON_COMMA = "\"";
     private final static String JSON_NAME_VALUE_SEPARATOR = ":";
-    private final static String JSON_EMPTY_OBJECT = "{}";
+    private final static String EMPTY_KEY = "(required property name is empty)";
     private final static int DELTA = 2;
+    private final static int UNICODE_ESCAPE_LENGTH = 6;
+
+    /// The escape sequence of every character below this value that cannot be written as is, null for the others
+    private static final String[] ESCAPES = getEscapes();
 
     private static final Set<Class<?>> WRAPPER_TYPES = getWrapperTypes();
 
@@ -57,12 +63,18 @@ public final class JsonTelemetryDataSerializer {
 
     private String separator = "";
 
+    /// The opening text of nested objects that is only written once the objects turn out to be non empty
+    private final StringBuilder pendingPrefix = new StringBuilder();
+
+    private final char[] digits = new char[20];
+
     public JsonTelemetryDataSerializer(Writer out) throws IOException {
         reset(out);
     }
 
     public void reset(Writer out) throws IOException {
         separator = "";
+        pendingPrefix.setLength(0);
         this.out = out;
         this.out.write(JSON_START_OBJECT);
     }
@@ -88,7 +100,7 @@ public final class JsonTelemetryDataSerializer {
 
     public void write(String name, int value) throws IOException {
         writeName(name);
-        out.write(String.valueOf(value));
+        writeLong(value);
         separator = JSON_SEPARATOR;
     }
 
@@ -108,7 +120,7 @@ public final class JsonTelemetryDataSerializer {
         }
 
         writeName(name);
-        out.write(String.valueOf(value));
+        writeLong(value);
         separator = JSON_SEPARATOR;
     }
 
@@ -130,7 +142,7 @@ public final class JsonTelemetryDataSerializer {
 
     public void write(String name, short value) throws IOException {
         writeName(name);
-        out.write(String.valueOf(value));
+        writeLong(value);
         separator = JSON_SEPARATOR;
     }
 
@@ -140,13 +152,13 @@ public final class JsonTelemetryDataSerializer {
         }
 
         writeName(name);
-        out.write(String.valueOf(value));
+        writeLong(value);
         separator = JSON_SEPARATOR;
     }
 
     public void write(String name, long value) throws IOException {
         writeName(name);
-        out.write(String.valueOf(value));
+        writeLong(value);
         separator = JSON_SEPARATOR;
     }
 
@@ -156,7 +168,7 @@ public final class JsonTelemetryDataSerializer {
         }
 
         writeName(name);
-        out.write(String.valueOf(value));
+        writeLong(value);
         separator = JSON_SEPARATOR;
     }
 
@@ -182,7 +194,9 @@ public final class JsonTelemetryDataSerializer {
         }
 
         writeName(name);
-        write(LocalStringsUtils.getDateFormatter().format(value));
+        out.write(JSON_COMMA);
+        TimestampFormatter.ISO_8601.formatTo(value.getTime(), out);
+        out.write(JSON_COMMA);
         separator = JSON_SEPARATOR;
     }
 
@@ -219,8 +233,7 @@ public final class JsonTelemetryDataSerializer {
 
         writeName(name);
         out.write(JSON_COMMA);
-        String sanitizedValue = sanitizeStringForJSON(value, len);
-        out.write(sanitizedValue);
+        writeEscaped(value, len);
         out.write(JSON_COMMA);
         separator = JSON_SEPARATOR;
     }
@@ -230,15 +243,7 @@ public final class JsonTelemetryDataSerializer {
             return;
         }
 
-        String jsonStringToAppend = createJsonFor(value);
-        if (Strings.isNullOrEmpty(jsonStringToAppend)) {
-            return;
-        }
-
-        writeName(name);
-        out.write(jsonStringToAppend);
-
-        separator = JSON_SEPARATOR;
+        writeNested(name, value);
     }
 
     public <T> void write(String name, Map<String, T> map) throws IOException {
@@ -253,7 +258,7 @@ public final class JsonTelemetryDataSerializer {
 
             separator = "";
             for (Map.Entry<String, T> entry : map.entrySet()) {
-                writeName(sanitizeKey(entry.getKey()));
+                writeKey(entry.getKey());
                 write(entry.getValue());
                 separator = JSON_SEPARATOR;
             }
@@ -292,42 +297,54 @@ public final class JsonTelemetryDataSerializer {
 
     private <T> void write(T item) throws IOException {
         if (item instanceof JsonSerializable) {
-            String jsonStringToAppend = createJsonFor((JsonSerializable)item);
-            if (Strings.isNullOrEmpty(jsonStringToAppend)) {
-                return;
-            }
-
-            out.write(jsonStringToAppend);
+            writeNested(null, (JsonSerializable) item);
         } else {
-            if (WRAPPER_TYPES.contains(item.getClass()))
-            {
+            if (item instanceof Integer || item instanceof Long || item instanceof Short || item instanceof Byte) {
+                writeLong(((Number) item).longValue());
+            } else if (WRAPPER_TYPES.contains(item.getClass())) {
                 out.write(String.valueOf(item));
             } else {
-                String truncatedName = truncate(String.valueOf(item), 8192);
-                String sanitizedItem = sanitizeStringForJSON(truncatedName, 8192);
                 out.write(JSON_COMMA);
-                out.write(sanitizedItem);
+                writeEscaped(String.valueOf(item), 8192);
                 out.write(JSON_COMMA);
             }
         }
     }
 
-    private <T extends JsonSerializable> String createJsonFor(T value) throws IOException {
-        StringWriter stringWriter = new StringWriter();
-        JsonTelemetryDataSerializer temp = new JsonTelemetryDataSerializer(new BufferedWriter(stringWriter));
+    /**
+     * Writes the object in place. The object's opening text is only written along with its first field,
+     * so an object without fields is left out entirely, together with its name, as it always has been.
+     */
+    private void writeNested(String name, JsonSerializable value) throws IOException {
+        String outerSeparator = separator;
+        int mark = pendingPrefix.length();
+        if (name != null) {
+            pendingPrefix.append(separator).append(JSON_COMMA).append(name).append(JSON_COMMA).append(JSON_NAME_VALUE_SEPARATOR);
+        }
+        pendingPrefix.append(JSON_START_OBJECT);
+        separator = "";
 
-        value.serialize(temp);
-        temp.close();
-        String jsonStringToAppend = stringWriter.toString();
-        if (Strings.isNullOrEmpty(jsonStringToAppend) || JSON_EMPTY_OBJECT.equals(jsonStringToAppend)) {
-            return "";
+        value.serialize(this);
+
+        if (pendingPrefix.length() > mark) {
+            // nothing was written
+            pendingPrefix.setLength(mark);
+            separator = outerSeparator;
+        } else {
+            out.write(JSON_CLOSE_OBJECT);
+            separator = JSON_SEPARATOR;
         }
+    }
 
-        return jsonStringToAppend;
+    private void writePendingPrefix() throws IOException {
+        if (pendingPrefix.length() > 0) {
+            out.append(pendingPrefix);
+            pendingPrefix.setLength(0);
+        }
     }
 
     private void writeName(String name) throws IOException {
-
+        writePendingPrefix();
         out.write(separator);
         out.write(JSON_COMMA);
         out.write(name);
@@ -350,53 +367,85 @@ public final class JsonTelemetryDataSerializer {
         return ret;
     }
 
-    private String sanitizeStringForJSON(String text, int maxLength) {
+    private void writeKey(String key) throws IOException {
+        writePendingPrefix();
+        out.write(separator);
+        out.write(JSON_COMMA);
+        String trimmedKey = trimAndTruncate(key, 150);
+        if (Strings.isNullOrEmpty(trimmedKey) || trimmedKey.charAt(0) == CharacterIterator.DONE) {
+            out.write(EMPTY_KEY);
+        } else {
+            writeEscaped(trimmedKey, 150);
+        }
+        out.write(JSON_COMMA);
+        out.write(JSON_NAME_VALUE_SEPARATOR);
+    }
 
-        final StringBuilder result = new StringBuilder();
-        StringCharacterIterator iterator = new StringCharacterIterator(text);
-        for (char curr = iterator.current(); curr != iterator.DONE && result.length() < maxLength - DELTA; curr = iterator.next()) {
-            if( curr == '\"' ){
-                result.append("\\\"");
-            }
-            else if(curr == '\\'){
-                result.append("\\\\");
-            }
-            else if(curr == '\b'){
-                result.append("\\b");
-            }
-            else if(curr == '\f'){
-                result.append("\\f");
-            }
-            else if(curr == '\n'){
-                result.append("\\n");
-            }
-            else if(curr == '\r'){
-                result.append("\\r");
-            }
-            else if(curr == '\t'){
-                result.append("\\t");
+    /**
+     * Writes the escaped text, stopping before the escaped text reaches maxLength - DELTA characters.
+     * Like the {@link java.text.StringCharacterIterator} this used to be based on, the text ends at the first '\uffff'.
+     */
+    private void writeEscaped(String text, int maxLength) throws IOException {
+        int limit = maxLength - DELTA;
+        int written = 0;
+        int runStart = 0;
+        int i = 0;
+        for (; i < text.length() && written < limit; ++i) {
+            char curr = text.charAt(i);
+            if (curr == CharacterIterator.DONE) {
+                break;
             }
-            else if (!Character.isISOControl(curr)){
-                result.append(curr);
+            String escape = curr < ESCAPES.length ? ESCAPES[curr] : null;
+            if (escape == null) {
+                ++written;
+                continue;
             }
-            else {
-                if (result.length() + 7 < maxLength) { // needs 7 more character space to be appended
-                    result.append("\\u");
-                    result.append((String.format( "%04x", Integer.valueOf(curr))));
-                }
-                else {
-                    break;
-                }
+
+            if (escape.length() == UNICODE_ESCAPE_LENGTH && written + 7 >= maxLength) {
+                // needs 7 more character space to be appended
+                break;
             }
+            out.write(text, runStart, i - runStart);
+            out.write(escape);
+            written += escape.length();
+            runStart = i + 1;
         }
-        return result.toString();
+        out.write(text, runStart, i - runStart);
     }
 
-    private String sanitizeKey(String key) {
-        String sanitizedKey = trimAndTruncate(key, 150);
-        sanitizedKey = sanitizeStringForJSON(sanitizedKey, 150);
-        sanitizedKey = MakeKeyNonEmpty(sanitizedKey);
-        return sanitizedKey;
+    private void writeLong(long value) throws IOException {
+        if (value == Long.MIN_VALUE) {
+            out.write(String.valueOf(value));
+            return;
+        }
+
+        int position = digits.length;
+        long remaining = Math.abs(value);
+        do {
+            digits[--position] = (char) ('0' + remaining % 10);
+            remaining /= 10;
+        } while (remaining != 0);
+        if (value < 0) {
+            digits[--position] = '-';
+        }
+        out.write(digits, position, digits.length - position);
+    }
+
+    private static String[] getEscapes() {
+        String[] escapes = new String[0xa0];
+        for (char c = 0; c < escapes.length; ++c) {
+            if (Character.isISOControl(c)) {
+                escapes[c] = String.format("\\u%04x", (int) c);
+            }
+        }
+        escapes['\"'] = "\\\"";
+        escapes['\\'] = "\\\\";
+        escapes['\b'] = "\\b";
+        escapes['\f'] = "\\f";
+        escapes['\n'] = "\\n";
+        escapes['\r'] = "\\r";
+        escapes['\t'] = "\\t";
+        return escapes;
     }
 
     private static String trimAndTruncate(String value, int maxLength) {
@@ -412,15 +461,5 @@ public final class JsonTelemetryDataSerializer {
         return sanitized;
     }
 
-    private String MakeKeyNonEmpty(String key) {
-        return Strings.isNullOrEmpty(key) ? "(required property name is empty)" : key;
-    }
-
-    private String truncate(String value, int len) {
-        if (value.length() > len) {
-            return value.substring(0, len);
-        }
-        return value;
-    }
 
 }
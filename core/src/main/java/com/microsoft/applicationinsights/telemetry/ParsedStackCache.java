@@ -0,0 +1,130 @@
+/*
+ * ApplicationInsights-Java
+ * Copyright (c) Microsoft Corporation
+ * All rights reserved.
+ *
+ * MIT License
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the ""Software""), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package com.microsoft.applicationinsights.telemetry;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import com.google.common.base.Strings;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.microsoft.applicationinsights.internal.schemav2.ExceptionDetails;
+import com.microsoft.applicationinsights.internal.schemav2.StackFrame;
+
+/**
+ * A bounded cache of the parsed stacks of exceptions, keyed by their stack traces.
+ *
+ * The same exception thrown over and over has the same stack trace each time, so its frames are only
+ * parsed once and every {@link ExceptionTelemetry} that reports it shares the same unmodifiable list of
+ * {@link StackFrame}s. The list is set with {@link ExceptionDetails#setSharedParsedStack(List)}, which copies
+ * it only if the caller asks for the parsed stack to change it.
+ * The least recently used stack traces are evicted once the cache is full.
+ */
+final class ParsedStackCache {
+
+    static final int DEFAULT_MAX_SIZE = 1000;
+
+    static final ParsedStackCache INSTANCE = new ParsedStackCache(DEFAULT_MAX_SIZE);
+
+    private static final class StackTraceKey {
+        private final StackTraceElement[] trace;
+        private final int hashCode;
+
+        private StackTraceKey(StackTraceElement[] trace) {
+            this.trace = trace;
+            this.hashCode = Arrays.hashCode(trace);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (this == other) {
+                return true;
+            }
+            if (!(other instanceof StackTraceKey)) {
+                return false;
+            }
+
+            StackTraceKey that = (StackTraceKey) other;
+            return hashCode == that.hashCode && Arrays.equals(trace, that.trace);
+        }
+    }
+
+    private final Cache<StackTraceKey, List<StackFrame>> cache;
+
+    ParsedStackCache(int maxSize) {
+        cache = CacheBuilder.newBuilder().maximumSize(maxSize).build();
+    }
+
+    /**
+     * @param trace The stack trace, which must not be modified afterwards.
+     * @return The parsed frames, shared by all the exceptions with this stack trace, which must not be changed.
+     */
+    List<StackFrame> getParsedStack(StackTraceElement[] trace) {
+        StackTraceKey key = new StackTraceKey(trace);
+        List<StackFrame> parsedStack = cache.getIfPresent(key);
+        if (parsedStack == null) {
+            parsedStack = parse(trace);
+            cache.put(key, parsedStack);
+        }
+
+        return parsedStack;
+    }
+
+    long size() {
+        return cache.size();
+    }
+
+    private static List<StackFrame> parse(StackTraceElement[] trace) {
+        List<StackFrame> stack = new ArrayList<StackFrame>(trace.length);
+        for (int idx = 0; idx < trace.length; idx++) {
+            StackTraceElement elem = trace[idx];
+
+            if (elem.isNativeMethod()) {
+                continue;
+            }
+
+            String className = elem.getClassName();
+
+            StackFrame frame = new StackFrame();
+            frame.setLevel(idx);
+            frame.setFileName(elem.getFileName());
+            frame.setLine(elem.getLineNumber());
+
+            if (!Strings.isNullOrEmpty(className)) {
+                frame.setMethod(elem.getClassName() + "." + elem.getMethodName());
+            }
+            else {
+                frame.setMethod(elem.getMethodName());
+            }
+
+            stack.add(frame);
+        }
+        return Collections.unmodifiableList(stack);
+    }
+}
@@ -22,7 +22,9 @@
 package com.microsoft.applicationinsights;
 
 import java.net.URL;
+import java.util.Iterator;
 import java.util.List;
+import java.util.ListIterator;
 import java.util.Map;
 import java.util.HashMap;
 import java.util.Date;
@@ -32,6 +34,7 @@ import java.util.concurrent.TimeUnit;
 import com.microsoft.applicationinsights.channel.TelemetryChannel;
 import com.microsoft.applicationinsights.extensibility.ContextInitializer;
 import com.microsoft.applicationinsights.extensibility.TelemetryInitializer;
+import com.microsoft.applicationinsights.extensibility.TelemetryProcessor;
 import com.microsoft.applicationinsights.channel.TelemetrySampler;
 import com.microsoft.applicationinsights.internal.processor.RequestTelemetryFilter;
 import com.microsoft.applicationinsights.telemetry.*;
@@ -506,6 +509,71 @@ public final class TelemetryClientTests {
         Mockito.verify(channel, Mockito.times(1)).send(rt);
     }
 
+    @Test
+    public void testConfigurationChangesApplyToTheNextTelemetry() {
+        TelemetryProcessor dropAll = new TelemetryProcessor() {
+            @Override
+            public boolean process(Telemetry telemetry) {
+                return false;
+            }
+        };
+        configuration.getTelemetryProcessors().add(dropAll);
+        client.trackEvent("Dropped");
+        Mockito.verify(channel, Mockito.never()).send(any(Telemetry.class));
+
+        configuration.getTelemetryProcessors().remove(dropAll);
+        configuration.setTrackingIsDisabled(true);
+        client.trackEvent("Disabled");
+        Mockito.verify(channel, Mockito.never()).send(any(Telemetry.class));
+
+        configuration.setTrackingIsDisabled(false);
+        client.trackEvent("Sent");
+        Mockito.verify(channel, Mockito.times(1)).send(any(Telemetry.class));
+    }
+
+    @Test
+    public void testChangesThroughIteratorsAndSubListsApplyToTheNextTelemetry() {
+        TelemetryProcessor dropAll = new TelemetryProcessor() {
+            @Override
+            public boolean process(Telemetry telemetry) {
+                return false;
+            }
+        };
+        TelemetryProcessor keepAll = new TelemetryProcessor() {
+            @Override
+            public boolean process(Telemetry telemetry) {
+                return true;
+            }
+        };
+        List<TelemetryProcessor> processors = configuration.getTelemetryProcessors();
+
+        processors.add(dropAll);
+        client.trackEvent("Dropped");
+        ListIterator<TelemetryProcessor> listIterator = processors.listIterator();
+        listIterator.next();
+        listIterator.set(keepAll);
+        client.trackEvent("Sent after set");
+        Mockito.verify(channel, Mockito.times(1)).send(any(Telemetry.class));
+
+        processors.add(dropAll);
+        client.trackEvent("Dropped");
+        processors.subList(1, 2).clear();
+        client.trackEvent("Sent after sub list clear");
+        Mockito.verify(channel, Mockito.times(2)).send(any(Telemetry.class));
+
+        processors.add(dropAll);
+        client.trackEvent("Dropped");
+        Iterator<TelemetryProcessor> iterator = processors.iterator();
+        while (iterator.hasNext()) {
+            if (iterator.next() == dropAll) {
+                iterator.remove();
+            }
+        }
+        client.trackEvent("Sent after iterator remove");
+        Mockito.verify(channel, Mockito.times(3)).send(any(Telemetry.class));
+        assertEquals(1, processors.size());
+    }
+
     // endregion Track tests
 
     // region Private methods
@@ -0,0 +1,106 @@
+/*
+ * ApplicationInsights-Java
+ * Copyright (c) Microsoft Corporation
+ * All rights reserved.
+ *
+ * MIT License
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the ""Software""), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package com.microsoft.applicationinsights;
+
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+
+import com.microsoft.applicationinsights.extensibility.TelemetryProcessor;
+import com.microsoft.applicationinsights.extensibility.TypedTelemetryProcessor;
+import com.microsoft.applicationinsights.internal.schemav2.EventData;
+import com.microsoft.applicationinsights.telemetry.BaseTelemetry;
+import com.microsoft.applicationinsights.telemetry.EventTelemetry;
+import com.microsoft.applicationinsights.telemetry.RequestTelemetry;
+import com.microsoft.applicationinsights.telemetry.Telemetry;
+import com.microsoft.applicationinsights.telemetry.TraceTelemetry;
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertSame;
+
+public class TelemetryProcessorPipelineTest {
+    private static final class TypedProcessor implements TypedTelemetryProcessor {
+        private final Collection<Class<? extends Telemetry>> types;
+
+        private TypedProcessor(Collection<Class<? extends Telemetry>> types) {
+            this.types = types;
+        }
+
+        @Override
+        public boolean process(Telemetry telemetry) {
+            return true;
+        }
+
+        @Override
+        public Collection<Class<? extends Telemetry>> getTelemetryTypes() {
+            return types;
+        }
+    }
+
+    private static final class UntypedProcessor implements TelemetryProcessor {
+        @Override
+        public boolean process(Telemetry telemetry) {
+            return true;
+        }
+    }
+
+    /// Only its class is used
+    private abstract static class CustomTelemetry extends BaseTelemetry<EventData> {
+    }
+
+    @Test
+    public void testProcessorsAreIndexedByTypeInOrder() {
+        TelemetryProcessor untyped = new UntypedProcessor();
+        TelemetryProcessor requests = new TypedProcessor(Collections.<Class<? extends Telemetry>>singletonList(RequestTelemetry.class));
+        TelemetryProcessor eventsAndTraces = new TypedProcessor(Arrays.<Class<? extends Telemetry>>asList(EventTelemetry.class, TraceTelemetry.class));
+        TelemetryProcessor untypedLast = new UntypedProcessor();
+        TelemetryProcessorPipeline pipeline = new TelemetryProcessorPipeline(
+                new TelemetryProcessor[] {untyped, requests, eventsAndTraces, untypedLast});
+
+        assertArrayEquals(new TelemetryProcessor[] {untyped, requests, untypedLast}, pipeline.getProcessors(RequestTelemetry.class));
+        assertArrayEquals(new TelemetryProcessor[] {untyped, eventsAndTraces, untypedLast}, pipeline.getProcessors(EventTelemetry.class));
+        assertArrayEquals(new TelemetryProcessor[] {untyped, eventsAndTraces, untypedLast}, pipeline.getProcessors(TraceTelemetry.class));
+    }
+
+    @Test
+    public void testOtherClassesAreResolvedOnFirstUse() {
+        TelemetryProcessor untyped = new UntypedProcessor();
+        TelemetryProcessor events = new TypedProcessor(Collections.<Class<? extends Telemetry>>singletonList(EventTelemetry.class));
+        TelemetryProcessor all = new TypedProcessor(Collections.<Class<? extends Telemetry>>singletonList(BaseTelemetry.class));
+        TelemetryProcessorPipeline pipeline = new TelemetryProcessorPipeline(new TelemetryProcessor[] {untyped, events, all});
+
+        TelemetryProcessor[] processors = pipeline.getProcessors(CustomTelemetry.class);
+        assertArrayEquals(new TelemetryProcessor[] {untyped, all}, processors);
+        assertSame(processors, pipeline.getProcessors(CustomTelemetry.class));
+        assertArrayEquals(new TelemetryProcessor[] {untyped, events, all}, pipeline.getProcessors(EventTelemetry.class));
+    }
+
+    @Test
+    public void testProcessorWithoutTypesGetsEverything() {
+        TelemetryProcessor nullTypes = new TypedProcessor(null);
+        TelemetryProcessor noTypes = new TypedProcessor(Collections.<Class<? extends Telemetry>>emptyList());
+        TelemetryProcessorPipeline pipeline = new TelemetryProcessorPipeline(new TelemetryProcessor[] {nullTypes, noTypes});
+
+        assertArrayEquals(new TelemetryProcessor[] {nullTypes}, pipeline.getProcessors(RequestTelemetry.class));
+    }
+}
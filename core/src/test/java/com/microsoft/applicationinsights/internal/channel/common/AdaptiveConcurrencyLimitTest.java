@@ -0,0 +1,122 @@
+/*
+ * ApplicationInsights-Java
+ * Copyright (c) Microsoft Corporation
+ * All rights reserved.
+ *
+ * MIT License
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the ""Software""), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package com.microsoft.applicationinsights.internal.channel.common;
+
+import com.microsoft.applicationinsights.internal.channel.TransmissionHandlerArgs;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public final class AdaptiveConcurrencyLimitTest {
+    private static final long LATENCY = 1000;
+
+    @Test
+    public void testLimitDoesNotGrowWithoutQueuedTransmissions() {
+        AdaptiveConcurrencyLimit tested = new AdaptiveConcurrencyLimit(1, 20, 5);
+        for (int i = 0; i < 100; ++i) {
+            tested.onSample(LATENCY, 0);
+        }
+
+        assertEquals(5, tested.getLimit());
+    }
+
+    @Test
+    public void testLimitGrowsByAboutOnePerWindowWhenTransmissionsAreQueued() {
+        AdaptiveConcurrencyLimit tested = new AdaptiveConcurrencyLimit(1, 20, 5);
+        for (int i = 0; i < 6; ++i) {
+            tested.onSample(LATENCY, 10);
+        }
+
+        assertEquals(6, tested.getLimit());
+    }
+
+    @Test
+    public void testLimitDoesNotGrowAboveMax() {
+        AdaptiveConcurrencyLimit tested = new AdaptiveConcurrencyLimit(1, 8, 5);
+        for (int i = 0; i < 1000; ++i) {
+            tested.onSample(LATENCY, 10);
+        }
+
+        assertEquals(8, tested.getLimit());
+    }
+
+    @Test
+    public void testHighLatencyDecreasesLimit() {
+        AdaptiveConcurrencyLimit tested = new AdaptiveConcurrencyLimit(1, 20, 10);
+        tested.onSample(LATENCY, 10);
+        tested.onSample(LATENCY * 10, 10);
+
+        assertEquals(9, tested.getLimit());
+    }
+
+    @Test
+    public void testOverloadHalvesLimitButNotBelowMin() {
+        AdaptiveConcurrencyLimit tested = new AdaptiveConcurrencyLimit(2, 20, 10);
+        tested.onOverload();
+        assertEquals(5, tested.getLimit());
+
+        sleepLongerThanBaseline();
+        tested.onOverload();
+        sleepLongerThanBaseline();
+        tested.onOverload();
+        assertEquals(2, tested.getLimit());
+    }
+
+    @Test
+    public void testThrottlingResponseDecreasesLimit() {
+        AdaptiveConcurrencyLimit tested = new AdaptiveConcurrencyLimit(1, 20, 10);
+        tested.onTransmissionSent(createArgs(TransmissionSendResult.THROTTLED, null));
+
+        assertEquals(5, tested.getLimit());
+    }
+
+    @Test
+    public void testExceptionDecreasesLimit() {
+        AdaptiveConcurrencyLimit tested = new AdaptiveConcurrencyLimit(1, 20, 10);
+        tested.onTransmissionSent(createArgs(0, new Exception("Mocked")));
+
+        assertEquals(5, tested.getLimit());
+    }
+
+    @Test
+    public void testPartialSuccessDoesNotChangeLimit() {
+        AdaptiveConcurrencyLimit tested = new AdaptiveConcurrencyLimit(1, 20, 10);
+        tested.onTransmissionSent(createArgs(TransmissionSendResult.PARTIAL_SUCCESS, null));
+
+        assertEquals(10, tested.getLimit());
+    }
+
+    private static TransmissionHandlerArgs createArgs(int responseCode, Exception exception) {
+        TransmissionHandlerArgs args = new TransmissionHandlerArgs();
+        args.setResponseCode(responseCode);
+        args.setException(exception);
+        return args;
+    }
+
+    private static void sleepLongerThanBaseline() {
+        try {
+            Thread.sleep(1);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
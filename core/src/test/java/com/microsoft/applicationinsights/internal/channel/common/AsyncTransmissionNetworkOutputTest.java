@@ -0,0 +1,170 @@
+/*
+ * ApplicationInsights-Java
+ * Copyright (c) Microsoft Corporation
+ * All rights reserved.
+ *
+ * MIT License
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the ""Software""), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package com.microsoft.applicationinsights.internal.channel.common;
+
+import java.io.IOException;
+
+import com.microsoft.applicationinsights.internal.channel.TransmissionDispatcher;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpVersion;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.concurrent.FutureCallback;
+import org.apache.http.impl.nio.client.CloseableHttpAsyncClient;
+import org.apache.http.message.BasicHttpResponse;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public final class AsyncTransmissionNetworkOutputTest {
+    private CloseableHttpAsyncClient mockClient;
+    private TransmissionDispatcher mockDispatcher;
+    private TransmissionPolicyManager transmissionPolicyManager;
+
+    @Before
+    public void setUp() {
+        mockClient = Mockito.mock(CloseableHttpAsyncClient.class);
+        mockDispatcher = Mockito.mock(TransmissionDispatcher.class);
+        transmissionPolicyManager = new TransmissionPolicyManager(true);
+        transmissionPolicyManager.addTransmissionHandler(new ErrorHandler(transmissionPolicyManager));
+    }
+
+    @Test
+    public void testSendIsRefusedWhenMaxRequestsAreInFlight() {
+        AsyncTransmissionNetworkOutput tested = createTested(2, 1024);
+
+        assertTrue(tested.send(createTransmission(10)));
+        assertTrue(tested.send(createTransmission(10)));
+        assertFalse(tested.send(createTransmission(10)));
+        assertEquals(2, tested.getNumberOfRequestsInFlight());
+    }
+
+    @Test
+    public void testSendIsRefusedWhenMaxBytesAreInFlight() {
+        AsyncTransmissionNetworkOutput tested = createTested(10, 150);
+
+        assertTrue(tested.send(createTransmission(100)));
+        assertFalse(tested.send(createTransmission(100)));
+        assertEquals(1, tested.getNumberOfRequestsInFlight());
+        assertEquals(100, tested.getNumberOfBytesInFlight());
+    }
+
+    @Test
+    public void testLargeTransmissionIsSentWhenNothingIsInFlight() {
+        AsyncTransmissionNetworkOutput tested = createTested(10, 150);
+
+        assertTrue(tested.send(createTransmission(1000)));
+    }
+
+    @Test
+    public void testSuccessfulResponseReleasesTheLimits() {
+        AsyncTransmissionNetworkOutput tested = createTested(1, 1024);
+        Transmission transmission = createTransmission(100);
+        assertTrue(tested.send(transmission));
+
+        captureCallback().completed(new BasicHttpResponse(HttpVersion.HTTP_1_1, 200, "OK"));
+
+        assertEquals(0, tested.getNumberOfRequestsInFlight());
+        assertEquals(0, tested.getNumberOfBytesInFlight());
+        Mockito.verify(mockDispatcher, Mockito.never()).dispatch(transmission);
+    }
+
+    @Test
+    public void testErrorResponseIsHandledByTheTransmissionHandlers() {
+        AsyncTransmissionNetworkOutput tested = createTested(1, 1024);
+        Transmission transmission = createTransmission(100);
+        assertTrue(tested.send(transmission));
+
+        captureCallback().completed(new BasicHttpResponse(HttpVersion.HTTP_1_1, 503, "Service Unavailable"));
+
+        assertEquals(0, tested.getNumberOfRequestsInFlight());
+        Mockito.verify(mockDispatcher).dispatch(transmission);
+    }
+
+    @Test
+    public void testFailureIsHandledByTheTransmissionHandlers() {
+        AsyncTransmissionNetworkOutput tested = createTested(1, 1024);
+        Transmission transmission = createTransmission(100);
+        assertTrue(tested.send(transmission));
+
+        captureCallback().failed(new IOException("Mocked"));
+
+        assertEquals(0, tested.getNumberOfRequestsInFlight());
+        Mockito.verify(mockDispatcher).dispatch(transmission);
+    }
+
+    @Test
+    public void testSendIsRefusedWhenBlocked() {
+        AsyncTransmissionNetworkOutput tested = createTested(1, 1024);
+        transmissionPolicyManager.suspendInSeconds(TransmissionPolicy.BLOCKED_BUT_CAN_BE_PERSISTED, 10);
+
+        assertFalse(tested.send(createTransmission(10)));
+        Mockito.verifyZeroInteractions(mockClient);
+    }
+
+    @Test
+    public void testSendIsRefusedOverTheAdaptiveLimit() {
+        AdaptiveConcurrencyLimit concurrencyLimit = new AdaptiveConcurrencyLimit(1, 10, 2);
+        transmissionPolicyManager.addTransmissionHandler(concurrencyLimit);
+        AsyncTransmissionNetworkOutput tested = new AsyncTransmissionNetworkOutput(mockClient, null, transmissionPolicyManager, 10, 1024, concurrencyLimit);
+        tested.setTransmissionDispatcher(mockDispatcher);
+
+        assertTrue(tested.send(createTransmission(10)));
+        assertTrue(tested.send(createTransmission(10)));
+        assertFalse(tested.send(createTransmission(10)));
+        assertEquals(2, tested.getNumberOfRequestsInFlight());
+    }
+
+    @Test
+    public void testThrottlingLowersTheAdaptiveLimit() {
+        AdaptiveConcurrencyLimit concurrencyLimit = new AdaptiveConcurrencyLimit(1, 10, 4);
+        transmissionPolicyManager.addTransmissionHandler(concurrencyLimit);
+        AsyncTransmissionNetworkOutput tested = new AsyncTransmissionNetworkOutput(mockClient, null, transmissionPolicyManager, 10, 1024, concurrencyLimit);
+        tested.setTransmissionDispatcher(mockDispatcher);
+        assertTrue(tested.send(createTransmission(10)));
+
+        captureCallback().completed(new BasicHttpResponse(HttpVersion.HTTP_1_1, 503, "Service Unavailable"));
+
+        assertEquals(2, concurrencyLimit.getLimit());
+    }
+
+    private AsyncTransmissionNetworkOutput createTested(int maxInFlightRequests, long maxInFlightBytes) {
+        AsyncTransmissionNetworkOutput tested = new AsyncTransmissionNetworkOutput(mockClient, null, transmissionPolicyManager, maxInFlightRequests, maxInFlightBytes);
+        tested.setTransmissionDispatcher(mockDispatcher);
+        return tested;
+    }
+
+    @SuppressWarnings("unchecked")
+    private FutureCallback<HttpResponse> captureCallback() {
+        ArgumentCaptor<FutureCallback> captor = ArgumentCaptor.forClass(FutureCallback.class);
+        Mockito.verify(mockClient).execute(Mockito.any(HttpUriRequest.class), captor.capture());
+        return captor.getValue();
+    }
+
+    private static Transmission createTransmission(int size) {
+        return new Transmission(new byte[size], "application/x-json-stream", "gzip");
+    }
+}
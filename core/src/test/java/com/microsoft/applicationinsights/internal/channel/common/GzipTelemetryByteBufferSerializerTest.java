@@ -0,0 +1,158 @@
+/*
+ * ApplicationInsights-Java
+ * Copyright (c) Microsoft Corporation
+ * All rights reserved.
+ *
+ * MIT License
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the ""Software""), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package com.microsoft.applicationinsights.internal.channel.common;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import com.google.common.base.Optional;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public final class GzipTelemetryByteBufferSerializerTest {
+    private static final String NEWLINE = System.getProperty("line.separator");
+
+    @Test
+    public void testSerializeReleasesBuffers() throws Exception {
+        TelemetryByteBufferPool pool = new TelemetryByteBufferPool();
+        GzipTelemetryByteBufferSerializer tested = new GzipTelemetryByteBufferSerializer();
+
+        Optional<Transmission> result = tested.serialize(createTelemetries(pool, 3));
+
+        assertTrue(result.isPresent());
+        assertEquals(expectedContent(0, 3), decompress(result.get()));
+        assertEquals(3, pool.getNumberOfPooledBuffers());
+        assertEquals(1, tested.getNumberOfTransmissions());
+    }
+
+    @Test
+    public void testStreamingModeProducesValidGzip() throws Exception {
+        TelemetryByteBufferPool pool = new TelemetryByteBufferPool();
+        GzipTelemetryByteBufferSerializer tested = new GzipTelemetryByteBufferSerializer(9, 0);
+
+        for (int i = 0; i < 3; ++i) {
+            List<Transmission> result = tested.serializeBatches(createTelemetries(pool, 100));
+
+            assertEquals(1, result.size());
+            assertEquals(expectedContent(0, 100), decompress(result.get(0)));
+        }
+        assertEquals(3, tested.getNumberOfTransmissions());
+        assertTrue(tested.getUncompressedBytes() > tested.getCompressedBytes());
+    }
+
+    @Test
+    public void testStreamingModeCutsTransmissionsBySize() throws Exception {
+        TelemetryByteBufferPool pool = new TelemetryByteBufferPool();
+        GzipTelemetryByteBufferSerializer tested = new GzipTelemetryByteBufferSerializer(0, 1024);
+
+        List<Transmission> result = tested.serializeBatches(createTelemetries(pool, 100));
+
+        assertTrue(result.size() > 1);
+        StringBuilder all = new StringBuilder();
+        for (Transmission transmission : result) {
+            if (all.length() != 0) {
+                all.append(NEWLINE);
+            }
+            all.append(decompress(transmission));
+        }
+        assertEquals(expectedContent(0, 100), all.toString());
+    }
+
+    @Test
+    public void testStreamingModeKeepsTransmissionsUnderLimit() throws Exception {
+        TelemetryByteBufferPool pool = new TelemetryByteBufferPool();
+        for (int level = 0; level <= 9; level += 9) {
+            GzipTelemetryByteBufferSerializer tested = new GzipTelemetryByteBufferSerializer(level, 512);
+
+            List<Transmission> result = tested.serializeBatches(createTelemetries(pool, 200));
+
+            assertTrue(result.size() > 1);
+            for (Transmission transmission : result) {
+                assertTrue(transmission.getContent().length <= 512);
+            }
+        }
+    }
+
+    @Test
+    public void testStopEndsPooledEncoders() throws Exception {
+        TelemetryByteBufferPool pool = new TelemetryByteBufferPool();
+        GzipTelemetryByteBufferSerializer tested = new GzipTelemetryByteBufferSerializer(9, 0);
+
+        tested.serializeBatches(createTelemetries(pool, 10));
+        assertEquals(1, tested.getNumberOfIdleEncoders());
+
+        tested.stop();
+        assertEquals(0, tested.getNumberOfIdleEncoders());
+
+        // Still works after stop, without keeping the encoder
+        List<Transmission> result = tested.serializeBatches(createTelemetries(pool, 10));
+        assertEquals(expectedContent(0, 10), decompress(result.get(0)));
+        assertEquals(0, tested.getNumberOfIdleEncoders());
+    }
+
+    private static List<TelemetryByteBuffer> createTelemetries(TelemetryByteBufferPool pool, int amount) throws IOException {
+        List<TelemetryByteBuffer> telemetries = new ArrayList<TelemetryByteBuffer>(amount);
+        Utf8TelemetryWriter writer = new Utf8TelemetryWriter();
+        for (int i = 0; i < amount; ++i) {
+            TelemetryByteBuffer buffer = pool.acquire();
+            writer.setTarget(buffer).write(createTelemetry(i));
+            telemetries.add(buffer);
+        }
+        return telemetries;
+    }
+
+    private static String createTelemetry(int index) {
+        return "{\"name\":\"telemetry\",\"index\":" + index + "}";
+    }
+
+    private static String expectedContent(int from, int to) {
+        StringBuilder expected = new StringBuilder();
+        for (int i = from; i < to; ++i) {
+            if (i != from) {
+                expected.append(NEWLINE);
+            }
+            expected.append(createTelemetry(i));
+        }
+        return expected.toString();
+    }
+
+    private static String decompress(Transmission transmission) throws IOException {
+        GZIPInputStream gis = new GZIPInputStream(new ByteArrayInputStream(transmission.getContent()));
+        try {
+            ByteArrayOutputStream contents = new ByteArrayOutputStream();
+            byte[] buf = new byte[4096];
+            int len;
+            while ((len = gis.read(buf)) > 0) {
+                contents.write(buf, 0, len);
+            }
+            return new String(contents.toByteArray(), "UTF-8");
+        } finally {
+            gis.close();
+        }
+    }
+}
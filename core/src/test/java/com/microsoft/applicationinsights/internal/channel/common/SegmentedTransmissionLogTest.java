@@ -0,0 +1,207 @@
+/*
+ * ApplicationInsights-Java
+ * Copyright (c) Microsoft Corporation
+ * All rights reserved.
+ *
+ * MIT License
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the ""Software""), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package com.microsoft.applicationinsights.internal.channel.common;
+
+import java.io.File;
+import java.io.FilenameFilter;
+import java.io.RandomAccessFile;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public final class SegmentedTransmissionLogTest {
+    private static final long CAPACITY = 1024 * 1024;
+    private static final long SEGMENT_SIZE = 1024;
+
+    @Rule
+    public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+    @Test
+    public void testTransmissionsAreFetchedInOrder() throws Exception {
+        SegmentedTransmissionLog tested = new SegmentedTransmissionLog(tmpFolder.getRoot(), CAPACITY, SEGMENT_SIZE);
+        try {
+            for (int i = 0; i < 10; ++i) {
+                assertTrue(tested.send(createTransmission(i, 100)));
+            }
+
+            for (int i = 0; i < 10; ++i) {
+                assertEquals(i, tested.fetchOldest().getContent()[0]);
+            }
+            assertNull(tested.fetchOldest());
+            assertEquals(0, tested.getSizeInBytes());
+        } finally {
+            tested.stop(1L, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void testFetchedSegmentsAreDeleted() throws Exception {
+        SegmentedTransmissionLog tested = new SegmentedTransmissionLog(tmpFolder.getRoot(), CAPACITY, SEGMENT_SIZE);
+        try {
+            for (int i = 0; i < 30; ++i) {
+                tested.send(createTransmission(i, 200));
+            }
+            int segments = tested.getNumberOfSegments();
+            assertTrue(segments > 1);
+            assertEquals(segments, countSegmentFiles());
+
+            while (tested.fetchOldest() != null) {
+            }
+            assertEquals(1, tested.getNumberOfSegments());
+            assertEquals(1, countSegmentFiles());
+        } finally {
+            tested.stop(1L, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void testReopenContinuesFromReadOffset() throws Exception {
+        SegmentedTransmissionLog tested = new SegmentedTransmissionLog(tmpFolder.getRoot(), CAPACITY, SEGMENT_SIZE);
+        for (int i = 0; i < 20; ++i) {
+            tested.send(createTransmission(i, 100));
+        }
+        for (int i = 0; i < 7; ++i) {
+            tested.fetchOldest();
+        }
+        tested.stop(1L, TimeUnit.SECONDS);
+
+        tested = new SegmentedTransmissionLog(tmpFolder.getRoot(), CAPACITY, SEGMENT_SIZE);
+        try {
+            for (int i = 7; i < 20; ++i) {
+                assertEquals(i, tested.fetchOldest().getContent()[0]);
+            }
+            assertNull(tested.fetchOldest());
+        } finally {
+            tested.stop(1L, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void testIncompleteRecordIsDroppedOnReopen() throws Exception {
+        SegmentedTransmissionLog tested = new SegmentedTransmissionLog(tmpFolder.getRoot(), CAPACITY, CAPACITY);
+        tested.send(createTransmission(1, 100));
+        tested.send(createTransmission(2, 100));
+        tested.stop(1L, TimeUnit.SECONDS);
+
+        File segment = tmpFolder.getRoot().listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.endsWith(".seg");
+            }
+        })[0];
+        try (RandomAccessFile file = new RandomAccessFile(segment, "rw")) {
+            file.setLength(file.length() - 10);
+        }
+
+        tested = new SegmentedTransmissionLog(tmpFolder.getRoot(), CAPACITY, CAPACITY);
+        try {
+            assertEquals(1, tested.fetchOldest().getContent()[0]);
+            assertNull(tested.fetchOldest());
+
+            assertTrue(tested.send(createTransmission(3, 100)));
+            assertEquals(3, tested.fetchOldest().getContent()[0]);
+        } finally {
+            tested.stop(1L, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void testSendFailsWhenCapacityIsReached() throws Exception {
+        SegmentedTransmissionLog tested = new SegmentedTransmissionLog(tmpFolder.getRoot(), 500, SEGMENT_SIZE);
+        try {
+            assertTrue(tested.send(createTransmission(1, 300)));
+            assertTrue(tested.send(createTransmission(2, 300)));
+            assertFalse(tested.send(createTransmission(3, 300)));
+
+            tested.fetchOldest();
+            assertTrue(tested.send(createTransmission(4, 100)));
+        } finally {
+            tested.stop(1L, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void testTransmissionFilesAreImported() throws Exception {
+        File transmissionFile = tmpFolder.newFile("Transmission1.trn");
+        Transmission original = createTransmission(5, 50);
+        TransmissionFileFormat.write(transmissionFile, original);
+
+        SegmentedTransmissionLog tested = new SegmentedTransmissionLog(tmpFolder.getRoot(), CAPACITY, SEGMENT_SIZE);
+        try {
+            assertFalse(transmissionFile.exists());
+            assertArrayEquals(original.getContent(), tested.fetchOldest().getContent());
+        } finally {
+            tested.stop(1L, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void testWritesAreSyncedWhenTrafficStops() throws Exception {
+        SegmentedTransmissionLog tested = new SegmentedTransmissionLog(tmpFolder.getRoot(), CAPACITY, SEGMENT_SIZE);
+        try {
+            // The log was synced when it was opened, so this write is within the sync interval
+            assertTrue(tested.send(createTransmission(1, 100)));
+            assertTrue(tested.getSyncedWriteOffset() < tested.getWriteOffset());
+
+            long deadline = System.currentTimeMillis() + 5 * SegmentedTransmissionLog.SYNC_INTERVAL_IN_MILLIS;
+            while (tested.getSyncedWriteOffset() < tested.getWriteOffset() && System.currentTimeMillis() < deadline) {
+                Thread.sleep(50);
+            }
+            assertEquals(tested.getWriteOffset(), tested.getSyncedWriteOffset());
+        } finally {
+            tested.stop(1L, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testFolderCannotBeOpenedTwice() throws Exception {
+        SegmentedTransmissionLog tested = new SegmentedTransmissionLog(tmpFolder.getRoot(), CAPACITY, SEGMENT_SIZE);
+        try {
+            new SegmentedTransmissionLog(tmpFolder.getRoot(), CAPACITY, SEGMENT_SIZE);
+        } finally {
+            tested.stop(1L, TimeUnit.SECONDS);
+        }
+    }
+
+    private int countSegmentFiles() {
+        return tmpFolder.getRoot().list(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.endsWith(".seg");
+            }
+        }).length;
+    }
+
+    private static Transmission createTransmission(int id, int size) {
+        byte[] content = new byte[size];
+        content[0] = (byte) id;
+        return new Transmission(content, "application/x-json-stream", "gzip");
+    }
+}
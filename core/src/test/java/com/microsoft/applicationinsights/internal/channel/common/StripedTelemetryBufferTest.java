@@ -0,0 +1,128 @@
+/*
+ * ApplicationInsights-Java
+ * Copyright (c) Microsoft Corporation
+ * All rights reserved.
+ *
+ * MIT License
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the ""Software""), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package com.microsoft.applicationinsights.internal.channel.common;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.microsoft.applicationinsights.internal.channel.TelemetriesTransmitter;
+import com.microsoft.applicationinsights.internal.util.LimitsEnforcer;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyCollectionOf;
+import static org.mockito.Matchers.anyLong;
+
+public final class StripedTelemetryBufferTest {
+    private final static String MOCK_PROPERTY_NAME = "MockProperty";
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testZeroStripes() {
+        TelemetriesTransmitter<String> mockSender = createMockSender();
+
+        new StripedTelemetryBuffer<String>(mockSender, createEnforcerWithCurrentValue(10), createEnforcerWithCurrentValue(10), 0);
+    }
+
+    @Test
+    public void testSingleThreadUsesSingleStripe() {
+        TelemetriesTransmitter<String> mockSender = createMockSender();
+
+        StripedTelemetryBuffer<String> testedBuffer = new StripedTelemetryBuffer<String>(mockSender, createEnforcerWithCurrentValue(2), createEnforcerWithCurrentValue(10), 4);
+        testedBuffer.add("mockTelemetry");
+        testedBuffer.add("mockTelemetry");
+
+        Mockito.verify(mockSender, Mockito.times(1)).scheduleSend(any(TelemetriesTransmitter.TelemetriesFetcher.class), anyLong(), any(TimeUnit.class));
+        Mockito.verify(mockSender, Mockito.times(1)).sendNow(anyCollectionOf(String.class));
+    }
+
+    @Test
+    public void testFlushSendsAllStripes() throws Exception {
+        final CountingTransmitter sender = new CountingTransmitter();
+        final StripedTelemetryBuffer<String> testedBuffer = new StripedTelemetryBuffer<String>(sender, createEnforcerWithCurrentValue(100), createEnforcerWithCurrentValue(100), 4);
+
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; ++i) {
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < 10; ++j) {
+                        testedBuffer.add("mockTelemetry");
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        testedBuffer.flush();
+
+        assertEquals(80, sender.sentTelemetries.get());
+    }
+
+    @Test
+    public void testSetMaxTelemetriesInBatchAppliesToAllStripes() {
+        CountingTransmitter sender = new CountingTransmitter();
+        StripedTelemetryBuffer<String> testedBuffer = new StripedTelemetryBuffer<String>(sender, createEnforcerWithCurrentValue(100), createEnforcerWithCurrentValue(100), 3);
+
+        testedBuffer.setMaxTelemetriesInBatch(1);
+        testedBuffer.add("mockTelemetry");
+
+        assertEquals(1, testedBuffer.getMaxTelemetriesInBatch());
+        assertEquals(1, sender.sentTelemetries.get());
+    }
+
+    private static final class CountingTransmitter implements TelemetriesTransmitter<String> {
+        private final AtomicInteger sentTelemetries = new AtomicInteger();
+
+        @Override
+        public boolean scheduleSend(TelemetriesFetcher<String> telemetriesFetcher, long value, TimeUnit timeUnit) {
+            return true;
+        }
+
+        @Override
+        public boolean sendNow(Collection<String> telemetries) {
+            sentTelemetries.addAndGet(telemetries.size());
+            return true;
+        }
+
+        @Override
+        public void stop(long timeout, TimeUnit timeUnit) {
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static TelemetriesTransmitter<String> createMockSender() {
+        TelemetriesTransmitter<String> mockSender = Mockito.mock(TelemetriesTransmitter.class);
+        Mockito.doReturn(true).when(mockSender).sendNow(Mockito.<Collection<String>>any());
+        Mockito.doReturn(true).when(mockSender).scheduleSend(any(TelemetriesTransmitter.TelemetriesFetcher.class), anyLong(), any(TimeUnit.class));
+        return mockSender;
+    }
+
+    private static LimitsEnforcer createEnforcerWithCurrentValue(int currentValue) {
+        return LimitsEnforcer.createWithClosestLimitOnError(MOCK_PROPERTY_NAME, 1, 1000, 20, currentValue);
+    }
+}
@@ -26,6 +26,7 @@ import java.util.List;
 import java.util.ArrayList;
 import java.util.concurrent.ArrayBlockingQueue;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicInteger;
@@ -515,6 +516,61 @@ public final class TelemetryBufferTest {
         mockSender.waitForFinish(1L);
     }
 
+    @Test
+    public void testAddIsNotBlockedByFlushInProgress() throws Exception {
+        final CountDownLatch sendNowEntered = new CountDownLatch(1);
+        final CountDownLatch releaseSendNow = new CountDownLatch(1);
+        TelemetriesTransmitter<String> blockingSender = new TelemetriesTransmitter<String>() {
+            @Override
+            public boolean scheduleSend(TelemetriesFetcher telemetriesFetcher, long value, TimeUnit timeUnit) {
+                return true;
+            }
+
+            @Override
+            public boolean sendNow(Collection<String> telemetries) {
+                sendNowEntered.countDown();
+                try {
+                    releaseSendNow.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return true;
+            }
+
+            @Override
+            public void stop(long timeout, TimeUnit timeUnit) {
+            }
+        };
+
+        final TelemetryBuffer<String> testedBuffer = new TelemetryBuffer<String>(blockingSender, createEnforcerWithCurrentValue(1, 10), createDefaultSenderTimeoutEnforcer());
+        testedBuffer.add("mockTelemetry");
+
+        Thread flusher = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                testedBuffer.flush();
+            }
+        });
+        flusher.start();
+        try {
+            assertTrue(sendNowEntered.await(5, TimeUnit.SECONDS));
+
+            final CountDownLatch added = new CountDownLatch(1);
+            Thread adder = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    testedBuffer.add("mockTelemetry");
+                    added.countDown();
+                }
+            });
+            adder.start();
+            assertTrue(added.await(5, TimeUnit.SECONDS));
+        } finally {
+            releaseSendNow.countDown();
+            flusher.join();
+        }
+    }
+
     private void testFlushWithData(int expectedTelemetriesNumberInSendNow) {
         MockSender mockSender = new MockSender()
                 .setExpectedNumberOfScheduleSendCalls(1)
@@ -0,0 +1,117 @@
+/*
+ * ApplicationInsights-Java
+ * Copyright (c) Microsoft Corporation
+ * All rights reserved.
+ *
+ * MIT License
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the ""Software""), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package com.microsoft.applicationinsights.internal.channel.common;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public final class TransmissionFileFormatTest {
+    @Rule
+    public TemporaryFolder tmpFolder = new TemporaryFolder();
+
+    @Test
+    public void testWriteAndRead() throws Exception {
+        Transmission original = new Transmission(new byte[] {1, 2, 3, 4, 5}, "application/x-json-stream", "gzip", 3);
+        original.incrementNumberOfSends();
+        original.incrementNumberOfSends();
+        original.incrementNumberOfPersistence();
+
+        File file = tmpFolder.newFile();
+        TransmissionFileFormat.write(file, original);
+        Transmission loaded = TransmissionFileFormat.read(file);
+
+        assertTransmissionsEqual(original, loaded);
+    }
+
+    @Test
+    public void testWriteOverwritesExistingContent() throws Exception {
+        File file = tmpFolder.newFile();
+        TransmissionFileFormat.write(file, new Transmission(new byte[1000], "mockContent", "mockEncoding"));
+        Transmission original = new Transmission(new byte[] {7}, "mockContent", "mockEncoding");
+        TransmissionFileFormat.write(file, original);
+
+        assertTransmissionsEqual(original, TransmissionFileFormat.read(file));
+    }
+
+    @Test
+    public void testReadLegacyJavaSerializedFile() throws Exception {
+        Transmission original = new Transmission(new byte[] {9, 8, 7}, "mockContent", "mockEncoding", 2);
+        original.incrementNumberOfSends();
+
+        File file = tmpFolder.newFile();
+        try (ObjectOutputStream output = new ObjectOutputStream(new FileOutputStream(file))) {
+            output.writeObject(original);
+        }
+
+        assertTransmissionsEqual(original, TransmissionFileFormat.read(file));
+    }
+
+    @Test(expected = IOException.class)
+    public void testLegacyFileWithUnexpectedClassIsRejected() throws Exception {
+        File file = tmpFolder.newFile();
+        try (ObjectOutputStream output = new ObjectOutputStream(new FileOutputStream(file))) {
+            output.writeObject(new ArrayList<String>());
+        }
+
+        TransmissionFileFormat.read(file);
+    }
+
+    @Test(expected = IOException.class)
+    public void testTruncatedFileIsRejected() throws Exception {
+        File file = tmpFolder.newFile();
+        TransmissionFileFormat.write(file, new Transmission(new byte[100], "mockContent", "mockEncoding"));
+        try (FileOutputStream output = new FileOutputStream(file, true)) {
+            output.getChannel().truncate(file.length() - 10);
+        }
+
+        TransmissionFileFormat.read(file);
+    }
+
+    @Test(expected = IOException.class)
+    public void testUnknownFormatIsRejected() throws Exception {
+        File file = tmpFolder.newFile();
+        try (FileOutputStream output = new FileOutputStream(file)) {
+            output.write(new byte[] {1, 2, 3, 4, 5, 6});
+        }
+
+        TransmissionFileFormat.read(file);
+    }
+
+    private static void assertTransmissionsEqual(Transmission expected, Transmission actual) {
+        assertArrayEquals(expected.getContent(), actual.getContent());
+        assertEquals(expected.getWebContentType(), actual.getWebContentType());
+        assertEquals(expected.getWebContentEncodingType(), actual.getWebContentEncodingType());
+        assertEquals(expected.getVersion(), actual.getVersion());
+        assertEquals(expected.getNumberOfSends(), actual.getNumberOfSends());
+        assertEquals(expected.getNumberOfPersistence(), actual.getNumberOfPersistence());
+    }
+}
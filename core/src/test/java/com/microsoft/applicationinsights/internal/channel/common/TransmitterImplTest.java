@@ -24,26 +24,65 @@ package com.microsoft.applicationinsights.internal.channel.common;
 import java.io.IOException;
 import java.io.StringWriter;
 import java.util.*;
+import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.TimeUnit;
 
 import com.microsoft.applicationinsights.internal.channel.TelemetriesTransmitter;
 import com.microsoft.applicationinsights.internal.channel.TelemetrySerializer;
 import com.microsoft.applicationinsights.internal.channel.TransmissionDispatcher;
 import com.microsoft.applicationinsights.internal.channel.TransmissionsLoader;
+import com.microsoft.applicationinsights.internal.channel.samplingV2.SamplingScoreGeneratorV2;
+import com.microsoft.applicationinsights.telemetry.ExceptionTelemetry;
 import com.microsoft.applicationinsights.telemetry.JsonTelemetryDataSerializer;
+import com.microsoft.applicationinsights.telemetry.RemoteDependencyTelemetry;
+import com.microsoft.applicationinsights.telemetry.RequestTelemetry;
 import com.microsoft.applicationinsights.telemetry.Telemetry;
 import com.microsoft.applicationinsights.telemetry.TelemetryContext;
+import com.microsoft.applicationinsights.telemetry.TraceTelemetry;
 import org.junit.Test;
 import org.mockito.Mockito;
 
 import com.google.common.base.Optional;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Matchers.anyBoolean;
 import static org.mockito.Matchers.any;
 
 public final class TransmitterImplTest {
     private final static String MOCK_WEB_CONTENT_TYPE = "MWCT";
     private final static String MOCK_CONTENT_ENCODING_TYPE = "MCET";
+    private final static int MAX_PENDING_REQUESTS = 2;
+
+    /**
+     * Blocks the sending threads until released, recording the containers that were sent.
+     */
+    private static final class BlockingSender implements TransmissionDispatcher, TelemetrySerializer<String> {
+        private final CountDownLatch started = new CountDownLatch(2);
+        private final CountDownLatch released = new CountDownLatch(1);
+        private final List<Collection<String>> sent = Collections.synchronizedList(new ArrayList<Collection<String>>());
+
+        @Override
+        public Optional<Transmission> serialize(Collection<String> telemetries) {
+            sent.add(telemetries);
+            return Optional.of(new Transmission(new byte[1], MOCK_WEB_CONTENT_TYPE, MOCK_CONTENT_ENCODING_TYPE));
+        }
+
+        @Override
+        public void dispatch(Transmission transmission) {
+            started.countDown();
+            try {
+                released.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        @Override
+        public void stop(long timeout, TimeUnit timeUnit) {
+        }
+    }
 
     @Test(expected = NullPointerException.class)
     public void testCtorWithNullTransmissionDispatcher() {
@@ -119,6 +158,115 @@ public final class TransmitterImplTest {
         testSendNow(100, false);
     }
 
+    @Test
+    public void testDropNewestRejectsWhenTooManyContainersArePending() throws InterruptedException {
+        BlockingSender sender = new BlockingSender();
+        TransmitterImpl<String> transmitter = createOverloadedTransmitter(sender, OverloadPolicy.DROP_NEWEST, 0);
+        try {
+            assertFalse(transmitter.sendNow(Arrays.asList("e1", "e2")));
+            assertEquals(2, transmitter.getDroppedTelemetryCounters().get(DroppedTelemetryCounters.Reason.REJECTED));
+
+            sender.released.countDown();
+            waitForSent(sender, 4);
+            assertEquals(Arrays.<Collection<String>>asList(Arrays.asList("a"), Arrays.asList("b"), Arrays.asList("c"), Arrays.asList("d")), sortedSent(sender));
+        } finally {
+            sender.released.countDown();
+            transmitter.stop(1L, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void testDropOldestEvictsTheOldestPendingContainer() throws InterruptedException {
+        BlockingSender sender = new BlockingSender();
+        TransmitterImpl<String> transmitter = createOverloadedTransmitter(sender, OverloadPolicy.DROP_OLDEST, 0);
+        try {
+            assertTrue(transmitter.sendNow(Arrays.asList("e")));
+            assertEquals(1, transmitter.getDroppedTelemetryCounters().get(DroppedTelemetryCounters.Reason.EVICTED));
+
+            sender.released.countDown();
+            waitForSent(sender, 4);
+            assertEquals(Arrays.<Collection<String>>asList(Arrays.asList("a"), Arrays.asList("b"), Arrays.asList("d"), Arrays.asList("e")), sortedSent(sender));
+        } finally {
+            sender.released.countDown();
+            transmitter.stop(1L, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void testBlockWaitsForRoomBeforeDropping() throws InterruptedException {
+        BlockingSender sender = new BlockingSender();
+        TransmitterImpl<String> transmitter = createOverloadedTransmitter(sender, OverloadPolicy.BLOCK, 50);
+        try {
+            long start = System.nanoTime();
+            assertFalse(transmitter.sendNow(Arrays.asList("e")));
+            assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 40);
+            assertEquals(1, transmitter.getDroppedTelemetryCounters().get(DroppedTelemetryCounters.Reason.BLOCK_TIMEOUT));
+        } finally {
+            sender.released.countDown();
+            transmitter.stop(1L, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void testSampleKeepsRequestsDependenciesAndExceptionsAndSamplesTracesWhenOverloaded() throws InterruptedException {
+        BlockingSender sender = new BlockingSender();
+        TransmitterImpl<String> transmitter = new TransmitterImpl<String>(sender, sender, Mockito.mock(TransmissionsLoader.class), OverloadPolicy.SAMPLE, 0, 1, MAX_PENDING_REQUESTS);
+        try {
+            TraceTelemetry trace = new TraceTelemetry("message");
+            trace.getContext().getOperation().setId("operation");
+            assertTrue(transmitter.admit(trace));
+
+            fillPendingRequests(sender, transmitter);
+            assertTrue(transmitter.isOverloaded());
+            assertTrue(transmitter.admit(new RequestTelemetry()));
+            assertTrue(transmitter.admit(new RemoteDependencyTelemetry("dependency")));
+            assertTrue(transmitter.admit(new ExceptionTelemetry(new RuntimeException())));
+
+            boolean sampledIn = SamplingScoreGeneratorV2.getSamplingScore(trace) < 1;
+            assertEquals(sampledIn, transmitter.admit(trace));
+            assertEquals(sampledIn ? 0 : 1, transmitter.getDroppedTelemetryCounters().get(DroppedTelemetryCounters.Reason.SAMPLED_OUT));
+        } finally {
+            sender.released.countDown();
+            transmitter.stop(1L, TimeUnit.SECONDS);
+        }
+    }
+
+    private static TransmitterImpl<String> createOverloadedTransmitter(BlockingSender sender, OverloadPolicy overloadPolicy, long blockTimeoutInMillis) throws InterruptedException {
+        TransmitterImpl<String> transmitter = new TransmitterImpl<String>(sender, sender, Mockito.mock(TransmissionsLoader.class),
+                overloadPolicy, blockTimeoutInMillis, TransmitterImpl.DEFAULT_OVERLOAD_SAMPLING_PERCENTAGE, MAX_PENDING_REQUESTS);
+        fillPendingRequests(sender, transmitter);
+        return transmitter;
+    }
+
+    /**
+     * Both sending threads are kept busy with 'a' and 'b' while 'c' and 'd' take the pending requests.
+     */
+    private static void fillPendingRequests(BlockingSender sender, TransmitterImpl<String> transmitter) throws InterruptedException {
+        assertTrue(transmitter.sendNow(Arrays.asList("a")));
+        assertTrue(transmitter.sendNow(Arrays.asList("b")));
+        assertTrue(sender.started.await(5, TimeUnit.SECONDS));
+        assertTrue(transmitter.sendNow(Arrays.asList("c")));
+        assertTrue(transmitter.sendNow(Arrays.asList("d")));
+    }
+
+    private static void waitForSent(BlockingSender sender, int expected) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (sender.sent.size() < expected && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    private static List<Collection<String>> sortedSent(BlockingSender sender) {
+        List<Collection<String>> sent = new ArrayList<Collection<String>>(sender.sent);
+        Collections.sort(sent, new Comparator<Collection<String>>() {
+            @Override
+            public int compare(Collection<String> o1, Collection<String> o2) {
+                return o1.iterator().next().compareTo(o2.iterator().next());
+            }
+        });
+        return sent;
+    }
+
     private void testSendNow(int numberOfTransmissions, boolean serializeOk) throws IOException {
         TransmitterImpl transmitter = null;
         try {
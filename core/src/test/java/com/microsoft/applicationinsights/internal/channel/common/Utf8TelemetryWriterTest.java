@@ -0,0 +1,100 @@
+/*
+ * ApplicationInsights-Java
+ * Copyright (c) Microsoft Corporation
+ * All rights reserved.
+ *
+ * MIT License
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the ""Software""), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package com.microsoft.applicationinsights.internal.channel.common;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+public final class Utf8TelemetryWriterTest {
+    @Test
+    public void testAscii() throws Exception {
+        verifyEncoding("{\"name\":\"value\"}");
+    }
+
+    @Test
+    public void testTwoAndThreeBytesCharacters() throws Exception {
+        verifyEncoding("café üñî € שלום 日本");
+    }
+
+    @Test
+    public void testSurrogatePairs() throws Exception {
+        verifyEncoding("emoji 😀 and 𝄞");
+    }
+
+    @Test
+    public void testSurrogatePairSplitBetweenWrites() throws Exception {
+        TelemetryByteBuffer buffer = new TelemetryByteBufferPool().acquire();
+        Utf8TelemetryWriter writer = new Utf8TelemetryWriter().setTarget(buffer);
+        writer.write("a\ud83d");
+        writer.write("\ude00b");
+        writer.close();
+
+        assertArrayEquals("a😀b".getBytes(StandardCharsets.UTF_8), toBytes(buffer));
+    }
+
+    @Test
+    public void testUnpairedSurrogatesAreReplaced() throws Exception {
+        verifyEncoding("x\ude00y\ud83dz\ud83d");
+    }
+
+    @Test
+    public void testBufferGrows() throws Exception {
+        StringBuilder value = new StringBuilder();
+        for (int i = 0; i < 5000; ++i) {
+            value.append((char) ('a' + i % 26)).append('é');
+        }
+
+        verifyEncoding(value.toString());
+    }
+
+    @Test
+    public void testReleasedBufferIsReusedEmpty() throws Exception {
+        TelemetryByteBufferPool pool = new TelemetryByteBufferPool(1, 16, 64);
+        TelemetryByteBuffer buffer = pool.acquire();
+        new Utf8TelemetryWriter().setTarget(buffer).write("data");
+        buffer.release();
+
+        TelemetryByteBuffer reused = pool.acquire();
+        assertEquals(buffer, reused);
+        assertEquals(0, reused.size());
+    }
+
+    private static void verifyEncoding(String value) throws Exception {
+        TelemetryByteBuffer buffer = new TelemetryByteBufferPool().acquire();
+        Utf8TelemetryWriter writer = new Utf8TelemetryWriter().setTarget(buffer);
+        writer.write(value);
+        writer.close();
+
+        assertArrayEquals(value.getBytes(StandardCharsets.UTF_8), toBytes(buffer));
+    }
+
+    private static byte[] toBytes(TelemetryByteBuffer buffer) throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        buffer.writeTo(out);
+        return out.toByteArray();
+    }
+}
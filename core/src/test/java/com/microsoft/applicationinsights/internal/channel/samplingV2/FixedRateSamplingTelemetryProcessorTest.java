@@ -3,6 +3,7 @@ package com.microsoft.applicationinsights.internal.channel.samplingV2;
 import com.microsoft.applicationinsights.TelemetryClient;
 import com.microsoft.applicationinsights.TelemetryConfiguration;
 import com.microsoft.applicationinsights.TestFramework.StubTelemetryChannel;
+import com.microsoft.applicationinsights.extensibility.TelemetryInitializer;
 import com.microsoft.applicationinsights.extensibility.TelemetryProcessor;
 import com.microsoft.applicationinsights.telemetry.PageViewTelemetry;
 import com.microsoft.applicationinsights.telemetry.RemoteDependencyTelemetry;
@@ -15,6 +16,7 @@ import org.junit.Test;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Created by Dhaval Doshi 10/31/2017
@@ -468,6 +470,85 @@ public class FixedRateSamplingTelemetryProcessorTest {
         testNoSampling(client, telemetryCollectionList, itemsToSend, null, null, 50.0);
     }
 
+    @Test
+    public void earlySamplingMakesTheSameDecisionAsProcess() {
+        FixedRateSamplingTelemetryProcessor processor = new FixedRateSamplingTelemetryProcessor();
+        processor.setSamplingPercentage("50.0");
+        for (int i = 0; i < 100; ++i) {
+            Telemetry item = new RequestTelemetry();
+            item.getContext().getOperation().setId("operation" + i);
+
+            boolean sampledOutEarly = processor.isSampledOutEarly(item);
+            Assert.assertEquals(!processor.process(item), sampledOutEarly);
+        }
+    }
+
+    @Test
+    public void earlySamplingOfLaterProcessorsUsesThePercentageOfTheFirstOne() {
+        FixedRateSamplingTelemetryProcessor first = new FixedRateSamplingTelemetryProcessor();
+        first.setSamplingPercentage("100.0");
+        FixedRateSamplingTelemetryProcessor second = new FixedRateSamplingTelemetryProcessor();
+        second.setSamplingPercentage("10.0");
+        for (int i = 0; i < 100; ++i) {
+            Telemetry item = new RequestTelemetry();
+            item.getContext().getOperation().setId("operation" + i);
+
+            Double pipelineSamplingPercentage = first.getSamplingPercentageFor(item);
+            Assert.assertFalse(first.isSampledOutEarly(item, null));
+            Assert.assertFalse(second.isSampledOutEarly(item, pipelineSamplingPercentage));
+            Assert.assertTrue(first.process(item) && second.process(item));
+        }
+    }
+
+    @Test
+    public void earlySamplingKeepsItemsWithoutOperationId() {
+        FixedRateSamplingTelemetryProcessor processor = new FixedRateSamplingTelemetryProcessor();
+        processor.setSamplingPercentage("1.0");
+        for (int i = 0; i < 100; ++i) {
+            Assert.assertFalse(processor.isSampledOutEarly(new RequestTelemetry()));
+        }
+    }
+
+    @Test
+    public void earlySamplingKeepsExcludedTypes() {
+        FixedRateSamplingTelemetryProcessor processor = new FixedRateSamplingTelemetryProcessor();
+        processor.setSamplingPercentage("0.0");
+        processor.addToExcludedType("Request");
+        Telemetry item = new RequestTelemetry();
+        item.getContext().getOperation().setId("abc");
+
+        Assert.assertFalse(processor.isSampledOutEarly(item));
+    }
+
+    @Test
+    public void sampledOutItemsSkipTheInitializers() {
+        List<Telemetry> itemsToSend = new ArrayList<Telemetry>();
+        TelemetryConfiguration configuration = createConfiguration(itemsToSend);
+        FixedRateSamplingTelemetryProcessor processor = new FixedRateSamplingTelemetryProcessor();
+        processor.setSamplingPercentage("50.0");
+        configuration.getTelemetryProcessors().add(processor);
+        final AtomicInteger initializedCount = new AtomicInteger();
+        configuration.getTelemetryInitializers().add(new TelemetryInitializer() {
+            @Override
+            public void initialize(Telemetry telemetry) {
+                initializedCount.incrementAndGet();
+            }
+        });
+        TelemetryClient client = new TelemetryClient(configuration);
+
+        for (int i = 0; i < 100; ++i) {
+            Telemetry item = new RequestTelemetry();
+            item.getContext().getOperation().setId("operation" + i);
+            client.track(item);
+        }
+
+        Assert.assertTrue(itemsToSend.size() > 0 && itemsToSend.size() < 100);
+        Assert.assertEquals(itemsToSend.size(), initializedCount.get());
+        for (Telemetry item : itemsToSend) {
+            Assert.assertEquals((Double) 50.0, ((SupportSampling) item).getSamplingPercentage());
+        }
+    }
+
     private List<Telemetry> getListOfTelemetry(String type, int count) {
         List<Telemetry> telemetryList = new ArrayList<Telemetry>();
         try {
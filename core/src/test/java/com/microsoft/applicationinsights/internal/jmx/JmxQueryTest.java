@@ -0,0 +1,95 @@
+package com.microsoft.applicationinsights.internal.jmx;
+
+import org.junit.*;
+
+import javax.management.*;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+
+public class JmxQueryTest {
+    @Test
+    public void testRegisteredAndUnregisteredMBeansAreResolved() throws Exception {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        List<JmxAttributeData> attributes = new ArrayList<JmxAttributeData>();
+        attributes.add(new JmxAttributeData("Int", "IntSample"));
+        attributes.add(new JmxAttributeData("Long", "LongSample"));
+        JmxQuery query = new JmxQuery("JSDKTests:type=QueryStub,*", attributes);
+
+        ObjectName first = new ObjectName("JSDKTests:type=QueryStub,name=first");
+        ObjectName second = new ObjectName("JSDKTests:type=QueryStub,name=second");
+        server.registerMBean(new JmxDataFetcherTest.TestStub(1, 2.0, 3L), first);
+        try {
+            assertEquals(1, query.fetch().get("Int").size());
+
+            server.registerMBean(new JmxDataFetcherTest.TestStub(10, 20.0, 30L), second);
+            Map<String, Collection<Object>> result = query.fetch();
+            assertEquals(2, result.get("Int").size());
+            assertEquals(2, result.get("Long").size());
+
+            server.unregisterMBean(second);
+            result = query.fetch();
+            assertEquals(1, result.get("Int").size());
+            assertEquals(3L, result.get("Long").iterator().next());
+        } finally {
+            server.unregisterMBean(first);
+        }
+    }
+
+    @Test
+    public void testRegistrationsStopListeningOnShutdown() throws Exception {
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        ObjectName name = new ObjectName("JSDKTests:type=QueryStub,name=stopped");
+        assertNotEquals(MBeanRegistrations.UNKNOWN_GENERATION, MBeanRegistrations.INSTANCE.getGeneration(server));
+        assertTrue(MBeanRegistrations.INSTANCE.isListening());
+
+        MBeanRegistrations.INSTANCE.stop(1, TimeUnit.SECONDS);
+        assertFalse(MBeanRegistrations.INSTANCE.isListening());
+
+        long generation = MBeanRegistrations.INSTANCE.getGeneration(server);
+        server.registerMBean(new JmxDataFetcherTest.TestStub(1, 2.0, 3L), name);
+        server.unregisterMBean(name);
+        assertEquals(generation + 2, MBeanRegistrations.INSTANCE.getGeneration(server));
+    }
+
+    @Test
+    public void testCompositeAttribute() throws Exception {
+        List<JmxAttributeData> attributes = new ArrayList<JmxAttributeData>();
+        attributes.add(new JmxAttributeData("Used", "HeapMemoryUsage.used", "COMPOSITE"));
+        attributes.add(new JmxAttributeData("Committed", "HeapMemoryUsage.committed", "COMPOSITE"));
+        Map<String, Collection<Object>> result = new JmxQuery("java.lang:type=Memory", attributes).fetch();
+
+        assertEquals(1, result.get("Used").size());
+        assertTrue((Long) result.get("Used").iterator().next() > 0);
+        assertTrue((Long) result.get("Committed").iterator().next() > 0);
+    }
+
+    @Test
+    public void testTabularAttribute() throws Exception {
+        System.setProperty("JmxQueryTestProperty", "42");
+        List<JmxAttributeData> attributes = new ArrayList<JmxAttributeData>();
+        attributes.add(new JmxAttributeData("Property", "SystemProperties.JmxQueryTestProperty.value", "TABULAR"));
+        Map<String, Collection<Object>> result = new JmxQuery("java.lang:type=Runtime", attributes).fetch();
+
+        assertEquals(1, result.get("Property").size());
+        assertEquals("42", result.get("Property").iterator().next());
+    }
+
+    @Test(expected = AttributeNotFoundException.class)
+    public void testMissingAttribute() throws Exception {
+        List<JmxAttributeData> attributes = new ArrayList<JmxAttributeData>();
+        attributes.add(new JmxAttributeData("Used", "HeapMemoryUsage.used", "COMPOSITE"));
+        attributes.add(new JmxAttributeData("Missing", "NoSuchAttribute"));
+        new JmxQuery("java.lang:type=Memory", attributes).fetch();
+    }
+
+    @Test(expected = MalformedObjectNameException.class)
+    public void testMalformedObjectName() throws Exception {
+        new JmxQuery("JSDKTests", new ArrayList<JmxAttributeData>());
+    }
+}
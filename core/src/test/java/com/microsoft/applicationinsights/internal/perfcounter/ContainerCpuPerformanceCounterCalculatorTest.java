@@ -0,0 +1,114 @@
+/*
+ * ApplicationInsights-Java
+ * Copyright (c) Microsoft Corporation
+ * All rights reserved.
+ *
+ * MIT License
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the ""Software""), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package com.microsoft.applicationinsights.internal.perfcounter;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+
+import com.google.common.base.Ticker;
+import org.apache.commons.io.FileUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public final class ContainerCpuPerformanceCounterCalculatorTest {
+    private static final long NANOS_IN_SECOND = 1000000000L;
+
+    private static final class ManualTicker extends Ticker {
+        private long nanos;
+
+        @Override
+        public long read() {
+            return nanos;
+        }
+    }
+
+    private File root;
+    private ManualTicker ticker;
+    private ContainerCpuPerformanceCounterCalculator tested;
+
+    @Before
+    public void setUp() throws IOException {
+        root = Files.createTempDirectory("cgroup").toFile();
+        write("cgroup.controllers", "cpu memory");
+        ticker = new ManualTicker();
+        tested = new ContainerCpuPerformanceCounterCalculator(UnixCGroup.detect(root, new File(root, "missing")), ticker);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        FileUtils.deleteDirectory(root);
+    }
+
+    @Test
+    public void testUsageOutOfTheLimit() throws IOException {
+        write("cpu.max", "200000 100000");
+
+        write("cpu.stat", "usage_usec 1000000");
+        assertNull(tested.getCpuUsage());
+
+        write("cpu.stat", "usage_usec 2000000");
+        ticker.nanos += NANOS_IN_SECOND;
+        assertEquals(50.0, tested.getCpuUsage(), 0.001);
+        assertTrue(tested.hasCpuLimit());
+    }
+
+    @Test
+    public void testUsageIsCappedAtTheLimit() throws IOException {
+        write("cpu.max", "50000 100000");
+
+        write("cpu.stat", "usage_usec 0");
+        tested.getCpuUsage();
+
+        write("cpu.stat", "usage_usec 1000000");
+        ticker.nanos += NANOS_IN_SECOND;
+        assertEquals(100.0, tested.getCpuUsage(), 0.001);
+    }
+
+    @Test
+    public void testUsageWithoutLimitIsOutOfTheAvailableProcessors() throws IOException {
+        write("cpu.max", "max 100000");
+
+        write("cpu.stat", "usage_usec 0");
+        tested.getCpuUsage();
+
+        write("cpu.stat", "usage_usec 1000000");
+        ticker.nanos += NANOS_IN_SECOND;
+        assertEquals(100.0 / Runtime.getRuntime().availableProcessors(), tested.getCpuUsage(), 0.001);
+        assertFalse(tested.hasCpuLimit());
+    }
+
+    @Test
+    public void testNoUsageWithoutCpuStat() {
+        assertNull(tested.getCpuUsage());
+        ticker.nanos += NANOS_IN_SECOND;
+        assertNull(tested.getCpuUsage());
+    }
+
+    private void write(String fileName, String content) throws IOException {
+        FileUtils.writeStringToFile(new File(root, fileName), content + "\n", StandardCharsets.US_ASCII);
+    }
+}
@@ -0,0 +1,104 @@
+package com.microsoft.applicationinsights.internal.perfcounter;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public final class ProcFileReaderTest {
+    static File fixture(String path) throws URISyntaxException {
+        return new File(ProcFileReaderTest.class.getResource("/" + path).toURI());
+    }
+
+    @Test
+    public void testReadLineOfNumbers() throws Exception {
+        ProcFileReader reader = new ProcFileReader(fixture("procfs/stat"));
+        reader.read();
+
+        assertTrue(reader.findLine(ProcFileReader.ascii("cpu ")));
+        long[] expected = {2255, 34, 2290, 22625563, 6290, 127, 456, 0, 0, 0};
+        for (long value : expected) {
+            assertTrue(reader.hasNextOnLine());
+            assertEquals(value, reader.nextLong());
+        }
+        assertFalse(reader.hasNextOnLine());
+
+        assertTrue(reader.findLine(ProcFileReader.ascii("cpu1 ")));
+        assertEquals(1123, reader.nextLong());
+
+        assertTrue(reader.findLine(ProcFileReader.ascii("procs_blocked")));
+        assertEquals(0, reader.nextLong());
+
+        assertFalse(reader.findLine(ProcFileReader.ascii("cpu2 ")));
+    }
+
+    @Test
+    public void testReadAgainSeesNewContent() throws Exception {
+        File file = File.createTempFile("ProcFileReaderTest", null);
+        try {
+            ProcFileReader reader = new ProcFileReader(file);
+
+            write(file, "value: 1\n");
+            reader.read();
+            assertTrue(reader.findLine(ProcFileReader.ascii("value:")));
+            assertEquals(1, reader.nextLong());
+
+            write(file, "value: -2\n");
+            reader.read();
+            assertTrue(reader.findLine(ProcFileReader.ascii("value:")));
+            assertEquals(-2, reader.nextLong());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testFileLargerThanBuffer() throws Exception {
+        File file = File.createTempFile("ProcFileReaderTest", null);
+        try {
+            StringBuilder content = new StringBuilder();
+            for (int i = 0; i < 2000; ++i) {
+                content.append("line").append(i).append(' ').append(i).append('\n');
+            }
+            write(file, content.toString());
+
+            ProcFileReader reader = new ProcFileReader(file);
+            reader.read();
+            assertTrue(reader.findLine(ProcFileReader.ascii("line1999 ")));
+            assertEquals(1999, reader.nextLong());
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void testTokens() throws Exception {
+        ProcFileReader reader = new ProcFileReader(fixture("cgroup/v2-unlimited/cpu.max"));
+        reader.read();
+
+        assertFalse(reader.nextIs(ProcFileReader.ascii("ma")));
+        assertTrue(reader.nextIs(ProcFileReader.ascii("max")));
+        assertEquals(100000, reader.nextLong());
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void testNotANumber() throws Exception {
+        ProcFileReader reader = new ProcFileReader(fixture("cgroup/v2-unlimited/cpu.max"));
+        reader.read();
+        reader.nextLong();
+    }
+
+    private static void write(File file, String content) throws IOException {
+        FileOutputStream out = new FileOutputStream(file);
+        try {
+            out.write(content.getBytes(StandardCharsets.US_ASCII));
+        } finally {
+            out.close();
+        }
+    }
+}
@@ -21,10 +21,15 @@
 
 package com.microsoft.applicationinsights.internal.perfcounter;
 
+import com.microsoft.applicationinsights.internal.system.SystemInformation;
 import org.junit.Test;
 
 import java.util.Collection;
 
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
 public final class ProcessPerformanceCountersModuleTest {
     @Test(expected = Exception.class)
     public void testFactoryIsConfigurationAware() throws Exception {
@@ -35,4 +40,31 @@ public final class ProcessPerformanceCountersModuleTest {
             }
         });
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testThreadCpuIsOnlyCreatedWhenEnabled() {
+        ProcessBuiltInPerformanceCountersFactory factory = new ProcessBuiltInPerformanceCountersFactory();
+        assertFalse(hasCounter(factory.getPerformanceCounters(), Constants.THREAD_CPU_PC_ID));
+
+        factory.setThreadCpuEnabled(true);
+        assertEquals(SystemInformation.INSTANCE.isUnix(), hasCounter(factory.getPerformanceCounters(), Constants.THREAD_CPU_PC_ID));
+    }
+
+    @Test
+    public void testTaskGroupsAreOnlyReportedWhenEnabled() {
+        ProcessBuiltInPerformanceCountersFactory factory = new ProcessBuiltInPerformanceCountersFactory();
+        assertFalse(hasCounter(factory.getPerformanceCounters(), Constants.TASK_GROUP_PC_ID));
+
+        factory.setTaskGroupsEnabled(true);
+        assertTrue(hasCounter(factory.getPerformanceCounters(), Constants.TASK_GROUP_PC_ID));
+    }
+
+    private static boolean hasCounter(Collection<PerformanceCounter> counters, String id) {
+        for (PerformanceCounter counter : counters) {
+            if (id.equals(counter.getId())) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * ApplicationInsights-Java
+ * Copyright (c) Microsoft Corporation
+ * All rights reserved.
+ *
+ * MIT License
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the ""Software""), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package com.microsoft.applicationinsights.internal.perfcounter;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import com.microsoft.applicationinsights.TelemetryClient;
+import com.microsoft.applicationinsights.internal.util.SDKScheduler;
+import com.microsoft.applicationinsights.internal.util.TaskGroup;
+import com.microsoft.applicationinsights.telemetry.MetricTelemetry;
+import com.microsoft.applicationinsights.telemetry.Telemetry;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public final class TaskGroupPerformanceCounterTest {
+    private static final String GROUP_NAME = TaskGroupPerformanceCounterTest.class.getSimpleName();
+
+    /**
+     * Keeps the metrics of the test group by name.
+     */
+    private static final class TelemetryClientStub extends TelemetryClient {
+        private final Map<String, Double> metrics = new HashMap<String, Double>();
+
+        @Override
+        public void track(Telemetry telemetry) {
+            MetricTelemetry metric = (MetricTelemetry) telemetry;
+            if (GROUP_NAME.equals(metric.getProperties().get(TaskGroupPerformanceCounter.TASK_GROUP_PROPERTY))) {
+                metrics.put(metric.getName(), metric.getValue());
+            }
+        }
+    }
+
+    private TaskGroup taskGroup;
+    private TaskGroupPerformanceCounter tested;
+
+    @Before
+    public void setUp() {
+        taskGroup = SDKScheduler.INSTANCE.createTaskGroup(GROUP_NAME, 1, 10);
+        tested = new TaskGroupPerformanceCounter();
+    }
+
+    @After
+    public void tearDown() {
+        taskGroup.stop(5, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testCountsAreSentAsTheDifferenceSinceThePreviousReport() throws Exception {
+        runTasks(3);
+        TelemetryClientStub client = new TelemetryClientStub();
+        tested.report(client);
+
+        assertEquals(3.0, client.metrics.get(TaskGroupPerformanceCounter.COMPLETED_TASKS_METRIC_NAME), 0.0);
+        assertEquals(0.0, client.metrics.get(TaskGroupPerformanceCounter.FAILED_TASKS_METRIC_NAME), 0.0);
+        assertEquals(0.0, client.metrics.get(TaskGroupPerformanceCounter.QUEUED_TASKS_METRIC_NAME), 0.0);
+
+        runTasks(2);
+        client = new TelemetryClientStub();
+        tested.report(client);
+
+        assertEquals(2.0, client.metrics.get(TaskGroupPerformanceCounter.COMPLETED_TASKS_METRIC_NAME), 0.0);
+    }
+
+    @Test
+    public void testIdleGroupsAreNotSent() throws Exception {
+        runTasks(1);
+        tested.report(new TelemetryClientStub());
+
+        TelemetryClientStub client = new TelemetryClientStub();
+        tested.report(client);
+
+        assertTrue(client.metrics.isEmpty());
+    }
+
+    private void runTasks(int count) throws InterruptedException {
+        long completed = taskGroup.getCompletedTaskCount() + count;
+        for (int i = 0; i < count; ++i) {
+            taskGroup.execute(new Runnable() {
+                @Override
+                public void run() {
+                }
+            });
+        }
+        for (int i = 0; i < 500 && (taskGroup.getCompletedTaskCount() < completed || taskGroup.getActiveTaskCount() > 0); ++i) {
+            Thread.sleep(10);
+        }
+        assertEquals(completed, taskGroup.getCompletedTaskCount());
+    }
+}
@@ -0,0 +1,159 @@
+package com.microsoft.applicationinsights.internal.perfcounter;
+
+import java.io.File;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public final class UnixCGroupTest {
+    @Test
+    public void testV1Limits() throws Exception {
+        UnixCGroup cgroup = detect("cgroup/v1", "v1-root");
+
+        assertEquals(UnixCGroup.Version.V1, cgroup.getVersion());
+        assertEquals(1.5, cgroup.getCpuLimit(), 0.0);
+        assertEquals(536870912L, cgroup.getMemoryLimit());
+    }
+
+    @Test
+    public void testV1NoLimits() throws Exception {
+        UnixCGroup cgroup = detect("cgroup/v1-unlimited", "v1-root");
+
+        assertEquals(UnixCGroup.Version.V1, cgroup.getVersion());
+        assertEquals(UnixCGroup.NO_LIMIT, cgroup.getCpuLimit(), 0.0);
+        assertEquals(UnixCGroup.NO_LIMIT, cgroup.getMemoryLimit());
+    }
+
+    @Test
+    public void testV2Limits() throws Exception {
+        UnixCGroup cgroup = detect("cgroup/v2", "v2-root");
+
+        assertEquals(UnixCGroup.Version.V2, cgroup.getVersion());
+        assertEquals(2.5, cgroup.getCpuLimit(), 0.0);
+        assertEquals(1073741824L, cgroup.getMemoryLimit());
+    }
+
+    @Test
+    public void testV2NoLimits() throws Exception {
+        UnixCGroup cgroup = detect("cgroup/v2-unlimited", "v2-root");
+
+        assertEquals(UnixCGroup.Version.V2, cgroup.getVersion());
+        assertEquals(UnixCGroup.NO_LIMIT, cgroup.getCpuLimit(), 0.0);
+        assertEquals(UnixCGroup.NO_LIMIT, cgroup.getMemoryLimit());
+    }
+
+    @Test
+    public void testV1Usage() throws Exception {
+        UnixCGroup cgroup = detect("cgroup/v1", "v1-root");
+        UnixCGroup.CpuStat stat = new UnixCGroup.CpuStat();
+        cgroup.readCpuStat(stat);
+
+        assertEquals(45200000000L, stat.usageNanos);
+        assertEquals(1200, stat.periods);
+        assertEquals(37, stat.throttledPeriods);
+        assertEquals(2500000000L, stat.throttledNanos);
+        assertEquals(268435456L, cgroup.getMemoryUsage());
+        assertEquals(2, cgroup.getOomKills());
+    }
+
+    @Test
+    public void testV2Usage() throws Exception {
+        UnixCGroup cgroup = detect("cgroup/v2", "v2-root");
+        UnixCGroup.CpuStat stat = new UnixCGroup.CpuStat();
+        cgroup.readCpuStat(stat);
+
+        assertEquals(45200000000L, stat.usageNanos);
+        assertEquals(1200, stat.periods);
+        assertEquals(37, stat.throttledPeriods);
+        assertEquals(2500000000L, stat.throttledNanos);
+        assertEquals(805306368L, cgroup.getMemoryUsage());
+        assertEquals(3, cgroup.getOomKills());
+    }
+
+    @Test
+    public void testV2MissingUsage() throws Exception {
+        UnixCGroup cgroup = detect("cgroup/v2-unlimited", "v2-root");
+        UnixCGroup.CpuStat stat = new UnixCGroup.CpuStat();
+        cgroup.readCpuStat(stat);
+
+        assertEquals(1000000L, stat.usageNanos);
+        assertEquals(-1, stat.periods);
+        assertEquals(-1, stat.throttledPeriods);
+        assertEquals(-1, stat.throttledNanos);
+        assertEquals(-1, cgroup.getMemoryUsage());
+        assertEquals(-1, cgroup.getOomKills());
+    }
+
+    @Test
+    public void testNoCGroup() throws Exception {
+        assertNull(detect("procfs", "v2-root"));
+    }
+
+    @Test
+    public void testV2NestedCGroup() throws Exception {
+        UnixCGroup cgroup = detect("cgroup/v2-nested", "v2-nested");
+
+        assertFalse(cgroup.isInRootCGroup());
+        assertTrue(cgroup.isContainer());
+        assertEquals(0.5, cgroup.getCpuLimit(), 0.0);
+        assertEquals(268435456L, cgroup.getMemoryLimit());
+    }
+
+    @Test
+    public void testV1NestedCGroup() throws Exception {
+        UnixCGroup cgroup = detect("cgroup/v1-nested", "v1-nested");
+
+        assertFalse(cgroup.isInRootCGroup());
+        assertTrue(cgroup.isContainer());
+        assertEquals(0.5, cgroup.getCpuLimit(), 0.0);
+        assertEquals(268435456L, cgroup.getMemoryLimit());
+    }
+
+    @Test
+    public void testV1CGroupMountedAtTheRoot() throws Exception {
+        // the path of the container on the host does not exist in its cgroup filesystem
+        UnixCGroup cgroup = detect("cgroup/v1", "v1-nested");
+
+        assertFalse(cgroup.isInRootCGroup());
+        assertEquals(1.5, cgroup.getCpuLimit(), 0.0);
+        assertEquals(536870912L, cgroup.getMemoryLimit());
+    }
+
+    @Test
+    public void testV2RootCGroupIsNotAContainer() throws Exception {
+        UnixCGroup cgroup = detect("cgroup/v2-unlimited", "v2-root");
+
+        assertTrue(cgroup.isInRootCGroup());
+        assertFalse(cgroup.isContainer());
+    }
+
+    @Test
+    public void testV1RootCGroupIsNotAContainer() throws Exception {
+        UnixCGroup cgroup = detect("cgroup/v1-unlimited", "v1-root");
+
+        assertTrue(cgroup.isInRootCGroup());
+        assertFalse(cgroup.isContainer());
+    }
+
+    @Test
+    public void testRootCGroupWithALimitIsAContainer() throws Exception {
+        // a container with its own cgroup namespace sees its cgroup as the root
+        UnixCGroup cgroup = detect("cgroup/v2", "v2-root");
+
+        assertTrue(cgroup.isInRootCGroup());
+        assertTrue(cgroup.isContainer());
+    }
+
+    @Test
+    public void testMissingSelfCGroupFileMeansTheRootCGroup() throws Exception {
+        UnixCGroup cgroup = UnixCGroup.detect(ProcFileReaderTest.fixture("cgroup/v2-unlimited"), new File("missing"));
+
+        assertTrue(cgroup.isInRootCGroup());
+        assertFalse(cgroup.isContainer());
+    }
+
+    private static UnixCGroup detect(String root, String selfCGroup) throws Exception {
+        return UnixCGroup.detect(ProcFileReaderTest.fixture(root), ProcFileReaderTest.fixture("cgroup/self/" + selfCGroup));
+    }
+}
@@ -0,0 +1,15 @@
+package com.microsoft.applicationinsights.internal.perfcounter;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public final class UnixProcessIOPerformanceCounterTest {
+    @Test
+    public void testParseReadAndWrittenBytes() throws Exception {
+        ProcFileReader reader = new ProcFileReader(ProcFileReaderTest.fixture("procfs/io"));
+        reader.read();
+
+        assertEquals(7335936 + 12288, UnixProcessIOPerformanceCounter.parseReadAndWrittenBytes(reader));
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * ApplicationInsights-Java
+ * Copyright (c) Microsoft Corporation
+ * All rights reserved.
+ *
+ * MIT License
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the ""Software""), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package com.microsoft.applicationinsights.internal.perfcounter;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public final class UnixThreadCpuPerformanceCounterTest {
+    @Test
+    public void testBusiestThreadsComeFirst() {
+        List<UnixThreadCpuReader.ThreadCpuTicks> threads = new ArrayList<UnixThreadCpuReader.ThreadCpuTicks>();
+        threads.add(thread(1L, 100L, 150L));
+        threads.add(thread(2L, 100L, 300L));
+        threads.add(thread(3L, 100L, 100L));
+        // a thread that started since the previous read
+        threads.add(thread(4L, 0L, 100L));
+
+        List<UnixThreadCpuPerformanceCounter.ThreadCpuUsage> usages =
+                UnixThreadCpuPerformanceCounter.getBusiestThreads(threads, 2.0, 2, 5);
+
+        assertEquals(3, usages.size());
+        assertEquals(2L, usages.get(0).threadId);
+        assertEquals(50.0, usages.get(0).cpuUsage, 0.001);
+        assertEquals(4L, usages.get(1).threadId);
+        assertEquals(25.0, usages.get(1).cpuUsage, 0.001);
+        assertEquals(1L, usages.get(2).threadId);
+        assertEquals(12.5, usages.get(2).cpuUsage, 0.001);
+    }
+
+    @Test
+    public void testOnlyTheBusiestThreadsAreReported() {
+        List<UnixThreadCpuReader.ThreadCpuTicks> threads = new ArrayList<UnixThreadCpuReader.ThreadCpuTicks>();
+        for (long threadId : new long[] { 3, 9, 1, 10, 7, 2, 8, 5, 4, 6 }) {
+            threads.add(thread(threadId, 0L, threadId));
+        }
+
+        List<UnixThreadCpuPerformanceCounter.ThreadCpuUsage> usages =
+                UnixThreadCpuPerformanceCounter.getBusiestThreads(threads, 1.0, 1, 3);
+
+        assertEquals(3, usages.size());
+        assertEquals(10L, usages.get(0).threadId);
+        assertEquals(9L, usages.get(1).threadId);
+        assertEquals(8L, usages.get(2).threadId);
+    }
+
+    @Test
+    public void testUsageIsCappedAtAllTheCpus() {
+        List<UnixThreadCpuReader.ThreadCpuTicks> threads = new ArrayList<UnixThreadCpuReader.ThreadCpuTicks>();
+        threads.add(thread(1L, 0L, 1000L));
+
+        List<UnixThreadCpuPerformanceCounter.ThreadCpuUsage> usages =
+                UnixThreadCpuPerformanceCounter.getBusiestThreads(threads, 1.0, 1, 5);
+
+        assertEquals(1, usages.size());
+        assertTrue(usages.get(0).cpuUsage <= 100.0);
+    }
+
+    private static UnixThreadCpuReader.ThreadCpuTicks thread(long threadId, long prevTicks, long ticks) {
+        UnixThreadCpuReader.ThreadCpuTicks thread = new UnixThreadCpuReader.ThreadCpuTicks(threadId, null);
+        thread.prevTicks = prevTicks;
+        thread.ticks = ticks;
+        return thread;
+    }
+}
@@ -0,0 +1,54 @@
+package com.microsoft.applicationinsights.internal.perfcounter;
+
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public final class UnixThreadCpuReaderTest {
+    @Test
+    public void testRead() throws Exception {
+        UnixThreadCpuReader reader = new UnixThreadCpuReader(ProcFileReaderTest.fixture("procfs/task"));
+
+        assertTrue(reader.read());
+
+        Map<Long, UnixThreadCpuReader.ThreadCpuTicks> threads = getThreads(reader);
+        assertEquals(2, threads.size());
+        assertEquals(152 + 48, threads.get(1001L).ticks);
+        assertEquals(0, threads.get(1001L).prevTicks);
+        // the command name of that thread has spaces and parentheses
+        assertEquals(1203 + 97, threads.get(1002L).ticks);
+    }
+
+    @Test
+    public void testThreadsAreKeptBetweenReads() throws Exception {
+        UnixThreadCpuReader reader = new UnixThreadCpuReader(ProcFileReaderTest.fixture("procfs/task"));
+        assertTrue(reader.read());
+        UnixThreadCpuReader.ThreadCpuTicks thread = getThreads(reader).get(1001L);
+
+        assertTrue(reader.read());
+
+        assertSame(thread, getThreads(reader).get(1001L));
+        assertEquals(152 + 48, thread.prevTicks);
+        assertEquals(152 + 48, thread.ticks);
+    }
+
+    @Test
+    public void testMissingTaskFolder() throws Exception {
+        UnixThreadCpuReader reader = new UnixThreadCpuReader(new File(ProcFileReaderTest.fixture("procfs"), "missing"));
+
+        assertFalse(reader.read());
+        assertTrue(reader.getThreads().isEmpty());
+    }
+
+    private static Map<Long, UnixThreadCpuReader.ThreadCpuTicks> getThreads(UnixThreadCpuReader reader) {
+        Map<Long, UnixThreadCpuReader.ThreadCpuTicks> threads = new HashMap<Long, UnixThreadCpuReader.ThreadCpuTicks>();
+        for (UnixThreadCpuReader.ThreadCpuTicks thread : reader.getThreads()) {
+            threads.put(thread.threadId, thread);
+        }
+        return threads;
+    }
+}
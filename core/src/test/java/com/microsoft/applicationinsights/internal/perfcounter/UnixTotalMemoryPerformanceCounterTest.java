@@ -0,0 +1,16 @@
+package com.microsoft.applicationinsights.internal.perfcounter;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public final class UnixTotalMemoryPerformanceCounterTest {
+    @Test
+    public void testParseAvailableMemory() throws Exception {
+        ProcFileReader reader = new ProcFileReader(ProcFileReaderTest.fixture("procfs/meminfo"));
+        reader.read();
+
+        // MemFree + Buffers + Cached, SwapCached is not counted
+        assertEquals(972316, UnixTotalMemoryPerformanceCounter.parseAvailableMemoryInKB(reader));
+    }
+}
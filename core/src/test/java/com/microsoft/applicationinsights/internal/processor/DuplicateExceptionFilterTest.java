@@ -0,0 +1,133 @@
+/*
+ * ApplicationInsights-Java
+ * Copyright (c) Microsoft Corporation
+ * All rights reserved.
+ *
+ * MIT License
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the ""Software""), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package com.microsoft.applicationinsights.internal.processor;
+
+import java.util.concurrent.TimeUnit;
+
+import com.google.common.base.Ticker;
+import com.microsoft.applicationinsights.telemetry.ExceptionTelemetry;
+import com.microsoft.applicationinsights.telemetry.TraceTelemetry;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class DuplicateExceptionFilterTest {
+    private static final class ManualTicker extends Ticker {
+        private long nanos;
+
+        @Override
+        public long read() {
+            return nanos;
+        }
+
+        private void advance(long seconds) {
+            nanos += TimeUnit.SECONDS.toNanos(seconds);
+        }
+    }
+
+    private ManualTicker ticker;
+    private DuplicateExceptionFilter tested;
+
+    @Before
+    public void setUp() {
+        ticker = new ManualTicker();
+        tested = new DuplicateExceptionFilter(ticker);
+        tested.setIntervalInSeconds("10");
+    }
+
+    @Test
+    public void testOtherTelemetriesAreNotFiltered() {
+        assertTrue(tested.process(new TraceTelemetry("trace")));
+        assertTrue(tested.process(new TraceTelemetry("trace")));
+    }
+
+    @Test
+    public void testExceptionsWithoutThrowableAreNotFiltered() {
+        assertTrue(tested.process(new ExceptionTelemetry()));
+        assertTrue(tested.process(new ExceptionTelemetry()));
+    }
+
+    @Test
+    public void testDuplicatesWithinTheIntervalAreFilteredOut() {
+        assertTrue(tested.process(new ExceptionTelemetry(createException(10))));
+        assertFalse(tested.process(new ExceptionTelemetry(createException(10))));
+        assertFalse(tested.process(new ExceptionTelemetry(createException(10))));
+    }
+
+    @Test
+    public void testDifferentFingerprintsAreNotFilteredOut() {
+        assertTrue(tested.process(new ExceptionTelemetry(createException(10))));
+        assertTrue(tested.process(new ExceptionTelemetry(createException(11))));
+        assertTrue(tested.process(new ExceptionTelemetry(new IllegalArgumentException(createException(10)))));
+    }
+
+    @Test
+    public void testNextIntervalCarriesTheSuppressedOccurrences() {
+        ExceptionTelemetry first = new ExceptionTelemetry(createException(10));
+        assertTrue(tested.process(first));
+        assertFalse(tested.process(new ExceptionTelemetry(createException(10))));
+        assertFalse(tested.process(new ExceptionTelemetry(createException(10))));
+
+        ticker.advance(10);
+        ExceptionTelemetry next = new ExceptionTelemetry(createException(10));
+        assertTrue(tested.process(next));
+
+        assertNull(first.getMetrics().get(DuplicateExceptionFilter.SUPPRESSED_OCCURRENCES_METRIC));
+        assertEquals(2.0, next.getMetrics().get(DuplicateExceptionFilter.SUPPRESSED_OCCURRENCES_METRIC), 0.0);
+        assertFalse(tested.process(new ExceptionTelemetry(createException(10))));
+    }
+
+    @Test
+    public void testFingerprintsBeyondTheMaximumAreNotFilteredOut() {
+        tested.setMaxFingerprints("1");
+
+        assertTrue(tested.process(new ExceptionTelemetry(createException(10))));
+        assertTrue(tested.process(new ExceptionTelemetry(createException(11))));
+        assertTrue(tested.process(new ExceptionTelemetry(createException(11))));
+        assertFalse(tested.process(new ExceptionTelemetry(createException(10))));
+    }
+
+    @Test
+    public void testExpiredFingerprintsAreForgotten() {
+        tested.setMaxFingerprints("1");
+        assertTrue(tested.process(new ExceptionTelemetry(createException(10))));
+
+        ticker.advance(20);
+        assertTrue(tested.process(new ExceptionTelemetry(createException(11))));
+        assertFalse(tested.process(new ExceptionTelemetry(createException(11))));
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void testInvalidInterval() {
+        tested.setIntervalInSeconds("0");
+    }
+
+    private static Exception createException(int line) {
+        Exception exception = new IllegalStateException("message");
+        exception.setStackTrace(new StackTraceElement[] { new StackTraceElement("a.B", "c", "B.java", line) });
+        return exception;
+    }
+}
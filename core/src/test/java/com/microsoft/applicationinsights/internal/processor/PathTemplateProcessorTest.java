@@ -0,0 +1,120 @@
+/*
+ * ApplicationInsights-Java
+ * Copyright (c) Microsoft Corporation
+ * All rights reserved.
+ *
+ * MIT License
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the ""Software""), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package com.microsoft.applicationinsights.internal.processor;
+
+import com.microsoft.applicationinsights.telemetry.Duration;
+import com.microsoft.applicationinsights.telemetry.RemoteDependencyTelemetry;
+import com.microsoft.applicationinsights.telemetry.RequestTelemetry;
+import com.microsoft.applicationinsights.telemetry.TraceTelemetry;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PathTemplateProcessorTest {
+    private PathTemplateProcessor tested;
+
+    @Before
+    public void setUp() {
+        tested = new PathTemplateProcessor();
+    }
+
+    @Test
+    public void testIdSegmentsAreDetected() {
+        assertEquals("GET /orders/{int}", tested.normalize("GET /orders/12345"));
+        assertEquals("GET /orders/{int}/items/{int}", tested.normalize("GET /orders/1/items/2"));
+        assertEquals("DELETE /users/{guid}", tested.normalize("DELETE /users/1b4e28ba-2fa1-11d2-883f-0016d3cca427"));
+        assertEquals("GET /commits/{hex}", tested.normalize("GET /commits/9fceb02d0ae598e95dc970b74767f19372d61af8"));
+    }
+
+    @Test
+    public void testOtherSegmentsAreKept() {
+        String name = "GET /orders/cafe/deadbeef/v2";
+        assertSame(name, tested.normalize(name));
+        String root = "GET /";
+        assertSame(root, tested.normalize(root));
+    }
+
+    @Test
+    public void testNamesWithoutPathAreKept() {
+        String name = "OrderController/get";
+        assertSame(name, tested.normalize(name));
+        String noPath = "GET orders";
+        assertSame(noPath, tested.normalize(noPath));
+        assertSame(null, tested.normalize(null));
+    }
+
+    @Test
+    public void testTemplatesTakePrecedence() {
+        tested.setTemplates("/orders/{orderId}/items/{itemId}, /users/{name}, invalid");
+
+        assertEquals("GET /orders/{orderId}/items/{itemId}", tested.normalize("GET /orders/1/items/abc"));
+        assertEquals("GET /users/{name}", tested.normalize("GET /users/jane"));
+        assertEquals("GET /users/{int}/orders", tested.normalize("GET /users/42/orders"));
+    }
+
+    @Test
+    public void testDetectionCanBeDisabled() {
+        tested.setDetectIdSegments("false");
+        String name = "GET /orders/12345";
+        assertSame(name, tested.normalize(name));
+    }
+
+    @Test
+    public void testNamesBeyondMaxGoToOther() {
+        tested.setMaxNames("2");
+        tested.setDetectIdSegments("false");
+
+        assertEquals("GET /a", tested.normalize("GET /a"));
+        assertEquals("POST /b", tested.normalize("POST /b"));
+        assertEquals("GET " + PathTemplateProcessor.OTHER_PATH, tested.normalize("GET /c"));
+        assertEquals("GET /a", tested.normalize("GET /a"));
+    }
+
+    @Test(expected = NumberFormatException.class)
+    public void testInvalidMaxNames() {
+        tested.setMaxNames("0");
+    }
+
+    @Test
+    public void testRequestAndDependencyNamesAreRewritten() {
+        RequestTelemetry request = new RequestTelemetry("GET /orders/12345", null, new Duration(1), "200", true);
+        request.getContext().getOperation().setName("GET /orders/12345");
+        request.setAllowAgentToOverrideName(true);
+        assertTrue(tested.process(request));
+        assertEquals("GET /orders/{int}", request.getName());
+        assertEquals("GET /orders/{int}", request.getContext().getOperation().getName());
+        assertTrue(request.isAllowAgentToOverrideName());
+
+        RemoteDependencyTelemetry dependency = new RemoteDependencyTelemetry("GET /items/67890");
+        dependency.getContext().getOperation().setName("GET /orders/12345");
+        assertTrue(tested.process(dependency));
+        assertEquals("GET /items/{int}", dependency.getName());
+        assertEquals("GET /orders/{int}", dependency.getContext().getOperation().getName());
+
+        TraceTelemetry trace = new TraceTelemetry("GET /orders/12345");
+        assertTrue(tested.process(trace));
+        assertEquals("GET /orders/12345", trace.getMessage());
+    }
+}
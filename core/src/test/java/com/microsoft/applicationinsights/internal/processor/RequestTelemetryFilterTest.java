@@ -21,6 +21,9 @@
 
 package com.microsoft.applicationinsights.internal.processor;
 
+import java.util.ArrayList;
+import java.util.Collections;
+
 import com.microsoft.applicationinsights.telemetry.Duration;
 import com.microsoft.applicationinsights.telemetry.MetricTelemetry;
 import com.microsoft.applicationinsights.telemetry.RequestTelemetry;
@@ -92,4 +95,28 @@ public class RequestTelemetryFilterTest {
             }
         }
     }
+
+    @Test
+    public void testErrorCodesOutsideOfTheTable() throws Throwable {
+        RequestTelemetryFilter tested = new RequestTelemetryFilter();
+        tested.setNotNeededResponseCodes("990-1010, 1500, 0200");
+
+        RequestTelemetry rt = new RequestTelemetry();
+        String[] filtered = {"990", "999", "1000", "1010", "1500", "0200", "0995", "+1005"};
+        for (String responseCode : filtered) {
+            rt.setResponseCode(responseCode);
+            assertFalse(responseCode, tested.process(rt));
+        }
+        String[] kept = {"989", "1011", "200", "1499", "01500", "abc"};
+        for (String responseCode : kept) {
+            rt.setResponseCode(responseCode);
+            assertTrue(responseCode, tested.process(rt));
+        }
+    }
+
+    @Test
+    public void testFilterDeclaresRequestTelemetry() {
+        assertEquals(Collections.<Class<?>>singletonList(RequestTelemetry.class),
+                new ArrayList<Class<?>>(new RequestTelemetryFilter().getTelemetryTypes()));
+    }
 }
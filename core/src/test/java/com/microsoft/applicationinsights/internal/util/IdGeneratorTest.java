@@ -0,0 +1,94 @@
+/*
+ * ApplicationInsights-Java
+ * Copyright (c) Microsoft Corporation
+ * All rights reserved.
+ *
+ * MIT License
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the ""Software""), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package com.microsoft.applicationinsights.internal.util;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.UUID;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertTrue;
+
+public final class IdGeneratorTest {
+
+    @Test
+    public void testRandomHexLengthAndDigits() {
+        for (int byteCount : new int[] { 1, 4, 8, 9, 16 }) {
+            String hex = IdGenerator.randomHex(byteCount);
+            assertEquals(byteCount * 2, hex.length());
+            assertTrue(hex, hex.matches("[0-9a-f]+"));
+            assertNotEquals(0, hex.replace("0", "").length());
+        }
+    }
+
+    @Test
+    public void testRandomHexIsRandom() {
+        Set<String> ids = new HashSet<String>();
+        for (int i = 0; i < 1000; ++i) {
+            ids.add(IdGenerator.randomHex(16));
+        }
+        assertEquals(1000, ids.size());
+    }
+
+    @Test
+    public void testThreadsGenerateDifferentIds() throws InterruptedException {
+        final Set<String> ids = new HashSet<String>();
+        Thread[] threads = new Thread[8];
+        for (int i = 0; i < threads.length; ++i) {
+            threads[i] = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    String id = IdGenerator.randomHex(16);
+                    synchronized (ids) {
+                        ids.add(id);
+                    }
+                }
+            });
+            threads[i].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(threads.length, ids.size());
+    }
+
+    @Test
+    public void testRandomUuidIsAVersion4Uuid() {
+        String id = IdGenerator.randomUuid();
+        UUID uuid = UUID.fromString(id);
+
+        assertEquals(uuid.toString(), id);
+        assertEquals(4, uuid.version());
+        assertEquals(2, uuid.variant());
+    }
+
+    @Test
+    public void testToHex() {
+        assertEquals("00000000", IdGenerator.toHex(0));
+        assertEquals("0000abcd", IdGenerator.toHex(0xabcd));
+        assertEquals("ffffffff", IdGenerator.toHex(-1));
+        assertEquals(String.format("%08x", 0x7a3b2c1d), IdGenerator.toHex(0x7a3b2c1d));
+    }
+}
@@ -0,0 +1,304 @@
+/*
+ * ApplicationInsights-Java
+ * Copyright (c) Microsoft Corporation
+ * All rights reserved.
+ *
+ * MIT License
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the ""Software""), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package com.microsoft.applicationinsights.internal.util;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public final class TaskGroupTest {
+    private CountDownLatch release;
+    private TaskGroup tested;
+
+    @Before
+    public void setUp() {
+        release = new CountDownLatch(1);
+    }
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        if (tested != null) {
+            tested.stop(5, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void testConcurrencyIsBounded() throws Exception {
+        tested = SDKScheduler.INSTANCE.createTaskGroup("test", 2, 10);
+        CountDownLatch started = new CountDownLatch(2);
+        CountDownLatch done = new CountDownLatch(5);
+        for (int i = 0; i < 5; ++i) {
+            tested.execute(new BlockingTask(started, done));
+        }
+
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertEquals(2, tested.getActiveTaskCount());
+        assertEquals(3, tested.getQueuedTaskCount());
+
+        release.countDown();
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        waitForIdle();
+        assertEquals(5, tested.getSubmittedTaskCount());
+        assertEquals(5, tested.getCompletedTaskCount());
+        assertEquals(0, tested.getQueuedTaskCount());
+    }
+
+    @Test
+    public void testTasksAreRejectedWhenTheQueueIsFull() throws Exception {
+        tested = SDKScheduler.INSTANCE.createTaskGroup("test", 1, 1);
+        CountDownLatch started = new CountDownLatch(1);
+        tested.execute(new BlockingTask(started, null));
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        tested.execute(new BlockingTask(null, null));
+
+        try {
+            tested.execute(new BlockingTask(null, null));
+            fail("The task should have been rejected");
+        } catch (RejectedExecutionException e) {
+            assertEquals(1, tested.getRejectedTaskCount());
+        }
+    }
+
+    @Test
+    public void testGrowingTheLimitStartsWaitingTasks() throws Exception {
+        tested = SDKScheduler.INSTANCE.createTaskGroup("test", 1, 10);
+        CountDownLatch started = new CountDownLatch(3);
+        for (int i = 0; i < 3; ++i) {
+            tested.execute(new BlockingTask(started, null));
+        }
+        assertEquals(2, tested.getQueuedTaskCount());
+
+        tested.setMaxConcurrentTasks(3);
+
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+        assertEquals(0, tested.getQueuedTaskCount());
+    }
+
+    @Test
+    public void testFailedTaskIsCountedAndNextTaskRuns() throws Exception {
+        tested = SDKScheduler.INSTANCE.createTaskGroup("test", 1, 10);
+        tested.execute(new Runnable() {
+            @Override
+            public void run() {
+                throw new IllegalStateException("expected");
+            }
+        });
+        Future<Integer> future = tested.submit(new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                return 42;
+            }
+        });
+
+        assertEquals(Integer.valueOf(42), future.get(5, TimeUnit.SECONDS));
+        waitForIdle();
+        assertEquals(1, tested.getFailedTaskCount());
+        assertEquals(1, tested.getCompletedTaskCount());
+    }
+
+    @Test
+    public void testPeriodicRunIsSkippedWhileThePreviousOneRuns() throws Exception {
+        tested = SDKScheduler.INSTANCE.createTaskGroup("test", 1, 0);
+        final AtomicInteger runs = new AtomicInteger();
+        tested.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                runs.incrementAndGet();
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+        }, 0, 10, TimeUnit.MILLISECONDS);
+
+        Thread.sleep(200);
+        assertEquals(1, runs.get());
+        assertTrue(tested.getSkippedRunCount() > 0);
+        assertEquals(0, tested.getRejectedTaskCount());
+    }
+
+    @Test
+    public void testStopRunsTheDelayedTasksDueWithinTheTimeout() throws Exception {
+        tested = SDKScheduler.INSTANCE.createTaskGroup("test", 1, 0);
+        final CountDownLatch ran = new CountDownLatch(1);
+        tested.schedule(new BlockingTask(null, ran), 100, TimeUnit.MILLISECONDS);
+        release.countDown();
+
+        tested.stop(5, TimeUnit.SECONDS);
+
+        assertEquals(0, ran.getCount());
+        assertTrue(tested.isStopped());
+        assertFalse(SDKScheduler.INSTANCE.getTaskGroups().contains(tested));
+    }
+
+    @Test
+    public void testStopDropsTheTasksLeftAfterTheTimeout() throws Exception {
+        tested = SDKScheduler.INSTANCE.createTaskGroup("test", 1, 10);
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(2);
+        tested.execute(new BlockingTask(started, done));
+        tested.execute(new BlockingTask(null, done));
+        tested.schedule(new BlockingTask(null, done), 1, TimeUnit.HOURS);
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        tested.stop(100, TimeUnit.MILLISECONDS);
+
+        // The running task is interrupted, the waiting ones never run
+        assertFalse(done.await(200, TimeUnit.MILLISECONDS));
+        assertEquals(1, done.getCount());
+        assertEquals(0, tested.getQueuedTaskCount());
+    }
+
+    @Test
+    public void testDelayedTaskFiringAfterStopIsDropped() throws Exception {
+        tested = SDKScheduler.INSTANCE.createTaskGroup("test", 1, 0);
+        CountDownLatch ran = new CountDownLatch(1);
+        release.countDown();
+        synchronized (tested) {
+            tested.schedule(new BlockingTask(null, ran), 10, TimeUnit.MILLISECONDS);
+            // The timer fires and waits for the group, which is stopped and drained in the meantime
+            Thread.sleep(200);
+            tested.stop(0, TimeUnit.MILLISECONDS);
+        }
+
+        assertFalse(ran.await(200, TimeUnit.MILLISECONDS));
+        assertEquals(0, tested.getSubmittedTaskCount());
+    }
+
+    @Test
+    public void testBlockingTasksDoNotHoldTheSharedWorkers() throws Exception {
+        tested = SDKScheduler.INSTANCE.createBlockingTaskGroup("blocking", 20, 0);
+        CountDownLatch started = new CountDownLatch(20);
+        for (int i = 0; i < 20; ++i) {
+            tested.execute(new BlockingTask(started, null));
+        }
+        assertTrue(started.await(5, TimeUnit.SECONDS));
+
+        TaskGroup other = SDKScheduler.INSTANCE.createTaskGroup("other", 1, 0);
+        try {
+            final CountDownLatch ran = new CountDownLatch(1);
+            other.execute(new Runnable() {
+                @Override
+                public void run() {
+                    ran.countDown();
+                }
+            });
+            assertTrue(ran.await(5, TimeUnit.SECONDS));
+        } finally {
+            other.stop(5, TimeUnit.SECONDS);
+        }
+    }
+
+    @Test
+    public void testBlockingGroupReservesItsThreadsUntilStopped() {
+        int reserved = SDKScheduler.INSTANCE.getReservedBlockingThreads();
+        tested = SDKScheduler.INSTANCE.createBlockingTaskGroup("blocking", 3, 0);
+        assertEquals(reserved + 3, SDKScheduler.INSTANCE.getReservedBlockingThreads());
+
+        tested.setMaxConcurrentTasks(5);
+        assertEquals(reserved + 5, SDKScheduler.INSTANCE.getReservedBlockingThreads());
+        tested.setMaxConcurrentTasks(2);
+        assertEquals(reserved + 5, SDKScheduler.INSTANCE.getReservedBlockingThreads());
+
+        tested.stop(1, TimeUnit.SECONDS);
+        assertEquals(reserved, SDKScheduler.INSTANCE.getReservedBlockingThreads());
+    }
+
+    @Test
+    public void testQueuedTasksOfAGroupRunOneAfterTheOther() throws Exception {
+        tested = SDKScheduler.INSTANCE.createTaskGroup("test", 1, 10);
+        final AtomicInteger running = new AtomicInteger();
+        final AtomicInteger overlaps = new AtomicInteger();
+        final CountDownLatch done = new CountDownLatch(10);
+        for (int i = 0; i < 10; ++i) {
+            tested.execute(new Runnable() {
+                @Override
+                public void run() {
+                    if (running.incrementAndGet() > 1) {
+                        overlaps.incrementAndGet();
+                    }
+                    running.decrementAndGet();
+                    done.countDown();
+                }
+            });
+        }
+
+        assertTrue(done.await(5, TimeUnit.SECONDS));
+        assertEquals(0, overlaps.get());
+        waitForIdle();
+        assertEquals(10, tested.getCompletedTaskCount());
+    }
+
+    @Test(expected = RejectedExecutionException.class)
+    public void testTasksAreRejectedAfterStop() {
+        tested = SDKScheduler.INSTANCE.createTaskGroup("test", 1, 10);
+        tested.stop(1, TimeUnit.SECONDS);
+
+        tested.execute(new BlockingTask(null, null));
+    }
+
+    private void waitForIdle() throws InterruptedException {
+        for (int i = 0; i < 100 && tested.getActiveTaskCount() > 0; ++i) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, tested.getActiveTaskCount());
+    }
+
+    /**
+     * Signals it started, waits for the release or an interrupt, and then signals it is done.
+     */
+    private final class BlockingTask implements Runnable {
+        private final CountDownLatch started;
+        private final CountDownLatch done;
+
+        private BlockingTask(CountDownLatch started, CountDownLatch done) {
+            this.started = started;
+            this.done = done;
+        }
+
+        @Override
+        public void run() {
+            if (started != null) {
+                started.countDown();
+            }
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            if (done != null) {
+                done.countDown();
+            }
+        }
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ * ApplicationInsights-Java
+ * Copyright (c) Microsoft Corporation
+ * All rights reserved.
+ *
+ * MIT License
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the ""Software""), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package com.microsoft.applicationinsights.internal.util;
+
+import java.io.StringWriter;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.Locale;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public final class TimestampFormatterTest {
+
+    private static final long SOME_TIME = 1431331200123L;
+
+    @Test
+    public void testIso8601MatchesSimpleDateFormat() {
+        SimpleDateFormat expected = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSZZ", Locale.US);
+        for (long time : new long[] { SOME_TIME, SOME_TIME + 1, SOME_TIME + 876, SOME_TIME + 1000, 0L, 999L, -1L, -1001L }) {
+            assertEquals(expected.format(new Date(time)), TimestampFormatter.ISO_8601.format(time));
+        }
+    }
+
+    @Test
+    public void testLogEventMatchesSimpleDateFormat() {
+        SimpleDateFormat expected = new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.US);
+        for (long time : new long[] { SOME_TIME, SOME_TIME + 999, SOME_TIME + 1000, -1L }) {
+            assertEquals(expected.format(new Date(time)), TimestampFormatter.LOG_EVENT.format(time));
+        }
+    }
+
+    @Test
+    public void testCachedSecondIsNotReusedForOtherSeconds() {
+        long otherSecondWithSameSlot = SOME_TIME + 8000;
+
+        String first = TimestampFormatter.ISO_8601.format(SOME_TIME);
+        String second = TimestampFormatter.ISO_8601.format(otherSecondWithSameSlot);
+
+        SimpleDateFormat expected = new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss.SSSZZ", Locale.US);
+        assertEquals(expected.format(new Date(SOME_TIME)), first);
+        assertEquals(expected.format(new Date(otherSecondWithSameSlot)), second);
+        assertEquals(first, TimestampFormatter.ISO_8601.format(SOME_TIME));
+    }
+
+    @Test
+    public void testFormatToWriterAndBuilderMatchFormat() throws Exception {
+        StringWriter writer = new StringWriter();
+        TimestampFormatter.ISO_8601.formatTo(SOME_TIME, writer);
+
+        StringBuilder builder = new StringBuilder("x");
+        TimestampFormatter.ISO_8601.formatTo(SOME_TIME, builder);
+
+        assertEquals(TimestampFormatter.ISO_8601.format(new Date(SOME_TIME)), writer.toString());
+        assertEquals("x" + TimestampFormatter.ISO_8601.format(SOME_TIME), builder.toString());
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * ApplicationInsights-Java
+ * Copyright (c) Microsoft Corporation
+ * All rights reserved.
+ *
+ * MIT License
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the ""Software""), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package com.microsoft.applicationinsights.metrics;
+
+import com.microsoft.applicationinsights.TelemetryClient;
+import com.microsoft.applicationinsights.telemetry.MetricTelemetry;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mockito;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertSame;
+
+public final class MetricManagerTest {
+    @Test
+    public void testGetMetricReturnsTheSameMetric() {
+        MetricManager manager = new MetricManager(Mockito.mock(TelemetryClient.class), 60000L);
+
+        assertSame(manager.getMetric("requests", "host"), manager.getMetric("requests", "host"));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testGetMetricWithOtherDimensions() {
+        MetricManager manager = new MetricManager(Mockito.mock(TelemetryClient.class), 60000L);
+        manager.getMetric("requests", "host");
+
+        manager.getMetric("requests", "status");
+    }
+
+    @Test
+    public void testFlushTracksOneMetricPerSeries() {
+        TelemetryClient mockClient = Mockito.mock(TelemetryClient.class);
+        MetricManager manager = new MetricManager(mockClient, 60000L);
+        Metric metric = manager.getMetric("requests", "host");
+        for (int i = 0; i < 1000; ++i) {
+            metric.trackValue(i, i % 2 == 0 ? "a" : "b");
+        }
+
+        manager.flush();
+
+        ArgumentCaptor<MetricTelemetry> captor = ArgumentCaptor.forClass(MetricTelemetry.class);
+        Mockito.verify(mockClient, Mockito.times(2)).track(captor.capture());
+        for (MetricTelemetry telemetry : captor.getAllValues()) {
+            assertEquals("requests", telemetry.getName());
+            assertEquals(Integer.valueOf(500), telemetry.getCount());
+        }
+
+        manager.flush();
+        Mockito.verify(mockClient, Mockito.times(2)).track(Mockito.any(MetricTelemetry.class));
+    }
+
+    @Test
+    public void testLiveManagersAreFlushedOnShutdown() {
+        TelemetryClient mockClient = Mockito.mock(TelemetryClient.class);
+        MetricManager manager = new MetricManager(mockClient);
+        manager.getMetric("requests").trackValue(1.0);
+
+        MetricManager.flushLiveManagers();
+
+        Mockito.verify(mockClient, Mockito.times(1)).track(Mockito.any(MetricTelemetry.class));
+    }
+}
@@ -0,0 +1,175 @@
+/*
+ * ApplicationInsights-Java
+ * Copyright (c) Microsoft Corporation
+ * All rights reserved.
+ *
+ * MIT License
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the ""Software""), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package com.microsoft.applicationinsights.metrics;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import com.microsoft.applicationinsights.telemetry.MetricTelemetry;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public final class MetricTest {
+    private static final double DELTA = 1e-9;
+
+    @Test
+    public void testAggregatesValuesOfASeries() {
+        Metric metric = new Metric("latency", new String[0], Metric.DEFAULT_MAX_SERIES_COUNT);
+        metric.trackValue(1);
+        metric.trackValue(2);
+        metric.trackValue(6);
+
+        List<MetricTelemetry> telemetries = metric.flush(1000L, 60000L);
+
+        assertEquals(1, telemetries.size());
+        MetricTelemetry telemetry = telemetries.get(0);
+        assertEquals("latency", telemetry.getName());
+        assertEquals(9.0, telemetry.getValue(), DELTA);
+        assertEquals(Integer.valueOf(3), telemetry.getCount());
+        assertEquals(1.0, telemetry.getMin(), DELTA);
+        assertEquals(6.0, telemetry.getMax(), DELTA);
+        assertEquals(Math.sqrt(14.0 / 3.0), telemetry.getStandardDeviation(), DELTA);
+        assertEquals(1000L, telemetry.getTimestamp().getTime());
+        assertEquals("60000", telemetry.getProperties().get(MetricSeries.AGGREGATION_INTERVAL_PROPERTY_NAME));
+    }
+
+    @Test
+    public void testStandardDeviationOfLargeValuesWithSmallSpread() {
+        Metric metric = new Metric("latency", new String[0], Metric.DEFAULT_MAX_SERIES_COUNT);
+        metric.trackValue(1e9);
+        metric.trackValue(1e9 + 1);
+        metric.trackValue(1e9 + 2);
+
+        MetricTelemetry telemetry = metric.flush(0L, 60000L).get(0);
+
+        assertEquals(Math.sqrt(2.0 / 3.0), telemetry.getStandardDeviation(), 1e-6);
+    }
+
+    @Test
+    public void testFlushResetsTheSeries() {
+        Metric metric = new Metric("latency", new String[0], Metric.DEFAULT_MAX_SERIES_COUNT);
+        metric.trackValue(5);
+        metric.flush(0L, 60000L);
+
+        assertTrue(metric.flush(0L, 60000L).isEmpty());
+
+        metric.trackValue(-3);
+        MetricTelemetry telemetry = metric.flush(0L, 60000L).get(0);
+        assertEquals(Integer.valueOf(1), telemetry.getCount());
+        assertEquals(-3.0, telemetry.getMin(), DELTA);
+        assertEquals(-3.0, telemetry.getMax(), DELTA);
+        assertEquals(0.0, telemetry.getStandardDeviation(), DELTA);
+    }
+
+    @Test
+    public void testEverySeriesHasItsDimensions() {
+        Metric metric = new Metric("requests", new String[] {"host", "status"}, Metric.DEFAULT_MAX_SERIES_COUNT);
+        String[] dimensionValues = {"a", "200"};
+        metric.trackValue(1, dimensionValues);
+        dimensionValues[1] = "500";
+        metric.trackValue(2, dimensionValues);
+        metric.trackValue(3, "a", "200");
+
+        assertEquals(2, metric.getSeriesCount());
+        for (MetricTelemetry telemetry : metric.flush(0L, 60000L)) {
+            assertEquals("a", telemetry.getProperties().get("host"));
+            if ("200".equals(telemetry.getProperties().get("status"))) {
+                assertEquals(4.0, telemetry.getValue(), DELTA);
+            } else {
+                assertEquals("500", telemetry.getProperties().get("status"));
+                assertEquals(2.0, telemetry.getValue(), DELTA);
+            }
+        }
+    }
+
+    @Test
+    public void testSeriesBeyondTheCapGoToTheOverflowSeries() {
+        Metric metric = new Metric("requests", new String[] {"user"}, 2);
+        metric.trackValue(1, "a");
+        metric.trackValue(1, "b");
+        metric.trackValue(1, "c");
+        metric.trackValue(1, "d");
+        metric.trackValue(1, "a");
+
+        assertEquals(2, metric.getSeriesCount());
+        List<MetricTelemetry> telemetries = metric.flush(0L, 60000L);
+        assertEquals(3, telemetries.size());
+        MetricTelemetry overflow = telemetries.get(2);
+        assertEquals(Metric.OVERFLOW_DIMENSION_VALUE, overflow.getProperties().get("user"));
+        assertEquals(Integer.valueOf(2), overflow.getCount());
+    }
+
+    @Test
+    public void testNotFiniteValuesAreIgnored() {
+        Metric metric = new Metric("latency", new String[0], Metric.DEFAULT_MAX_SERIES_COUNT);
+        metric.trackValue(Double.NaN);
+        metric.trackValue(Double.POSITIVE_INFINITY);
+
+        assertTrue(metric.flush(0L, 60000L).isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongNumberOfDimensionValues() {
+        Metric metric = new Metric("requests", new String[] {"host"}, Metric.DEFAULT_MAX_SERIES_COUNT);
+        metric.trackValue(1);
+    }
+
+    @Test
+    public void testNoValueIsLostWhenTrackingConcurrently() throws InterruptedException {
+        final Metric metric = new Metric("latency", new String[0], Metric.DEFAULT_MAX_SERIES_COUNT);
+        final int threads = 4;
+        final int valuesPerThread = 100000;
+        final CountDownLatch done = new CountDownLatch(threads);
+        for (int i = 0; i < threads; ++i) {
+            new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < valuesPerThread; ++j) {
+                        metric.trackValue(1);
+                    }
+                    done.countDown();
+                }
+            }).start();
+        }
+
+        long count = 0;
+        double sum = 0;
+        while (!done.await(1, TimeUnit.MILLISECONDS)) {
+            for (MetricTelemetry telemetry : metric.flush(0L, 1L)) {
+                // A value is never split between two intervals
+                assertEquals(telemetry.getCount().doubleValue(), telemetry.getValue(), DELTA);
+                count += telemetry.getCount();
+                sum += telemetry.getValue();
+            }
+        }
+        for (MetricTelemetry telemetry : metric.flush(0L, 1L)) {
+            count += telemetry.getCount();
+            sum += telemetry.getValue();
+        }
+
+        assertEquals(threads * valuesPerThread, count);
+        assertEquals(threads * valuesPerThread, sum, DELTA);
+    }
+}
@@ -22,10 +22,13 @@
 package com.microsoft.applicationinsights.telemetry;
 
 import java.io.IOException;
+import java.util.List;
 
+import com.microsoft.applicationinsights.internal.schemav2.StackFrame;
 import org.junit.Test;
 
 import static org.hamcrest.Matchers.hasSize;
+import static org.junit.Assert.assertNotSame;
 import static org.junit.Assert.assertSame;
 import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
@@ -104,4 +107,69 @@ public final class ExceptionTelemetryTest {
         telemetry.setSeverityLevel(severityLevel);
         assertEquals(telemetry.getSeverityLevel(), severityLevel);
     }
-}
\ No newline at end of file
+
+    @Test
+    public void testIdenticalStackTracesGetEqualParsedStacks() {
+        ExceptionTelemetry first = new ExceptionTelemetry(createException("first", 10));
+        ExceptionTelemetry second = new ExceptionTelemetry(createException("second", 10));
+
+        assertNotSame(first.getExceptions().get(0).getParsedStack(), second.getExceptions().get(0).getParsedStack());
+        assertEquals("second", second.getExceptions().get(0).getMessage());
+        assertEquals(2, second.getExceptions().get(0).getParsedStack().size());
+        assertEquals("a.B.c", second.getExceptions().get(0).getParsedStack().get(0).getMethod());
+        assertEquals(10, second.getExceptions().get(0).getParsedStack().get(0).getLine());
+    }
+
+    @Test
+    public void testChangingTheParsedStackDoesNotAffectOtherExceptions() {
+        ExceptionTelemetry first = new ExceptionTelemetry(createException("first", 12));
+        List<StackFrame> firstStack = first.getExceptions().get(0).getParsedStack();
+        firstStack.get(0).setMethod("changed");
+        firstStack.get(0).setLine(99);
+        firstStack.remove(1);
+
+        ExceptionTelemetry second = new ExceptionTelemetry(createException("second", 12));
+        List<StackFrame> secondStack = second.getExceptions().get(0).getParsedStack();
+
+        assertEquals(2, secondStack.size());
+        assertEquals("a.B.c", secondStack.get(0).getMethod());
+        assertEquals(12, secondStack.get(0).getLine());
+        assertEquals("a.B.d", secondStack.get(1).getMethod());
+    }
+
+    @Test
+    public void testDifferentStackTracesDoNotShareTheParsedStack() {
+        ExceptionTelemetry first = new ExceptionTelemetry(createException("first", 10));
+        ExceptionTelemetry second = new ExceptionTelemetry(createException("first", 11));
+
+        assertNotSame(first.getExceptions().get(0).getParsedStack(), second.getExceptions().get(0).getParsedStack());
+        assertEquals(11, second.getExceptions().get(0).getParsedStack().get(0).getLine());
+    }
+
+    @Test
+    public void testIdenticalStackTracesShareTheCachedFrames() {
+        ParsedStackCache cache = new ParsedStackCache(2);
+        List<StackFrame> first = cache.getParsedStack(createException("first", 13).getStackTrace());
+
+        assertSame(first, cache.getParsedStack(createException("second", 13).getStackTrace()));
+    }
+
+    @Test
+    public void testParsedStackCacheIsBounded() {
+        ParsedStackCache cache = new ParsedStackCache(2);
+        for (int i = 0; i < 10; ++i) {
+            cache.getParsedStack(createException("e", i).getStackTrace());
+        }
+
+        assertTrue(cache.size() <= 2);
+    }
+
+    private static Exception createException(String message, int line) {
+        Exception exception = new IllegalStateException(message);
+        exception.setStackTrace(new StackTraceElement[] {
+                new StackTraceElement("a.B", "c", "B.java", line),
+                new StackTraceElement("a.B", "d", "B.java", 20)
+        });
+        return exception;
+    }
+}
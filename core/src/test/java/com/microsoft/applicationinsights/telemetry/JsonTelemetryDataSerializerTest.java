@@ -32,6 +32,7 @@ import java.io.Serializable;
 import java.io.StringWriter;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -405,4 +406,77 @@ public class JsonTelemetryDataSerializerTest {
         assertEquals(0, bac.d1, epsilon);
         assertEquals(0, bac.d2, epsilon);
     }
+
+    private final static class EmptyClass implements JsonSerializable {
+        @Override
+        public void serialize(JsonTelemetryDataSerializer serializer) throws IOException {
+            serializer.write("s", null, 10);
+            serializer.write("m", new HashMap<String, String>());
+        }
+    }
+
+    private final static class NestedClass implements JsonSerializable {
+        @Override
+        public void serialize(JsonTelemetryDataSerializer serializer) throws IOException {
+            serializer.write("e1", new EmptyClass());
+            serializer.write("i", 1);
+            serializer.write("e2", new EmptyClass());
+            serializer.write("n", new TestClassWithStrings());
+        }
+    }
+
+    @Test
+    public void testNestedObjectsAreWrittenInPlaceAndEmptyOnesAreLeftOut() throws IOException {
+        List<JsonSerializable> list = new ArrayList<JsonSerializable>();
+        list.add(new EmptyClass());
+        list.add(new NestedClass());
+
+        StringWriter stringWriter = new StringWriter();
+        JsonTelemetryDataSerializer tested = new JsonTelemetryDataSerializer(stringWriter);
+        tested.write("e", new EmptyClass());
+        tested.write("n", new NestedClass());
+        tested.write("l", list);
+        tested.close();
+
+        assertEquals("{\"n\":{\"i\":1,\"n\":{\"s1\":\"DEFAULT s1\"}},\"l\":[,{\"i\":1,\"n\":{\"s1\":\"DEFAULT s1\"}}]}", stringWriter.toString());
+    }
+
+    @Test
+    public void testStringsAreEscapedAndTruncated() throws IOException {
+        Map<String, String> map = new LinkedHashMap<String, String>();
+        map.put("  k\"1 ", "v\n");
+        map.put(" ", "empty");
+
+        StringWriter stringWriter = new StringWriter();
+        JsonTelemetryDataSerializer tested = new JsonTelemetryDataSerializer(stringWriter);
+        tested.write("s1", "a\"b\\c\b\f\n\r\t\u0001\u007f\u0085\u00e9", 100);
+        tested.write("s2", "\u0001\u0002\u0003", 10);
+        tested.write("s3", "abcdefghij\u0001", 13);
+        tested.write("m", map);
+        tested.close();
+
+        assertEquals("{\"s1\":\"a\\\"b\\\\c\\b\\f\\n\\r\\t\\u0001\\u007f\\u0085\u00e9\"," +
+                "\"s2\":\"\\u0001\"," +
+                "\"s3\":\"abcdefghij\"," +
+                "\"m\":{\"k\\\"1\":\"v\\n\",\"(required property name is empty)\":\"empty\"}}", stringWriter.toString());
+    }
+
+    @Test
+    public void testIntegralNumbers() throws IOException {
+        List<Object> list = new ArrayList<Object>();
+        list.add(-7);
+        list.add(Long.MAX_VALUE);
+
+        StringWriter stringWriter = new StringWriter();
+        JsonTelemetryDataSerializer tested = new JsonTelemetryDataSerializer(stringWriter);
+        tested.write("i", 0);
+        tested.write("I", Integer.MIN_VALUE);
+        tested.write("l", Long.MIN_VALUE);
+        tested.write("L", Long.valueOf(-12345678901L));
+        tested.write("sh", (short) -7);
+        tested.write("list", list);
+        tested.close();
+
+        assertEquals("{\"i\":0,\"I\":-2147483648,\"l\":-9223372036854775808,\"L\":-12345678901,\"sh\":-7,\"list\":[-7,9223372036854775807]}", stringWriter.toString());
+    }
 }
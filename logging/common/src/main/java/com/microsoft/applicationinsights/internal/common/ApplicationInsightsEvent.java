@@ -21,11 +21,9 @@
 
 package com.microsoft.applicationinsights.internal.common;
 
+import com.microsoft.applicationinsights.internal.util.TimestampFormatter;
 import com.microsoft.applicationinsights.telemetry.SeverityLevel;
 
-import java.text.SimpleDateFormat;
-import java.util.Date;
-import java.util.Locale;
 import java.util.Map;
 
 /**
@@ -50,6 +48,6 @@ public abstract class ApplicationInsightsEvent {
     }
 
     protected static String getFormattedDate(long dateInMilliseconds) {
-        return new SimpleDateFormat("EEE, dd MMM yyyy HH:mm:ss 'GMT'", Locale.US).format(new Date(dateInMilliseconds));
+        return TimestampFormatter.LOG_EVENT.format(dateInMilliseconds);
     }
 }
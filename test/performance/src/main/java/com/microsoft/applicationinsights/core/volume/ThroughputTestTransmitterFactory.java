@@ -58,7 +58,7 @@ final class ThroughputTestTransmitterFactory implements TransmitterFactory {
         TransmissionsLoader transmissionsLoader = new ActiveTransmissionLoader(fileSystemSender, stateFetcher, dispatcher);
 
         // The Transmitter manage all
-        TelemetriesTransmitter telemetriesTransmitter = new TransmitterImpl(dispatcher, new GzipTelemetrySerializer(), transmissionsLoader);
+        TelemetriesTransmitter telemetriesTransmitter = new TransmitterImpl(dispatcher, new GzipTelemetryByteBufferSerializer(), transmissionsLoader);
 
         return telemetriesTransmitter;
     }
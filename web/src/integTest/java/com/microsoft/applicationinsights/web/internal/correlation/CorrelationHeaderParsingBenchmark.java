@@ -0,0 +1,123 @@
+/*
+ * ApplicationInsights-Java
+ * Copyright (c) Microsoft Corporation
+ * All rights reserved.
+ *
+ * MIT License
+ * Permission is hereby granted, free of charge, to any person obtaining a copy of this
+ * software and associated documentation files (the ""Software""), to deal in the Software
+ * without restriction, including without limitation the rights to use, copy, modify, merge,
+ * publish, distribute, sublicense, and/or sell copies of the Software, and to permit
+ * persons to whom the Software is furnished to do so, subject to the following conditions:
+ * The above copyright notice and this permission notice shall be included in all copies or
+ * substantial portions of the Software.
+ * THE SOFTWARE IS PROVIDED *AS IS*, WITHOUT WARRANTY OF ANY KIND, EXPRESS OR IMPLIED,
+ * INCLUDING BUT NOT LIMITED TO THE WARRANTIES OF MERCHANTABILITY, FITNESS FOR A PARTICULAR
+ * PURPOSE AND NONINFRINGEMENT. IN NO EVENT SHALL THE AUTHORS OR COPYRIGHT HOLDERS BE LIABLE
+ * FOR ANY CLAIM, DAMAGES OR OTHER LIABILITY, WHETHER IN AN ACTION OF CONTRACT, TORT OR
+ * OTHERWISE, ARISING FROM, OUT OF OR IN CONNECTION WITH THE SOFTWARE OR THE USE OR OTHER
+ * DEALINGS IN THE SOFTWARE.
+ */
+
+package com.microsoft.applicationinsights.web.internal.correlation;
+
+import com.microsoft.applicationinsights.web.internal.correlation.tracecontext.Traceparent;
+import com.microsoft.applicationinsights.web.internal.correlation.tracecontext.Tracestate;
+
+/**
+ * Single threaded benchmark for the parsing of the correlation headers of incoming requests:
+ * traceparent, tracestate, Correlation-Context and the Request-Id built out of a traceparent.
+ *
+ * Run it with: {@code java -cp <test classpath> ...CorrelationHeaderParsingBenchmark [iterations]}
+ */
+public final class CorrelationHeaderParsingBenchmark {
+    private static final int WARMUP_ROUNDS = 3;
+    private static final int MEASURED_ROUNDS = 5;
+
+    private static final String[] TRACEPARENTS = {
+        "00-0af7651916cd43dd8448eb211c80319c-b7ad6b7169203331-01",
+        "00-4bf92f3577b34da6a3ce929d0e0e4736-00f067aa0ba902b7-00",
+        "01-0af7651916cd43dd8448eb211c80319c-b7ad6b7169203331-01-future",
+        "00-0af7651916cd43dd8448eb211c80319c-b7ad6b7169203331"
+    };
+
+    private static final String[] TRACESTATES = {
+        "az=cid-v1:120",
+        "congo=t61rcWkgMzE,rojo=00f067aa0ba902b7",
+        "az=cid-v1:120 , congo@t61=lZWRzIHRoNhcm5hbCBwbGVhc3VyZS4,\trojo=00f067aa0ba902b7"
+    };
+
+    private static final String[] CORRELATION_CONTEXTS = {
+        "key1=value1, key2=value2",
+        "appId=cid-v1:2a08d5a3-5e8b-4bc8-a1b0-b7d1f4c5e4d1, roleName=frontend",
+        "user=jane,tenant=contoso,experiment=b,,malformed"
+    };
+
+    private interface Parser {
+        int parse(int index);
+    }
+
+    private static final Parser TRACEPARENT = new Parser() {
+        @Override
+        public int parse(int index) {
+            Traceparent traceparent = Traceparent.fromString(TRACEPARENTS[index % TRACEPARENTS.length]);
+            return traceparent == null ? 0 : traceparent.toString().length();
+        }
+    };
+
+    private static final Parser TRACESTATE = new Parser() {
+        @Override
+        public int parse(int index) {
+            return new Tracestate(TRACESTATES[index % TRACESTATES.length]).toString().length();
+        }
+    };
+
+    private static final Parser CORRELATION_CONTEXT = new Parser() {
+        @Override
+        public int parse(int index) {
+            return TelemetryCorrelationUtils.getPropertyBag(CORRELATION_CONTEXTS[index % CORRELATION_CONTEXTS.length]).size();
+        }
+    };
+
+    private static final Parser CHILD_ID = new Parser() {
+        @Override
+        public int parse(int index) {
+            return TraceContextCorrelation.createChildIdFromTraceparentString(TRACEPARENTS[index % 2]).length();
+        }
+    };
+
+    public static void main(String[] args) {
+        int iterations = args.length > 0 ? Integer.parseInt(args[0]) : 1000000;
+
+        System.out.printf("%-22s %10s%n", "header", "ns/op");
+        System.out.printf("%-22s %10.1f%n", "traceparent", measure(TRACEPARENT, iterations));
+        System.out.printf("%-22s %10.1f%n", "tracestate", measure(TRACESTATE, iterations));
+        System.out.printf("%-22s %10.1f%n", "Correlation-Context", measure(CORRELATION_CONTEXT, iterations));
+        System.out.printf("%-22s %10.1f%n", "Request-Id", measure(CHILD_ID, iterations));
+    }
+
+    private static double measure(Parser parser, int iterations) {
+        for (int i = 0; i < WARMUP_ROUNDS; ++i) {
+            runRound(parser, iterations);
+        }
+
+        double total = 0;
+        for (int i = 0; i < MEASURED_ROUNDS; ++i) {
+            total += runRound(parser, iterations);
+        }
+        return total / MEASURED_ROUNDS;
+    }
+
+    private static double runRound(Parser parser, int iterations) {
+        long blackhole = 0;
+        long startTime = System.nanoTime();
+        for (int i = 0; i < iterations; ++i) {
+            blackhole += parser.parse(i);
+        }
+        long elapsed = System.nanoTime() - startTime;
+        if (blackhole == 0) {
+            throw new IllegalStateException("Nothing was parsed");
+        }
+        return (double) elapsed / iterations;
+    }
+}
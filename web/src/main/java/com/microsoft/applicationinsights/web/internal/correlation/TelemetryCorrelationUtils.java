@@ -23,6 +23,7 @@ package com.microsoft.applicationinsights.web.internal.correlation;
 
 import com.microsoft.applicationinsights.TelemetryConfiguration;
 import com.microsoft.applicationinsights.internal.logger.InternalLogger;
+import com.microsoft.applicationinsights.internal.util.IdGenerator;
 import com.microsoft.applicationinsights.telemetry.RequestTelemetry;
 import com.microsoft.applicationinsights.web.internal.RequestTelemetryContext;
 import com.microsoft.applicationinsights.web.internal.ThreadContext;
@@ -280,13 +281,19 @@ public class TelemetryCorrelationUtils {
 
         CorrelationContext currentCorrelationContext =
             ThreadContext.getRequestTelemetryContext().getCorrelationContext();
+        Map<String, String> mappings = currentCorrelationContext.getMappings();
+        Map<String, String> properties = requestTelemetry.getProperties();
 
         while (baggages.hasMoreElements()) {
             String baggage = baggages.nextElement();
             currentCorrelationContext.append(baggage);
-            Map<String, String> propertyBag = getPropertyBag(baggage);
-            currentCorrelationContext.getMappings().putAll(propertyBag);
-            requestTelemetry.getProperties().putAll(propertyBag);
+            KeyValuePairReader reader = new KeyValuePairReader(baggage);
+            while (reader.next()) {
+                String key = reader.key();
+                String value = reader.value();
+                mappings.put(key, value);
+                properties.put(key, value);
+            }
         }
     }
 
@@ -353,26 +360,111 @@ public class TelemetryCorrelationUtils {
      * @return The extracted value
      */
     private static String getKeyValueHeaderValue(String headerFullValue, String key) {
-        return getPropertyBag(headerFullValue).get(key);
+        String value = null;
+        KeyValuePairReader reader = new KeyValuePairReader(headerFullValue);
+        while (reader.next()) {
+            if (reader.isKey(key)) {
+                value = reader.value();
+            }
+        }
+        return value;
     }
 
-    private static Map<String, String> getPropertyBag(String baggage) {
+    static Map<String, String> getPropertyBag(String baggage) {
 
         Map<String, String> result = new HashMap<String, String>();
 
-        String[] pairs = baggage.split(",");
-        for (String pair : pairs) {
-            String[] keyValuePair = pair.trim().split("=");
-            if (keyValuePair.length == 2) {
-                String key = keyValuePair[0].trim();
-                String value = keyValuePair[1].trim();
-                result.put(key, value);
-            }
+        KeyValuePairReader reader = new KeyValuePairReader(baggage);
+        while (reader.next()) {
+            result.put(reader.key(), reader.value());
         }
 
         return result;
     }
 
+    /**
+     * Walks the "key=value" pairs of a comma separated header without splitting it, so only the keys and
+     * values that are actually used get copied out of the header. A pair is skipped unless it has exactly
+     * one '=' once trailing '=' are ignored, keys and values are trimmed.
+     */
+    private static final class KeyValuePairReader {
+        private final String header;
+        private int position;
+        private int keyStart;
+        private int keyEnd;
+        private int valueStart;
+        private int valueEnd;
+
+        KeyValuePairReader(String header) {
+            this.header = header;
+        }
+
+        boolean next() {
+            while (position <= header.length()) {
+                int start = position;
+                int end = header.indexOf(',', start);
+                if (end < 0) {
+                    end = header.length();
+                }
+                position = end + 1;
+
+                start = skipWhitespace(start, end);
+                end = skipWhitespaceBackwards(start, end);
+                while (end > start && header.charAt(end - 1) == '=') {
+                    end--;
+                }
+
+                int separator = -1;
+                for (int i = start; i < end; i++) {
+                    if (header.charAt(i) == '=') {
+                        if (separator >= 0) {
+                            separator = -1;
+                            break;
+                        }
+                        separator = i;
+                    }
+                }
+                if (separator < 0) {
+                    continue;
+                }
+
+                keyStart = start;
+                keyEnd = skipWhitespaceBackwards(start, separator);
+                valueStart = skipWhitespace(separator + 1, end);
+                valueEnd = skipWhitespaceBackwards(valueStart, end);
+                return true;
+            }
+            return false;
+        }
+
+        boolean isKey(String key) {
+            return key.length() == keyEnd - keyStart && header.regionMatches(keyStart, key, 0, key.length());
+        }
+
+        String key() {
+            return header.substring(keyStart, keyEnd);
+        }
+
+        String value() {
+            return header.substring(valueStart, valueEnd);
+        }
+
+        // same definition of whitespace as String.trim()
+        private int skipWhitespace(int start, int end) {
+            while (start < end && header.charAt(start) <= ' ') {
+                start++;
+            }
+            return start;
+        }
+
+        private int skipWhitespaceBackwards(int start, int end) {
+            while (end > start && header.charAt(end - 1) <= ' ') {
+                end--;
+            }
+            return end;
+        }
+    }
+
 
      static String extractRootId(String parentId) {
         // ported from .NET's System.Diagnostics.Activity.cs implementation:
@@ -389,7 +481,7 @@ public class TelemetryCorrelationUtils {
     }
 
     private static String generateRootId() {
-        return uuidToStringNoDashes(UUID.randomUUID());
+        return IdGenerator.randomHex(16);
     }
 
     static String uuidToStringNoDashes(UUID guid) {
@@ -454,6 +546,6 @@ public class TelemetryCorrelationUtils {
         // using ThreadLocalRandom instead of Random to avoid multi-threaded contention which would
         // result in poor performance.
         int randomNumber = ThreadLocalRandom.current().nextInt();
-        return String.format("%08x", randomNumber);
+        return IdGenerator.toHex(randomNumber);
     }
 }
\ No newline at end of file
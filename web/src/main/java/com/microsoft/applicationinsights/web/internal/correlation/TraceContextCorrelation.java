@@ -490,12 +490,27 @@ public class TraceContextCorrelation {
             throw new NullPointerException("traceparent cannot be null");
         }
 
-        String[] traceparentArr = traceparent.split("-");
-        if (traceparentArr.length != 4) {
+        // trailing empty fields are ignored, as String.split("-") used to
+        int end = traceparent.length();
+        while (end > 0 && traceparent.charAt(end - 1) == '-') {
+            end--;
+        }
+
+        int traceIdStart = traceparent.indexOf('-') + 1;
+        int spanIdStart = traceIdStart > 0 ? traceparent.indexOf('-', traceIdStart) + 1 : 0;
+        int flagsStart = spanIdStart > 0 ? traceparent.indexOf('-', spanIdStart) + 1 : 0;
+        int extraField = flagsStart > 0 ? traceparent.indexOf('-', flagsStart) : -1;
+        if (flagsStart == 0 || flagsStart > end || (extraField >= 0 && extraField < end)) {
             throw new IllegalArgumentException("Invalid traceparent");
         }
 
-        return "|" + traceparentArr[1] + "." + traceparentArr[2] + ".";
+        return new StringBuilder(flagsStart - traceIdStart + 2)
+            .append('|')
+            .append(traceparent, traceIdStart, spanIdStart - 1)
+            .append('.')
+            .append(traceparent, spanIdStart, flagsStart - 1)
+            .append('.')
+            .toString();
     }
 
     public static void setIsW3CBackCompatEnabled(boolean isW3CBackCompatEnabled) {
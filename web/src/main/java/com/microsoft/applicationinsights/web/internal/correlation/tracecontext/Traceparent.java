@@ -1,7 +1,6 @@
 package com.microsoft.applicationinsights.web.internal.correlation.tracecontext;
 
-import java.util.concurrent.ThreadLocalRandom;
-
+import com.microsoft.applicationinsights.internal.util.IdGenerator;
 import org.apache.http.annotation.Experimental;
 
 /**
@@ -34,6 +33,8 @@ public class Traceparent {
      */
     final int traceFlags;
 
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
     private Traceparent(int version, String traceId, String spanId, int traceFlags, boolean check) {
         if (check) {
             validate(version, traceId, spanId, traceFlags);
@@ -106,7 +107,11 @@ public class Traceparent {
      */
     @Override
     public String toString() {
-        return String.format("%02x-%s-%s-%02x", version, traceId, spanId, traceFlags);
+        StringBuilder sb = new StringBuilder(traceId.length() + spanId.length() + 7);
+        appendHexByte(sb, version);
+        sb.append('-').append(traceId).append('-').append(spanId).append('-');
+        appendHexByte(sb, traceFlags);
+        return sb.toString();
     }
 
     /**
@@ -115,13 +120,7 @@ public class Traceparent {
      * @return n byte hexadecimal string
      */
     static String randomHex(int n) {
-        byte[] bytes = new byte[n];
-        ThreadLocalRandom.current().nextBytes(bytes);
-        StringBuilder sb = new StringBuilder();
-        for (byte b : bytes) {
-            sb.append(String.format("%02x", b));
-        }
-        return sb.toString();
+        return IdGenerator.randomHex(n);
     }
 
     /**
@@ -133,50 +132,88 @@ public class Traceparent {
         if (s == null || s.length() == 0) {
             return false;
         }
-        if (s.length() != n) {
+        return isHex(s, 0, s.length(), n);
+    }
+
+    /**
+     * Helper method to check if the characters of s in [start, end) are n lower case hexadecimal digits
+     */
+    private static boolean isHex(CharSequence s, int start, int end, int n) {
+        if (end - start != n) {
             return false;
         }
-        for (int i = 0; i < n; i++) {
-            char c = s.charAt(i);
-            if ('0' <= c && c <= '9') {
-                continue;
+        for (int i = start; i < end; i++) {
+            if (hexValue(s.charAt(i)) < 0) {
+                return false;
             }
-            if ('a' <= c && c <= 'f') {
-                continue;
-            }
-            return false;
         }
         return true;
     }
 
+    private static int hexValue(char c) {
+        if ('0' <= c && c <= '9') {
+            return c - '0';
+        }
+        if ('a' <= c && c <= 'f') {
+            return c - 'a' + 10;
+        }
+        return -1;
+    }
+
+    private static void appendHexByte(StringBuilder sb, int value) {
+        sb.append(HEX_DIGITS[(value >> 4) & 0xf]).append(HEX_DIGITS[value & 0xf]);
+    }
+
     /**
      * Converts traceparent from String to Traceparent object
      *
+     * The header is parsed in a single pass over the dash positions, only the trace id and the span id
+     * are copied out of it. Like the String.split("-") it replaces, trailing empty fields are ignored.
+     *
      * @return Traceparent
      */
     public static Traceparent fromString(String s) {
         if (s == null || s.length() == 0) {
             return null;
         }
-        String[] arr = s.split("-");
-        if (arr.length < 4) {
+
+        int end = s.length();
+        while (end > 0 && s.charAt(end - 1) == '-') {
+            end--;
+        }
+
+        int versionEnd = s.indexOf('-');
+        if (versionEnd < 0 || versionEnd >= end) {
             return null;
         }
-        if (!isHex(arr[0], 2)) {
+        int traceIdEnd = s.indexOf('-', versionEnd + 1);
+        if (traceIdEnd < 0 || traceIdEnd >= end) {
+            return null;
+        }
+        int spanIdEnd = s.indexOf('-', traceIdEnd + 1);
+        if (spanIdEnd < 0 || spanIdEnd >= end) {
+            return null;
+        }
+        int flagsEnd = s.indexOf('-', spanIdEnd + 1);
+        if (flagsEnd < 0 || flagsEnd > end) {
+            flagsEnd = end;
+        }
+
+        if (!isHex(s, 0, versionEnd, 2)) {
             return null;
         }
-        if (arr[0].equals("00") && arr.length > 4) {
+        if (s.charAt(0) == '0' && s.charAt(1) == '0' && flagsEnd < end) {
             return null;
         }
-        if (!isHex(arr[3], 2)) {
+        if (!isHex(s, spanIdEnd + 1, flagsEnd, 2)) {
             return null;
         }
 
         return new Traceparent(
-            (Character.digit(arr[0].charAt(0), 16) << 4) + Character.digit(arr[0].charAt(1), 16),
-            arr[1],
-            arr[2],
-            (Character.digit(arr[3].charAt(0), 16) << 4) + Character.digit(arr[3].charAt(1), 16));
+            (hexValue(s.charAt(0)) << 4) + hexValue(s.charAt(1)),
+            s.substring(versionEnd + 1, traceIdEnd),
+            s.substring(traceIdEnd + 1, spanIdEnd),
+            (hexValue(s.charAt(spanIdEnd + 1)) << 4) + hexValue(s.charAt(spanIdEnd + 2)));
     }
 
 }
@@ -2,8 +2,6 @@ package com.microsoft.applicationinsights.web.internal.correlation.tracecontext;
 
 import java.util.LinkedHashMap;
 import java.util.Map;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
 
 import org.apache.http.annotation.Experimental;
 
@@ -19,19 +17,20 @@ import org.apache.http.annotation.Experimental;
 @Experimental
 public class Tracestate {
 
-    private static String KEY_WITHOUT_VENDOR_FORMAT = "[a-z][_0-9a-z\\-\\*\\/]{0,255}";
-    private static String KEY_WITH_VENDOR_FORMAT = "[a-z][_0-9a-z\\-\\*\\/]{0,240}@[a-z][_0-9a-z\\-\\*\\/]{0,13}";
-    private static String KEY_FORMAT = KEY_WITHOUT_VENDOR_FORMAT + "|" + KEY_WITH_VENDOR_FORMAT;
-    private static String VALUE_FORMAT = "[\\x20-\\x2b\\x2d-\\x3c\\x3e-\\x7e]{0,255}[\\x21-\\x2b\\x2d-\\x3c\\x3e-\\x7e]";
-
-    private static Pattern KEY_VALIDATION_RE = Pattern.compile("^" + KEY_FORMAT + "$");
-    private static Pattern VALUE_VALIDATION_RE = Pattern.compile("^" + VALUE_FORMAT + "$");
-
-    private static String DELIMITER_FORMAT = "[ \\t]*,[ \\t]*";
-    private static String MEMBER_FORMAT = String.format("(%s)(=)(%s)", KEY_FORMAT, VALUE_FORMAT);
-
-    private static Pattern DELIMITER_FORMAT_RE = Pattern.compile(DELIMITER_FORMAT);
-    private static Pattern MEMBER_FORMAT_RE = Pattern.compile("^" + MEMBER_FORMAT + "$");
+    /*
+     * The header is validated by hand rather than with regular expressions, it is parsed for every
+     * incoming request. The grammar is:
+     *
+     * key       = [a-z][_0-9a-z\-\*\/]{0,255}
+     *           | [a-z][_0-9a-z\-\*\/]{0,240}@[a-z][_0-9a-z\-\*\/]{0,13}
+     * value     = [\x20-\x2b\x2d-\x3c\x3e-\x7e]{0,255}[\x21-\x2b\x2d-\x3c\x3e-\x7e]
+     * member    = key=value
+     * delimiter = [ \t]*,[ \t]*
+     */
+    private static final int MAX_KEY_LENGTH = 256;
+    private static final int MAX_TENANT_ID_LENGTH = 241;
+    private static final int MAX_VENDOR_ID_LENGTH = 14;
+    private static final int MAX_VALUE_LENGTH = 256;
 
     private static final int MAX_KEY_VALUE_PAIRS = 32;
 
@@ -54,18 +53,29 @@ public class Tracestate {
             throw new IllegalArgumentException("input is null");
         }
 
-        String[] values = DELIMITER_FORMAT_RE.split(input);
-        for (String item : values) {
-            Matcher m = MEMBER_FORMAT_RE.matcher(item);
-            if (!m.find()) {
-                throw new IllegalArgumentException(String.format("invalid string %s in tracestate", item));
+        int comma = input.indexOf(',');
+        if (comma < 0) {
+            addMember(input, 0, input.length());
+        } else {
+            // empty members are only allowed at the end of the header
+            boolean pendingEmptyMember = false;
+            int start = 0;
+            for (;;) {
+                int end = comma < 0 ? input.length() : trimDelimiterBefore(input, comma);
+                if (end <= start) {
+                    pendingEmptyMember = true;
+                } else {
+                    if (pendingEmptyMember) {
+                        throw invalidMember("");
+                    }
+                    addMember(input, start, end);
+                }
+                if (comma < 0) {
+                    break;
+                }
+                start = trimDelimiterAfter(input, comma + 1);
+                comma = input.indexOf(',', start);
             }
-            String key = m.group(1);
-            String value = m.group(3);
-            if (internalList.get(key) != null) {
-                throw new IllegalArgumentException(String.format("duplicated keys %s in tracestate", key));
-            }
-            internalList.put(key, value);
         }
         if (internalList.size() > MAX_KEY_VALUE_PAIRS) {
             throw new IllegalArgumentException(String.format("cannot have more than %d key-value pairs", MAX_KEY_VALUE_PAIRS));
@@ -80,14 +90,14 @@ public class Tracestate {
         if (key == null) {
             throw new IllegalArgumentException("key is null");
         }
-        if (!KEY_VALIDATION_RE.matcher(key).find()) {
+        if (!isValidKey(key, 0, key.length())) {
             throw new IllegalArgumentException("invalid key format");
         }
         if (value == null) {
             throw new IllegalArgumentException("value is null");
 
         }
-        if (!VALUE_VALIDATION_RE.matcher(value).find()) {
+        if (!isValidValue(value, 0, value.length())) {
             throw new IllegalArgumentException("invalid value format");
         }
         internalList.put(key, value);
@@ -123,6 +133,86 @@ public class Tracestate {
         return new Tracestate(s);
     }
 
+    private void addMember(String input, int start, int end) {
+        int equals = input.indexOf('=', start);
+        if (equals < 0 || equals >= end || !isValidKey(input, start, equals) || !isValidValue(input, equals + 1, end)) {
+            throw invalidMember(input.substring(start, end));
+        }
+        String key = input.substring(start, equals);
+        if (internalList.containsKey(key)) {
+            throw new IllegalArgumentException(String.format("duplicated keys %s in tracestate", key));
+        }
+        internalList.put(key, input.substring(equals + 1, end));
+    }
+
+    private static IllegalArgumentException invalidMember(String member) {
+        return new IllegalArgumentException(String.format("invalid string %s in tracestate", member));
+    }
+
+    private static int trimDelimiterBefore(String s, int index) {
+        while (index > 0 && isDelimiterWhitespace(s.charAt(index - 1))) {
+            --index;
+        }
+        return index;
+    }
+
+    private static int trimDelimiterAfter(String s, int index) {
+        while (index < s.length() && isDelimiterWhitespace(s.charAt(index))) {
+            ++index;
+        }
+        return index;
+    }
+
+    private static boolean isDelimiterWhitespace(char c) {
+        return c == ' ' || c == '\t';
+    }
+
+    private static boolean isValidKey(String s, int start, int end) {
+        int at = -1;
+        for (int i = start; i < end; i++) {
+            if (s.charAt(i) == '@') {
+                at = i;
+                break;
+            }
+        }
+        if (at < 0) {
+            return isValidKeyPart(s, start, end, MAX_KEY_LENGTH);
+        }
+        return isValidKeyPart(s, start, at, MAX_TENANT_ID_LENGTH) && isValidKeyPart(s, at + 1, end, MAX_VENDOR_ID_LENGTH);
+    }
+
+    private static boolean isValidKeyPart(String s, int start, int end, int maxLength) {
+        int length = end - start;
+        if (length < 1 || length > maxLength) {
+            return false;
+        }
+        char first = s.charAt(start);
+        if (first < 'a' || first > 'z') {
+            return false;
+        }
+        for (int i = start + 1; i < end; i++) {
+            char c = s.charAt(i);
+            if (!(('a' <= c && c <= 'z') || ('0' <= c && c <= '9') || c == '_' || c == '-' || c == '*' || c == '/')) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isValidValue(String s, int start, int end) {
+        int length = end - start;
+        if (length < 1 || length > MAX_VALUE_LENGTH) {
+            return false;
+        }
+        for (int i = start; i < end; i++) {
+            char c = s.charAt(i);
+            if (c < 0x20 || c > 0x7e || c == ',' || c == '=') {
+                return false;
+            }
+        }
+        return s.charAt(end - 1) != ' ';
+    }
+
     private String toInternalString() {
         boolean isFirst = true;
         StringBuilder stringBuilder = new StringBuilder(512);
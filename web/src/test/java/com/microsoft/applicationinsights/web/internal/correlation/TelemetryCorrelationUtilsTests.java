@@ -31,6 +31,7 @@ import com.microsoft.applicationinsights.web.internal.RequestTelemetryContext;
 import com.microsoft.applicationinsights.web.internal.ThreadContext;
 import com.microsoft.applicationinsights.web.utils.ServletUtils;
 import java.util.Hashtable;
+import java.util.Map;
 import java.util.UUID;
 import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
@@ -97,6 +98,23 @@ public class TelemetryCorrelationUtilsTests {
         assertFalse(TelemetryCorrelationUtils.isHierarchicalId(id));
     }
 
+    @Test
+    public void testPropertyBagIsParsed() {
+        Map<String, String> bag = TelemetryCorrelationUtils.getPropertyBag(" key1 = value1 ,key2=value2==, key3=a=b, key4, =value5, key1=value6");
+
+        assertEquals(3, bag.size());
+        assertEquals("value6", bag.get("key1"));
+        assertEquals("value2", bag.get("key2"));
+        assertEquals("value5", bag.get(""));
+    }
+
+    @Test
+    public void testPropertyBagIsEmptyForMalformedHeader() {
+        assertTrue(TelemetryCorrelationUtils.getPropertyBag("").isEmpty());
+        assertTrue(TelemetryCorrelationUtils.getPropertyBag(",,").isEmpty());
+        assertTrue(TelemetryCorrelationUtils.getPropertyBag("key1, key2==value2").isEmpty());
+    }
+
     @Test
     public void testCorrelationIdsAreResolved() {
 
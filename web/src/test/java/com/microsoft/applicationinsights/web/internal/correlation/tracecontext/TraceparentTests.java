@@ -113,4 +113,27 @@ public class TraceparentTests {
         Traceparent t1 = Traceparent.fromString("");
         Assert.assertNull(t1);
     }
+
+    @Test
+    public void canConvertTraceParentToString() {
+        Traceparent t1 = new Traceparent(0, "0af7651916cd43dd8448eb211c80319c", "b7ad6b7169203331", 1);
+        Assert.assertEquals("00-0af7651916cd43dd8448eb211c80319c-b7ad6b7169203331-01", t1.toString());
+    }
+
+    @Test
+    public void canCreateTraceParentFromFutureVersionString() {
+        Traceparent t1 = Traceparent.fromString("cc-0af7651916cd43dd8448eb211c80319c-b7ad6b7169203331-ff-future");
+        Assert.assertEquals(0xcc, t1.version);
+        Assert.assertEquals("0af7651916cd43dd8448eb211c80319c", t1.traceId);
+        Assert.assertEquals("b7ad6b7169203331", t1.spanId);
+        Assert.assertEquals(0xff, t1.traceFlags);
+    }
+
+    @Test
+    public void returnsNullTraceParentWhenTryingToCreateFromMalformedString() {
+        Assert.assertNull(Traceparent.fromString("00-0af7651916cd43dd8448eb211c80319c-b7ad6b7169203331"));
+        Assert.assertNull(Traceparent.fromString("00-0af7651916cd43dd8448eb211c80319c-b7ad6b7169203331-01-extra"));
+        Assert.assertNull(Traceparent.fromString("0A-0af7651916cd43dd8448eb211c80319c-b7ad6b7169203331-01"));
+        Assert.assertNull(Traceparent.fromString("00-0af7651916cd43dd8448eb211c80319c-b7ad6b7169203331-1"));
+    }
 }
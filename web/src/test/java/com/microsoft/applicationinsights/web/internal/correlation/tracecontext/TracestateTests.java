@@ -21,4 +21,52 @@ public class TracestateTests {
         Tracestate t1 = new Tracestate(tracestate);
         Assert.assertEquals(tracestate, t1.toString());
     }
+
+    @Test
+    public void canCreateTraceStateWithMultipleMembers() {
+        Tracestate t1 = new Tracestate("az=cid-v1:120 ,\tcongo@t61=lZWRzIHRoNhcm5hbCBwbGVhc3VyZS4, ,");
+        Assert.assertEquals("cid-v1:120", t1.get("az"));
+        Assert.assertEquals("lZWRzIHRoNhcm5hbCBwbGVhc3VyZS4", t1.get("congo@t61"));
+        Assert.assertEquals("az=cid-v1:120,congo@t61=lZWRzIHRoNhcm5hbCBwbGVhc3VyZS4", t1.toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void throwsWhenTracestateHasEmptyMember() {
+        new Tracestate("az=cid-v1:120,,foo=bar");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void throwsWhenTracestateHasDuplicatedKeys() {
+        new Tracestate("az=cid-v1:120,az=cid-v1:121");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void throwsWhenTracestateHasInvalidKey() {
+        new Tracestate("Az=cid-v1:120");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void throwsWhenTracestateHasInvalidValue() {
+        new Tracestate("az=cid-v1:120 ");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void throwsWhenTracestateHasTooManyMembers() {
+        StringBuilder tracestate = new StringBuilder("k0=v");
+        for (int i = 1; i <= 32; i++) {
+            tracestate.append(",k").append(i).append("=v");
+        }
+        new Tracestate(tracestate.toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void throwsWhenAddingInvalidKey() {
+        new Tracestate(new Tracestate("az=cid-v1:120"), "foo@", "bar");
+    }
+
+    @Test
+    public void canAddMemberToParent() {
+        Tracestate t1 = new Tracestate(new Tracestate("az=cid-v1:120,foo=bar"), "az", "cid-v1:121");
+        Assert.assertEquals("az=cid-v1:121,foo=bar", t1.toString());
+    }
 }